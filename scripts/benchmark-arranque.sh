@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+# -------------------------------------------------------------------
+# Benchmark de arranque: tiempo hasta readiness UP y RSS del proceso para
+# cada modo de imagen:
+#   jar     java -jar sin código AOT ni archivo CDS (como el Dockerfile antes del perfil aot)
+#   aot-cds imagen del Dockerfile (código AOT + archivo CDS)
+#   native  imagen de Dockerfile.native (solo si se pasa --native)
+#
+# Necesita PostgreSQL y RabbitMQ alcanzables desde los contenedores; sus
+# variables (SPRING_DATASOURCE_URL, SPRING_RABBITMQ_HOST...) se leen de un
+# env-file de Docker:
+#   scripts/benchmark-arranque.sh --env-file bench.env [--repeticiones 5] [--native]
+# -------------------------------------------------------------------
+set -euo pipefail
+
+ENV_FILE=""
+REPETICIONES=5
+CON_NATIVA=false
+IMAGEN=arcbank-service-transacciones
+PUERTO=18080
+TIMEOUT_S=300
+
+while [[ $# -gt 0 ]]; do
+    case "$1" in
+        --env-file) ENV_FILE="$2"; shift 2 ;;
+        --repeticiones) REPETICIONES="$2"; shift 2 ;;
+        --native) CON_NATIVA=true; shift ;;
+        *) echo "Opción desconocida: $1" >&2; exit 2 ;;
+    esac
+done
+[[ -n "$ENV_FILE" ]] || { echo "Falta --env-file" >&2; exit 2; }
+
+cd "$(dirname "$0")/.."
+
+echo "🔨 Construyendo imágenes..."
+docker build -q -t "$IMAGEN:aot-cds" . > /dev/null
+if $CON_NATIVA; then
+    docker build -q -f Dockerfile.native -t "$IMAGEN:native" . > /dev/null
+fi
+
+# Milisegundos desde docker run hasta readiness UP, y RSS en MB del proceso (PID 1) en ese momento.
+# Argumentos: imagen [entrypoint [argumentos...]]
+medir() {
+    local imagen="$1"; shift
+    local nombre="bench-arranque-$$"
+    local inicio fin rss
+    local opciones=(-d --rm --name "$nombre" --env-file "$ENV_FILE" -p "$PUERTO:8080")
+    if [[ $# -gt 0 ]]; then
+        opciones+=(--entrypoint "$1"); shift
+    fi
+    inicio=$(date +%s%N)
+    docker run "${opciones[@]}" "$imagen" "$@" > /dev/null
+    until curl -fs "http://localhost:$PUERTO/actuator/health/readiness" 2>/dev/null | grep -q '"UP"'; do
+        if (( ($(date +%s%N) - inicio) / 1000000000 > TIMEOUT_S )); then
+            docker logs --tail 30 "$nombre" >&2
+            docker rm -f "$nombre" > /dev/null
+            echo "❌ $imagen no quedó listo en ${TIMEOUT_S}s" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    fin=$(date +%s%N)
+    rss=$(docker exec "$nombre" sh -c "grep VmRSS /proc/1/status" | awk '{print int($2 / 1024)}')
+    docker rm -f "$nombre" > /dev/null
+    echo "$(( (fin - inicio) / 1000000 )) $rss"
+}
+
+mediana() {
+    sort -n | awk '{v[NR] = $1} END {print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2)}'
+}
+
+ejecutar() {
+    local modo="$1"; shift
+    local tiempos=() memorias=() resultado
+    for ((i = 1; i <= REPETICIONES; i++)); do
+        resultado=$(medir "$@")
+        tiempos+=("${resultado% *}")
+        memorias+=("${resultado#* }")
+        echo "   $modo #$i: ${resultado% *} ms, ${resultado#* } MB" >&2
+    done
+    printf "%-8s %14s %14s\n" "$modo" \
+        "$(printf '%s\n' "${tiempos[@]}" | mediana)" "$(printf '%s\n' "${memorias[@]}" | mediana)"
+}
+
+echo "⏱️  $REPETICIONES arranques por modo (mediana)"
+printf "%-8s %14s %14s\n" "modo" "listo (ms)" "RSS (MB)"
+# Misma imagen que aot-cds, arrancada sin el archivo CDS de la aplicación y sin el código AOT
+ejecutar jar "$IMAGEN:aot-cds" java -XX:+UseContainerSupport -XX:MaxRAMPercentage=75.0 -jar extraido/app.jar
+ejecutar aot-cds "$IMAGEN:aot-cds"
+if $CON_NATIVA; then
+    ejecutar native "$IMAGEN:native"
+fi
@@ -5,11 +5,17 @@ import java.util.TimeZone;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.arcbank.cbs.transaccion.config.HintsNativos;
 
 import jakarta.annotation.PostConstruct;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
+@ImportRuntimeHints(HintsNativos.class)
 public class TransaccionApplication {
 
     public static void main(String[] args) {
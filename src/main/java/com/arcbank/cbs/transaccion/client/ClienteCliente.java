@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 @FeignClient(name = "ms-clientes", url = "${app.feign.clientes-url:http://localhost:8080}")
 public interface ClienteCliente {
 
+    @LecturaIdempotente
     @GetMapping("/api/v1/clientes/{id}")
     Map<String, Object> obtenerCliente(@PathVariable("id") Integer id);
 }
@@ -1,6 +1,5 @@
 package com.arcbank.cbs.transaccion.client;
 
-import java.math.BigDecimal;
 import java.util.Map;
 
 import org.springframework.cloud.openfeign.FeignClient;
@@ -10,19 +9,23 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import com.arcbank.cbs.transaccion.dto.SaldoDTO;
+import com.arcbank.cbs.transaccion.model.Dinero;
 
 @FeignClient(name = "ms-cuentas", url = "${app.feign.cuentas-url:http://localhost:8081}")
 public interface CuentaCliente {
 
+    @LecturaIdempotente
     @GetMapping("/api/v1/cuentas/ahorros/{id}/saldo")
-    BigDecimal obtenerSaldo(@PathVariable("id") Integer id);
+    Dinero obtenerSaldo(@PathVariable("id") Integer id);
 
     @PutMapping("/api/v1/cuentas/ahorros/{id}/saldo")
     void actualizarSaldo(@PathVariable("id") Integer id, @RequestBody SaldoDTO saldoDTO);
 
+    @LecturaIdempotente
     @GetMapping("/api/v1/cuentas/ahorros/{id}")
     Map<String, Object> obtenerCuenta(@PathVariable("id") Integer id);
 
+    @LecturaIdempotente
     @GetMapping("/api/v1/cuentas/ahorros/buscar/{numeroCuenta}")
     Map<String, Object> buscarPorNumero(@PathVariable("numeroCuenta") String numeroCuenta);
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.arcbank.cbs.transaccion.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Método Feign de solo lectura que se puede repetir sin efectos: admite una petición de cobertura
+ * (hedging) si la primera tarda más de lo habitual. Ver CoberturaLecturas.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LecturaIdempotente {
+}
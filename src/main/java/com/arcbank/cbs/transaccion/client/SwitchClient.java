@@ -19,6 +19,7 @@ public interface SwitchClient {
         String enviarTransferencia(@RequestBody SwitchTransferRequest request);
 
         // RF-04: Consulta de estado
+        @LecturaIdempotente
         @GetMapping("/api/v2/switch/transfers/{instructionId}")
         Map<String, Object> consultarEstado(@PathVariable("instructionId") String instructionId);
 
@@ -0,0 +1,39 @@
+package com.arcbank.cbs.transaccion.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@RequiredArgsConstructor
+public class AdmisionConfig implements WebMvcConfigurer {
+
+    private final AdmisionInterceptor admisionInterceptor;
+
+    // static: el interceptor depende de estos beans y la configuración depende del interceptor
+    @Bean
+    @ConfigurationProperties("app.admision")
+    public static ControlAdmision.Propiedades propiedadesAdmision() {
+        return new ControlAdmision.Propiedades();
+    }
+
+    @Bean
+    public static ControlAdmision controlAdmision(ControlAdmision.Propiedades propiedadesAdmision, MeterRegistry registry) {
+        return new ControlAdmision(propiedadesAdmision, registry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Los lotes tienen su propio ejecutor acotado y el streaming NDJSON es de larga duración; las
+        // suscripciones de estado son conexiones en espera acotadas por el hub
+        registry.addInterceptor(admisionInterceptor)
+                .addPathPatterns("/api/transacciones/**", "/api/core/**", "/api/incoming/**")
+                .excludePathPatterns("/api/transacciones/lotes/**", "/api/transacciones/*/estado/**",
+                        "/api/transacciones/buscar/*/estado/**");
+    }
+}
@@ -0,0 +1,169 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.lang.reflect.Type;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import com.arcbank.cbs.transaccion.dto.TransaccionRequestDTO;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Aplica el control de admisión antes de entrar al controlador. La clase se deduce de la ruta,
+ * salvo en POST /api/transacciones, donde depende del canal y del tipo de operación del cuerpo: ese
+ * permiso se pide en {@link #afterBodyRead} ya con el DTO enlazado. La clase también queda como
+ * carril del hilo (CarrilEjecucion) mientras dura la petición, y su latencia se mide por carril.
+ * El plazo de la petición (PlazoEjecucion) sale de la cabecera del llamante, acotado a un máximo, o del
+ * plazo por defecto.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class AdmisionInterceptor extends RequestBodyAdviceAdapter implements HandlerInterceptor {
+
+    private static final String ATRIBUTO_CLASE = AdmisionInterceptor.class.getName() + ".clase";
+    private static final String ATRIBUTO_PERMISO = AdmisionInterceptor.class.getName() + ".permiso";
+    private static final String ATRIBUTO_INICIO = AdmisionInterceptor.class.getName() + ".inicio";
+    private static final Set<String> CANALES_PRESENCIALES = Set.of("VENTANILLA", "ATM");
+
+    private final ControlAdmision controlAdmision;
+
+    // 0 = sin plazo salvo que lo mande el llamante
+    @Value("${app.plazos.por-defecto-ms:0}")
+    private long plazoPorDefectoMs;
+
+    @Value("${app.plazos.maximo-ms:60000}")
+    private long plazoMaximoMs;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod metodo) || request.getAttribute(ATRIBUTO_INICIO) != null) {
+            return true;
+        }
+        request.setAttribute(ATRIBUTO_INICIO, System.nanoTime());
+        fijarPlazo(request);
+        if (clasificaPorCuerpo(metodo)) {
+            return true;
+        }
+        asignar(request, clasificar(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        CarrilEjecucion.limpiar();
+        PlazoEjecucion.limpiar();
+        ControlAdmision.Clase clase = (ControlAdmision.Clase) request.getAttribute(ATRIBUTO_CLASE);
+        Object inicio = request.getAttribute(ATRIBUTO_INICIO);
+        if (clase != null && inicio != null) {
+            controlAdmision.registrarLatencia(clase, System.nanoTime() - (Long) inicio);
+        }
+        Object permiso = request.getAttribute(ATRIBUTO_PERMISO);
+        if (permiso == null) {
+            return;
+        }
+        request.removeAttribute(ATRIBUTO_PERMISO);
+        // Solo los 5xx indican que aguas abajo no da abasto; los rechazos de negocio no cuentan
+        boolean fallida = ex != null || response.getStatus() >= 500;
+        controlAdmision.liberar(clase, (LimiteAdaptativo.Permiso) permiso, fallida);
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+            Class<? extends HttpMessageConverter<?>> converterType) {
+        return TransaccionRequestDTO.class.equals(methodParameter.getParameterType());
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+            Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos
+                && atributos.getAttribute(ATRIBUTO_INICIO, RequestAttributes.SCOPE_REQUEST) != null
+                && atributos.getAttribute(ATRIBUTO_CLASE, RequestAttributes.SCOPE_REQUEST) == null) {
+            asignar(atributos.getRequest(), clasificar((TransaccionRequestDTO) body));
+        }
+        return body;
+    }
+
+    private void fijarPlazo(HttpServletRequest request) {
+        long plazo = plazoPorDefectoMs;
+        String cabecera = request.getHeader(PlazoEjecucion.CABECERA);
+        if (cabecera != null) {
+            try {
+                plazo = Long.parseLong(cabecera.trim());
+            } catch (NumberFormatException e) {
+                // Cabecera mal formada: se queda el plazo por defecto
+            }
+        }
+        if (plazo > 0) {
+            PlazoEjecucion.establecerEn(Math.min(plazo, plazoMaximoMs));
+        } else {
+            PlazoEjecucion.limpiar();
+        }
+    }
+
+    private void asignar(HttpServletRequest request, ControlAdmision.Clase clase) {
+        request.setAttribute(ATRIBUTO_CLASE, clase);
+        CarrilEjecucion.establecer(clase);
+        if (!controlAdmision.habilitada()) {
+            return;
+        }
+        try {
+            request.setAttribute(ATRIBUTO_PERMISO, controlAdmision.adquirir(clase));
+        } catch (RuntimeException e) {
+            CarrilEjecucion.limpiar();
+            throw e;
+        }
+    }
+
+    private static ControlAdmision.Clase clasificar(TransaccionRequestDTO dto) {
+        // El canal manda sobre el tipo: un ATM no espera detrás de las transferencias web
+        if (dto.getCanal() != null && CANALES_PRESENCIALES.contains(dto.getCanal().toUpperCase())) {
+            return ControlAdmision.Clase.PRESENCIAL;
+        }
+        return TipoOperacion.desde(dto.getTipoOperacion()).filter(TipoOperacion::esSalidaInterbancaria).isPresent()
+                ? ControlAdmision.Clase.ENVIO_INTERBANCARIO
+                : ControlAdmision.Clase.POSTEO_LOCAL;
+    }
+
+    private static boolean clasificaPorCuerpo(HandlerMethod metodo) {
+        for (MethodParameter parametro : metodo.getMethodParameters()) {
+            if (parametro.hasParameterAnnotation(RequestBody.class)
+                    && TransaccionRequestDTO.class.equals(parametro.getParameterType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ControlAdmision.Clase clasificar(HttpServletRequest request) {
+        String ruta = request.getRequestURI();
+        boolean lectura = "GET".equals(request.getMethod());
+        if (!lectura && (ruta.startsWith("/api/core/") || ruta.startsWith("/api/incoming/"))) {
+            return ControlAdmision.Clase.CREDITO_ENTRANTE;
+        }
+        if (lectura || ruta.endsWith("/validar-cuenta")) {
+            return ControlAdmision.Clase.CONSULTA;
+        }
+        // Las devoluciones se resuelven contra el Switch
+        if (ruta.endsWith("/devolucion")) {
+            return ControlAdmision.Clase.ENVIO_INTERBANCARIO;
+        }
+        return ControlAdmision.Clase.POSTEO_LOCAL;
+    }
+}
@@ -0,0 +1,47 @@
+package com.arcbank.cbs.transaccion.config;
+
+import com.arcbank.cbs.transaccion.exception.SobrecargaException;
+
+import feign.Capability;
+import feign.Client;
+
+// Llamadas Feign (Cuentas, Clientes, Switch) repartidas por carril: un Switch lento no ocupa los permisos
+// reservados para ventanilla/ATM
+public class CapacidadRemotaPorCarril implements Capability {
+
+    private final ReparticionPonderada reparticion;
+    private final boolean habilitada;
+    private final long esperaMs;
+
+    public CapacidadRemotaPorCarril(ReparticionPonderada reparticion, boolean habilitada, long esperaMs) {
+        this.reparticion = reparticion;
+        this.habilitada = habilitada;
+        this.esperaMs = esperaMs;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        if (!habilitada) {
+            return client;
+        }
+        return (request, options) -> {
+            ControlAdmision.Clase carril = CarrilEjecucion.actual();
+            if (carril == null) {
+                return client.execute(request, options);
+            }
+            try {
+                if (!reparticion.adquirir(carril, esperaMs)) {
+                    throw new SobrecargaException(503, 1, "Capacidad hacia servicios remotos agotada para " + carril);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SobrecargaException(503, 1, "Interrumpido esperando capacidad remota");
+            }
+            try {
+                return client.execute(request, options);
+            } finally {
+                reparticion.liberar(carril);
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.arcbank.cbs.transaccion.config;
+
+/**
+ * Carril (clase de operación) del hilo actual. Lo fija el interceptor de admisión para las peticiones
+ * HTTP y los workers para su propio trabajo; las conexiones de BD y las llamadas remotas se reparten
+ * según este valor. Un hilo sin carril (jobs programados) no pasa por el reparto.
+ */
+public final class CarrilEjecucion {
+
+    private static final ThreadLocal<ControlAdmision.Clase> ACTUAL = new ThreadLocal<>();
+
+    private CarrilEjecucion() {
+    }
+
+    public static ControlAdmision.Clase actual() {
+        return ACTUAL.get();
+    }
+
+    public static void establecer(ControlAdmision.Clase clase) {
+        ACTUAL.set(clase);
+    }
+
+    public static void limpiar() {
+        ACTUAL.remove();
+    }
+}
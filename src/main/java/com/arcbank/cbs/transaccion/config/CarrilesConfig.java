@@ -0,0 +1,42 @@
+package com.arcbank.cbs.transaccion.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class CarrilesConfig {
+
+    @Bean
+    @ConfigurationProperties("app.carriles")
+    public ReparticionPonderada.Propiedades propiedadesCarriles() {
+        return new ReparticionPonderada.Propiedades();
+    }
+
+    // Mismo total que el pool primario: la espera por carril sustituye a la cola única de Hikari
+    @Bean
+    public ReparticionPonderada reparticionConexiones(ReparticionPonderada.Propiedades propiedadesCarriles,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int tamanoPool, MeterRegistry registry) {
+        return new ReparticionPonderada("bd", tamanoPool, propiedadesCarriles, registry);
+    }
+
+    @Bean
+    public ReparticionPonderada reparticionRemota(ReparticionPonderada.Propiedades propiedadesCarriles,
+            MeterRegistry registry) {
+        return new ReparticionPonderada("remoto", propiedadesCarriles.getPermisosRemotos(), propiedadesCarriles,
+                registry);
+    }
+
+    // Sin @ConditionalOnProperty: con AOT la condición quedaría fija en la imagen
+    @Bean
+    public CapacidadRemotaPorCarril capacidadRemotaPorCarril(
+            @Qualifier("reparticionRemota") ReparticionPonderada reparticionRemota,
+            ReparticionPonderada.Propiedades propiedadesCarriles) {
+        return new CapacidadRemotaPorCarril(reparticionRemota, propiedadesCarriles.isHabilitada(),
+                propiedadesCarriles.getEsperaRemotaMs());
+    }
+}
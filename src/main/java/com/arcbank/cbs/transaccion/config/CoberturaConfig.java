@@ -0,0 +1,44 @@
+package com.arcbank.cbs.transaccion.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import com.arcbank.cbs.transaccion.client.LecturaIdempotente;
+
+import feign.MethodMetadata;
+import feign.RequestInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class CoberturaConfig {
+
+    @Bean
+    @ConfigurationProperties("app.cobertura")
+    public CoberturaLecturas.Propiedades propiedadesCobertura() {
+        return new CoberturaLecturas.Propiedades();
+    }
+
+    // Sin @ConditionalOnProperty: con AOT la condición quedaría fija en la imagen
+    @Bean
+    public CoberturaLecturas coberturaLecturas(CoberturaLecturas.Propiedades propiedadesCobertura,
+            @Qualifier("coberturaExecutor") AsyncTaskExecutor coberturaExecutor, MeterRegistry registry) {
+        return new CoberturaLecturas(propiedadesCobertura, coberturaExecutor, registry);
+    }
+
+    // El servicio llamado recibe lo que le queda a esta petición y no trabaja para un llamante que ya se rindió.
+    // Solo en lecturas: una escritura abandonada a medias por el otro lado queda en estado desconocido
+    @Bean
+    public RequestInterceptor plazoRequestInterceptor() {
+        return template -> {
+            long restante = PlazoEjecucion.restanteMs();
+            MethodMetadata metadata = template.methodMetadata();
+            if (restante > 0 && metadata != null && metadata.method() != null
+                    && metadata.method().isAnnotationPresent(LecturaIdempotente.class)) {
+                template.header(PlazoEjecucion.CABECERA, String.valueOf(restante));
+            }
+        };
+    }
+}
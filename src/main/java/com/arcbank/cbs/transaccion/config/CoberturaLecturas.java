@@ -0,0 +1,299 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import com.arcbank.cbs.transaccion.client.LecturaIdempotente;
+import com.arcbank.cbs.transaccion.exception.SobrecargaException;
+
+import feign.Capability;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+
+/**
+ * Lecturas Feign {@link LecturaIdempotente} con plazo y petición de cobertura:
+ * <ul>
+ * <li>Plazo: si el hilo tiene {@link PlazoEjecucion}, los timeouts de la llamada se recortan a lo que
+ * queda, y si ya no queda nada se falla sin llamar (504). Las escrituras no se tocan: un timeout recortado
+ * deja un débito o un envío al Switch en estado desconocido, y cortarla a medias es peor que terminarla.</li>
+ * <li>Cobertura (hedging): la lectura sale en otro hilo. Si no responde antes del percentil configurado
+ * de la latencia reciente de ese método, sale una segunda petición igual. Gana la primera respuesta
+ * no-5xx y la otra se cancela: se interrumpe su hilo virtual, lo que cierra el socket.</li>
+ * </ul>
+ * Cada lectura recarga una fracción de cobertura en un presupuesto global, y cada cobertura gasta una
+ * entera. Con el 5% solo una de cada veinte lecturas puede duplicarse, así que un servicio lento no
+ * recibe el doble de carga. Sin historial suficiente del método, la llamada va directa en el hilo actual.
+ */
+public class CoberturaLecturas implements Capability {
+
+    @Data
+    public static class Propiedades {
+        private boolean habilitada;
+        private double percentil = 0.95;
+        private long retrasoMinimoMs = 10;
+        private long retrasoMaximoMs = 2000;
+        private int muestrasMinimas = 64;
+        // Coberturas por cada 100 lecturas cubribles y cuántas se pueden acumular sin usar
+        private double porcentajePresupuesto = 5;
+        private int rafagaPresupuesto = 20;
+    }
+
+    private static final int VENTANA = 512;
+    private static final int RECALCULO = 64;
+    private static final long UNIDAD = 1000; // Presupuesto en milésimas de cobertura
+
+    private final Propiedades propiedades;
+    private final AsyncTaskExecutor executor;
+    private final Map<Method, Boolean> cubribles = new ConcurrentHashMap<>();
+    private final Map<String, EstimadorLatencia> estimadores = new ConcurrentHashMap<>();
+    private final AtomicLong presupuesto = new AtomicLong();
+    private final long deposito;
+    private final long tope;
+    private final Counter lanzadas;
+    private final Counter ganadas;
+    private final Counter sinPresupuesto;
+
+    public CoberturaLecturas(Propiedades propiedades, AsyncTaskExecutor executor, MeterRegistry registry) {
+        this.propiedades = propiedades;
+        this.executor = executor;
+        this.deposito = Math.round(propiedades.getPorcentajePresupuesto() / 100 * UNIDAD);
+        this.tope = propiedades.getRafagaPresupuesto() * UNIDAD;
+        this.lanzadas = Counter.builder("arcbank.feign.cobertura").tag("resultado", "lanzada").register(registry);
+        this.ganadas = Counter.builder("arcbank.feign.cobertura").tag("resultado", "gano").register(registry);
+        this.sinPresupuesto = Counter.builder("arcbank.feign.cobertura").tag("resultado", "sin_presupuesto")
+                .register(registry);
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            if (!cubrible(request)) {
+                return client.execute(request, options);
+            }
+            Request.Options ajustadas = ajustarAlPlazo(request, options);
+            if (!propiedades.isHabilitada()) {
+                return client.execute(request, ajustadas);
+            }
+            return cubrir(client, request, ajustadas);
+        };
+    }
+
+    private static Request.Options ajustarAlPlazo(Request request, Request.Options options) {
+        long restante = PlazoEjecucion.restanteMs();
+        if (restante < 0) {
+            return options;
+        }
+        if (restante == 0) {
+            throw new SobrecargaException(504, 0,
+                    "Plazo de la petición agotado antes de llamar a " + clave(request));
+        }
+        long conexion = options.connectTimeoutUnit().toMillis(options.connectTimeout());
+        long lectura = options.readTimeoutUnit().toMillis(options.readTimeout());
+        if (restante >= conexion && restante >= lectura) {
+            return options;
+        }
+        return new Request.Options(Math.min(conexion, restante), TimeUnit.MILLISECONDS,
+                Math.min(lectura, restante), TimeUnit.MILLISECONDS, options.isFollowRedirects());
+    }
+
+    private boolean cubrible(Request request) {
+        MethodMetadata metadata = request.requestTemplate() != null ? request.requestTemplate().methodMetadata()
+                : null;
+        if (metadata == null || metadata.method() == null || request.httpMethod() != Request.HttpMethod.GET) {
+            return false;
+        }
+        return cubribles.computeIfAbsent(metadata.method(), m -> m.isAnnotationPresent(LecturaIdempotente.class));
+    }
+
+    private Response cubrir(Client client, Request request, Request.Options options) throws IOException {
+        EstimadorLatencia estimador = estimadores.computeIfAbsent(clave(request), k -> new EstimadorLatencia());
+        presupuesto.accumulateAndGet(deposito, (actual, d) -> Math.min(actual + d, tope));
+        long retraso = estimador.retrasoNanos;
+        long restante = PlazoEjecucion.restanteMs();
+        if (retraso < 0 || (restante >= 0 && TimeUnit.NANOSECONDS.toMillis(retraso) >= restante)) {
+            // Sin historial, o sin tiempo para una segunda petición: directa y solo se mide
+            long inicio = System.nanoTime();
+            Response respuesta = client.execute(request, options);
+            estimador.registrar(System.nanoTime() - inicio);
+            return respuesta;
+        }
+        return new Carrera(client, request, options, estimador).resolver(retraso);
+    }
+
+    private boolean tomarPresupuesto() {
+        if (presupuesto.getAndUpdate(actual -> actual >= UNIDAD ? actual - UNIDAD : actual) >= UNIDAD) {
+            return true;
+        }
+        sinPresupuesto.increment();
+        return false;
+    }
+
+    private static String clave(Request request) {
+        MethodMetadata metadata = request.requestTemplate() != null ? request.requestTemplate().methodMetadata()
+                : null;
+        return metadata != null ? metadata.configKey() : request.httpMethod() + " " + request.url();
+    }
+
+    /** Primera petición y, si tarda, la de cobertura; gana la primera respuesta aceptable. */
+    private final class Carrera {
+
+        private record Intento(boolean cobertura, Response respuesta, Throwable error) {
+            boolean aceptable() {
+                return error == null && respuesta.status() < 500;
+            }
+        }
+
+        private final Client client;
+        private final Request request;
+        private final Request.Options options;
+        private final EstimadorLatencia estimador;
+        private final BlockingQueue<Intento> resultados = new ArrayBlockingQueue<>(2);
+        private final Future<?>[] enVuelo = new Future<?>[2];
+        private boolean terminada;
+
+        private Carrera(Client client, Request request, Request.Options options, EstimadorLatencia estimador) {
+            this.client = client;
+            this.request = request;
+            this.options = options;
+            this.estimador = estimador;
+        }
+
+        private Response resolver(long retrasoNanos) throws IOException {
+            lanzar(false);
+            boolean cubierta = false;
+            try {
+                Intento primero = resultados.poll(retrasoNanos, TimeUnit.NANOSECONDS);
+                if (primero == null) {
+                    if (tomarPresupuesto()) {
+                        lanzar(true);
+                        lanzadas.increment();
+                        cubierta = true;
+                    }
+                    primero = resultados.take();
+                }
+                if (primero.aceptable() || !cubierta) {
+                    return terminar(primero);
+                }
+                // La primera en llegar falló: se espera a la otra y solo si también falla se usa la primera
+                Intento segundo = resultados.take();
+                return terminar(segundo.aceptable() ? segundo : primero);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                terminar(null);
+                throw new IOException("Interrumpido esperando la respuesta de " + clave(request), e);
+            }
+        }
+
+        private void lanzar(boolean cobertura) {
+            // El carril y el plazo viajan al hilo del intento (reparto remoto por carril y timeouts recortados)
+            ControlAdmision.Clase carril = CarrilEjecucion.actual();
+            Long plazo = PlazoEjecucion.actual();
+            enVuelo[cobertura ? 1 : 0] = executor.submit(() -> {
+                CarrilEjecucion.establecer(carril);
+                PlazoEjecucion.establecer(plazo);
+                long inicio = System.nanoTime();
+                Intento intento;
+                try {
+                    Response respuesta = client.execute(request, options);
+                    estimador.registrar(System.nanoTime() - inicio);
+                    intento = new Intento(cobertura, respuesta, null);
+                } catch (Throwable e) {
+                    intento = new Intento(cobertura, null, e);
+                } finally {
+                    CarrilEjecucion.limpiar();
+                    PlazoEjecucion.limpiar();
+                }
+                entregar(intento);
+            });
+        }
+
+        private synchronized void entregar(Intento intento) {
+            if (terminada) {
+                cerrar(intento);
+            } else {
+                resultados.add(intento);
+            }
+        }
+
+        private Response terminar(Intento ganador) throws IOException {
+            synchronized (this) {
+                terminada = true;
+                for (int i = 0; i < enVuelo.length; i++) {
+                    if (enVuelo[i] != null && (ganador == null || ganador.cobertura() != (i == 1))) {
+                        enVuelo[i].cancel(true);
+                    }
+                }
+                Intento pendiente;
+                while ((pendiente = resultados.poll()) != null) {
+                    if (pendiente != ganador) {
+                        cerrar(pendiente);
+                    }
+                }
+            }
+            if (ganador == null) {
+                return null;
+            }
+            if (ganador.cobertura()) {
+                ganadas.increment();
+            }
+            if (ganador.error() == null) {
+                return ganador.respuesta();
+            }
+            if (ganador.error() instanceof IOException e) {
+                throw e;
+            }
+            if (ganador.error() instanceof RuntimeException e) {
+                throw e;
+            }
+            throw new IOException(ganador.error());
+        }
+
+        private static void cerrar(Intento intento) {
+            if (intento.respuesta() != null) {
+                intento.respuesta().close();
+            }
+        }
+    }
+
+    /** Latencias recientes de un método (ventana circular) y el retraso de cobertura derivado de ellas. */
+    private final class EstimadorLatencia {
+
+        private final long[] muestras = new long[VENTANA];
+        private final AtomicLong registradas = new AtomicLong();
+        // -1 mientras no haya muestras suficientes: sin cobertura
+        private volatile long retrasoNanos = -1;
+
+        private void registrar(long nanos) {
+            long n = registradas.getAndIncrement();
+            muestras[(int) (n % VENTANA)] = nanos;
+            long total = n + 1;
+            // Ordenar la ventana cada RECALCULO muestras, no en cada llamada
+            if (total % RECALCULO == 0 && total >= propiedades.getMuestrasMinimas()) {
+                recalcular((int) Math.min(total, VENTANA));
+            }
+        }
+
+        private void recalcular(int cantidad) {
+            long[] copia = Arrays.copyOf(muestras, cantidad);
+            Arrays.sort(copia);
+            long percentil = copia[Math.min(cantidad - 1, (int) (cantidad * propiedades.getPercentil()))];
+            retrasoNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(propiedades.getRetrasoMinimoMs()),
+                    Math.min(percentil, TimeUnit.MILLISECONDS.toNanos(propiedades.getRetrasoMaximoMs())));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read-your-writes sobre la réplica: recuerda las claves escritas recientemente en este nodo
+ * y, para ellas (o si la réplica no encuentra el registro), vuelve a leer del primario.
+ */
+public class ConsistenciaLectura {
+
+    private static final int LIMPIEZA_CADA = 10_000;
+
+    private final Map<String, Long> escriturasRecientes = new ConcurrentHashMap<>();
+    private final long ventanaMs;
+    private final MonitorReplica monitorReplica;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private volatile TransactionTemplate primario;
+
+    // El gestor de transacciones se resuelve tarde: el listener JPA que usa esta clase se crea junto al EntityManagerFactory
+    public ConsistenciaLectura(long ventanaMs, MonitorReplica monitorReplica,
+            ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.ventanaMs = ventanaMs;
+        this.monitorReplica = monitorReplica;
+        this.transactionManager = transactionManager;
+    }
+
+    public void registrarEscritura(String clave) {
+        if (clave == null || !monitorReplica.disponible()) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        escriturasRecientes.put(clave, ahora + ventanaMs);
+        if (escriturasRecientes.size() > LIMPIEZA_CADA) {
+            escriturasRecientes.values().removeIf(expira -> expira < ahora);
+        }
+    }
+
+    public boolean requierePrimario(String clave) {
+        Long expira = escriturasRecientes.get(clave);
+        if (expira == null) {
+            return false;
+        }
+        if (expira < System.currentTimeMillis()) {
+            escriturasRecientes.remove(clave, expira);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ejecuta una búsqueda puntual: en el primario si la clave se escribió hace poco; si no, donde
+     * la enrute la transacción actual, reintentando en el primario si la réplica no la encuentra.
+     */
+    public <T> Optional<T> leer(String clave, Supplier<Optional<T>> busqueda) {
+        if (!monitorReplica.disponible()) {
+            return busqueda.get();
+        }
+        if (requierePrimario(clave)) {
+            return enPrimario(busqueda);
+        }
+        Optional<T> resultado = busqueda.get();
+        return resultado.isPresent() ? resultado : enPrimario(busqueda);
+    }
+
+    private <T> Optional<T> enPrimario(Supplier<Optional<T>> busqueda) {
+        if (primario == null) {
+            // Transacción nueva y no readOnly: EnrutamientoDataSource la envía siempre al primario
+            TransactionTemplate template = new TransactionTemplate(transactionManager.getObject());
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            primario = template;
+        }
+        return primario.execute(status -> busqueda.get());
+    }
+}
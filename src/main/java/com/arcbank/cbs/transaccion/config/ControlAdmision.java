@@ -0,0 +1,91 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.arcbank.cbs.transaccion.exception.SobrecargaException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Un límite adaptativo independiente por clase de operación, para que una ráfaga de consultas o un
+ * Switch lento no consuman la capacidad de los posteos locales. Cada clase es además un carril
+ * (CarrilEjecucion) con su latencia medida y su parte del pool de BD y de las llamadas remotas.
+ */
+@Slf4j
+public class ControlAdmision {
+
+    public enum Clase {
+        // PRESENCIAL: ventanilla y ATM, con el cliente esperando frente al dispositivo
+        PRESENCIAL, POSTEO_LOCAL, ENVIO_INTERBANCARIO, CREDITO_ENTRANTE, CONSULTA
+    }
+
+    @Data
+    public static class Propiedades {
+        private boolean habilitada;
+        private Map<Clase, LimiteAdaptativo.Parametros> clases = new EnumMap<>(Clase.class);
+    }
+
+    private final boolean habilitada;
+    private final Map<Clase, LimiteAdaptativo> limites = new EnumMap<>(Clase.class);
+    private final Map<Clase, Counter> rechazos429 = new EnumMap<>(Clase.class);
+    private final Map<Clase, Counter> rechazos503 = new EnumMap<>(Clase.class);
+    private final Map<Clase, Timer> latencias = new EnumMap<>(Clase.class);
+
+    public ControlAdmision(Propiedades propiedades, MeterRegistry registry) {
+        this.habilitada = propiedades.isHabilitada();
+        for (Clase clase : Clase.values()) {
+            LimiteAdaptativo.Parametros parametros = propiedades.getClases()
+                    .getOrDefault(clase, new LimiteAdaptativo.Parametros());
+            LimiteAdaptativo limite = new LimiteAdaptativo(clase.name(), parametros);
+            limites.put(clase, limite);
+
+            String etiqueta = clase.name().toLowerCase();
+            Gauge.builder("arcbank.admision.limite", limite, LimiteAdaptativo::getLimite)
+                    .tag("clase", etiqueta).register(registry);
+            Gauge.builder("arcbank.admision.en_curso", limite, LimiteAdaptativo::getEnCurso)
+                    .tag("clase", etiqueta).register(registry);
+            Gauge.builder("arcbank.admision.en_cola", limite, LimiteAdaptativo::getEnCola)
+                    .tag("clase", etiqueta).register(registry);
+            Gauge.builder("arcbank.admision.latencia_reciente_ms", limite, LimiteAdaptativo::getLatenciaRecienteMs)
+                    .tag("clase", etiqueta).register(registry);
+            rechazos429.put(clase, Counter.builder("arcbank.admision.rechazos")
+                    .tag("clase", etiqueta).tag("status", "429").register(registry));
+            rechazos503.put(clase, Counter.builder("arcbank.admision.rechazos")
+                    .tag("clase", etiqueta).tag("status", "503").register(registry));
+            latencias.put(clase, Timer.builder("arcbank.carril.latencia").tag("carril", etiqueta)
+                    .publishPercentiles(0.5, 0.99).register(registry));
+
+            log.info("Control de admisión {}: límite inicial {}, rango [{}, {}], cola {}", clase,
+                    (int) limite.getLimite(), parametros.getMinimo(), parametros.getMaximo(), parametros.getCola());
+        }
+    }
+
+    public boolean habilitada() {
+        return habilitada;
+    }
+
+    public LimiteAdaptativo.Permiso adquirir(Clase clase) {
+        try {
+            return limites.get(clase).adquirir();
+        } catch (SobrecargaException e) {
+            (e.getStatus() == 429 ? rechazos429 : rechazos503).get(clase).increment();
+            throw e;
+        }
+    }
+
+    public void liberar(Clase clase, LimiteAdaptativo.Permiso permiso, boolean fallida) {
+        limites.get(clase).liberar(permiso, fallida);
+    }
+
+    /** Latencia de extremo a extremo de la petición (incluye la espera de admisión). */
+    public void registrarLatencia(Clase clase, long nanos) {
+        latencias.get(clase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,105 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool primario (escrituras y movimientos de dinero) y pool de réplica opcional para las
+ * consultas readOnly. Sin app.datasource.replica.url todo sigue yendo al primario.
+ */
+@Slf4j
+@Configuration
+public class DataSourceConfig {
+
+    @Value("${app.datasource.replica.max-lag-ms:5000}")
+    private long retrasoMaximoMs;
+
+    @Value("${app.datasource.replica.ventana-lectura-propia-ms:10000}")
+    private long ventanaLecturaPropiaMs;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primario");
+        return ds;
+    }
+
+    // Sin @Conditional: con el perfil aot las condiciones se fijan al construir la imagen y la URL de la
+    // réplica llega en el despliegue. Un bean null queda como ausente para los ObjectProvider.
+    @Bean
+    public HikariDataSource replicaDataSource(Environment entorno,
+            @Value("${app.datasource.replica.url:}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username}}") String usuario,
+            @Value("${app.datasource.replica.password:${spring.datasource.password}}") String clave) {
+        if (url.isBlank()) {
+            return null;
+        }
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("replica");
+        ds.setJdbcUrl(url);
+        ds.setUsername(usuario);
+        ds.setPassword(clave);
+        ds.setReadOnly(true);
+        Binder.get(entorno).bind("app.datasource.replica.hikari", Bindable.ofInstance(ds));
+        log.info("Réplica de lectura configurada: {}", url);
+        return ds;
+    }
+
+    @Bean
+    public MonitorReplica monitorReplica(@Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replica) {
+        return new MonitorReplica(replica.getIfAvailable(), retrasoMaximoMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primarioDataSource") HikariDataSource primario,
+            @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replica,
+            MonitorReplica monitorReplica,
+            @Qualifier("reparticionConexiones") ReparticionPonderada reparticionConexiones,
+            ReparticionPonderada.Propiedades propiedadesCarriles) {
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(EnrutamientoDataSource.PRIMARIO, primario);
+        destinos.put(EnrutamientoDataSource.REPLICA, replica.getIfAvailable(() -> primario));
+
+        EnrutamientoDataSource enrutamiento = new EnrutamientoDataSource(monitorReplica);
+        enrutamiento.setTargetDataSources(destinos);
+        enrutamiento.setDefaultTargetDataSource(primario);
+        enrutamiento.afterPropertiesSet();
+
+        // Por carril: ventanilla/ATM conservan su parte del pool aunque otro carril se sature
+        DataSource destino = propiedadesCarriles.isHabilitada()
+                ? new DataSourcePorCarril(enrutamiento, reparticionConexiones,
+                        propiedadesCarriles.getEsperaConexionMs())
+                : enrutamiento;
+
+        // Lazy: la conexión real se pide en la primera sentencia, cuando ya se conoce si la transacción es readOnly
+        return new LazyConnectionDataSourceProxy(destino);
+    }
+
+    @Bean
+    public ConsistenciaLectura consistenciaLectura(MonitorReplica monitorReplica,
+            ObjectProvider<PlatformTransactionManager> transactionManager) {
+        return new ConsistenciaLectura(ventanaLecturaPropiaMs, monitorReplica, transactionManager);
+    }
+}
@@ -0,0 +1,98 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Antes de pedir una conexión al pool toma un permiso del carril del hilo (ReparticionPonderada) y lo
+ * devuelve al cerrarla. Así las transacciones de un carril lento esperan su turno aquí, por carril,
+ * en vez de en la cola única de Hikari donde bloquearían a ventanilla/ATM.
+ */
+public class DataSourcePorCarril extends DelegatingDataSource {
+
+    private final ReparticionPonderada reparticion;
+    private final long esperaMs;
+
+    public DataSourcePorCarril(DataSource destino, ReparticionPonderada reparticion, long esperaMs) {
+        super(destino);
+        this.reparticion = reparticion;
+        this.esperaMs = esperaMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ControlAdmision.Clase carril = CarrilEjecucion.actual();
+        if (carril == null) {
+            return obtenerDestino().getConnection();
+        }
+        permiso(carril);
+        try {
+            return conLiberacion(obtenerDestino().getConnection(), carril);
+        } catch (SQLException | RuntimeException e) {
+            reparticion.liberar(carril);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ControlAdmision.Clase carril = CarrilEjecucion.actual();
+        if (carril == null) {
+            return obtenerDestino().getConnection(username, password);
+        }
+        permiso(carril);
+        try {
+            return conLiberacion(obtenerDestino().getConnection(username, password), carril);
+        } catch (SQLException | RuntimeException e) {
+            reparticion.liberar(carril);
+            throw e;
+        }
+    }
+
+    private DataSource obtenerDestino() {
+        return obtainTargetDataSource();
+    }
+
+    private void permiso(ControlAdmision.Clase carril) throws SQLException {
+        try {
+            if (!reparticion.adquirir(carril, esperaMs)) {
+                throw new SQLTransientConnectionException("Sin conexión disponible para el carril " + carril
+                        + " tras " + esperaMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando conexión", e);
+        }
+    }
+
+    private Connection conLiberacion(Connection conexion, ControlAdmision.Clase carril) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, metodo, args) -> {
+                    if ("close".equals(metodo.getName())) {
+                        try {
+                            return metodo.invoke(conexion, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        } finally {
+                            if (liberada.compareAndSet(false, true)) {
+                                reparticion.liberar(carril);
+                            }
+                        }
+                    }
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,100 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class EjecutorConfig {
+
+    @Value("${app.lotes.hilos:8}")
+    private int hilosLote;
+
+    @Value("${app.lotes.cola:1000}")
+    private int colaLote;
+
+    @Value("${app.bandeja.hilos:8}")
+    private int hilosBandeja;
+
+    @Value("${app.notificaciones.hilos:2}")
+    private int hilosNotificacion;
+
+    @Value("${app.notificaciones.cola:1000}")
+    private int colaNotificacion;
+
+    @Value("${app.cobertura.max-en-vuelo:256}")
+    private int maxEnVueloCobertura;
+
+    // Al declarar ejecutores propios Spring Boot deja de crear el suyo; lo
+    // redeclaramos para que MVC async (streaming) siga usando el de por defecto.
+    @Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = "loteExecutor")
+    public ThreadPoolTaskExecutor loteExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilosLote);
+        executor.setMaxPoolSize(hilosLote);
+        executor.setQueueCapacity(colaLote);
+        executor.setThreadNamePrefix("lote-");
+        // Si la cola se llena, el hilo que despacha el lote ejecuta el grupo (backpressure natural)
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean(name = "bandejaExecutor")
+    public ThreadPoolTaskExecutor bandejaExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilosBandeja);
+        executor.setMaxPoolSize(hilosBandeja);
+        executor.setQueueCapacity(hilosBandeja * 16);
+        executor.setThreadNamePrefix("bandeja-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean(name = "notificacionExecutor")
+    public ThreadPoolTaskExecutor notificacionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilosNotificacion);
+        executor.setMaxPoolSize(hilosNotificacion);
+        executor.setQueueCapacity(colaNotificacion);
+        executor.setThreadNamePrefix("notificacion-");
+        // Sin CallerRuns: quien publica es el commit de un posteo o el consumidor AMQP, que no deben esperar
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // Un solo hilo: hay como mucho un reproceso de mensajes en curso (ReprocesoMensajesServiceImpl)
+    @Bean(name = "reprocesoExecutor")
+    public ThreadPoolTaskExecutor reprocesoExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("reproceso-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // Hilos virtuales para las lecturas cubiertas (CoberturaLecturas): cada intento solo espera I/O, y
+    // cancelar al perdedor interrumpe su hilo y cierra el socket. El límite frena si el remoto se cuelga.
+    @Bean(name = "coberturaExecutor")
+    public SimpleAsyncTaskExecutor coberturaExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("cobertura-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxEnVueloCobertura);
+        return executor;
+    }
+}
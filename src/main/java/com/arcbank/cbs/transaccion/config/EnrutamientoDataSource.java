@@ -0,0 +1,32 @@
+package com.arcbank.cbs.transaccion.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Envía a la réplica solo las transacciones readOnly declaradas en nuestros servicios.
+ * Las readOnly implícitas de Spring Data (p. ej. findById fuera de un servicio) siguen en el
+ * primario para no romper lecturas inmediatamente posteriores a una escritura.
+ */
+@RequiredArgsConstructor
+public class EnrutamientoDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARIO = "PRIMARIO";
+    public static final String REPLICA = "REPLICA";
+
+    private static final String PAQUETE_SERVICIOS = "com.arcbank.";
+
+    private final MonitorReplica monitorReplica;
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || !monitorReplica.disponible()) {
+            return PRIMARIO;
+        }
+        String transaccion = TransactionSynchronizationManager.getCurrentTransactionName();
+        return transaccion != null && transaccion.startsWith(PAQUETE_SERVICIOS) ? REPLICA : PRIMARIO;
+    }
+}
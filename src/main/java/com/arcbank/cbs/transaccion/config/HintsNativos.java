@@ -0,0 +1,37 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.sql.Connection;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.arcbank.cbs.transaccion.dto.SwitchDevolucionRequest;
+import com.arcbank.cbs.transaccion.dto.SwitchTransferRequest;
+import com.arcbank.cbs.transaccion.dto.SwitchTransferResponse;
+import com.arcbank.cbs.transaccion.dto.TxRequest;
+import com.arcbank.cbs.transaccion.dto.rabbitmq.EventoTransaccionDTO;
+import com.arcbank.cbs.transaccion.dto.rabbitmq.MensajeISO;
+import com.arcbank.cbs.transaccion.dto.rabbitmq.StatusReportDTO;
+
+/**
+ * Lo que el análisis AOT no deduce solo, para la imagen nativa (perfil native): el proxy de conexión
+ * de DataSourcePorCarril, los DTO que Jackson lee/escribe fuera de un controlador (RabbitMQ, Feign
+ * hacia el Switch) y los almacenes de mTLS. En la JVM (perfil aot) no tiene efecto.
+ */
+public class HintsNativos implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] DTO_MENSAJERIA = {
+            MensajeISO.class, StatusReportDTO.class, EventoTransaccionDTO.class,
+            SwitchTransferRequest.class, SwitchTransferResponse.class, SwitchDevolucionRequest.class,
+            TxRequest.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.proxies().registerJdkProxy(Connection.class);
+        // Recorre también las clases anidadas (Header, Body...) que Jackson alcanza por las propiedades
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), DTO_MENSAJERIA);
+        hints.resources().registerPattern("certs/*");
+    }
+}
@@ -0,0 +1,22 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/** Identificador estable de esta réplica en el clúster (HOSTNAME del pod, salvo que se fije app.nodo.id). */
+@Component
+public class IdentidadNodo {
+
+    private final String id;
+
+    public IdentidadNodo(@Value("${app.nodo.id:${HOSTNAME:}}") String id) {
+        // Sin nombre configurado (ejecución local) cada arranque es un nodo distinto
+        this.id = id == null || id.isBlank() ? "nodo-" + UUID.randomUUID() : id;
+    }
+
+    public String id() {
+        return id;
+    }
+}
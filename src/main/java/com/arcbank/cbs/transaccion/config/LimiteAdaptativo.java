@@ -0,0 +1,163 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.arcbank.cbs.transaccion.exception.SobrecargaException;
+
+import lombok.Data;
+
+/**
+ * Límite de concurrencia adaptativo por gradiente de latencia: compara la latencia reciente con la
+ * de largo plazo y encoge el límite cuando las solicitudes empiezan a hacer cola aguas abajo
+ * (pool de conexiones, core de cuentas, Switch). Los errores 5xx aplican un recorte multiplicativo
+ * (AIMD). Las solicitudes que no entran esperan en una cola corta y acotada; si la cola está llena
+ * o la espera vence se rechazan en vez de acumularse hasta el timeout.
+ */
+public class LimiteAdaptativo {
+
+    private static final double ALFA_CORTO = 0.1;
+    private static final double ALFA_LARGO = 0.01;
+    private static final double SUAVIZADO = 0.2;
+    private static final double RECORTE_ERROR = 0.9;
+
+    @Data
+    public static class Parametros {
+        private int inicial = 20;
+        private int minimo = 4;
+        private int maximo = 100;
+        private int cola = 50;
+        private long esperaMs = 200;
+        // Cuánto puede crecer la latencia reciente sobre la de largo plazo antes de recortar
+        private double tolerancia = 1.5;
+    }
+
+    public record Permiso(long inicioNanos, int enCursoAlAdquirir) {
+    }
+
+    private final String nombre;
+    private final Parametros parametros;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition liberado = lock.newCondition();
+
+    // volatile: los gauges de métricas los leen sin tomar el lock
+    private volatile double limite;
+    private volatile int enCurso;
+    private volatile int enCola;
+    private double rttCortoNanos = Double.NaN;
+    private double rttLargoNanos = Double.NaN;
+
+    public LimiteAdaptativo(String nombre, Parametros parametros) {
+        this.nombre = nombre;
+        this.parametros = parametros;
+        this.limite = Math.max(parametros.getMinimo(), Math.min(parametros.getInicial(), parametros.getMaximo()));
+    }
+
+    public Permiso adquirir() {
+        lock.lock();
+        try {
+            if (enCurso < (int) limite) {
+                return tomar();
+            }
+            if (enCola >= parametros.getCola()) {
+                // Rechazo inmediato: ya hay más demanda esperando de la que el límite drenará a tiempo
+                throw new SobrecargaException(429, retryAfterSegundos(),
+                        "Demasiadas solicitudes de " + nombre + " en curso");
+            }
+            enCola++;
+            try {
+                long restante = TimeUnit.MILLISECONDS.toNanos(parametros.getEsperaMs());
+                while (enCurso >= (int) limite) {
+                    if (restante <= 0) {
+                        throw new SobrecargaException(503, retryAfterSegundos(),
+                                "Servicio saturado para " + nombre + ", reintente más tarde");
+                    }
+                    restante = liberado.awaitNanos(restante);
+                }
+                return tomar();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SobrecargaException(503, retryAfterSegundos(), "Solicitud interrumpida en cola");
+            } finally {
+                enCola--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void liberar(Permiso permiso, boolean fallida) {
+        long rtt = System.nanoTime() - permiso.inicioNanos();
+        lock.lock();
+        try {
+            enCurso--;
+            double anterior = limite;
+            actualizar(rtt, permiso.enCursoAlAdquirir(), fallida);
+            if (limite > anterior) {
+                liberado.signalAll();
+            } else {
+                liberado.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permiso tomar() {
+        enCurso++;
+        return new Permiso(System.nanoTime(), enCurso);
+    }
+
+    private void actualizar(long rtt, int enCursoAlAdquirir, boolean fallida) {
+        if (fallida) {
+            limite = Math.max(parametros.getMinimo(), limite * RECORTE_ERROR);
+            return;
+        }
+        rttCortoNanos = Double.isNaN(rttCortoNanos) ? rtt : rttCortoNanos + ALFA_CORTO * (rtt - rttCortoNanos);
+        rttLargoNanos = Double.isNaN(rttLargoNanos) ? rtt : rttLargoNanos + ALFA_LARGO * (rtt - rttLargoNanos);
+        // Tras una mejora sostenida la referencia de largo plazo se queda alta: se acerca a la reciente
+        if (rttLargoNanos > 2 * rttCortoNanos) {
+            rttLargoNanos *= 0.95;
+        }
+
+        // Con poca carga la latencia no dice nada sobre la capacidad: no se hace crecer el límite
+        if (enCursoAlAdquirir < limite / 2) {
+            return;
+        }
+
+        double gradiente = Math.max(0.5, Math.min(1.0, parametros.getTolerancia() * rttLargoNanos / rttCortoNanos));
+        double nuevo = limite * gradiente + Math.sqrt(limite);
+        limite = limite * (1 - SUAVIZADO) + nuevo * SUAVIZADO;
+        limite = Math.max(parametros.getMinimo(), Math.min(parametros.getMaximo(), limite));
+    }
+
+    // Estimación del tiempo que tarda en liberarse un turno con la latencia actual
+    private long retryAfterSegundos() {
+        if (Double.isNaN(rttCortoNanos)) {
+            return 1;
+        }
+        double segundos = rttCortoNanos / 1e9 * (enCola + 1) / Math.max(1, limite);
+        return Math.max(1, Math.min(30, (long) Math.ceil(segundos)));
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public double getLimite() {
+        return limite;
+    }
+
+    public int getEnCurso() {
+        return enCurso;
+    }
+
+    public int getEnCola() {
+        return enCola;
+    }
+
+    public double getLatenciaRecienteMs() {
+        return Double.isNaN(rttCortoNanos) ? 0 : rttCortoNanos / 1e6;
+    }
+}
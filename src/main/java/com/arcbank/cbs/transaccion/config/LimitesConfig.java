@@ -0,0 +1,45 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.math.BigDecimal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBinding;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.service.MotorLimites;
+
+@Configuration
+public class LimitesConfig {
+
+    @Bean
+    @ConfigurationProperties("app.limites")
+    public MotorLimites.Propiedades propiedadesLimites() {
+        return new MotorLimites.Propiedades();
+    }
+
+    // Los montos de app.limites.* llegan del YAML como número (5000) o como texto ("5000.50" o variable de entorno)
+    @Bean
+    @ConfigurationPropertiesBinding
+    public static Converter<Number, Dinero> numeroADinero() {
+        return new Converter<Number, Dinero>() {
+            @Override
+            public Dinero convert(Number numero) {
+                return Dinero.de(new BigDecimal(numero.toString()));
+            }
+        };
+    }
+
+    @Bean
+    @ConfigurationPropertiesBinding
+    public static Converter<String, Dinero> textoADinero() {
+        return new Converter<String, Dinero>() {
+            @Override
+            public Dinero convert(String texto) {
+                return texto.isBlank() ? null : Dinero.de(texto);
+            }
+        };
+    }
+}
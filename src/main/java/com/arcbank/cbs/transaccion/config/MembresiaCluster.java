@@ -0,0 +1,105 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Réplicas vivas del servicio según "NodoActivo": cada nodo renueva su latido y ve como vivos a los que lo
+ * renovaron dentro del TTL (con el reloj de la BD). Sobre esa vista, {@link #duenio} reparte shards con
+ * rendezvous hashing: todos los nodos llegan al mismo reparto sin coordinarse, y al entrar o salir un nodo
+ * solo se mueven los shards de ese nodo. Si la BD no responde se conserva la última vista.
+ */
+@Slf4j
+@Component
+public class MembresiaCluster {
+
+    private final IdentidadNodo nodo;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.nodo.ttl-latido-ms:30000}")
+    private long ttlLatidoMs;
+
+    private volatile List<String> vivos;
+
+    public MembresiaCluster(IdentidadNodo nodo, JdbcTemplate jdbcTemplate) {
+        this.nodo = nodo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.vivos = List.of(nodo.id());
+    }
+
+    @Scheduled(fixedDelayString = "${app.nodo.intervalo-latido-ms:10000}")
+    public void latido() {
+        try {
+            jdbcTemplate.update("INSERT INTO public.\"NodoActivo\" (\"Nodo\") VALUES (?) "
+                    + "ON CONFLICT (\"Nodo\") DO UPDATE SET \"UltimoLatido\" = CURRENT_TIMESTAMP", nodo.id());
+            List<String> nodos = new ArrayList<>(jdbcTemplate.queryForList(
+                    "SELECT \"Nodo\" FROM public.\"NodoActivo\" "
+                            + "WHERE \"UltimoLatido\" > CURRENT_TIMESTAMP - make_interval(secs => ?) ORDER BY \"Nodo\"",
+                    String.class, ttlLatidoMs / 1000.0));
+            // Este nodo siempre cuenta aunque su latido aún no sea visible
+            if (!nodos.contains(nodo.id())) {
+                nodos.add(nodo.id());
+            }
+            vivos = List.copyOf(nodos);
+            // Pods que ya no existen (los nombres cambian en cada despliegue)
+            jdbcTemplate.update("DELETE FROM public.\"NodoActivo\" "
+                    + "WHERE \"UltimoLatido\" < CURRENT_TIMESTAMP - INTERVAL '1 day'");
+        } catch (Exception e) {
+            log.warn("Membresía: latido no registrado, se mantiene la vista anterior: {}", e.getMessage());
+        }
+    }
+
+    public String nodo() {
+        return nodo.id();
+    }
+
+    public List<String> vivos() {
+        return vivos;
+    }
+
+    /** Nodo al que le toca el shard de la clave (trabajo, cola...) entre los vivos. */
+    public String duenio(String clave, int shard) {
+        String elegido = null;
+        long mejor = 0;
+        for (String candidato : vivos) {
+            long puntaje = puntaje(candidato, clave, shard);
+            if (elegido == null || puntaje > mejor || (puntaje == mejor && candidato.compareTo(elegido) < 0)) {
+                mejor = puntaje;
+                elegido = candidato;
+            }
+        }
+        return elegido;
+    }
+
+    public boolean esDuenio(String clave, int shard) {
+        return nodo.id().equals(duenio(clave, shard));
+    }
+
+    // Rendezvous (highest random weight): mezcla de 64 bits de (nodo, clave, shard), igual en todas las réplicas
+    private static long puntaje(String nodo, String clave, int shard) {
+        long h = (nodo.hashCode() * 31L + clave.hashCode()) * 0x9E3779B97F4A7C15L + shard;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    @PreDestroy
+    public void baja() {
+        try {
+            // Los demás toman los shards de este nodo en su próximo latido, sin esperar a que venza el TTL
+            jdbcTemplate.update("DELETE FROM public.\"NodoActivo\" WHERE \"Nodo\" = ?", nodo.id());
+        } catch (Exception e) {
+            log.warn("Membresía: no se pudo dar de baja el nodo {}: {}", nodo.id(), e.getMessage());
+        }
+    }
+}
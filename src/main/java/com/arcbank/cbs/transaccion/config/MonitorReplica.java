@@ -0,0 +1,66 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mide el retraso de replicación y deshabilita la réplica si supera la tolerancia configurada.
+ */
+@Slf4j
+public class MonitorReplica {
+
+    // Con el primario ocioso now() - pg_last_xact_replay_timestamp() crece sin que falte nada por aplicar:
+    // si todo el WAL recibido ya se reprodujo, el retraso es 0
+    private static final String SQL_RETRASO = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() "
+            + "THEN 0 ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    private final DataSource replica;
+    private final long retrasoMaximoMs;
+    private volatile boolean disponible;
+    private volatile long ultimoRetrasoMs = -1;
+
+    public MonitorReplica(DataSource replica, long retrasoMaximoMs) {
+        this.replica = replica;
+        this.retrasoMaximoMs = retrasoMaximoMs;
+        this.disponible = false; // Hasta la primera verificación exitosa se lee del primario
+    }
+
+    public boolean disponible() {
+        return replica != null && disponible;
+    }
+
+    public long getUltimoRetrasoMs() {
+        return ultimoRetrasoMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.intervalo-verificacion-ms:5000}")
+    public void verificar() {
+        if (replica == null) {
+            return;
+        }
+        try (Connection con = replica.getConnection();
+                Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery(SQL_RETRASO)) {
+            rs.next();
+            ultimoRetrasoMs = rs.getLong(1);
+            boolean ok = ultimoRetrasoMs <= retrasoMaximoMs;
+            if (ok != disponible) {
+                log.warn("Réplica de lectura {} (retraso {} ms, tolerancia {} ms)", ok ? "HABILITADA" : "DESHABILITADA",
+                        ultimoRetrasoMs, retrasoMaximoMs);
+            }
+            disponible = ok;
+        } catch (Exception e) {
+            if (disponible) {
+                log.warn("Réplica de lectura DESHABILITADA, no responde: {}", e.getMessage());
+            }
+            disponible = false;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plazo (deadline) de la petición que atiende el hilo actual, en nanoTime. Lo fija el interceptor de
+ * admisión a partir de la cabecera {@value #CABECERA} o del plazo por defecto; las llamadas Feign recortan
+ * sus timeouts a lo que quede y lo propagan aguas abajo. Un hilo sin plazo usa los timeouts configurados.
+ */
+public final class PlazoEjecucion {
+
+    /** Milisegundos que le quedan al llamante (relativo: no depende de relojes sincronizados). */
+    public static final String CABECERA = "X-Request-Timeout-Ms";
+
+    private static final ThreadLocal<Long> ACTUAL = new ThreadLocal<>();
+
+    private PlazoEjecucion() {
+    }
+
+    public static Long actual() {
+        return ACTUAL.get();
+    }
+
+    public static void establecer(Long vencimientoNanos) {
+        if (vencimientoNanos == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(vencimientoNanos);
+        }
+    }
+
+    public static void establecerEn(long milisegundos) {
+        ACTUAL.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(milisegundos));
+    }
+
+    /** Milisegundos restantes (0 o negativo si ya venció), o -1 si el hilo no tiene plazo. */
+    public static long restanteMs() {
+        Long vencimiento = ACTUAL.get();
+        if (vencimiento == null) {
+            return -1;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(vencimiento - System.nanoTime()));
+    }
+
+    public static void limpiar() {
+        ACTUAL.remove();
+    }
+}
@@ -1,10 +1,30 @@
 package com.arcbank.cbs.transaccion.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.arcbank.cbs.transaccion.listener.EnrutadorShardsCredito;
+import com.arcbank.cbs.transaccion.listener.RecuperadorMensajesSwitch;
+
 @Configuration
 public class RabbitMQConfig {
 
@@ -12,4 +32,76 @@ public class RabbitMQConfig {
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
     }
+
+    // Eventos de dominio (routing key transaccion.creada / .completada / .fallida / .reversada)
+    @Bean
+    public TopicExchange eventosTransaccionExchange(
+            @Value("${app.eventos.exchange:arcbank.transacciones.eventos}") String nombre) {
+        return new TopicExchange(nombre, true, false);
+    }
+
+    // Cola exclusiva de cada réplica: alimenta las suscripciones SSE/long-poll con cambios de otros nodos
+    @Bean
+    public AnonymousQueue colaEstadoTransacciones() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding bindingEstadoTransacciones(AnonymousQueue colaEstadoTransacciones,
+            TopicExchange eventosTransaccionExchange) {
+        return BindingBuilder.bind(colaEstadoTransacciones).to(eventosTransaccionExchange).with("transaccion.#");
+    }
+
+    // Topología de fallos de la cola del Switch: colas de espera (TTL) que devuelven a la entrada, DLQ y estacionados
+    @Bean
+    public Declarables topologiaFallosSwitch(RecuperadorMensajesSwitch recuperador) {
+        DirectExchange fallos = new DirectExchange(recuperador.exchangeFallos(), true, false);
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(fallos);
+        for (long espera : recuperador.esperasMs()) {
+            Queue cola = QueueBuilder.durable(recuperador.colaReintento(espera))
+                    .ttl((int) espera)
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(recuperador.colaEntrada())
+                    .build();
+            declarables.add(cola);
+            declarables.add(BindingBuilder.bind(cola).to(fallos).with(cola.getName()));
+        }
+        for (String nombre : List.of(recuperador.colaRechazados(), recuperador.colaEstacionados())) {
+            Queue cola = QueueBuilder.durable(nombre).build();
+            declarables.add(cola);
+            declarables.add(BindingBuilder.bind(cola).to(fallos).with(nombre));
+        }
+        return new Declarables(declarables);
+    }
+
+    // Colas shard de créditos por cuenta (solo con app.switch-mq.shards.habilitado); un consumidor activo por cola
+    @Bean
+    public Declarables topologiaShardsCredito(EnrutadorShardsCredito enrutador) {
+        List<Declarable> declarables = new ArrayList<>();
+        if (enrutador.habilitado()) {
+            DirectExchange exchange = new DirectExchange(enrutador.exchange(), true, false);
+            declarables.add(exchange);
+            for (int shard = 0; shard < enrutador.shards(); shard++) {
+                Queue cola = QueueBuilder.durable(enrutador.colaShard(shard)).singleActiveConsumer().build();
+                declarables.add(cola);
+                declarables.add(BindingBuilder.bind(cola).to(exchange).with(String.valueOf(shard)));
+            }
+        }
+        return new Declarables(declarables);
+    }
+
+    // Una sola entrega por intento: el fallo no se reencola, lo reencamina el recuperador
+    @Bean
+    public SimpleRabbitListenerContainerFactory switchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            RecuperadorMensajesSwitch recuperador) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(1)
+                .recoverer(recuperador)
+                .build());
+        return factory;
+    }
 }
@@ -0,0 +1,151 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reparte un recurso acotado (conexiones de BD, llamadas remotas en vuelo) entre los carriles por peso.
+ * Cada carril tiene una reserva proporcional a su peso que los demás no pueden ocupar; el resto es
+ * común. Un carril por encima de su reserva solo toma un permiso si, después, siguen libres las
+ * reservas no usadas de los demás: un Switch lento puede agotar lo común pero nunca lo reservado
+ * para ventanilla/ATM. Al liberar se despierta primero al carril de mayor peso que pueda avanzar.
+ */
+@Slf4j
+public class ReparticionPonderada {
+
+    @Data
+    public static class Propiedades {
+        private boolean habilitada;
+        private Map<ControlAdmision.Clase, Integer> pesos = new EnumMap<>(ControlAdmision.Clase.class);
+        // Parte del total que se reserva por carril; el resto se comparte
+        private double fraccionReservada = 0.6;
+        private long esperaConexionMs = 3000;
+        private int permisosRemotos = 32;
+        private long esperaRemotaMs = 2000;
+    }
+
+    private static final ControlAdmision.Clase[] CLASES = ControlAdmision.Clase.values();
+
+    private final int total;
+    private final int[] reservado = new int[CLASES.length];
+    private final int[] enUso = new int[CLASES.length];
+    private final int[] esperando = new int[CLASES.length];
+    private final ControlAdmision.Clase[] porPeso;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] turno = new Condition[CLASES.length];
+    private final Map<ControlAdmision.Clase, Timer> esperas = new EnumMap<>(ControlAdmision.Clase.class);
+    private final Map<ControlAdmision.Clase, Counter> agotados = new EnumMap<>(ControlAdmision.Clase.class);
+    private int enUsoTotal;
+
+    public ReparticionPonderada(String recurso, int total, Propiedades propiedades, MeterRegistry registry) {
+        this.total = total;
+        int sumaPesos = Arrays.stream(CLASES).mapToInt(c -> peso(propiedades, c)).sum();
+        for (ControlAdmision.Clase clase : CLASES) {
+            int i = clase.ordinal();
+            reservado[i] = (int) Math.floor(total * propiedades.getFraccionReservada() * peso(propiedades, clase)
+                    / Math.max(1, sumaPesos));
+            turno[i] = lock.newCondition();
+
+            String etiqueta = clase.name().toLowerCase();
+            esperas.put(clase, Timer.builder("arcbank.carril.espera").tag("recurso", recurso)
+                    .tag("carril", etiqueta).register(registry));
+            agotados.put(clase, Counter.builder("arcbank.carril.agotados").tag("recurso", recurso)
+                    .tag("carril", etiqueta).register(registry));
+            Gauge.builder("arcbank.carril.en_uso", enUso, u -> u[i]).tag("recurso", recurso)
+                    .tag("carril", etiqueta).register(registry);
+        }
+        this.porPeso = Arrays.stream(CLASES)
+                .sorted(Comparator.comparingInt((ControlAdmision.Clase c) -> peso(propiedades, c)).reversed())
+                .toArray(ControlAdmision.Clase[]::new);
+        log.info("Reparto de {} ({} permisos), reservas por carril: {}", recurso, total, reservas());
+    }
+
+    private static int peso(Propiedades propiedades, ControlAdmision.Clase clase) {
+        return Math.max(0, propiedades.getPesos().getOrDefault(clase, 1));
+    }
+
+    private String reservas() {
+        StringBuilder sb = new StringBuilder();
+        for (ControlAdmision.Clase clase : CLASES) {
+            sb.append(clase).append('=').append(reservado[clase.ordinal()]).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    /** false si no hubo permiso dentro de la espera. */
+    public boolean adquirir(ControlAdmision.Clase clase, long esperaMs) throws InterruptedException {
+        int i = clase.ordinal();
+        long inicio = System.nanoTime();
+        long restante = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        lock.lock();
+        try {
+            esperando[i]++;
+            try {
+                while (!disponible(i)) {
+                    if (restante <= 0) {
+                        agotados.get(clase).increment();
+                        return false;
+                    }
+                    restante = turno[i].awaitNanos(restante);
+                }
+            } finally {
+                esperando[i]--;
+            }
+            enUso[i]++;
+            enUsoTotal++;
+            // Si quedó capacidad, que la aproveche el siguiente en espera
+            despertar();
+        } finally {
+            lock.unlock();
+        }
+        esperas.get(clase).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    public void liberar(ControlAdmision.Clase clase) {
+        lock.lock();
+        try {
+            enUso[clase.ordinal()]--;
+            enUsoTotal--;
+            despertar();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean disponible(int i) {
+        if (enUsoTotal >= total) {
+            return false;
+        }
+        if (enUso[i] < reservado[i]) {
+            return true;
+        }
+        int reservasLibres = 0;
+        for (int k = 0; k < CLASES.length; k++) {
+            reservasLibres += Math.max(0, reservado[k] - enUso[k]);
+        }
+        return total - enUsoTotal > reservasLibres;
+    }
+
+    private void despertar() {
+        for (ControlAdmision.Clase clase : porPeso) {
+            int i = clase.ordinal();
+            if (esperando[i] > 0 && disponible(i)) {
+                turno[i].signal();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.arcbank.cbs.transaccion.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.service.CoordinadorTrabajos;
+
+import lombok.RequiredArgsConstructor;
+
+/** /actuator/trabajos: trabajos de este nodo (shards propios, ejecuciones, último error) y leases del clúster. */
+@Component
+@Endpoint(id = "trabajos")
+@RequiredArgsConstructor
+public class TrabajosEndpoint {
+
+    private final CoordinadorTrabajos coordinador;
+    private final MembresiaCluster membresia;
+
+    @ReadOperation
+    public Map<String, Object> trabajos() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("nodo", membresia.nodo());
+        estado.put("nodosVivos", membresia.vivos());
+        estado.put("trabajos", coordinador.estado());
+        estado.put("leases", coordinador.leases());
+        return estado;
+    }
+
+    @ReadOperation
+    public CoordinadorTrabajos.EstadoTrabajo trabajo(@Selector String nombre) {
+        return coordinador.estado().stream()
+                .filter(t -> t.trabajo().equals(nombre))
+                .findFirst()
+                .orElse(null);
+    }
+}
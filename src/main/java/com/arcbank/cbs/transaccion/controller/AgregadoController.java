@@ -0,0 +1,46 @@
+package com.arcbank.cbs.transaccion.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.arcbank.cbs.transaccion.dto.AgregadoDiarioDTO;
+import com.arcbank.cbs.transaccion.service.AgregadoDiarioService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/agregados")
+@RequiredArgsConstructor
+@Tag(name = "Agregados", description = "Totales diarios por cuenta, tipo de operación y sentido")
+public class AgregadoController {
+
+    private final AgregadoDiarioService agregadoDiarioService;
+
+    @GetMapping("/cuenta/{idCuenta}")
+    @Operation(summary = "Cantidad y total por día, tipo de operación y sentido (por defecto, hoy)")
+    public ResponseEntity<List<AgregadoDiarioDTO>> obtenerPorCuenta(@PathVariable Integer idCuenta,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(agregadoDiarioService.obtenerPorCuenta(idCuenta, desde, hasta));
+    }
+
+    @PostMapping("/reconstruir")
+    @Operation(summary = "Recalcular desde Transaccion los agregados de una fecha")
+    public ResponseEntity<Map<String, Object>> reconstruir(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        int filas = agregadoDiarioService.reconstruir(fecha);
+        return ResponseEntity.ok(Map.of("fecha", fecha.toString(), "filas", filas));
+    }
+}
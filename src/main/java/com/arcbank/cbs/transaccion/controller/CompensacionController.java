@@ -0,0 +1,41 @@
+package com.arcbank.cbs.transaccion.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.arcbank.cbs.transaccion.dto.CompensacionCorteDTO;
+import com.arcbank.cbs.transaccion.service.CompensacionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/compensacion")
+@RequiredArgsConstructor
+@Tag(name = "Compensación", description = "Cortes de compensación interbancaria de fin de día")
+public class CompensacionController {
+
+    private final CompensacionService compensacionService;
+
+    @PostMapping("/cortes")
+    @Operation(summary = "Generar (o reanudar) y enviar al Switch el corte de compensación de una fecha")
+    public ResponseEntity<CompensacionCorteDTO> ejecutarCorte(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return ResponseEntity.ok(compensacionService.ejecutarCorte(fecha));
+    }
+
+    @GetMapping("/cortes/{idCorte}")
+    @Operation(summary = "Consultar un corte de compensación y sus posiciones netas")
+    public ResponseEntity<CompensacionCorteDTO> obtenerCorte(@PathVariable Integer idCorte) {
+        return ResponseEntity.ok(compensacionService.obtenerCorte(idCorte));
+    }
+}
@@ -2,15 +2,21 @@ package com.arcbank.cbs.transaccion.controller;
 
 import com.arcbank.cbs.transaccion.dto.TransaccionRequestDTO;
 import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.service.SuscripcionEstadoService;
 import com.arcbank.cbs.transaccion.service.TransaccionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -20,6 +26,7 @@ import java.util.List;
 public class Controller {
 
     private final TransaccionService transaccionService;
+    private final SuscripcionEstadoService suscripcionEstadoService;
 
     @PostMapping
     @Operation(summary = "Ejecutar transacción financiera")
@@ -29,8 +36,10 @@ public class Controller {
 
     @GetMapping("/cuenta/{idCuenta}")
     @Operation(summary = "Historial por cuenta (Origen o Destino)")
-    public ResponseEntity<List<TransaccionResponseDTO>> listarPorCuenta(@PathVariable Integer idCuenta) {
-        return ResponseEntity.ok(transaccionService.obtenerPorCuenta(idCuenta));
+    public ResponseEntity<List<TransaccionResponseDTO>> listarPorCuenta(@PathVariable Integer idCuenta,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        return ResponseEntity.ok(transaccionService.obtenerPorCuenta(idCuenta, desde, hasta));
     }
 
     @GetMapping("/{id}")
@@ -55,6 +64,19 @@ public class Controller {
         }
     }
 
+    @GetMapping(value = "/{id}/estado/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Suscribirse (SSE) a los cambios de estado; se cierra al llegar a un estado final")
+    public SseEmitter suscribirEstado(@PathVariable Integer id) {
+        return suscripcionEstadoService.suscribir(id);
+    }
+
+    @GetMapping("/{id}/estado/espera")
+    @Operation(summary = "Long-poll: responde cuando el estado difiere de 'estadoConocido' o al vencer la espera")
+    public DeferredResult<TransaccionResponseDTO> esperarEstado(@PathVariable Integer id,
+            @RequestParam(required = false) String estadoConocido) {
+        return suscripcionEstadoService.esperarCambio(id, estadoConocido);
+    }
+
     @PostMapping("/{id}/devolucion")
     @Operation(summary = "Solicitar devolución de transacción (Reverso) por ID numérico")
     public ResponseEntity<TransaccionResponseDTO> solicitarDevolucion(
@@ -120,6 +142,12 @@ public class Controller {
         }
     }
 
+    @GetMapping(value = "/buscar/{referencia}/estado/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Suscribirse (SSE) a los cambios de estado por referencia/instructionId")
+    public SseEmitter suscribirEstadoPorReferencia(@PathVariable String referencia) {
+        return suscripcionEstadoService.suscribirPorReferencia(referencia);
+    }
+
     @GetMapping("/buscar-codigo/{codigoReferencia}")
     @Operation(summary = "Buscar transacción por Código de Referencia (6 dígitos) con detalle completo")
     public ResponseEntity<?> buscarPorCodigoReferencia(@PathVariable String codigoReferencia) {
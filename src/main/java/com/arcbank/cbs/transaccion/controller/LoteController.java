@@ -0,0 +1,60 @@
+package com.arcbank.cbs.transaccion.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.arcbank.cbs.transaccion.dto.LoteRequestDTO;
+import com.arcbank.cbs.transaccion.dto.LoteResponseDTO;
+import com.arcbank.cbs.transaccion.service.LoteTransaccionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/transacciones/lotes")
+@RequiredArgsConstructor
+@Tag(name = "Lotes", description = "Transferencias masivas (nómina y pago a proveedores)")
+public class LoteController {
+
+    private final LoteTransaccionService loteService;
+
+    @PostMapping
+    @Operation(summary = "Registrar un lote de transacciones y ejecutarlo en segundo plano")
+    public ResponseEntity<LoteResponseDTO> crear(@Valid @RequestBody LoteRequestDTO request) {
+        return new ResponseEntity<>(loteService.crearLote(request), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{idLote}")
+    @Operation(summary = "Consultar progreso del lote")
+    public ResponseEntity<LoteResponseDTO> obtener(@PathVariable Integer idLote) {
+        return ResponseEntity.ok(loteService.obtenerLote(idLote));
+    }
+
+    @GetMapping(value = "/{idLote}/resultados", produces = "application/x-ndjson")
+    @Operation(summary = "Resultados por ítem en streaming (NDJSON, en orden de secuencia)")
+    public ResponseEntity<StreamingResponseBody> resultados(@PathVariable Integer idLote,
+            @RequestParam(name = "desde", required = false) Integer desde) {
+        loteService.obtenerLote(idLote); // Valida existencia antes de abrir el stream
+        StreamingResponseBody cuerpo = salida -> loteService.transmitirResultados(idLote, desde, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(cuerpo);
+    }
+
+    @PostMapping("/{idLote}/reanudar")
+    @Operation(summary = "Reanudar manualmente un lote interrumpido")
+    public ResponseEntity<LoteResponseDTO> reanudar(@PathVariable Integer idLote) {
+        return ResponseEntity.ok(loteService.reanudarLote(idLote));
+    }
+}
@@ -0,0 +1,73 @@
+package com.arcbank.cbs.transaccion.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.arcbank.cbs.transaccion.dto.ColaMensajeriaDTO;
+import com.arcbank.cbs.transaccion.dto.ReprocesoMensajesDTO;
+import com.arcbank.cbs.transaccion.service.BandejaEntradaService;
+import com.arcbank.cbs.transaccion.service.ReprocesoMensajesService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/mensajeria")
+@RequiredArgsConstructor
+@Tag(name = "Mensajería", description = "Colas de fallos del Switch y reproceso de mensajes estacionados")
+public class MensajeriaController {
+
+    private final ReprocesoMensajesService reprocesoService;
+    private final BandejaEntradaService bandejaService;
+
+    @GetMapping("/colas")
+    @Operation(summary = "Profundidad de la cola de entrada, reintentos, DLQ y estacionados")
+    public ResponseEntity<List<ColaMensajeriaDTO>> colas() {
+        return ResponseEntity.ok(reprocesoService.colas());
+    }
+
+    @PostMapping("/reproceso")
+    @Operation(summary = "Reinyectar en la cola de entrada los mensajes estacionados (o rechazados) a ritmo limitado")
+    public ResponseEntity<ReprocesoMensajesDTO> iniciar(
+            @RequestParam(name = "origen", defaultValue = "ESTACIONADOS") ReprocesoMensajesService.Origen origen,
+            @RequestParam(name = "maximo", required = false) Integer maximo,
+            @RequestParam(name = "porSegundo", required = false) Integer porSegundo) {
+        return new ResponseEntity<>(reprocesoService.iniciar(origen, maximo, porSegundo), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/reproceso")
+    @Operation(summary = "Progreso del último reproceso")
+    public ResponseEntity<ReprocesoMensajesDTO> progreso() {
+        return ResponseEntity.ok(reprocesoService.progreso());
+    }
+
+    @DeleteMapping("/reproceso")
+    @Operation(summary = "Detener el reproceso en curso")
+    public ResponseEntity<ReprocesoMensajesDTO> detener() {
+        return ResponseEntity.ok(reprocesoService.detener());
+    }
+
+    @GetMapping("/bandeja/estacionados")
+    @Operation(summary = "Devoluciones (pacs.004) de la bandeja estacionadas tras agotar sus reintentos")
+    public ResponseEntity<Map<String, Long>> bandejaEstacionados() {
+        return ResponseEntity.ok(Map.of("estacionados", bandejaService.contarEstacionados()));
+    }
+
+    @PostMapping("/bandeja/reproceso")
+    @Operation(summary = "Devolver a la cola de la bandeja los mensajes estacionados (uno o los más antiguos)")
+    public ResponseEntity<Map<String, Integer>> reprocesarBandeja(
+            @RequestParam(name = "instructionId", required = false) String instructionId,
+            @RequestParam(name = "maximo", required = false) Integer maximo) {
+        return ResponseEntity.ok(Map.of("reactivados", bandejaService.reprocesarEstacionados(instructionId, maximo)));
+    }
+}
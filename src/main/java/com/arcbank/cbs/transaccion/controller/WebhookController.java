@@ -1,6 +1,5 @@
 package com.arcbank.cbs.transaccion.controller;
 
-import java.math.BigDecimal;
 import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
@@ -9,7 +8,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.arcbank.cbs.transaccion.dto.SwitchTransferRequest;
+import com.arcbank.cbs.transaccion.dto.rabbitmq.StatusReportDTO;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.service.BandejaEntradaService;
+import com.arcbank.cbs.transaccion.service.ClasificadorWebhook;
+import com.arcbank.cbs.transaccion.service.ReporteEstadoService;
+import com.arcbank.cbs.transaccion.service.SagaTransferenciaSaliente;
 import com.arcbank.cbs.transaccion.service.TransaccionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,65 +26,64 @@ import lombok.extern.slf4j.Slf4j;
 public class WebhookController {
 
         private final TransaccionService transaccionService;
-        private final com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+        private final ClasificadorWebhook clasificadorWebhook;
+        private final BandejaEntradaService bandejaEntradaService;
+        private final ReporteEstadoService reporteEstadoService;
 
         @PostMapping("/api/core/transferencias/recepcion")
-        @SuppressWarnings("unchecked")
-        public ResponseEntity<?> recibirWebhookUnificado(@RequestBody Map<String, Object> payload) {
+        public ResponseEntity<?> recibirWebhookUnificado(@RequestBody byte[] payload) {
                 try {
-                        Map<String, Object> header = (Map<String, Object>) payload.get("header");
-                        Map<String, Object> body = (Map<String, Object>) payload.get("body");
-
-                        // 1. Detección de Account Verification (acmt.023)
-                        if (header != null && "acmt.023.001.02".equals(header.get("messageNamespace"))) {
-                                log.info("🔍 Webhook detectado como CONSULTA DE CUENTA (acmt.023)");
-                                String accountId = null;
-
-                                // El Switch envía body.targetAccountNumber
-                                if (body != null && body.get("targetAccountNumber") != null) {
-                                        accountId = (String) body.get("targetAccountNumber");
+                        // Clasificación y binding en una sola pasada de tokens (sin Map intermedio)
+                        ClasificadorWebhook.MensajeClasificado mensaje = clasificadorWebhook.clasificar(payload);
+
+                        switch (mensaje.tipo()) {
+                                case CONSULTA_CUENTA -> {
+                                        // 1. Account Verification (acmt.023)
+                                        log.info("🔍 Webhook detectado como CONSULTA DE CUENTA (acmt.023)");
+                                        String accountId = mensaje.cuentaConsultada();
+
+                                        if (accountId == null) {
+                                                log.warn("Solicitud acmt.023 recibida sin 'targetAccountNumber' ni 'creditor.accountId'.");
+                                                return ResponseEntity.ok(Map.of(
+                                                                "status", "FAILED",
+                                                                "data", Map.of("mensaje",
+                                                                                "Formato inválido: Falta targetAccountNumber")));
+                                        }
+
+                                        Map<String, Object> result = transaccionService.validarCuentaLocal(accountId);
+
+                                        if (Boolean.TRUE.equals(result.get("exists"))) {
+                                                return ResponseEntity.ok(Map.of("status", "SUCCESS", "data", result));
+                                        } else {
+                                                return ResponseEntity.ok(Map.of(
+                                                                "status", "FAILED",
+                                                                "data",
+                                                                Map.of("exists", false, "mensaje", "Cuenta no encontrada")));
+                                        }
                                 }
-                                // Fallback: creditor.accountId (compatibilidad)
-                                if (accountId == null && body != null && body.get("creditor") != null) {
-                                        Map<String, Object> creditor = (Map<String, Object>) body.get("creditor");
-                                        accountId = (String) creditor.get("accountId");
+                                case REPORTE_ESTADO -> {
+                                        // 3. Estado de una transferencia que originamos (pacs.002)
+                                        log.info("📨 Webhook detectado como REPORTE DE ESTADO (pacs.002)");
+                                        return recibirReporteEstado(mensaje.reporteEstado());
                                 }
-
-                                if (accountId == null) {
-                                        log.warn("Solicitud acmt.023 recibida sin 'targetAccountNumber' ni 'creditor.accountId'.");
-                                        return ResponseEntity.ok(Map.of(
-                                                        "status", "FAILED",
-                                                        "data", Map.of("mensaje",
-                                                                        "Formato inválido: Falta targetAccountNumber")));
+                                case DEVOLUCION -> {
+                                        // 2. Devoluciones (pacs.004)
+                                        log.info("🔄 Webhook detectado como DEVOLUCIÓN (pacs.004)");
+                                        return recibirDevolucion(mensaje.devolucion());
                                 }
-
-                                Map<String, Object> result = transaccionService.validarCuentaLocal(accountId);
-
-                                if (Boolean.TRUE.equals(result.get("exists"))) {
-                                        return ResponseEntity.ok(Map.of("status", "SUCCESS", "data", result));
-                                } else {
-                                        return ResponseEntity.ok(Map.of(
-                                                        "status", "FAILED",
-                                                        "data",
-                                                        Map.of("exists", false, "mensaje", "Cuenta no encontrada")));
+                                default -> {
+                                        // 4. Transferencia (pacs.008) por descarte
+                                        log.info("📥 Webhook detectado como TRANSFERENCIA (pacs.008)");
+                                        SwitchTransferRequest req = mensaje.transferencia();
+                                        log.info("Processing transfer ID: {}",
+                                                        req.getBody() != null ? req.getBody().getInstructionId() : null);
+                                        return procesarTransferencia(req);
                                 }
                         }
-
-                        // 2. Detección de Devoluciones (pacs.004)
-                        if (body != null && (body.containsKey("originalInstructionId")
-                                        || body.containsKey("returnReason"))) {
-                                log.info("🔄 Webhook detectado como DEVOLUCIÓN (pacs.004)");
-                                com.arcbank.cbs.transaccion.dto.SwitchDevolucionRequest req = objectMapper.convertValue(
-                                                payload, com.arcbank.cbs.transaccion.dto.SwitchDevolucionRequest.class);
-                                return recibirDevolucion(req);
-                        } else {
-                                // 3. Detección de Transferencia (pacs.008) por descarte
-                                log.info("📥 Webhook detectado como TRANSFERENCIA (pacs.008)");
-                                SwitchTransferRequest req = objectMapper.convertValue(payload,
-                                                SwitchTransferRequest.class);
-                                log.info("Processing transfer ID: {}", req.getBody().getInstructionId());
-                                return procesarTransferencia(req);
-                        }
+                } catch (JsonProcessingException e) {
+                        log.error("❌ Payload JSON inválido en webhook unificado: {}", e.getOriginalMessage());
+                        return ResponseEntity.badRequest().body(Map.of("status", "NACK", "error",
+                                        "JSON inválido: " + e.getOriginalMessage()));
                 } catch (Exception e) {
                         log.error("❌ Error en webhook unificado: {}", e.getMessage());
                         return ResponseEntity.status(422).body(Map.of("status", "NACK", "error",
@@ -92,6 +97,10 @@ public class WebhookController {
                 log.info("🔄 Webhook Devolución V3.0 recibido (Confirmación Asíncrona): {}",
                                 request.getBody().getOriginalInstructionId());
                 try {
+                        if (bandejaEntradaService.habilitada()) {
+                                bandejaEntradaService.encolarDevolucion(request);
+                                return ResponseEntity.ok(Map.of("status", "ACK", "message", "Devolución recibida"));
+                        }
                         transaccionService.procesarDevolucionEntrante(request);
                         return ResponseEntity.ok(Map.of("status", "ACK", "message", "Devolución confirmada"));
                 } catch (Exception e) {
@@ -100,6 +109,23 @@ public class WebhookController {
                 }
         }
 
+        @PostMapping("/api/incoming/status-report")
+        public ResponseEntity<?> recibirReporteEstado(@RequestBody StatusReportDTO reporte) {
+                try {
+                        SagaTransferenciaSaliente.ResultadoReporte resultado = reporteEstadoService.procesar(reporte);
+                        if (resultado == SagaTransferenciaSaliente.ResultadoReporte.DESCONOCIDA) {
+                                return ResponseEntity.status(404).body(Map.of("status", "NACK", "error",
+                                                "Instrucción original desconocida"));
+                        }
+                        // Repetidos o ya resueltos por polling también se confirman: el Switch no debe reintentar
+                        return ResponseEntity.ok(Map.of("status", "ACK", "resultado", resultado.name()));
+                } catch (Exception e) {
+                        log.error("❌ Error procesando reporte de estado: {}", e.getMessage());
+                        return ResponseEntity.badRequest().body(Map.of("status", "NACK", "error",
+                                        String.valueOf(e.getMessage())));
+                }
+        }
+
         private ResponseEntity<?> procesarTransferencia(SwitchTransferRequest request) {
                 try {
                         if (request.getHeader() == null || request.getBody() == null) {
@@ -115,16 +141,25 @@ public class WebhookController {
                                         ? request.getHeader().getOriginatingBankId()
                                         : "DESCONOCIDO";
 
-                        BigDecimal monto = BigDecimal.ZERO;
+                        Dinero monto = Dinero.CERO;
                         if (request.getBody().getAmount() != null && request.getBody().getAmount().getValue() != null) {
                                 monto = request.getBody().getAmount().getValue();
                         }
 
-                        if (instructionId == null || cuentaDestino == null || monto.compareTo(BigDecimal.ZERO) <= 0) {
+                        if (instructionId == null || cuentaDestino == null || !monto.esPositivo()) {
                                 return ResponseEntity.badRequest()
                                                 .body(Map.of("status", "NACK", "error", "Datos incompletos"));
                         }
 
+                        // Con la bandeja activa se persiste el mensaje y se responde sin esperar al core de cuentas
+                        if (bandejaEntradaService.habilitada()) {
+                                bandejaEntradaService.encolarTransferencia(request);
+                                return ResponseEntity.ok(Map.of(
+                                                "status", "ACK",
+                                                "message", "Recibida, acreditación en proceso",
+                                                "instructionId", instructionId));
+                        }
+
                         transaccionService.procesarTransferenciaEntrante(instructionId, cuentaDestino, monto,
                                         bancoOrigen);
 
@@ -156,6 +191,10 @@ public class WebhookController {
         public ResponseEntity<?> consultarEstado(
                         @org.springframework.web.bind.annotation.PathVariable String instructionId) {
                 String estado = transaccionService.consultarEstadoPorInstructionId(instructionId);
+                if ("NOT_FOUND".equals(estado)) {
+                        // Aceptada pero aún en la bandeja (o rechazada allí sin llegar a crear la transacción)
+                        estado = bandejaEntradaService.consultarEstado(instructionId).orElse(estado);
+                }
 
                 Map<String, String> response = new java.util.HashMap<>();
                 response.put("estado", estado);
@@ -0,0 +1,22 @@
+package com.arcbank.cbs.transaccion.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgregadoDiarioDTO {
+    private Integer idCuenta;
+    private LocalDate fecha;
+    private String tipoOperacion;
+    private String sentido;
+    private long cantidad;
+    private BigDecimal total;
+}
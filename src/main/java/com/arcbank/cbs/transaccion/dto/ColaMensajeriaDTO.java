@@ -0,0 +1,16 @@
+package com.arcbank.cbs.transaccion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColaMensajeriaDTO {
+    private String nombre;
+    private Long mensajes;
+    private Integer consumidores;
+}
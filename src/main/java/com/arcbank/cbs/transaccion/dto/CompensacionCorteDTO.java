@@ -0,0 +1,31 @@
+package com.arcbank.cbs.transaccion.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.arcbank.cbs.transaccion.model.CompensacionPosicion;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompensacionCorteDTO {
+    private Integer idCorte;
+    private LocalDateTime fechaInicio;
+    private LocalDateTime fechaFin;
+    private String estado;
+
+    private Long totalMovimientos;
+    private Integer totalBloques;
+    private Integer bloquesEnviados;
+    private BigDecimal posicionNetaTotal;
+    private String ultimoError;
+
+    private List<CompensacionPosicion> posiciones;
+}
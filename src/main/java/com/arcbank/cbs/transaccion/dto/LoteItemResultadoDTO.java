@@ -0,0 +1,18 @@
+package com.arcbank.cbs.transaccion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteItemResultadoDTO {
+    private Integer secuencia;
+    private String referencia; // Clave de idempotencia = Referencia de la transacción
+    private String estado;
+    private Integer idTransaccion;
+    private String error;
+}
@@ -0,0 +1,27 @@
+package com.arcbank.cbs.transaccion.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteRequestDTO {
+
+    // Idempotencia del lote: reenviar la misma referencia devuelve el lote existente
+    @Size(max = 64, message = "La referencia del lote no puede superar 64 caracteres")
+    private String referenciaLote;
+
+    private String canal;
+
+    // Sin @Valid en cascada: cada ítem se valida por separado para rechazarlo sin tumbar el lote
+    @NotEmpty(message = "El lote debe contener al menos una transacción")
+    private List<TransaccionRequestDTO> items;
+}
@@ -0,0 +1,27 @@
+package com.arcbank.cbs.transaccion.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteResponseDTO {
+    private Integer idLote;
+    private String referenciaLote;
+    private String estado;
+
+    private Integer totalItems;
+    private Integer exitosos;
+    private Integer fallidos;
+    private Integer rechazados;
+    private Integer pendientes;
+
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaFinalizacion;
+}
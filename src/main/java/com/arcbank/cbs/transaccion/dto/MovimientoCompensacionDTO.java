@@ -0,0 +1,28 @@
+package com.arcbank.cbs.transaccion.dto;
+
+import java.time.LocalDateTime;
+
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Proyección mínima de Transaccion para el cursor de compensación (sin entidad gestionada)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoCompensacionDTO {
+    private TipoOperacion tipoOperacion;
+    private String idBancoExterno;
+    private Dinero monto;
+    private EstadoTransaccion estado;
+    private Integer idCuentaDestino;
+    // La contrapartida de su reverso/devolución se compensa aparte: fila REVERSO o CompensacionAjuste
+    private Boolean tieneReverso;
+    // Para arrastrar al corte siguiente un movimiento aún PENDIENTE
+    private Integer idTransaccion;
+    private LocalDateTime fechaCreacion;
+}
@@ -0,0 +1,25 @@
+package com.arcbank.cbs.transaccion.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReprocesoMensajesDTO {
+    private String estado;
+    private String origen;
+    private String cola;
+    private Integer maximo;
+    private Integer porSegundo;
+
+    private Long reprocesados;
+    private LocalDateTime inicio;
+    private LocalDateTime fin;
+    private String ultimoError;
+}
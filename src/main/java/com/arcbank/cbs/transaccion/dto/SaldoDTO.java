@@ -1,6 +1,7 @@
 package com.arcbank.cbs.transaccion.dto;
 
-import java.math.BigDecimal;
+import com.arcbank.cbs.transaccion.model.Dinero;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -9,5 +10,5 @@ import lombok.AllArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class SaldoDTO {
-    private BigDecimal saldo;
+    private Dinero saldo;
 }
@@ -1,7 +1,7 @@
 package com.arcbank.cbs.transaccion.dto;
 
 import lombok.*;
-import java.math.BigDecimal;
+import com.arcbank.cbs.transaccion.model.Dinero;
 
 @Data
 @Builder
@@ -39,6 +39,6 @@ public class SwitchDevolucionRequest {
     @AllArgsConstructor
     public static class ReturnAmount {
         private String currency;
-        private BigDecimal value;
+        private Dinero value;
     }
 }
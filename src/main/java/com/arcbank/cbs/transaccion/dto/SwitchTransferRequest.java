@@ -1,7 +1,7 @@
 package com.arcbank.cbs.transaccion.dto;
 
 import lombok.*;
-import java.math.BigDecimal;
+import com.arcbank.cbs.transaccion.model.Dinero;
 
 @Data
 @Builder
@@ -41,7 +41,7 @@ public class SwitchTransferRequest {
     @AllArgsConstructor
     public static class Amount {
         private String currency;
-        private BigDecimal value;
+        private Dinero value;
     }
 
     @Data
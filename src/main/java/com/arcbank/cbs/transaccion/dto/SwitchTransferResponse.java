@@ -1,7 +1,7 @@
 package com.arcbank.cbs.transaccion.dto;
 
 import lombok.*;
-import java.math.BigDecimal;
+import com.arcbank.cbs.transaccion.model.Dinero;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -24,7 +24,7 @@ public class SwitchTransferResponse {
         private String estado;
         private String bancoOrigen;
         private String bancoDestino;
-        private BigDecimal monto;
+        private Dinero monto;
         private LocalDateTime timestamp;
         private LocalDateTime fechaCreacion;
         private String codigoReferencia;
@@ -1,6 +1,6 @@
 package com.arcbank.cbs.transaccion.dto;
 
-import java.math.BigDecimal;
+import com.arcbank.cbs.transaccion.model.Dinero;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -30,7 +30,7 @@ public class TransaccionRequestDTO {
 
     @NotNull(message = "El monto es obligatorio")
     @Positive(message = "El monto debe ser positivo")
-    private BigDecimal monto;
+    private Dinero monto;
 
     private String descripcion;
     private String canal;
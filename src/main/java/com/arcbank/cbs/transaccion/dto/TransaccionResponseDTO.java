@@ -1,9 +1,11 @@
 package com.arcbank.cbs.transaccion.dto;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
-import lombok.AllArgsConstructor;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,11 +13,10 @@ import lombok.NoArgsConstructor;
 @Data
 @Builder
 @NoArgsConstructor
-@AllArgsConstructor
 public class TransaccionResponseDTO {
     private Integer idTransaccion;
     private String referencia;
-    private String tipoOperacion;
+    private TipoOperacion tipoOperacion;
 
     private Integer idCuentaOrigen;
     private Integer idCuentaDestino;
@@ -23,12 +24,34 @@ public class TransaccionResponseDTO {
     private String cuentaExterna;
     private String idBancoExterno;
 
-    private BigDecimal monto;
-    private BigDecimal saldoResultante;
+    private Dinero monto;
+    private Dinero saldoResultante;
 
     private LocalDateTime fechaCreacion;
     private String descripcion;
     private String canal;
-    private String estado;
+    private EstadoTransaccion estado;
     private String codigoReferencia;
+
+    // Constructor de las proyecciones JPQL (RESUMEN_GENERAL): el saldo nulo se muestra como 0. El COALESCE
+    // se hace aquí porque un literal en la consulta no pasa por el conversor de Dinero.
+    public TransaccionResponseDTO(Integer idTransaccion, String referencia, TipoOperacion tipoOperacion,
+            Integer idCuentaOrigen, Integer idCuentaDestino, String cuentaExterna, String idBancoExterno,
+            Dinero monto, Dinero saldoResultante, LocalDateTime fechaCreacion, String descripcion, String canal,
+            EstadoTransaccion estado, String codigoReferencia) {
+        this.idTransaccion = idTransaccion;
+        this.referencia = referencia;
+        this.tipoOperacion = tipoOperacion;
+        this.idCuentaOrigen = idCuentaOrigen;
+        this.idCuentaDestino = idCuentaDestino;
+        this.cuentaExterna = cuentaExterna;
+        this.idBancoExterno = idBancoExterno;
+        this.monto = monto;
+        this.saldoResultante = saldoResultante != null ? saldoResultante : Dinero.CERO;
+        this.fechaCreacion = fechaCreacion;
+        this.descripcion = descripcion;
+        this.canal = canal;
+        this.estado = estado;
+        this.codigoReferencia = codigoReferencia;
+    }
 }
@@ -1,7 +1,7 @@
 package com.arcbank.cbs.transaccion.dto;
 
 import lombok.*;
-import java.math.BigDecimal;
+import com.arcbank.cbs.transaccion.model.Dinero;
 
 @Data
 @Builder
@@ -13,7 +13,7 @@ public class TxRequest {
     private String creditorAccount;
     private String creditorName;
     private String targetBankId;
-    private BigDecimal amount;
+    private Dinero amount;
     private String description;
     private String referenceId;
 }
@@ -0,0 +1,33 @@
+package com.arcbank.cbs.transaccion.dto.rabbitmq;
+
+import java.time.LocalDateTime;
+
+import com.arcbank.cbs.transaccion.model.Dinero;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Evento de dominio publicado en el exchange de transacciones (routing key = tipoEvento en minúsculas)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventoTransaccionDTO {
+    private String tipoEvento; // TRANSACCION_CREADA / _COMPLETADA / _FALLIDA / _REVERSADA
+    private Integer idTransaccion;
+    private String referencia;
+    private String codigoReferencia;
+    private String tipoOperacion;
+    private Integer idCuentaOrigen;
+    private Integer idCuentaDestino;
+    private String cuentaExterna;
+    private String idBancoExterno;
+    private Dinero monto;
+    private Dinero saldoResultante;
+    private String estado;
+    private String canal;
+    private LocalDateTime fechaTransaccion;
+    private LocalDateTime fechaEvento;
+}
@@ -1,6 +1,7 @@
 package com.arcbank.cbs.transaccion.dto.rabbitmq;
 
-import java.math.BigDecimal;
+import com.arcbank.cbs.transaccion.model.Dinero;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -43,7 +44,7 @@ public class MensajeISO {
     @Builder
     public static class Amount {
         private String currency; // "USD"
-        private BigDecimal value; // Monto
+        private Dinero value; // Monto
     }
 
     @Data
@@ -1,6 +1,8 @@
 package com.arcbank.cbs.transaccion.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,6 +26,35 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(SobrecargaException.class)
+    public ResponseEntity<ErrorResponse> handleSobrecarga(SobrecargaException ex) {
+        log.warn("Solicitud rechazada por sobrecarga ({}): {}", ex.getStatus(), ex.getMessage());
+        ErrorResponse error = ErrorResponse.builder()
+                .mensaje(ex.getMessage())
+                .codigo(switch (ex.getStatus()) {
+                    case 429 -> "TOO_MANY_REQUESTS";
+                    case 504 -> "DEADLINE_EXCEEDED";
+                    default -> "SERVICE_OVERLOADED";
+                })
+                .fecha(LocalDateTime.now())
+                .build();
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSegundos()))
+                .body(error);
+    }
+
+    // Transición de estado condicionada que no encontró la fila en el estado leído: otro escritor se adelantó
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleConflictoEstado(OptimisticLockingFailureException ex) {
+        log.warn("Conflicto de estado concurrente: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.builder()
+                .mensaje("La transacción fue modificada por otra operación. Consulte su estado antes de reintentar.")
+                .codigo("CONFLICT")
+                .fecha(LocalDateTime.now())
+                .build();
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(NoResourceFoundException.class)
     public ResponseEntity<ErrorResponse> handleResourceNotFound(NoResourceFoundException ex) {
         log.debug("Recurso no encontrado: {}", ex.getResourcePath());
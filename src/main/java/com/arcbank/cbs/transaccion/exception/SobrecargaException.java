@@ -0,0 +1,21 @@
+package com.arcbank.cbs.transaccion.exception;
+
+public class SobrecargaException extends RuntimeException {
+
+    private final int status;
+    private final long retryAfterSegundos;
+
+    public SobrecargaException(int status, long retryAfterSegundos, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
@@ -0,0 +1,105 @@
+package com.arcbank.cbs.transaccion.listener;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.config.MembresiaCluster;
+import com.arcbank.cbs.transaccion.dto.rabbitmq.MensajeISO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reparte los shards de créditos entrantes entre las réplicas vivas ({@link MembresiaCluster}): por cada
+ * shard que le toca a este nodo corre un consumidor con un solo hilo.
+ * <p>
+ * Las colas shard son single-active-consumer: durante un rebalanceo el nodo nuevo queda en espera hasta que
+ * el anterior cancela su consumidor, así que un shard nunca se procesa en dos pods a la vez.
+ */
+@Slf4j
+@Component
+public class AsignadorShardsCredito {
+
+    private static final ParameterizedTypeReference<MensajeISO> TIPO_MENSAJE =
+            new ParameterizedTypeReference<MensajeISO>() {
+            };
+
+    private static final String CLAVE = "credito-entrante";
+
+    private final EnrutadorShardsCredito enrutador;
+    private final MembresiaCluster membresia;
+    private final SimpleRabbitListenerContainerFactory containerFactory;
+    private final IntegracionSwitchListener integracionSwitchListener;
+    // Mismo conversor que los @RabbitListener (RabbitMQConfig.jsonMessageConverter)
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private final Map<Integer, SimpleMessageListenerContainer> consumidores = new ConcurrentHashMap<>();
+
+    public AsignadorShardsCredito(EnrutadorShardsCredito enrutador, MembresiaCluster membresia,
+            @Qualifier("switchListenerContainerFactory") SimpleRabbitListenerContainerFactory containerFactory,
+            IntegracionSwitchListener integracionSwitchListener, MeterRegistry registry) {
+        this.enrutador = enrutador;
+        this.membresia = membresia;
+        this.containerFactory = containerFactory;
+        this.integracionSwitchListener = integracionSwitchListener;
+        registry.gauge("arcbank.switch.shards.propios", consumidores, Map::size);
+    }
+
+    @Scheduled(fixedDelayString = "${app.nodo.intervalo-latido-ms:10000}")
+    public synchronized void rebalancear() {
+        if (!enrutador.habilitado()) {
+            return;
+        }
+        Set<Integer> propios = new HashSet<>();
+        for (int shard = 0; shard < enrutador.shards(); shard++) {
+            if (membresia.esDuenio(CLAVE, shard)) {
+                propios.add(shard);
+            }
+        }
+        for (Integer shard : Set.copyOf(consumidores.keySet())) {
+            if (!propios.contains(shard)) {
+                consumidores.remove(shard).destroy();
+                log.info("🔀 Shard {} liberado por {}", shard, membresia.nodo());
+            }
+        }
+        for (Integer shard : propios) {
+            consumidores.computeIfAbsent(shard, this::iniciarConsumidor);
+        }
+    }
+
+    private SimpleMessageListenerContainer iniciarConsumidor(int shard) {
+        SimpleMessageListenerContainer contenedor = containerFactory.createListenerContainer();
+        contenedor.setQueueNames(enrutador.colaShard(shard));
+        // Un hilo por shard: los créditos de una cuenta se aplican en el orden en que llegaron
+        contenedor.setConcurrentConsumers(1);
+        contenedor.setMaxConcurrentConsumers(1);
+        contenedor.setMessageListener((MessageListener) mensaje -> {
+            if (!(converter.fromMessage(mensaje, TIPO_MENSAJE) instanceof MensajeISO iso)) {
+                throw new MessageConversionException("Cuerpo no convertible a MensajeISO");
+            }
+            integracionSwitchListener.acreditarMensaje(iso);
+        });
+        contenedor.afterPropertiesSet();
+        contenedor.start();
+        log.info("🔀 Shard {} asignado a {}", shard, membresia.nodo());
+        return contenedor;
+    }
+
+    @PreDestroy
+    public synchronized void liberar() {
+        consumidores.values().forEach(SimpleMessageListenerContainer::destroy);
+        consumidores.clear();
+    }
+}
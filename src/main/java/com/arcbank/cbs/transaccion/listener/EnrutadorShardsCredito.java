@@ -0,0 +1,92 @@
+package com.arcbank.cbs.transaccion.listener;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.dto.rabbitmq.MensajeISO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Modo opcional de afinidad por cuenta para los créditos del Switch. El Switch publica en una sola cola
+ * consumida por todas las réplicas; con este modo activo el consumidor de esa cola solo reparte: cada
+ * mensaje se reenvía a la cola shard de su cuenta destino (hash de creditor.accountId) y cada shard lo
+ * consume un único nodo a la vez (ver {@link AsignadorShardsCredito}). Los créditos de una cuenta se
+ * procesan así en orden y en un solo pod, sin locks entre pods.
+ * <p>
+ * Cambiar el número de shards reubica las cuentas: hacerlo con las colas shard vacías.
+ */
+@Slf4j
+@Component
+public class EnrutadorShardsCredito {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final boolean habilitado;
+    private final int shards;
+    private final String exchange;
+    private final String colaEntrada;
+    private final long timeoutConfirmacionMs;
+
+    public EnrutadorShardsCredito(RabbitTemplate rabbitTemplate,
+            @Value("${app.switch-mq.shards.habilitado:false}") boolean habilitado,
+            @Value("${app.switch-mq.shards.cantidad:16}") int shards,
+            @Value("${app.switch-mq.shards.exchange:arcbank.switch.shards}") String exchange,
+            @Value("${bank.queue.name}") String colaEntrada,
+            @Value("${app.switch-mq.timeout-confirmacion-ms:5000}") long timeoutConfirmacionMs) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("app.switch-mq.shards.cantidad debe ser mayor que cero");
+        }
+        this.rabbitTemplate = rabbitTemplate;
+        this.habilitado = habilitado;
+        this.shards = shards;
+        this.exchange = exchange;
+        this.colaEntrada = colaEntrada;
+        this.timeoutConfirmacionMs = timeoutConfirmacionMs;
+    }
+
+    public boolean habilitado() {
+        return habilitado;
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    public String exchange() {
+        return exchange;
+    }
+
+    public String colaShard(int shard) {
+        return colaEntrada + ".shard." + shard;
+    }
+
+    // String.hashCode está especificado: todas las réplicas calculan el mismo shard para la misma cuenta
+    public int shardDe(String cuenta) {
+        return Math.floorMod(cuenta.hashCode(), shards);
+    }
+
+    /** Reenvía el mensaje a su shard; solo vuelve (y el consumidor hace ACK) cuando el broker lo confirmó. */
+    public void distribuir(MensajeISO mensaje, Message original) {
+        String cuenta = mensaje.getBody() != null && mensaje.getBody().getCreditor() != null
+                ? mensaje.getBody().getCreditor().getAccountId()
+                : null;
+        if (cuenta == null || cuenta.isBlank()) {
+            throw new AmqpRejectAndDontRequeueException("Mensaje sin creditor.accountId");
+        }
+        int shard = shardDe(cuenta);
+        original.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        Boolean confirmado = rabbitTemplate.invoke(operaciones -> {
+            operaciones.send(exchange, String.valueOf(shard), original);
+            return operaciones.waitForConfirms(timeoutConfirmacionMs);
+        });
+        if (!Boolean.TRUE.equals(confirmado)) {
+            throw new AmqpException("El broker no confirmó el reenvío al shard " + shard);
+        }
+        log.debug("🔀 Crédito {} → shard {}", mensaje.getBody().getInstructionId(), shard);
+    }
+}
@@ -0,0 +1,46 @@
+package com.arcbank.cbs.transaccion.listener;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.dto.rabbitmq.EventoTransaccionDTO;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+import com.arcbank.cbs.transaccion.service.CacheTransaccionesFinales;
+import com.arcbank.cbs.transaccion.service.HubEstadoTransacciones;
+
+import lombok.RequiredArgsConstructor;
+
+// Cambios hechos en cualquier réplica (outbox -> exchange de eventos) para las suscripciones y la caché de
+// transacciones finales de este nodo
+@Component
+@RequiredArgsConstructor
+public class EstadoTransaccionListener {
+
+    private final HubEstadoTransacciones hubEstado;
+    private final CacheTransaccionesFinales cacheTransacciones;
+
+    @RabbitListener(queues = "#{colaEstadoTransacciones.name}",
+            autoStartup = "${app.notificaciones.habilitado:true}")
+    public void recibir(EventoTransaccionDTO evento) {
+        EstadoTransaccion estado = evento.getEstado() != null ? EstadoTransaccion.valueOf(evento.getEstado()) : null;
+        // Una COMPLETADA reversada en otra réplica deja de servirse desde la caché local
+        cacheTransacciones.invalidarSiDistinto(evento.getIdTransaccion(), estado);
+        hubEstado.publicar(TransaccionResponseDTO.builder()
+                .idTransaccion(evento.getIdTransaccion())
+                .referencia(evento.getReferencia())
+                .tipoOperacion(TipoOperacion.desde(evento.getTipoOperacion()).orElse(null))
+                .idCuentaOrigen(evento.getIdCuentaOrigen())
+                .idCuentaDestino(evento.getIdCuentaDestino())
+                .cuentaExterna(evento.getCuentaExterna())
+                .idBancoExterno(evento.getIdBancoExterno())
+                .monto(evento.getMonto())
+                .saldoResultante(evento.getSaldoResultante())
+                .fechaCreacion(evento.getFechaTransaccion())
+                .canal(evento.getCanal())
+                .estado(estado)
+                .codigoReferencia(evento.getCodigoReferencia())
+                .build());
+    }
+}
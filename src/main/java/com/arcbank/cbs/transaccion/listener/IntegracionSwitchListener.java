@@ -1,12 +1,12 @@
 package com.arcbank.cbs.transaccion.listener;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity; // Import necesario
@@ -15,7 +15,10 @@ import org.springframework.http.MediaType; // Import necesario
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.arcbank.cbs.transaccion.config.CarrilEjecucion;
+import com.arcbank.cbs.transaccion.config.ControlAdmision;
 import com.arcbank.cbs.transaccion.dto.rabbitmq.MensajeISO;
+import com.arcbank.cbs.transaccion.model.Dinero;
 import com.arcbank.cbs.transaccion.service.TransaccionService;
 
 import lombok.RequiredArgsConstructor;
@@ -28,6 +31,7 @@ public class IntegracionSwitchListener {
 
     private final TransaccionService transaccionService;
     private final RestTemplate restTemplate;
+    private final EnrutadorShardsCredito enrutadorShards;
 
     @Value("${SWITCH_API_URL:http://34.16.106.7:8000/api/v2/switch/transfers/callback}")
     private String switchCallbackUrl;
@@ -37,20 +41,39 @@ public class IntegracionSwitchListener {
 
     private static final String MI_BANCO_ID = "ARCBANK";
 
-    @RabbitListener(queues = "${bank.queue.name}")
-    public void procesarTransferencia(MensajeISO mensaje) {
-        String txId = "UNKNOWN";
+    @RabbitListener(queues = "${bank.queue.name}", containerFactory = "switchListenerContainerFactory")
+    public void procesarTransferencia(MensajeISO mensaje, Message original) {
+        if (enrutadorShards.habilitado()) {
+            // Modo afinidad por cuenta: aquí solo se reparte, acredita el dueño del shard (AsignadorShardsCredito)
+            enrutadorShards.distribuir(mensaje, original);
+            return;
+        }
+        acreditarMensaje(mensaje);
+    }
+
+    public void acreditarMensaje(MensajeISO mensaje) {
+        CarrilEjecucion.establecer(ControlAdmision.Clase.CREDITO_ENTRANTE);
         try {
-            if (mensaje.getBody() == null || mensaje.getBody().getInstructionId() == null) {
-                log.error("❌ Mensaje inválido recibido: {}", mensaje);
-                return;
-            }
+            acreditar(mensaje);
+        } finally {
+            CarrilEjecucion.limpiar();
+        }
+    }
+
+    private void acreditar(MensajeISO mensaje) {
+        if (mensaje.getBody() == null || mensaje.getBody().getInstructionId() == null) {
+            log.error("❌ Mensaje inválido recibido: {}", mensaje);
+            // Reintentar no lo arregla: va directo a la DLQ
+            throw new AmqpRejectAndDontRequeueException("Mensaje sin instructionId");
+        }
 
+        String txId = "UNKNOWN";
+        try {
             txId = mensaje.getBody().getInstructionId();
             log.info("💰 Dinero recibido del Switch! ID: {}", txId);
 
             String cuentaDestino = mensaje.getBody().getCreditor().getAccountId();
-            BigDecimal monto = mensaje.getBody().getAmount().getValue();
+            Dinero monto = mensaje.getBody().getAmount().getValue();
             String bancoOrigen = (mensaje.getHeader() != null) ? mensaje.getHeader().getOriginatingBankId() : "UNK";
 
             transaccionService.procesarTransferenciaEntrante(txId, cuentaDestino, monto, bancoOrigen);
@@ -0,0 +1,161 @@
+package com.arcbank.cbs.transaccion.listener;
+
+import java.util.Arrays;
+
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Destino de un mensaje de la cola de entrada del Switch cuyo procesamiento falló. La cola la crea el
+ * Switch (no se le pueden añadir argumentos x-dead-letter), así que el reencaminamiento lo hace el
+ * consumidor, confirmado por el broker antes del ACK:
+ * <ul>
+ * <li>error técnico: a la cola de espera del intento (TTL creciente), que al vencer devuelve el mensaje a la
+ * cola de entrada; agotadas las esperas, a la cola de estacionados;</li>
+ * <li>rechazo de negocio o mensaje ilegible: a la DLQ, sin reintentos.</li>
+ * </ul>
+ * Ningún fallo vuelve a la cola de entrada de inmediato. Los estacionados se reinyectan con
+ * {@link com.arcbank.cbs.transaccion.service.ReprocesoMensajesService}.
+ */
+@Slf4j
+@Component
+public class RecuperadorMensajesSwitch implements MessageRecoverer {
+
+    public static final String HEADER_INTENTOS = "x-arcbank-intentos";
+    public static final String HEADER_ERROR = "x-arcbank-ultimo-error";
+    public static final String HEADER_REPROCESOS = "x-arcbank-reprocesos";
+
+    private static final int MAX_ERROR = 500;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry registry;
+    private final String colaEntrada;
+    private final String exchangeFallos;
+    private final long[] esperasMs;
+    private final long timeoutConfirmacionMs;
+
+    public RecuperadorMensajesSwitch(RabbitTemplate rabbitTemplate, MeterRegistry registry,
+            @Value("${bank.queue.name}") String colaEntrada,
+            @Value("${app.switch-mq.exchange-fallos:arcbank.switch.fallos}") String exchangeFallos,
+            @Value("${app.switch-mq.esperas-reintento-ms:1000,5000,30000,120000,600000}") long[] esperasMs,
+            @Value("${app.switch-mq.timeout-confirmacion-ms:5000}") long timeoutConfirmacionMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.registry = registry;
+        this.colaEntrada = colaEntrada;
+        this.exchangeFallos = exchangeFallos;
+        this.esperasMs = Arrays.copyOf(esperasMs, esperasMs.length);
+        this.timeoutConfirmacionMs = timeoutConfirmacionMs;
+    }
+
+    @Override
+    public void recover(Message message, Throwable causa) {
+        MessageProperties props = message.getMessageProperties();
+        int intentos = entero(props.getHeader(HEADER_INTENTOS));
+        String error = descripcion(causa);
+
+        String destino;
+        if (definitivo(causa)) {
+            destino = colaRechazados();
+        } else if (intentos < esperasMs.length) {
+            destino = colaReintento(esperasMs[intentos]);
+        } else {
+            destino = colaEstacionados();
+        }
+
+        props.setHeader(HEADER_INTENTOS, intentos + 1);
+        props.setHeader(HEADER_ERROR, error.length() > MAX_ERROR ? error.substring(0, MAX_ERROR) : error);
+        // Un mensaje recibido no trae deliveryMode (solo receivedDeliveryMode): sin esto se reenviaría no persistente
+        props.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        Boolean confirmado = rabbitTemplate.invoke(operaciones -> {
+            operaciones.send(exchangeFallos, destino, message);
+            return operaciones.waitForConfirms(timeoutConfirmacionMs);
+        });
+        if (!Boolean.TRUE.equals(confirmado)) {
+            // Sin confirmación no se hace ACK: el broker lo vuelve a entregar y se decide de nuevo
+            throw new IllegalStateException("El broker no confirmó el reenvío a " + destino);
+        }
+
+        registry.counter("arcbank.switch.mensajes.fallidos", "destino", tipoDestino(destino)).increment();
+        if (destino.equals(colaEstacionados()) || destino.equals(colaRechazados())) {
+            log.error("📦 Mensaje {} enviado a {} tras {} intento(s): {}", props.getMessageId(), destino,
+                    intentos + 1, error);
+        } else {
+            log.warn("⏳ Mensaje {} falló (intento {}), reintento vía {}: {}", props.getMessageId(), intentos + 1,
+                    destino, error);
+        }
+    }
+
+    public String colaReintento(long esperaMs) {
+        // La espera va en el nombre: cambiar el TTL declara otra cola en vez de chocar con los argumentos
+        return colaEntrada + ".reintento." + esperaMs + "ms";
+    }
+
+    public String colaRechazados() {
+        return colaEntrada + ".dlq";
+    }
+
+    public String colaEstacionados() {
+        return colaEntrada + ".estacionados";
+    }
+
+    public String colaEntrada() {
+        return colaEntrada;
+    }
+
+    public String exchangeFallos() {
+        return exchangeFallos;
+    }
+
+    public long[] esperasMs() {
+        return Arrays.copyOf(esperasMs, esperasMs.length);
+    }
+
+    private String tipoDestino(String destino) {
+        if (destino.equals(colaRechazados())) {
+            return "rechazado";
+        }
+        return destino.equals(colaEstacionados()) ? "estacionado" : "reintento";
+    }
+
+    // Rechazo explícito del listener o cuerpo que no se puede convertir: reintentar no lo arregla
+    private static boolean definitivo(Throwable causa) {
+        for (Throwable t = causa; t != null; t = t.getCause()) {
+            if (t instanceof AmqpRejectAndDontRequeueException || t instanceof MessageConversionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String descripcion(Throwable causa) {
+        Throwable raiz = causa;
+        while (raiz.getCause() != null && raiz.getCause() != raiz) {
+            raiz = raiz.getCause();
+        }
+        return raiz.getClass().getSimpleName() + ": " + raiz.getMessage();
+    }
+
+    public static int entero(Object valor) {
+        if (valor instanceof Number n) {
+            return n.intValue();
+        }
+        if (valor != null) {
+            try {
+                return Integer.parseInt(valor.toString());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.arcbank.cbs.transaccion.listener;
+
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.dto.rabbitmq.StatusReportDTO;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.service.ReporteEstadoService;
+import com.arcbank.cbs.transaccion.service.SagaTransferenciaSaliente;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Reportes pacs.002 del Switch por RabbitMQ; misma lógica idempotente que el webhook
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReporteEstadoListener {
+
+    private final ReporteEstadoService reporteEstadoService;
+
+    @RabbitListener(queues = "${bank.queue.estado}", autoStartup = "${app.reportes-estado.amqp-habilitado:false}")
+    public void recibir(StatusReportDTO reporte) {
+        try {
+            SagaTransferenciaSaliente.ResultadoReporte resultado = reporteEstadoService.procesar(reporte);
+            if (resultado == SagaTransferenciaSaliente.ResultadoReporte.DESCONOCIDA) {
+                log.warn("Reporte de estado para instrucción desconocida: {}",
+                        reporte.getBody().getOriginalInstructionId());
+            }
+        } catch (BusinessException e) {
+            // Mensaje inválido: reintentarlo no lo arregla
+            throw new AmqpRejectAndDontRequeueException(e.getMessage());
+        }
+    }
+}
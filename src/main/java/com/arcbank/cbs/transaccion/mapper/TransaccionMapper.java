@@ -2,6 +2,7 @@ package com.arcbank.cbs.transaccion.mapper;
 
 import com.arcbank.cbs.transaccion.dto.TransaccionRequestDTO;
 import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
 import com.arcbank.cbs.transaccion.model.Transaccion;
 import org.springframework.stereotype.Component;
 
@@ -13,7 +14,7 @@ public class TransaccionMapper {
         
         return Transaccion.builder()
                 .referencia(dto.getReferencia())
-                .tipoOperacion(dto.getTipoOperacion())
+                .tipoOperacion(TipoOperacion.desde(dto.getTipoOperacion()).orElse(null))
                 .idCuentaOrigen(dto.getIdCuentaOrigen())
                 .idCuentaDestino(dto.getIdCuentaDestino())
                 .cuentaExterna(dto.getCuentaExterna())
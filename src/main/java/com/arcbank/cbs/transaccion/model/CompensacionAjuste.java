@@ -0,0 +1,38 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contrapartida de un reverso o devolución propio (sin fila REVERSO) pendiente de compensar (ver V21). El
+ * primer corte generado después la incluye y anota su IdCorte.
+ */
+@Entity
+@Table(name = "\"CompensacionAjuste\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompensacionAjuste {
+
+    @Id
+    @Column(name = "\"IdTransaccion\"")
+    private Integer idTransaccion;
+
+    @Column(name = "\"FechaCreacion\"", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "\"FechaAjuste\"", nullable = false)
+    private LocalDateTime fechaAjuste;
+
+    @Column(name = "\"IdCorte\"")
+    private Integer idCorte;
+}
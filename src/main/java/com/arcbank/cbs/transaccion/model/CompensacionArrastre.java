@@ -0,0 +1,35 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Movimiento que estaba PENDIENTE al generar el corte de su ventana (ver V19). Un corte posterior lo
+ * incluye cuando ya se liquidó y borra la fila.
+ */
+@Entity
+@Table(name = "\"CompensacionArrastre\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompensacionArrastre {
+
+    @Id
+    @Column(name = "\"IdTransaccion\"")
+    private Integer idTransaccion;
+
+    @Column(name = "\"FechaCreacion\"", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "\"IdCorteOrigen\"", nullable = false)
+    private Integer idCorteOrigen;
+}
@@ -0,0 +1,72 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "\"CompensacionCorte\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompensacionCorte {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "\"IdCorte\"")
+    private Integer idCorte;
+
+    @Column(name = "\"FechaInicio\"", nullable = false, updatable = false)
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "\"FechaFin\"", nullable = false, updatable = false)
+    private LocalDateTime fechaFin;
+
+    @Column(name = "\"Estado\"", nullable = false, length = 20)
+    private String estado;
+
+    @Column(name = "\"TotalMovimientos\"", nullable = false)
+    private Long totalMovimientos;
+
+    @Column(name = "\"TotalBloques\"", nullable = false)
+    private Integer totalBloques;
+
+    @Column(name = "\"BloquesEnviados\"", nullable = false)
+    private Integer bloquesEnviados;
+
+    @Column(name = "\"PosicionNetaTotal\"", nullable = false, precision = 18, scale = 2)
+    private BigDecimal posicionNetaTotal;
+
+    @Column(name = "\"UltimoError\"", length = 500)
+    private String ultimoError;
+
+    @Column(name = "\"FechaCreacion\"", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "\"FechaActualizacion\"", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.estado == null)
+            this.estado = "GENERADO";
+        if (this.bloquesEnviados == null)
+            this.bloquesEnviados = 0;
+        if (this.fechaCreacion == null)
+            this.fechaCreacion = LocalDateTime.now();
+        if (this.fechaActualizacion == null)
+            this.fechaActualizacion = this.fechaCreacion;
+    }
+}
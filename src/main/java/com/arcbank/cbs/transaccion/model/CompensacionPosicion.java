@@ -0,0 +1,53 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "\"CompensacionPosicion\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompensacionPosicion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "compensacionPosicionSeq")
+    @SequenceGenerator(name = "compensacionPosicionSeq",
+            sequenceName = "\"CompensacionPosicion_IdPosicion_seq\"", schema = "public", allocationSize = 50)
+    @Column(name = "\"IdPosicion\"")
+    private Integer idPosicion;
+
+    @Column(name = "\"IdCorte\"", nullable = false)
+    private Integer idCorte;
+
+    @Column(name = "\"BancoContraparte\"", nullable = false, length = 20)
+    private String bancoContraparte;
+
+    @Column(name = "\"CantidadEnviada\"", nullable = false)
+    private Long cantidadEnviada;
+
+    @Column(name = "\"TotalEnviado\"", nullable = false, precision = 18, scale = 2)
+    private BigDecimal totalEnviado;
+
+    @Column(name = "\"CantidadRecibida\"", nullable = false)
+    private Long cantidadRecibida;
+
+    @Column(name = "\"TotalRecibido\"", nullable = false, precision = 18, scale = 2)
+    private BigDecimal totalRecibido;
+
+    // Recibido - Enviado (positivo: la contraparte nos debe)
+    @Column(name = "\"PosicionNeta\"", nullable = false, precision = 18, scale = 2)
+    private BigDecimal posicionNeta;
+}
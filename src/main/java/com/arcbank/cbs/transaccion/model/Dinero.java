@@ -0,0 +1,185 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Monto en USD como centavos en un long: inmutable, con aritmética que falla ante desbordamiento
+ * en vez de dar la vuelta. Reemplaza a BigDecimal en el camino del posteo, donde cada operación
+ * creaba uno o más objetos (BigDecimal + BigInteger interno). En JSON se escribe y se lee como
+ * número con dos decimales y en la BD como NUMERIC(15,2) (DineroConverter), igual que antes.
+ */
+@JsonSerialize(using = Dinero.Serializador.class)
+@JsonDeserialize(using = Dinero.Deserializador.class)
+public final class Dinero implements Comparable<Dinero> {
+
+    public static final Dinero CERO = new Dinero(0);
+
+    private static final long MAXIMO_UNIDADES = Long.MAX_VALUE / 100;
+
+    private final long centavos;
+
+    private Dinero(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dinero deCentavos(long centavos) {
+        return centavos == 0 ? CERO : new Dinero(centavos);
+    }
+
+    /** Más de dos decimales se redondean HALF_UP, como al guardar en NUMERIC(15,2). */
+    public static Dinero de(BigDecimal valor) {
+        if (valor == null) {
+            return null;
+        }
+        return deCentavos(valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Dinero de(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        long centavos = parsear(valor.trim());
+        return centavos != Long.MIN_VALUE ? deCentavos(centavos) : de(new BigDecimal(valor.trim()));
+    }
+
+    // Formato simple (-123.45); Long.MIN_VALUE si hace falta BigDecimal (exponente, 3+ decimales, muy largo)
+    private static long parsear(String s) {
+        int n = s.length();
+        if (n == 0 || n > 18) {
+            return Long.MIN_VALUE;
+        }
+        int i = 0;
+        boolean negativo = s.charAt(0) == '-';
+        if (negativo || s.charAt(0) == '+') {
+            i++;
+        }
+        long enteros = 0;
+        int digitos = 0;
+        for (; i < n && s.charAt(i) != '.'; i++, digitos++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return Long.MIN_VALUE;
+            }
+            enteros = enteros * 10 + (c - '0');
+        }
+        long decimales = 0;
+        int cifras = 0;
+        if (i < n) {
+            for (i++; i < n; i++, cifras++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9' || cifras == 2) {
+                    return Long.MIN_VALUE;
+                }
+                decimales = decimales * 10 + (c - '0');
+            }
+        }
+        if (digitos + cifras == 0 || digitos > 15) {
+            return Long.MIN_VALUE;
+        }
+        long centavos = enteros * 100 + (cifras == 1 ? decimales * 10 : decimales);
+        return negativo ? -centavos : centavos;
+    }
+
+    public long centavos() {
+        return centavos;
+    }
+
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    public Dinero sumar(Dinero otro) {
+        return otro.centavos == 0 ? this : deCentavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public Dinero restar(Dinero otro) {
+        return otro.centavos == 0 ? this : deCentavos(Math.subtractExact(centavos, otro.centavos));
+    }
+
+    public Dinero negar() {
+        return deCentavos(Math.negateExact(centavos));
+    }
+
+    public Dinero multiplicar(long factor) {
+        return factor == 1 ? this : deCentavos(Math.multiplyExact(centavos, factor));
+    }
+
+    public int signum() {
+        return Long.signum(centavos);
+    }
+
+    public boolean esPositivo() {
+        return centavos > 0;
+    }
+
+    public boolean esNegativo() {
+        return centavos < 0;
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Dinero otro && otro.centavos == centavos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    /** Siempre con dos decimales: "-12.50". */
+    @Override
+    public String toString() {
+        long absoluto = Math.abs(centavos);
+        long resto = absoluto % 100;
+        return (centavos < 0 ? "-" : "") + (absoluto / 100) + (resto < 10 ? ".0" : ".") + resto;
+    }
+
+    public static class Serializador extends JsonSerializer<Dinero> {
+        @Override
+        public void serialize(Dinero valor, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            // Número JSON literal (sin comillas), con la misma escala que devolvía NUMERIC(15,2)
+            gen.writeNumber(valor.toString());
+        }
+    }
+
+    public static class Deserializador extends JsonDeserializer<Dinero> {
+        @Override
+        public Dinero deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Dinero) ctxt.handleUnexpectedToken(Dinero.class, p);
+            }
+            // Enteros sin pasar por el texto; el resto con el parser propio (BigDecimal solo como respaldo)
+            if (token == JsonToken.VALUE_NUMBER_INT && p.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                long unidades = p.getLongValue();
+                if (unidades > -MAXIMO_UNIDADES && unidades < MAXIMO_UNIDADES) {
+                    return deCentavos(unidades * 100);
+                }
+            }
+            String texto = p.getText();
+            try {
+                return texto.isBlank() ? null : de(texto);
+            } catch (NumberFormatException | ArithmeticException e) {
+                return (Dinero) ctxt.handleWeirdStringValue(Dinero.class, texto, "monto inválido");
+            }
+        }
+    }
+}
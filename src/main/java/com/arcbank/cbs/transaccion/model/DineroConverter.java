@@ -0,0 +1,21 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Las columnas siguen siendo NUMERIC(15,2): el BigDecimal solo existe en el borde JDBC
+@Converter(autoApply = true)
+public class DineroConverter implements AttributeConverter<Dinero, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinero dinero) {
+        return dinero != null ? dinero.aBigDecimal() : null;
+    }
+
+    @Override
+    public Dinero convertToEntityAttribute(BigDecimal valor) {
+        return Dinero.de(valor);
+    }
+}
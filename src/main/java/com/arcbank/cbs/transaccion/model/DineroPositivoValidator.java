@@ -0,0 +1,14 @@
+package com.arcbank.cbs.transaccion.model;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.Positive;
+
+// @Positive sobre Dinero; Hibernate Validator lo toma de META-INF/services/jakarta.validation.ConstraintValidator
+public class DineroPositivoValidator implements ConstraintValidator<Positive, Dinero> {
+
+    @Override
+    public boolean isValid(Dinero valor, ConstraintValidatorContext context) {
+        return valor == null || valor.esPositivo();
+    }
+}
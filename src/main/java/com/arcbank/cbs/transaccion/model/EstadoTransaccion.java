@@ -0,0 +1,51 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estados de "Transaccion" y las transiciones permitidas entre ellos. El cambio se aplica con un UPDATE
+ * condicionado al estado leído (ver {@link Transaccion}): si otro escritor se adelantó, la fila no
+ * coincide y la transición falla en vez de pisar el estado ajeno.
+ */
+public enum EstadoTransaccion {
+
+    PENDIENTE,
+    COMPLETADA,
+    FALLIDA,
+    REVERSADA,
+    DEVUELTA,
+    // Reverso o devolución pedido por nosotros: reclamado antes de llamar al Switch y a Cuentas
+    REVERSANDO,
+    // Valor del esquema original (V1): solo aparece en filas antiguas, no se asigna
+    REVERTIDA;
+
+    private static final Map<EstadoTransaccion, Set<EstadoTransaccion>> TRANSICIONES =
+            new EnumMap<>(EstadoTransaccion.class);
+
+    static {
+        TRANSICIONES.put(PENDIENTE, EnumSet.of(COMPLETADA, FALLIDA));
+        // Devolución recibida del Switch (REVERSADA), o reverso/devolución que iniciamos nosotros (REVERSANDO)
+        TRANSICIONES.put(COMPLETADA, EnumSet.of(REVERSADA, REVERSANDO));
+        // Resultado del reverso de una salida (REVERSADA) o de la devolución de una entrada (DEVUELTA). La
+        // vuelta a COMPLETADA no está aquí: solo el dueño del reclamo la hace (Transaccion.liberarReclamo)
+        TRANSICIONES.put(REVERSANDO, EnumSet.of(REVERSADA, DEVUELTA));
+    }
+
+    public boolean permite(EstadoTransaccion destino) {
+        Set<EstadoTransaccion> destinos = TRANSICIONES.get(this);
+        return destinos != null && destinos.contains(destino);
+    }
+
+    /** Ya no espera respuesta del Switch (puede seguir pasando a REVERSADA/DEVUELTA desde COMPLETADA). */
+    public boolean esFinal() {
+        return this != PENDIENTE && this != REVERSANDO;
+    }
+
+    /** No admite ninguna transición más: FALLIDA, REVERSADA, DEVUELTA. */
+    public boolean esTerminal() {
+        return !TRANSICIONES.containsKey(this);
+    }
+}
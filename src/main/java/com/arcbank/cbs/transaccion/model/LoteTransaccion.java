@@ -0,0 +1,75 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "\"LoteTransaccion\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteTransaccion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "\"IdLote\"")
+    private Integer idLote;
+
+    @Column(name = "\"ReferenciaLote\"", unique = true, length = 64)
+    private String referenciaLote;
+
+    @Column(name = "\"Estado\"", nullable = false, length = 20)
+    private String estado;
+
+    @Column(name = "\"TotalItems\"", nullable = false)
+    private Integer totalItems;
+
+    @Column(name = "\"Exitosos\"", nullable = false)
+    private Integer exitosos;
+
+    @Column(name = "\"Fallidos\"", nullable = false)
+    private Integer fallidos;
+
+    @Column(name = "\"Rechazados\"", nullable = false)
+    private Integer rechazados;
+
+    @Column(name = "\"Canal\"", length = 20)
+    private String canal;
+
+    @Column(name = "\"FechaCreacion\"", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "\"FechaActualizacion\"", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    @Column(name = "\"FechaFinalizacion\"")
+    private LocalDateTime fechaFinalizacion;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.estado == null)
+            this.estado = "EN_PROCESO";
+        if (this.exitosos == null)
+            this.exitosos = 0;
+        if (this.fallidos == null)
+            this.fallidos = 0;
+        if (this.rechazados == null)
+            this.rechazados = 0;
+        if (this.fechaCreacion == null)
+            this.fechaCreacion = LocalDateTime.now();
+        if (this.fechaActualizacion == null)
+            this.fechaActualizacion = this.fechaCreacion;
+    }
+}
@@ -0,0 +1,63 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "\"LoteTransaccionItem\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteTransaccionItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loteItemSeq")
+    @SequenceGenerator(name = "loteItemSeq",
+            sequenceName = "\"LoteTransaccionItem_IdItem_seq\"", schema = "public", allocationSize = 50)
+    @Column(name = "\"IdItem\"")
+    private Long idItem;
+
+    @Column(name = "\"IdLote\"", nullable = false)
+    private Integer idLote;
+
+    @Column(name = "\"Secuencia\"", nullable = false)
+    private Integer secuencia;
+
+    // Se usa como Referencia de la Transaccion generada (idempotencia por ítem)
+    @Column(name = "\"ClaveIdempotencia\"", nullable = false, length = 50)
+    private String claveIdempotencia;
+
+    @Column(name = "\"Payload\"", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "\"Estado\"", nullable = false, length = 20)
+    private String estado;
+
+    @Column(name = "\"IdTransaccion\"")
+    private Integer idTransaccion;
+
+    @Column(name = "\"Error\"", length = 500)
+    private String error;
+
+    @Column(name = "\"FechaProceso\"")
+    private LocalDateTime fechaProceso;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.estado == null)
+            this.estado = "PENDIENTE";
+    }
+}
@@ -0,0 +1,59 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "\"BandejaEntrada\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MensajeEntrante {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "\"IdMensaje\"")
+    private Long idMensaje;
+
+    @Column(name = "\"InstructionId\"", nullable = false, unique = true, length = 50)
+    private String instructionId;
+
+    // PACS008 o PACS004
+    @Column(name = "\"Tipo\"", nullable = false, length = 10)
+    private String tipo;
+
+    @Column(name = "\"ClaveOrden\"", nullable = false, length = 60)
+    private String claveOrden;
+
+    @Column(name = "\"Payload\"", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "\"Estado\"", nullable = false, length = 20)
+    private String estado;
+
+    @Column(name = "\"Intentos\"", nullable = false)
+    private Integer intentos;
+
+    @Column(name = "\"ProximoIntento\"", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "\"UltimoError\"", length = 500)
+    private String ultimoError;
+
+    @Column(name = "\"FechaRecepcion\"", nullable = false, updatable = false)
+    private LocalDateTime fechaRecepcion;
+
+    @Column(name = "\"FechaProceso\"")
+    private LocalDateTime fechaProceso;
+}
@@ -0,0 +1,47 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "\"SagaPaso\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaPaso {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "\"IdPaso\"")
+    private Long idPaso;
+
+    @Column(name = "\"IdSaga\"", nullable = false)
+    private Integer idSaga;
+
+    @Column(name = "\"Paso\"", nullable = false, length = 20)
+    private String paso;
+
+    @Column(name = "\"Detalle\"", length = 500)
+    private String detalle;
+
+    @Column(name = "\"Fecha\"", nullable = false)
+    private LocalDateTime fecha;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.fecha == null)
+            this.fecha = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,80 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "\"SagaTransferencia\"", schema = "public")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaTransferencia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "\"IdSaga\"")
+    private Integer idSaga;
+
+    @Column(name = "\"IdTransaccion\"", nullable = false)
+    private Integer idTransaccion;
+
+    @Column(name = "\"Referencia\"", nullable = false, unique = true, length = 50)
+    private String referencia;
+
+    @Column(name = "\"IdCuentaOrigen\"", nullable = false)
+    private Integer idCuentaOrigen;
+
+    @Column(name = "\"Monto\"", nullable = false, precision = 15, scale = 2)
+    private Dinero monto;
+
+    @Column(name = "\"Payload\"", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "\"Paso\"", nullable = false, length = 20)
+    private String paso;
+
+    @Column(name = "\"SaldoAntesMovimiento\"", precision = 15, scale = 2)
+    private Dinero saldoAntesMovimiento;
+
+    @Column(name = "\"SaldoResultante\"", precision = 15, scale = 2)
+    private Dinero saldoResultante;
+
+    @Column(name = "\"CodigoReferencia\"", length = 6)
+    private String codigoReferencia;
+
+    @Column(name = "\"Intentos\"", nullable = false)
+    private Integer intentos;
+
+    @Column(name = "\"UltimoError\"", length = 500)
+    private String ultimoError;
+
+    @Column(name = "\"FechaCreacion\"", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "\"FechaActualizacion\"", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.paso == null)
+            this.paso = "INICIADA";
+        if (this.intentos == null)
+            this.intentos = 0;
+        if (this.fechaCreacion == null)
+            this.fechaCreacion = LocalDateTime.now();
+        if (this.fechaActualizacion == null)
+            this.fechaActualizacion = this.fechaCreacion;
+    }
+}
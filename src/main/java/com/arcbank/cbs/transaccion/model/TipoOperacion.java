@@ -0,0 +1,39 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.util.Optional;
+
+/** Valores de "TipoOperacion" (CHECK de V6); en los DTO de entrada llega como texto sin distinguir mayúsculas. */
+public enum TipoOperacion {
+
+    DEPOSITO,
+    RETIRO,
+    TRANSFERENCIA_INTERNA,
+    TRANSFERENCIA_SALIDA,
+    TRANSFERENCIA_INTERBANCARIA,
+    TRANSFERENCIA_ENTRADA,
+    PAGO_SERVICIOS,
+    REVERSO,
+    DEVOLUCION_RECIBIDA,
+    REVERSO_DEBITO;
+
+    public static Optional<TipoOperacion> desde(String valor) {
+        if (valor == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(valor.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Sale hacia otro banco por el Switch (saga de transferencia saliente). */
+    public boolean esSalidaInterbancaria() {
+        return this == TRANSFERENCIA_SALIDA || this == TRANSFERENCIA_INTERBANCARIA;
+    }
+
+    /** Mueve dinero fuera de una cuenta nuestra: pasa por los límites de la cuenta origen. */
+    public boolean debitaOrigen() {
+        return esSalidaInterbancaria() || this == RETIRO || this == TRANSFERENCIA_INTERNA;
+    }
+}
@@ -1,22 +1,38 @@
 package com.arcbank.cbs.transaccion.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLockType;
+import org.hibernate.annotations.OptimisticLocking;
+import org.hibernate.annotations.PartitionKey;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
+@EntityListeners(TransaccionEscrituraListener.class)
 @Table(name = "\"Transaccion\"", schema = "public")
+// Bloqueo optimista sobre las columnas modificadas: el UPDATE incluye "WHERE Estado = <valor leído>" (y lo
+// mismo para cualquier otra columna tocada), sin columna de versión ni SELECT ... FOR UPDATE previo
+@DynamicUpdate
+@OptimisticLocking(type = OptimisticLockType.DIRTY)
 @Data
 @Builder
 @NoArgsConstructor
@@ -24,7 +40,9 @@ import lombok.NoArgsConstructor;
 public class Transaccion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaccionSeq")
+    @SequenceGenerator(name = "transaccionSeq",
+            sequenceName = "\"Transaccion_IdTransaccion_seq\"", schema = "public", allocationSize = 50)
     @Column(name = "\"IdTransaccion\"")
     private Integer idTransaccion;
 
@@ -34,8 +52,9 @@ public class Transaccion {
     @Column(name = "\"IdTransaccionReversa\"")
     private Integer idTransaccionReversa;
 
+    @Enumerated(EnumType.STRING)
     @Column(name = "\"TipoOperacion\"", nullable = false, length = 30)
-    private String tipoOperacion;
+    private TipoOperacion tipoOperacion;
 
     @Column(name = "\"IdCuentaOrigen\"")
     private Integer idCuentaOrigen;
@@ -50,14 +69,16 @@ public class Transaccion {
     private String idBancoExterno;
 
     @Column(name = "\"Monto\"", nullable = false, precision = 15, scale = 2)
-    private BigDecimal monto;
+    private Dinero monto;
 
     @Column(name = "\"SaldoResultante\"", precision = 15, scale = 2)
-    private BigDecimal saldoResultante;
+    private Dinero saldoResultante;
 
     @Column(name = "\"SaldoResultanteDestino\"", precision = 15, scale = 2)
-    private BigDecimal saldoResultanteDestino;
+    private Dinero saldoResultanteDestino;
 
+    // Clave de partición: los UPDATE/DELETE de Hibernate la agregan al WHERE y tocan una sola partición
+    @PartitionKey
     @Column(name = "\"FechaCreacion\"", nullable = false, updatable = false)
     private LocalDateTime fechaCreacion;
 
@@ -70,19 +91,56 @@ public class Transaccion {
     @Column(name = "\"IdSucursal\"")
     private Integer idSucursal;
 
+    @Enumerated(EnumType.STRING)
     @Column(name = "\"Estado\"", nullable = false, length = 20)
-    private String estado;
+    private EstadoTransaccion estado;
 
     @Column(name = "codigo_referencia", length = 6)
     private String codigoReferencia;
 
+    // Estado ya reflejado en los agregados diarios (lo mantiene TransaccionEscrituraListener)
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private EstadoTransaccion estadoAgregado;
+
     @PrePersist
     public void prePersist() {
         if (this.estado == null)
-            this.estado = "PENDIENTE";
+            this.estado = EstadoTransaccion.PENDIENTE;
         if (this.canal == null)
             this.canal = "WEB";
         if (this.fechaCreacion == null)
             this.fechaCreacion = LocalDateTime.now();
     }
-}
\ No newline at end of file
+
+    /**
+     * Cambio de estado de una transacción ya guardada. Debe haberse leído en la misma transacción de BD:
+     * si otro escritor cambió el estado entretanto, el flush no afecta filas y lanza
+     * ObjectOptimisticLockingFailureException. Devuelve false si ya estaba en {@code destino}.
+     */
+    public boolean transicionarA(EstadoTransaccion destino) {
+        if (estado == destino) {
+            return false;
+        }
+        if (estado == null || !estado.permite(destino)) {
+            throw new IllegalStateException("Transición no permitida " + estado + " -> " + destino
+                    + " (transacción " + idTransaccion + ")");
+        }
+        estado = destino;
+        return true;
+    }
+
+    /**
+     * Devuelve a COMPLETADA un reclamo de reverso/devolución que no movió dinero. Fuera de la tabla de
+     * transiciones a propósito: solo quien hizo el reclamo puede liberarlo, nunca una confirmación tardía.
+     */
+    public boolean liberarReclamo() {
+        if (estado != EstadoTransaccion.REVERSANDO) {
+            throw new IllegalStateException("Transacción " + idTransaccion + " en " + estado
+                    + ": no hay reclamo que liberar");
+        }
+        estado = EstadoTransaccion.COMPLETADA;
+        return true;
+    }
+}
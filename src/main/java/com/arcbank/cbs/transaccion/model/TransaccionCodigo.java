@@ -0,0 +1,34 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Índice global CodigoReferencia -> (IdTransaccion, FechaCreacion) mantenido por trigger (ver V10).
+ * Cada transacción tiene a lo sumo un código, así que IdTransaccion identifica la fila.
+ */
+@Entity
+@Immutable
+@Table(name = "\"TransaccionCodigo\"", schema = "public")
+@Data
+@NoArgsConstructor
+public class TransaccionCodigo {
+
+    @Id
+    @Column(name = "\"IdTransaccion\"")
+    private Integer idTransaccion;
+
+    @Column(name = "\"CodigoReferencia\"", length = 6, nullable = false)
+    private String codigoReferencia;
+
+    @Column(name = "\"FechaCreacion\"", nullable = false)
+    private LocalDateTime fechaCreacion;
+}
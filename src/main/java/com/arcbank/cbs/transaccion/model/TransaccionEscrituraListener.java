@@ -0,0 +1,63 @@
+package com.arcbank.cbs.transaccion.model;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.arcbank.cbs.transaccion.config.ConsistenciaLectura;
+import com.arcbank.cbs.transaccion.service.AcumuladorAgregados;
+import com.arcbank.cbs.transaccion.service.BandejaSalidaEventos;
+import com.arcbank.cbs.transaccion.service.CacheTransaccionesFinales;
+import com.arcbank.cbs.transaccion.service.HubEstadoTransacciones;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+// Instanciado por Spring (SpringBeanContainer de Hibernate): registra las escrituras para read-your-writes
+// y mantiene la caché de transacciones finales, los agregados diarios por cuenta y el outbox de eventos;
+// tras el commit avisa a las suscripciones de estado de este nodo
+@RequiredArgsConstructor
+public class TransaccionEscrituraListener {
+
+    private final ConsistenciaLectura consistenciaLectura;
+    private final CacheTransaccionesFinales cacheTransacciones;
+    private final AcumuladorAgregados acumuladorAgregados;
+    private final BandejaSalidaEventos bandejaSalidaEventos;
+    private final HubEstadoTransacciones hubEstado;
+
+    @PostLoad
+    public void cargado(Transaccion t) {
+        t.setEstadoAgregado(t.getEstado());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void registrar(Transaccion t) {
+        consistenciaLectura.registrarEscritura("ref:" + t.getReferencia());
+        consistenciaLectura.registrarEscritura("id:" + t.getIdTransaccion());
+
+        // Se ejecuta durante el flush: el upsert del agregado y el evento van en la misma transacción del posteo
+        EstadoTransaccion estadoAnterior = t.getEstadoAgregado();
+        boolean contaba = AcumuladorAgregados.contable(estadoAnterior);
+        boolean cuenta = AcumuladorAgregados.contable(t.getEstado());
+        if (contaba != cuenta) {
+            acumuladorAgregados.registrar(t, cuenta ? 1 : -1);
+        }
+        bandejaSalidaEventos.registrarCambio(t, estadoAnterior);
+        t.setEstadoAgregado(t.getEstado());
+
+        // Invalida ya (el cambio aún no es visible) y publica la vista nueva solo si el commit se confirma
+        cacheTransacciones.invalidar(t.getIdTransaccion());
+        cacheTransacciones.invalidar(t.getIdTransaccionReversa());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheTransacciones.actualizar(t);
+                    hubEstado.publicar(t);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Índice global Referencia -> (IdTransaccion, FechaCreacion) mantenido por trigger (ver V6).
+ * Solo lectura: sirve para llegar a la partición correcta desde JPQL.
+ */
+@Entity
+@Immutable
+@Table(name = "\"TransaccionReferencia\"", schema = "public")
+@Data
+@NoArgsConstructor
+public class TransaccionReferencia {
+
+    @Id
+    @Column(name = "\"Referencia\"", length = 50)
+    private String referencia;
+
+    @Column(name = "\"IdTransaccion\"", nullable = false)
+    private Integer idTransaccion;
+
+    @Column(name = "\"FechaCreacion\"", nullable = false)
+    private LocalDateTime fechaCreacion;
+}
@@ -0,0 +1,31 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Índice global IdTransaccion -> FechaCreacion mantenido por trigger (ver V17).
+ * Con la FechaCreacion una búsqueda por Id lee una sola partición de "Transaccion".
+ */
+@Entity
+@Immutable
+@Table(name = "\"TransaccionUbicacion\"", schema = "public")
+@Data
+@NoArgsConstructor
+public class TransaccionUbicacion {
+
+    @Id
+    @Column(name = "\"IdTransaccion\"")
+    private Integer idTransaccion;
+
+    @Column(name = "\"FechaCreacion\"", nullable = false)
+    private LocalDateTime fechaCreacion;
+}
@@ -0,0 +1,54 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.arcbank.cbs.transaccion.model.MensajeEntrante;
+
+public interface BandejaEntradaRepository extends JpaRepository<MensajeEntrante, Long> {
+
+    Optional<MensajeEntrante> findByInstructionId(String instructionId);
+
+    // Un único INSERT; los reintentos del Switch con el mismo InstructionId no duplican
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO public.\"BandejaEntrada\" (\"InstructionId\", \"Tipo\", \"ClaveOrden\", \"Payload\") "
+            + "VALUES (:instructionId, :tipo, :claveOrden, :payload) "
+            + "ON CONFLICT (\"InstructionId\") DO NOTHING", nativeQuery = true)
+    int encolar(@Param("instructionId") String instructionId, @Param("tipo") String tipo,
+            @Param("claveOrden") String claveOrden, @Param("payload") String payload);
+
+    // Cabezas de cola por cuenta: un mensaje con anteriores sin terminar de su misma clave espera su turno
+    @Query(value = "SELECT b.* FROM public.\"BandejaEntrada\" b "
+            + "WHERE b.\"Estado\" = 'PENDIENTE' AND b.\"ProximoIntento\" <= :ahora "
+            + "AND NOT EXISTS (SELECT 1 FROM public.\"BandejaEntrada\" p WHERE p.\"ClaveOrden\" = b.\"ClaveOrden\" "
+            + "AND p.\"IdMensaje\" < b.\"IdMensaje\" AND p.\"Estado\" IN ('PENDIENTE', 'PROCESANDO')) "
+            + "ORDER BY b.\"IdMensaje\" LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MensajeEntrante> findDisponibles(@Param("ahora") LocalDateTime ahora, @Param("limite") int limite);
+
+    long countByEstado(String estado);
+
+    // Reproceso manual de estacionados: vuelven a la cola con los intentos en cero y su posición original
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE public.\"BandejaEntrada\" SET \"Estado\" = 'PENDIENTE', \"Intentos\" = 0, "
+            + "\"ProximoIntento\" = CURRENT_TIMESTAMP WHERE \"IdMensaje\" IN (SELECT \"IdMensaje\" "
+            + "FROM public.\"BandejaEntrada\" WHERE \"Estado\" = 'ESTACIONADO' "
+            + "AND (CAST(:instructionId AS VARCHAR) IS NULL OR \"InstructionId\" = :instructionId) "
+            + "ORDER BY \"IdMensaje\" LIMIT :limite)", nativeQuery = true)
+    int reactivarEstacionados(@Param("instructionId") String instructionId, @Param("limite") int limite);
+
+    // Mensajes que quedaron PROCESANDO por caída del nodo vuelven a la cola
+    @Transactional
+    @Modifying
+    @Query("UPDATE MensajeEntrante m SET m.estado = 'PENDIENTE' "
+            + "WHERE m.estado = 'PROCESANDO' AND m.fechaProceso < :limite")
+    int liberarVencidos(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,17 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.arcbank.cbs.transaccion.model.CompensacionAjuste;
+
+public interface CompensacionAjusteRepository extends JpaRepository<CompensacionAjuste, Integer> {
+
+    @Modifying
+    @Query("UPDATE CompensacionAjuste a SET a.idCorte = :idCorte WHERE a.idTransaccion IN :ids AND a.idCorte IS NULL")
+    int asignarCorte(@Param("ids") Collection<Integer> ids, @Param("idCorte") Integer idCorte);
+}
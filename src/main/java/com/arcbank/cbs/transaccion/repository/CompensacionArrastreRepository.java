@@ -0,0 +1,17 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.arcbank.cbs.transaccion.model.CompensacionArrastre;
+
+public interface CompensacionArrastreRepository extends JpaRepository<CompensacionArrastre, Integer> {
+
+    @Modifying
+    @Query("DELETE FROM CompensacionArrastre a WHERE a.idTransaccion IN :ids")
+    int borrar(@Param("ids") Collection<Integer> ids);
+}
@@ -0,0 +1,27 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.arcbank.cbs.transaccion.model.CompensacionCorte;
+
+public interface CompensacionCorteRepository extends JpaRepository<CompensacionCorte, Integer> {
+
+    Optional<CompensacionCorte> findByFechaInicioAndFechaFin(LocalDateTime fechaInicio, LocalDateTime fechaFin);
+
+    List<CompensacionCorte> findByEstadoOrderByFechaInicio(String estado);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CompensacionCorte c SET c.bloquesEnviados = :enviados, c.ultimoError = NULL, "
+            + "c.fechaActualizacion = :ahora WHERE c.idCorte = :idCorte")
+    int registrarBloqueEnviado(@Param("idCorte") Integer idCorte, @Param("enviados") Integer enviados,
+            @Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,15 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.arcbank.cbs.transaccion.model.CompensacionPosicion;
+
+public interface CompensacionPosicionRepository extends JpaRepository<CompensacionPosicion, Integer> {
+
+    List<CompensacionPosicion> findByIdCorteOrderByBancoContraparte(Integer idCorte);
+
+    List<CompensacionPosicion> findByIdCorteOrderByBancoContraparte(Integer idCorte, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.arcbank.cbs.transaccion.model.LoteTransaccionItem;
+
+public interface LoteTransaccionItemRepository extends JpaRepository<LoteTransaccionItem, Long> {
+
+    @Query("SELECT i FROM LoteTransaccionItem i WHERE i.idLote = :idLote "
+            + "AND i.estado IN ('PENDIENTE', 'PROCESANDO') ORDER BY i.secuencia")
+    List<LoteTransaccionItem> findPendientes(@Param("idLote") Integer idLote);
+
+    @Query("SELECT i FROM LoteTransaccionItem i WHERE i.idLote = :idLote AND i.secuencia >= :desde "
+            + "ORDER BY i.secuencia")
+    List<LoteTransaccionItem> findDesdeSecuencia(@Param("idLote") Integer idLote, @Param("desde") Integer desde,
+            Pageable pageable);
+
+    @Query("SELECT i.estado, COUNT(i) FROM LoteTransaccionItem i WHERE i.idLote = :idLote GROUP BY i.estado")
+    List<Object[]> contarPorEstado(@Param("idLote") Integer idLote);
+}
@@ -0,0 +1,34 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.arcbank.cbs.transaccion.model.LoteTransaccion;
+
+public interface LoteTransaccionRepository extends JpaRepository<LoteTransaccion, Integer> {
+
+    Optional<LoteTransaccion> findByReferenciaLote(String referenciaLote);
+
+    @Query("SELECT l.idLote FROM LoteTransaccion l WHERE l.estado = 'EN_PROCESO' AND l.fechaActualizacion < :limite")
+    List<Integer> findIdsEnProcesoSinActividad(@Param("limite") LocalDateTime limite);
+
+    // Reclamo condicional: solo un nodo gana la reanudación de un lote abandonado
+    @Transactional
+    @Modifying
+    @Query("UPDATE LoteTransaccion l SET l.fechaActualizacion = :ahora "
+            + "WHERE l.idLote = :idLote AND l.estado = 'EN_PROCESO' AND l.fechaActualizacion < :limite")
+    int reclamar(@Param("idLote") Integer idLote, @Param("ahora") LocalDateTime ahora,
+            @Param("limite") LocalDateTime limite);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE LoteTransaccion l SET l.fechaActualizacion = :ahora WHERE l.idLote = :idLote")
+    int marcarActividad(@Param("idLote") Integer idLote, @Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,12 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.arcbank.cbs.transaccion.model.SagaPaso;
+
+public interface SagaPasoRepository extends JpaRepository<SagaPaso, Long> {
+
+    List<SagaPaso> findByIdSagaOrderByIdPaso(Integer idSaga);
+}
@@ -0,0 +1,38 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.arcbank.cbs.transaccion.model.SagaTransferencia;
+
+public interface SagaTransferenciaRepository extends JpaRepository<SagaTransferencia, Integer> {
+
+    Optional<SagaTransferencia> findByReferencia(String referencia);
+
+    // Solo las del shard de recuperación de este nodo (ver CoordinadorTrabajos)
+    @Query("SELECT s.idSaga FROM SagaTransferencia s WHERE s.paso IN :pasos AND s.fechaActualizacion < :limite "
+            + "AND MOD(s.idSaga, :shards) = :shard ORDER BY s.fechaActualizacion")
+    List<Integer> findIdsInterrumpidas(@Param("pasos") Collection<String> pasos,
+            @Param("limite") LocalDateTime limite, @Param("shards") int shards, @Param("shard") int shard);
+
+    // Reclamo condicional: solo un nodo retoma una saga abandonada
+    @Transactional
+    @Modifying
+    @Query("UPDATE SagaTransferencia s SET s.fechaActualizacion = :ahora, s.intentos = s.intentos + 1 "
+            + "WHERE s.idSaga = :idSaga AND s.paso IN :pasos AND s.fechaActualizacion < :limite")
+    int reclamar(@Param("idSaga") Integer idSaga, @Param("pasos") Collection<String> pasos,
+            @Param("ahora") LocalDateTime ahora, @Param("limite") LocalDateTime limite);
+
+    // Bloquea la fila hasta el fin de la transacción del paso: serializa polling, recuperación y reporte push
+    @Query(value = "SELECT \"Paso\" FROM public.\"SagaTransferencia\" WHERE \"IdSaga\" = :idSaga FOR UPDATE",
+            nativeQuery = true)
+    String findPasoParaActualizar(@Param("idSaga") Integer idSaga);
+}
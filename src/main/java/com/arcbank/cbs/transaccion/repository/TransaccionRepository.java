@@ -1,20 +1,128 @@
 package com.arcbank.cbs.transaccion.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import com.arcbank.cbs.transaccion.dto.MovimientoCompensacionDTO;
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
 import com.arcbank.cbs.transaccion.model.Transaccion;
 
+import jakarta.persistence.QueryHint;
+
 public interface TransaccionRepository extends JpaRepository<Transaccion, Integer> {
 
-    @Query("SELECT t FROM Transaccion t WHERE t.idCuentaOrigen = :idCuenta OR t.idCuentaDestino = :idCuenta")
-    List<Transaccion> findPorCuenta(@Param("idCuenta") Integer idCuenta);
+    // Proyección de lectura: el DTO se arma en la consulta, sin entidades administradas ni dirty checking.
+    // El saldo nulo lo pasa a 0 el constructor del DTO.
+    String RESUMEN_GENERAL = "SELECT new com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO("
+            + "t.idTransaccion, t.referencia, t.tipoOperacion, t.idCuentaOrigen, t.idCuentaDestino, "
+            + "t.cuentaExterna, t.idBancoExterno, t.monto, t.saldoResultante, t.fechaCreacion, "
+            + "t.descripcion, t.canal, t.estado, t.codigoReferencia) ";
+
+    // Reemplaza el findById heredado (em.find solo conoce IdTransaccion): "TransaccionUbicacion" aporta la
+    // FechaCreacion y se lee una sola partición
+    @Override
+    @Query("SELECT t FROM TransaccionUbicacion u, Transaccion t WHERE u.idTransaccion = :id "
+            + "AND t.idTransaccion = u.idTransaccion AND t.fechaCreacion = u.fechaCreacion")
+    Optional<Transaccion> findById(@Param("id") Integer id);
+
+    // "TransaccionReferencia" aporta la FechaCreacion: se lee una sola partición en vez de sondearlas todas
+    @Query("SELECT t FROM TransaccionReferencia r, Transaccion t WHERE r.referencia = :referencia "
+            + "AND t.idTransaccion = r.idTransaccion AND t.fechaCreacion = r.fechaCreacion")
+    Optional<Transaccion> findByReferencia(@Param("referencia") String referencia);
+
+    // El código lo asigna el Switch y puede repetirse: gana la transacción más reciente
+    @Query("SELECT t FROM TransaccionCodigo c, Transaccion t WHERE c.codigoReferencia = :codigoReferencia "
+            + "AND t.idTransaccion = c.idTransaccion AND t.fechaCreacion = c.fechaCreacion "
+            + "ORDER BY c.fechaCreacion DESC LIMIT 1")
+    Optional<Transaccion> findByCodigoReferencia(@Param("codigoReferencia") String codigoReferencia);
+
+    // Quien recibe ve su propio saldo resultante (misma regla que mapearADTO)
+    String RESUMEN_CUENTA = "SELECT new com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO("
+            + "t.idTransaccion, t.referencia, t.tipoOperacion, t.idCuentaOrigen, t.idCuentaDestino, "
+            + "t.cuentaExterna, t.idBancoExterno, t.monto, "
+            + "CASE WHEN t.idCuentaDestino = :idCuenta AND t.saldoResultanteDestino IS NOT NULL "
+            + "THEN t.saldoResultanteDestino ELSE t.saldoResultante END, "
+            + "t.fechaCreacion, t.descripcion, t.canal, t.estado, t.codigoReferencia) "
+            + "FROM Transaccion t WHERE (t.idCuentaOrigen = :idCuenta OR t.idCuentaDestino = :idCuenta) ";
+
+    // El rango sobre FechaCreacion permite a PostgreSQL descartar las particiones fuera de la ventana
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(RESUMEN_CUENTA + "AND t.fechaCreacion >= :desde AND t.fechaCreacion < :hasta")
+    List<TransaccionResponseDTO> findResumenPorCuenta(@Param("idCuenta") Integer idCuenta,
+            @Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(RESUMEN_CUENTA + "AND t.fechaCreacion < :hasta")
+    List<TransaccionResponseDTO> findResumenPorCuentaHasta(@Param("idCuenta") Integer idCuenta,
+            @Param("hasta") LocalDateTime hasta);
+
+    // Historial completo: el contrato original del endpoint sin rango
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(RESUMEN_CUENTA)
+    List<TransaccionResponseDTO> findResumenPorCuentaCompleto(@Param("idCuenta") Integer idCuenta);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(RESUMEN_GENERAL + "FROM TransaccionUbicacion u, Transaccion t WHERE u.idTransaccion = :id "
+            + "AND t.idTransaccion = u.idTransaccion AND t.fechaCreacion = u.fechaCreacion")
+    Optional<TransaccionResponseDTO> findResumenPorId(@Param("id") Integer id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(RESUMEN_GENERAL + "FROM TransaccionReferencia r, Transaccion t WHERE r.referencia = :referencia "
+            + "AND t.idTransaccion = r.idTransaccion AND t.fechaCreacion = r.fechaCreacion")
+    Optional<TransaccionResponseDTO> findResumenPorReferencia(@Param("referencia") String referencia);
+
+    // Solo toca el PK de "TransaccionCodigo" (V10), sin sondear particiones
+    @Query("SELECT c.idTransaccion FROM TransaccionCodigo c WHERE c.codigoReferencia = :codigoReferencia "
+            + "ORDER BY c.fechaCreacion DESC LIMIT 1")
+    Optional<Integer> findIdPorCodigoReferencia(@Param("codigoReferencia") String codigoReferencia);
+
+    // Usa el índice parcial "IX_Transaccion_Pendiente": el costo depende de las pendientes, no del histórico
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(RESUMEN_GENERAL + "FROM Transaccion t "
+            + "WHERE t.estado = com.arcbank.cbs.transaccion.model.EstadoTransaccion.PENDIENTE "
+            + "AND t.fechaCreacion < :limite "
+            + "ORDER BY t.fechaCreacion")
+    List<TransaccionResponseDTO> findPendientesAnterioresA(@Param("limite") LocalDateTime limite, Pageable pagina);
+
+    String MOVIMIENTO_COMPENSACION = "SELECT new com.arcbank.cbs.transaccion.dto.MovimientoCompensacionDTO("
+            + "t.tipoOperacion, t.idBancoExterno, t.monto, t.estado, t.idCuentaDestino, "
+            + "CASE WHEN EXISTS (SELECT 1 FROM Transaccion r WHERE r.idTransaccionReversa = t.idTransaccion) "
+            + "OR EXISTS (SELECT 1 FROM CompensacionAjuste j WHERE j.idTransaccion = t.idTransaccion) "
+            + "THEN true ELSE false END, t.idTransaccion, t.fechaCreacion) ";
+
+    // Cursor de servidor (fetch size) sobre una proyección: memoria acotada sin importar el volumen del día
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(MOVIMIENTO_COMPENSACION + "FROM Transaccion t WHERE t.fechaCreacion >= :inicio AND t.fechaCreacion < :fin "
+            + "AND t.tipoOperacion IN :tipos AND t.idBancoExterno IS NOT NULL")
+    Stream<MovimientoCompensacionDTO> streamMovimientosInterbancarios(@Param("inicio") LocalDateTime inicio,
+            @Param("fin") LocalDateTime fin, @Param("tipos") Collection<TipoOperacion> tipos);
 
-    Optional<Transaccion> findByReferencia(String referencia);
+    // Pendientes de cortes anteriores que ya salieron de PENDIENTE; la FechaCreacion lleva a su partición
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query(MOVIMIENTO_COMPENSACION + "FROM CompensacionArrastre a, Transaccion t "
+            + "WHERE a.fechaCreacion < :inicio AND t.idTransaccion = a.idTransaccion "
+            + "AND t.fechaCreacion = a.fechaCreacion "
+            + "AND t.estado <> com.arcbank.cbs.transaccion.model.EstadoTransaccion.PENDIENTE")
+    List<MovimientoCompensacionDTO> findArrastreLiquidado(@Param("inicio") LocalDateTime inicio);
 
-    Optional<Transaccion> findByCodigoReferencia(String codigoReferencia);
-}
\ No newline at end of file
+    // Reversos/devoluciones propios que ningún corte incluyó todavía (ver V21)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query(MOVIMIENTO_COMPENSACION + "FROM CompensacionAjuste j, Transaccion t "
+            + "WHERE j.idCorte IS NULL AND t.idTransaccion = j.idTransaccion "
+            + "AND t.fechaCreacion = j.fechaCreacion")
+    List<MovimientoCompensacionDTO> findAjustesSinCorte();
+}
@@ -0,0 +1,170 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aplica a "AgregadoDiarioCuenta" el efecto de cada posteo. Por defecto hace el upsert en la misma
+ * transacción del posteo; para las cuentas calientes (muchos posteos por segundo, p. ej. la cuenta
+ * pagadora de un lote) acumula el delta en memoria tras el commit y lo vuelca en lote, evitando que
+ * todas esas transacciones se serialicen sobre la misma fila. Lo que quede en memoria si el nodo cae
+ * lo corrige la reconstrucción diaria.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AcumuladorAgregados {
+
+    public static final Set<EstadoTransaccion> ESTADOS_CONTABLES = EnumSet.of(EstadoTransaccion.PENDIENTE,
+            EstadoTransaccion.COMPLETADA, EstadoTransaccion.REVERSANDO, EstadoTransaccion.REVERSADA,
+            EstadoTransaccion.DEVUELTA);
+
+    private static final String SQL_UPSERT = "INSERT INTO public.\"AgregadoDiarioCuenta\" "
+            + "(\"IdCuenta\", \"Fecha\", \"TipoOperacion\", \"Sentido\", \"Cantidad\", \"Total\") "
+            + "VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (\"IdCuenta\", \"Fecha\", \"TipoOperacion\", \"Sentido\") DO UPDATE SET "
+            + "\"Cantidad\" = \"AgregadoDiarioCuenta\".\"Cantidad\" + EXCLUDED.\"Cantidad\", "
+            + "\"Total\" = \"AgregadoDiarioCuenta\".\"Total\" + EXCLUDED.\"Total\", "
+            + "\"FechaActualizacion\" = CURRENT_TIMESTAMP";
+
+    public record Clave(Integer idCuenta, LocalDate fecha, String tipoOperacion, String sentido) {
+    }
+
+    // Total en centavos: el delta de cada posteo no crea BigDecimal; la conversión queda en el borde JDBC
+    public record Delta(long cantidad, long centavos) {
+        Delta sumar(Delta otro) {
+            return new Delta(cantidad + otro.cantidad, Math.addExact(centavos, otro.centavos));
+        }
+
+        public BigDecimal total() {
+            return BigDecimal.valueOf(centavos, 2);
+        }
+    }
+
+    private record Ventana(long segundo, int posteos) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    // Se resuelve tarde: esta clase la usa el listener JPA, que se crea junto al EntityManagerFactory
+    private final ObjectProvider<TransactionTemplate> transactionTemplate;
+
+    private final Map<Clave, Delta> pendientes = new ConcurrentHashMap<>();
+    private final Map<Integer, Ventana> actividad = new ConcurrentHashMap<>();
+
+    // Posteos por segundo a partir de los cuales una cuenta pasa al buffer
+    @Value("${app.agregados.umbral-caliente:20}")
+    private int umbralCaliente;
+
+    public static boolean contable(EstadoTransaccion estado) {
+        return estado != null && ESTADOS_CONTABLES.contains(estado);
+    }
+
+    /** signo = 1 cuando la transacción pasa a contar, -1 cuando deja de contar (p. ej. FALLIDA). */
+    public void registrar(Transaccion t, int signo) {
+        LocalDate fecha = t.getFechaCreacion() != null ? t.getFechaCreacion().toLocalDate() : LocalDate.now();
+        Delta delta = new Delta(signo, t.getMonto().multiplicar(signo).centavos());
+        if (t.getIdCuentaOrigen() != null) {
+            aplicar(new Clave(t.getIdCuentaOrigen(), fecha, t.getTipoOperacion().name(), "DEBITO"), delta);
+        }
+        if (t.getIdCuentaDestino() != null) {
+            aplicar(new Clave(t.getIdCuentaDestino(), fecha, t.getTipoOperacion().name(), "CREDITO"), delta);
+        }
+    }
+
+    private void aplicar(Clave clave, Delta delta) {
+        if (caliente(clave.idCuenta()) && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendientes.merge(clave, delta, Delta::sumar);
+                }
+            });
+            return;
+        }
+        // Misma conexión y transacción que el posteo (JpaTransactionManager expone la conexión JDBC)
+        jdbcTemplate.update(SQL_UPSERT, clave.idCuenta(), Date.valueOf(clave.fecha()), clave.tipoOperacion(),
+                clave.sentido(), delta.cantidad(), delta.total());
+    }
+
+    private boolean caliente(Integer idCuenta) {
+        long segundo = System.currentTimeMillis() / 1000;
+        Ventana ventana = actividad.merge(idCuenta, new Ventana(segundo, 1),
+                (actual, nueva) -> actual.segundo() == segundo
+                        ? new Ventana(segundo, actual.posteos() + 1)
+                        : nueva);
+        return ventana.posteos() > umbralCaliente;
+    }
+
+    /** Deltas aún en memoria de una cuenta, para sumarlos a lo leído de la tabla. */
+    public Map<Clave, Delta> pendientesDe(Integer idCuenta) {
+        Map<Clave, Delta> resultado = new HashMap<>();
+        pendientes.forEach((clave, delta) -> {
+            if (clave.idCuenta().equals(idCuenta)) {
+                resultado.put(clave, delta);
+            }
+        });
+        return resultado;
+    }
+
+    @Scheduled(fixedDelayString = "${app.agregados.intervalo-volcado-ms:1000}")
+    public void volcar() {
+        long segundoActual = System.currentTimeMillis() / 1000;
+        actividad.values().removeIf(v -> v.segundo() < segundoActual - 1);
+        if (pendientes.isEmpty()) {
+            return;
+        }
+
+        List<Clave> claves = new ArrayList<>();
+        List<Delta> deltas = new ArrayList<>();
+        for (Clave clave : List.copyOf(pendientes.keySet())) {
+            Delta delta = pendientes.remove(clave);
+            if (delta != null && (delta.cantidad() != 0 || delta.centavos() != 0)) {
+                claves.add(clave);
+                deltas.add(delta);
+            }
+        }
+        if (claves.isEmpty()) {
+            return;
+        }
+        try {
+            List<Object[]> filas = new ArrayList<>(claves.size());
+            for (int i = 0; i < claves.size(); i++) {
+                Clave c = claves.get(i);
+                filas.add(new Object[] { c.idCuenta(), Date.valueOf(c.fecha()), c.tipoOperacion(), c.sentido(),
+                        deltas.get(i).cantidad(), deltas.get(i).total() });
+            }
+            // Todo o nada: si falla, ningún delta quedó aplicado y pueden volver al buffer sin duplicarse
+            transactionTemplate.getObject()
+                    .executeWithoutResult(status -> jdbcTemplate.batchUpdate(SQL_UPSERT, filas));
+        } catch (Exception e) {
+            // Se devuelven al buffer para el próximo ciclo
+            for (int i = 0; i < claves.size(); i++) {
+                pendientes.merge(claves.get(i), deltas.get(i), Delta::sumar);
+            }
+            log.warn("No se pudieron volcar {} agregados diarios: {}", claves.size(), e.getMessage());
+        }
+    }
+}
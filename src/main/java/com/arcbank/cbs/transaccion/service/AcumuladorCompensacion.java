@@ -0,0 +1,151 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.arcbank.cbs.transaccion.dto.MovimientoCompensacionDTO;
+import com.arcbank.cbs.transaccion.model.CompensacionPosicion;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+
+/**
+ * Acumula en una sola pasada las posiciones netas por banco contraparte.
+ * La memoria depende solo del número de bancos, no del número de movimientos.
+ *
+ * Reglas de signo (desde el punto de vista de Arcbank):
+ * - Salida completada: enviado. Si se reversó por iniciativa nuestra (sin fila REVERSO), también recibido.
+ * - Entrada completada: recibido. Si la devolvimos nosotros (DEVUELTA sin fila REVERSO), también enviado.
+ * - REVERSO con cuenta destino local: nos devuelven una salida (recibido); sin ella, devolvemos una entrada (enviado).
+ * - Ajuste (CompensacionAjuste): solo la contrapartida de un reverso/devolución propio, en el corte en que se anota.
+ */
+public class AcumuladorCompensacion {
+
+    private final Map<String, Posicion> posiciones = new TreeMap<>();
+    private long movimientos;
+
+    public void acumular(MovimientoCompensacionDTO m) {
+        if (m.getMonto() == null || m.getIdBancoExterno() == null) {
+            return;
+        }
+        EstadoTransaccion estado = m.getEstado();
+        boolean tieneReverso = Boolean.TRUE.equals(m.getTieneReverso());
+
+        switch (m.getTipoOperacion()) {
+            case TRANSFERENCIA_SALIDA, TRANSFERENCIA_INTERBANCARIA -> {
+                // REVERSANDO: el reverso aún no se liquidó, cuenta como completada
+                if (estado != EstadoTransaccion.COMPLETADA && estado != EstadoTransaccion.REVERSANDO
+                        && estado != EstadoTransaccion.REVERSADA) {
+                    return;
+                }
+                posicion(m).enviar(m.getMonto());
+                if (estado == EstadoTransaccion.REVERSADA && !tieneReverso) {
+                    posicion(m).recibir(m.getMonto());
+                }
+            }
+            case TRANSFERENCIA_ENTRADA -> {
+                if (estado != EstadoTransaccion.COMPLETADA && estado != EstadoTransaccion.REVERSANDO
+                        && estado != EstadoTransaccion.REVERSADA && estado != EstadoTransaccion.DEVUELTA) {
+                    return;
+                }
+                posicion(m).recibir(m.getMonto());
+                if (estado == EstadoTransaccion.DEVUELTA && !tieneReverso) {
+                    posicion(m).enviar(m.getMonto());
+                }
+            }
+            case REVERSO -> {
+                if (estado != EstadoTransaccion.COMPLETADA) {
+                    return;
+                }
+                if (m.getIdCuentaDestino() != null) {
+                    posicion(m).recibir(m.getMonto());
+                } else {
+                    posicion(m).enviar(m.getMonto());
+                }
+            }
+            default -> {
+                return;
+            }
+        }
+        movimientos++;
+    }
+
+    /** Contrapartida de un reverso o devolución propio; el movimiento original ya se contó en su corte. */
+    public void acumularAjuste(MovimientoCompensacionDTO m) {
+        if (m.getMonto() == null || m.getIdBancoExterno() == null) {
+            return;
+        }
+        switch (m.getTipoOperacion()) {
+            case TRANSFERENCIA_SALIDA, TRANSFERENCIA_INTERBANCARIA -> {
+                if (m.getEstado() != EstadoTransaccion.REVERSADA) {
+                    return;
+                }
+                posicion(m).recibir(m.getMonto());
+            }
+            case TRANSFERENCIA_ENTRADA -> {
+                if (m.getEstado() != EstadoTransaccion.DEVUELTA) {
+                    return;
+                }
+                posicion(m).enviar(m.getMonto());
+            }
+            default -> {
+                return;
+            }
+        }
+        movimientos++;
+    }
+
+    private Posicion posicion(MovimientoCompensacionDTO m) {
+        return posiciones.computeIfAbsent(m.getIdBancoExterno().trim().toUpperCase(), k -> new Posicion());
+    }
+
+    public long getMovimientos() {
+        return movimientos;
+    }
+
+    public BigDecimal getPosicionNetaTotal() {
+        long neto = 0;
+        for (Posicion p : posiciones.values()) {
+            neto = Math.addExact(neto, p.neto());
+        }
+        return BigDecimal.valueOf(neto, 2);
+    }
+
+    public List<CompensacionPosicion> aPosiciones(Integer idCorte) {
+        List<CompensacionPosicion> resultado = new ArrayList<>(posiciones.size());
+        posiciones.forEach((banco, p) -> resultado.add(CompensacionPosicion.builder()
+                .idCorte(idCorte)
+                .bancoContraparte(banco)
+                .cantidadEnviada(p.cantidadEnviada)
+                .totalEnviado(BigDecimal.valueOf(p.centavosEnviados, 2))
+                .cantidadRecibida(p.cantidadRecibida)
+                .totalRecibido(BigDecimal.valueOf(p.centavosRecibidos, 2))
+                .posicionNeta(BigDecimal.valueOf(p.neto(), 2))
+                .build()));
+        return resultado;
+    }
+
+    // En centavos: la pasada sobre los movimientos del día no crea un BigDecimal por fila
+    private static final class Posicion {
+        private long cantidadEnviada;
+        private long centavosEnviados;
+        private long cantidadRecibida;
+        private long centavosRecibidos;
+
+        void enviar(Dinero monto) {
+            cantidadEnviada++;
+            centavosEnviados = Math.addExact(centavosEnviados, monto.centavos());
+        }
+
+        void recibir(Dinero monto) {
+            cantidadRecibida++;
+            centavosRecibidos = Math.addExact(centavosRecibidos, monto.centavos());
+        }
+
+        long neto() {
+            return centavosRecibidos - centavosEnviados;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.arcbank.cbs.transaccion.dto.AgregadoDiarioDTO;
+
+public interface AgregadoDiarioService {
+
+        List<AgregadoDiarioDTO> obtenerPorCuenta(Integer idCuenta, LocalDate desde, LocalDate hasta);
+
+        int reconstruir(LocalDate fecha);
+}
@@ -0,0 +1,150 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arcbank.cbs.transaccion.dto.AgregadoDiarioDTO;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.model.Dinero;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AgregadoDiarioServiceImpl implements AgregadoDiarioService {
+
+    private static final long LOCK_AGREGADOS = 0x4147524547414449L; // "AGREGADI"
+    private static final String TRABAJO_RECONSTRUCCION = "agregados-reconstruccion";
+    private static final int MAX_DIAS_CONSULTA = 366;
+
+    // Mismos estados que AcumuladorAgregados.ESTADOS_CONTABLES
+    private static final String CONTABLES =
+            "\"Estado\" IN ('PENDIENTE', 'COMPLETADA', 'REVERSANDO', 'REVERSADA', 'DEVUELTA')";
+
+    private static final String SQL_RECONSTRUIR = "INSERT INTO public.\"AgregadoDiarioCuenta\" "
+            + "(\"IdCuenta\", \"Fecha\", \"TipoOperacion\", \"Sentido\", \"Cantidad\", \"Total\") "
+            + "SELECT m.cuenta, ?, m.tipo, m.sentido, COUNT(*), SUM(m.monto) FROM ("
+            + "SELECT \"IdCuentaOrigen\" AS cuenta, \"TipoOperacion\" AS tipo, 'DEBITO' AS sentido, \"Monto\" AS monto "
+            + "FROM public.\"Transaccion\" WHERE \"FechaCreacion\" >= ? AND \"FechaCreacion\" < ? "
+            + "AND \"IdCuentaOrigen\" IS NOT NULL AND " + CONTABLES + " "
+            + "UNION ALL "
+            + "SELECT \"IdCuentaDestino\", \"TipoOperacion\", 'CREDITO', \"Monto\" "
+            + "FROM public.\"Transaccion\" WHERE \"FechaCreacion\" >= ? AND \"FechaCreacion\" < ? "
+            + "AND \"IdCuentaDestino\" IS NOT NULL AND " + CONTABLES
+            + ") m GROUP BY m.cuenta, m.tipo, m.sentido";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AcumuladorAgregados acumuladorAgregados;
+    private final CoordinadorTrabajos coordinador;
+
+    @Value("${app.agregados.reconstruccion-habilitada:true}")
+    private boolean reconstruccionHabilitada;
+
+    @Override
+    public List<AgregadoDiarioDTO> obtenerPorCuenta(Integer idCuenta, LocalDate desde, LocalDate hasta) {
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        LocalDate inicio = desde != null ? desde : fin;
+        if (inicio.isAfter(fin)) {
+            throw new BusinessException(
+                    "El rango de fechas es inválido: 'desde' debe ser anterior o igual a 'hasta'.");
+        }
+        if (inicio.plusDays(MAX_DIAS_CONSULTA).isBefore(fin)) {
+            throw new BusinessException("El rango máximo de consulta es de " + MAX_DIAS_CONSULTA + " días.");
+        }
+
+        // Lectura por PK: una fila por (día, tipo, sentido), sin tocar "Transaccion"
+        Map<AcumuladorAgregados.Clave, AcumuladorAgregados.Delta> totales = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT \"Fecha\", \"TipoOperacion\", \"Sentido\", \"Cantidad\", \"Total\" "
+                + "FROM public.\"AgregadoDiarioCuenta\" WHERE \"IdCuenta\" = ? AND \"Fecha\" BETWEEN ? AND ?",
+                rs -> {
+                    BigDecimal total = rs.getBigDecimal(5);
+                    totales.put(new AcumuladorAgregados.Clave(idCuenta, rs.getDate(1).toLocalDate(), rs.getString(2),
+                            rs.getString(3)), new AcumuladorAgregados.Delta(rs.getLong(4),
+                                    total != null ? Dinero.de(total).centavos() : 0));
+                }, idCuenta, Date.valueOf(inicio), Date.valueOf(fin));
+
+        // Lo que este nodo aún tiene en memoria (cuentas calientes) también cuenta
+        acumuladorAgregados.pendientesDe(idCuenta).forEach((clave, delta) -> {
+            if (!clave.fecha().isBefore(inicio) && !clave.fecha().isAfter(fin)) {
+                totales.merge(clave, delta, AcumuladorAgregados.Delta::sumar);
+            }
+        });
+
+        List<AgregadoDiarioDTO> resultado = new ArrayList<>(totales.size());
+        totales.forEach((clave, delta) -> resultado.add(AgregadoDiarioDTO.builder()
+                .idCuenta(idCuenta)
+                .fecha(clave.fecha())
+                .tipoOperacion(clave.tipoOperacion())
+                .sentido(clave.sentido())
+                .cantidad(delta.cantidad())
+                .total(delta.total())
+                .build()));
+        resultado.sort(Comparator.comparing(AgregadoDiarioDTO::getFecha)
+                .thenComparing(AgregadoDiarioDTO::getTipoOperacion)
+                .thenComparing(AgregadoDiarioDTO::getSentido));
+        return resultado;
+    }
+
+    @Override
+    public int reconstruir(LocalDate fecha) {
+        return reconstruir(fecha, null);
+    }
+
+    // lease nulo: reconstrucción manual, fuera del trabajo programado
+    private int reconstruir(LocalDate fecha, CoordinadorTrabajos.Lease lease) {
+        if (fecha == null) {
+            throw new BusinessException("La fecha a reconstruir es obligatoria.");
+        }
+        // Primero lo que hay en memoria: la reconstrucción lo incluye y un volcado posterior lo duplicaría
+        acumuladorAgregados.volcar();
+
+        Integer filas = transactionTemplate.execute(status -> {
+            Boolean obtenido = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                    LOCK_AGREGADOS);
+            if (!Boolean.TRUE.equals(obtenido)) {
+                throw new BusinessException("Ya hay una reconstrucción de agregados en curso.");
+            }
+            // Un posteo concurrente bloquea sobre las filas borradas o insertadas y suma su delta al confirmar
+            jdbcTemplate.update("DELETE FROM public.\"AgregadoDiarioCuenta\" WHERE \"Fecha\" = ?", Date.valueOf(fecha));
+            int insertadas = jdbcTemplate.update(SQL_RECONSTRUIR, Date.valueOf(fecha),
+                    fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay(),
+                    fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay());
+            // Fencing al final de la transacción, justo antes del commit (ver CoordinadorTrabajos.verificar)
+            if (lease != null) {
+                coordinador.verificar(lease);
+            }
+            return insertadas;
+        });
+        log.info("📊 Agregados diarios del {} reconstruidos: {} filas", fecha, filas);
+        return filas != null ? filas : 0;
+    }
+
+    @PostConstruct
+    void registrarTrabajo() {
+        coordinador.registrar(TRABAJO_RECONSTRUCCION, 1);
+    }
+
+    @Scheduled(cron = "${app.agregados.cron-reconstruccion:0 0 2 * * *}", zone = "America/Guayaquil")
+    public void reconstruirDiaAnterior() {
+        if (!reconstruccionHabilitada) {
+            return;
+        }
+        coordinador.ejecutar(TRABAJO_RECONSTRUCCION, lease -> reconstruir(LocalDate.now().minusDays(1), lease));
+    }
+}
@@ -0,0 +1,22 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.util.Optional;
+
+import com.arcbank.cbs.transaccion.dto.SwitchDevolucionRequest;
+import com.arcbank.cbs.transaccion.dto.SwitchTransferRequest;
+
+public interface BandejaEntradaService {
+
+        boolean habilitada();
+
+        void encolarTransferencia(SwitchTransferRequest request);
+
+        void encolarDevolucion(SwitchDevolucionRequest request);
+
+        Optional<String> consultarEstado(String instructionId);
+
+        long contarEstacionados();
+
+        // Sin instructionId reactiva los más antiguos, hasta 'maximo'
+        int reprocesarEstacionados(String instructionId, Integer maximo);
+}
@@ -0,0 +1,296 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arcbank.cbs.transaccion.config.CarrilEjecucion;
+import com.arcbank.cbs.transaccion.config.ControlAdmision;
+import com.arcbank.cbs.transaccion.dto.SwitchDevolucionRequest;
+import com.arcbank.cbs.transaccion.dto.SwitchTransferRequest;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.MensajeEntrante;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+import com.arcbank.cbs.transaccion.repository.BandejaEntradaRepository;
+import com.arcbank.cbs.transaccion.repository.TransaccionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BandejaEntradaServiceImpl implements BandejaEntradaService {
+
+    private static final String TRABAJO_LIBERACION = "bandeja-liberacion";
+
+    private final BandejaEntradaRepository bandejaRepository;
+    private final TransaccionRepository transaccionRepository;
+    private final TransaccionService transaccionService;
+    private final SwitchClientService switchClientService;
+    private final ThreadPoolTaskExecutor bandejaExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CoordinadorTrabajos coordinador;
+    private final MeterRegistry registry;
+
+    @Value("${app.bandeja.habilitada:false}")
+    private boolean habilitada;
+
+    @Value("${app.bandeja.tamano-lote:50}")
+    private int tamanoLote;
+
+    @Value("${app.bandeja.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${app.bandeja.lease-segundos:300}")
+    private long leaseSegundos;
+
+    @Value("${app.bandeja.max-reproceso:500}")
+    private int maxReproceso;
+
+    @Override
+    public boolean habilitada() {
+        return habilitada;
+    }
+
+    @Override
+    public void encolarTransferencia(SwitchTransferRequest request) {
+        String instructionId = request.getBody().getInstructionId();
+        String cuentaDestino = request.getBody().getCreditor().getAccountId();
+        if (bandejaRepository.encolar(instructionId, "PACS008", cuentaDestino, serializar(request)) == 0) {
+            log.warn("Transferencia entrante {} ya estaba en la bandeja (reintento del Switch)", instructionId);
+        }
+    }
+
+    @Override
+    public void encolarDevolucion(SwitchDevolucionRequest request) {
+        SwitchDevolucionRequest.Body body = request.getBody();
+        if (body == null || body.getOriginalInstructionId() == null || body.getReturnAmount() == null) {
+            throw new BusinessException("Devolución incompleta: falta originalInstructionId o returnAmount");
+        }
+        // Clave estable para que el reintento del Switch y el reproceso del worker sean idempotentes
+        if (body.getReturnInstructionId() == null || body.getReturnInstructionId().isBlank()) {
+            body.setReturnInstructionId("RET-" + body.getOriginalInstructionId());
+        }
+        if (bandejaRepository.encolar(body.getReturnInstructionId(), "PACS004",
+                claveDevolucion(body.getOriginalInstructionId()), serializar(request)) == 0) {
+            log.warn("Devolución {} ya estaba en la bandeja (reintento del Switch)", body.getReturnInstructionId());
+        }
+    }
+
+    // La devolución se ordena con los demás movimientos de la cuenta que mueve: la de origen si la original
+    // fue una salida, la de destino si fue una entrada. Si la original no se encuentra (la devolución
+    // fallará y quedará estacionada) se usa su propio id.
+    private String claveDevolucion(String originalInstructionId) {
+        return transaccionRepository.findResumenPorReferencia(originalInstructionId)
+                .map(t -> t.getTipoOperacion() == TipoOperacion.TRANSFERENCIA_ENTRADA ? t.getIdCuentaDestino()
+                        : t.getIdCuentaOrigen())
+                .map(idCuenta -> "CTA:" + idCuenta)
+                .orElse("ORIG:" + originalInstructionId);
+    }
+
+    @Override
+    public Optional<String> consultarEstado(String instructionId) {
+        return bandejaRepository.findByInstructionId(instructionId).map(m -> switch (m.getEstado()) {
+            case "PENDIENTE", "PROCESANDO", "ESTACIONADO" -> "PENDING";
+            case "FALLIDO" -> "FAILED";
+            default -> "COMPLETED";
+        });
+    }
+
+    @Override
+    public long contarEstacionados() {
+        return bandejaRepository.countByEstado("ESTACIONADO");
+    }
+
+    @Override
+    public int reprocesarEstacionados(String instructionId, Integer maximo) {
+        int limite = maximo != null && maximo > 0 ? Math.min(maximo, maxReproceso) : maxReproceso;
+        int reactivados = bandejaRepository.reactivarEstacionados(instructionId, limite);
+        log.info("🔁 {} mensajes estacionados de la bandeja vuelven a la cola", reactivados);
+        return reactivados;
+    }
+
+    @Scheduled(fixedDelayString = "${app.bandeja.intervalo-ms:200}")
+    public void drenar() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            List<MensajeEntrante> lote;
+            do {
+                lote = reclamar();
+                CompletableFuture.allOf(lote.stream()
+                        .map(m -> CompletableFuture.runAsync(() -> procesar(m), bandejaExecutor))
+                        .toArray(CompletableFuture[]::new)).join();
+            } while (lote.size() == tamanoLote);
+        } catch (Exception e) {
+            log.warn("No se pudo drenar la bandeja de entrada: {}", e.getMessage());
+        }
+    }
+
+    @PostConstruct
+    void registrarTrabajo() {
+        coordinador.registrar(TRABAJO_LIBERACION, 1);
+    }
+
+    // El drenado lo hacen todos los nodos (SKIP LOCKED); la liberación de vencidos basta con uno
+    @Scheduled(fixedDelayString = "${app.bandeja.intervalo-liberacion-ms:60000}")
+    public void liberarVencidos() {
+        if (!habilitada) {
+            return;
+        }
+        coordinador.ejecutar(TRABAJO_LIBERACION, lease -> {
+            int liberados = bandejaRepository.liberarVencidos(LocalDateTime.now().minusSeconds(leaseSegundos));
+            if (liberados > 0) {
+                log.warn("🔄 {} mensajes de la bandeja abandonados en PROCESANDO volvieron a la cola", liberados);
+            }
+        });
+    }
+
+    // FOR UPDATE SKIP LOCKED: varios nodos drenan sin pisarse
+    private List<MensajeEntrante> reclamar() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            List<MensajeEntrante> disponibles = bandejaRepository.findDisponibles(ahora, tamanoLote);
+            disponibles.forEach(m -> {
+                m.setEstado("PROCESANDO");
+                m.setFechaProceso(ahora);
+            });
+            return disponibles;
+        });
+    }
+
+    private void procesar(MensajeEntrante mensaje) {
+        // Créditos del Switch: mismo carril que el webhook síncrono
+        CarrilEjecucion.establecer(ControlAdmision.Clase.CREDITO_ENTRANTE);
+        try {
+            acreditar(mensaje);
+        } finally {
+            CarrilEjecucion.limpiar();
+        }
+    }
+
+    private void acreditar(MensajeEntrante mensaje) {
+        try {
+            if ("PACS008".equals(mensaje.getTipo())) {
+                SwitchTransferRequest request = objectMapper.readValue(mensaje.getPayload(),
+                        SwitchTransferRequest.class);
+                String bancoOrigen = request.getHeader().getOriginatingBankId() != null
+                        ? request.getHeader().getOriginatingBankId()
+                        : "DESCONOCIDO";
+                transaccionService.procesarTransferenciaEntrante(mensaje.getInstructionId(),
+                        request.getBody().getCreditor().getAccountId(), request.getBody().getAmount().getValue(),
+                        bancoOrigen);
+            } else {
+                transaccionService.procesarDevolucionEntrante(
+                        objectMapper.readValue(mensaje.getPayload(), SwitchDevolucionRequest.class));
+            }
+            terminar(mensaje, "PROCESADO", null);
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            String codigoRechazo = codigoRechazoDefinitivo(e);
+
+            if (codigoRechazo == null && mensaje.getIntentos() + 1 < maxIntentos) {
+                reintentar(mensaje, error);
+                return;
+            }
+
+            if ("PACS004".equals(mensaje.getTipo())) {
+                estacionar(mensaje, error);
+                return;
+            }
+            log.error("❌ Mensaje {} de la bandeja FALLIDO tras {} intentos: {}", mensaje.getInstructionId(),
+                    mensaje.getIntentos() + 1, error);
+            terminar(mensaje, "FALLIDO", error);
+            if ("PACS008".equals(mensaje.getTipo())) {
+                devolverAlSwitch(mensaje, codigoRechazo != null ? codigoRechazo : "MS03");
+            }
+        }
+    }
+
+    // Mismas reglas que el webhook síncrono: cuenta inexistente o cerrada no se reintenta
+    private static String codigoRechazoDefinitivo(Exception e) {
+        if (!(e instanceof BusinessException) || e.getMessage() == null) {
+            return null;
+        }
+        if (e.getMessage().contains("Cuenta destino no encontrada")) {
+            return "AC01";
+        }
+        if (e.getMessage().contains("Cuenta cerrada")) {
+            return "AC04";
+        }
+        return null;
+    }
+
+    // Ya se respondió ACK: el rechazo se comunica devolviendo los fondos con un pacs.004
+    private void devolverAlSwitch(MensajeEntrante mensaje, String codigo) {
+        try {
+            SwitchTransferRequest request = objectMapper.readValue(mensaje.getPayload(), SwitchTransferRequest.class);
+            Dinero monto = request.getBody().getAmount().getValue();
+            switchClientService.enviarReverso(mensaje.getInstructionId(), codigo, monto,
+                    null, null, null, request.getBody().getCreditor().getAccountId(),
+                    request.getHeader().getOriginatingBankId());
+            log.info("↩️ Transferencia entrante {} devuelta al Switch con código {}", mensaje.getInstructionId(),
+                    codigo);
+        } catch (Exception e) {
+            log.error("🚨 No se pudo devolver al Switch la transferencia {}: {}", mensaje.getInstructionId(),
+                    e.getMessage());
+        }
+    }
+
+    // Los fondos ya volvieron del Switch y una devolución no tiene a quién rechazarse: no se da por fallida
+    private void estacionar(MensajeEntrante mensaje, String error) {
+        log.error("🚨 Devolución {} estacionada tras {} intentos, requiere revisión y reproceso: {}",
+                mensaje.getInstructionId(), mensaje.getIntentos() + 1, error);
+        terminar(mensaje, "ESTACIONADO", error);
+        registry.counter("arcbank.bandeja.mensajes.estacionados", "tipo", mensaje.getTipo()).increment();
+    }
+
+    private void reintentar(MensajeEntrante mensaje, String error) {
+        int intentos = mensaje.getIntentos() + 1;
+        long esperaSegundos = Math.min(1L << Math.min(intentos, 8), 300);
+        log.warn("Mensaje {} falló (intento {}), reintento en {} s: {}", mensaje.getInstructionId(), intentos,
+                esperaSegundos, error);
+        mensaje.setIntentos(intentos);
+        mensaje.setEstado("PENDIENTE");
+        mensaje.setProximoIntento(LocalDateTime.now().plusSeconds(esperaSegundos));
+        mensaje.setUltimoError(truncar(error));
+        bandejaRepository.save(mensaje);
+    }
+
+    private void terminar(MensajeEntrante mensaje, String estado, String error) {
+        mensaje.setIntentos(mensaje.getIntentos() + 1);
+        mensaje.setEstado(estado);
+        mensaje.setUltimoError(truncar(error));
+        mensaje.setFechaProceso(LocalDateTime.now());
+        bandejaRepository.save(mensaje);
+    }
+
+    private String serializar(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (Exception e) {
+            throw new BusinessException("No se pudo registrar el mensaje: " + e.getMessage());
+        }
+    }
+
+    private static String truncar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        return texto.length() > 500 ? texto.substring(0, 500) : texto;
+    }
+}
@@ -0,0 +1,110 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.dto.rabbitmq.EventoTransaccionDTO;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Escribe los eventos de dominio de una transacción en "EventoSalida" dentro de la misma transacción
+ * del cambio (se llama durante el flush desde TransaccionEscrituraListener): si el posteo hace rollback,
+ * el evento desaparece con él. La publicación la hace {@link RelayEventos}.
+ */
+@Component
+@RequiredArgsConstructor
+public class BandejaSalidaEventos {
+
+    public static final String CREADA = "TRANSACCION_CREADA";
+    public static final String COMPLETADA = "TRANSACCION_COMPLETADA";
+    public static final String FALLIDA = "TRANSACCION_FALLIDA";
+    public static final String REVERSADA = "TRANSACCION_REVERSADA";
+
+    private static final String SQL_INSERT = "INSERT INTO public.\"EventoSalida\" "
+            + "(\"TipoEvento\", \"IdTransaccion\", \"ClaveOrden\", \"Particion\", \"Payload\") VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.eventos.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${app.eventos.particiones:4}")
+    private int particiones;
+
+    /** Eventos que produce el paso de {@code estadoAnterior} (null = alta) al estado actual. */
+    public void registrarCambio(Transaccion t, EstadoTransaccion estadoAnterior) {
+        if (!habilitado || estadoAnterior == t.getEstado()) {
+            return;
+        }
+        if (estadoAnterior == null) {
+            registrar(t, CREADA);
+        }
+        String tipo = tipoPorEstado(t.getEstado());
+        if (tipo != null) {
+            registrar(t, tipo);
+        }
+    }
+
+    private static String tipoPorEstado(EstadoTransaccion estado) {
+        if (estado == null) {
+            return null;
+        }
+        return switch (estado) {
+            case COMPLETADA -> COMPLETADA;
+            case FALLIDA -> FALLIDA;
+            case REVERSADA, DEVUELTA -> REVERSADA;
+            default -> null;
+        };
+    }
+
+    private void registrar(Transaccion t, String tipoEvento) {
+        String claveOrden = claveOrden(t);
+        jdbcTemplate.update(SQL_INSERT, tipoEvento, t.getIdTransaccion(), claveOrden,
+                Math.floorMod(claveOrden.hashCode(), particiones), serializar(t, tipoEvento));
+    }
+
+    // Los eventos de una misma cuenta comparten partición y por tanto orden de publicación
+    private static String claveOrden(Transaccion t) {
+        if (t.getIdCuentaOrigen() != null) {
+            return "C:" + t.getIdCuentaOrigen();
+        }
+        if (t.getIdCuentaDestino() != null) {
+            return "C:" + t.getIdCuentaDestino();
+        }
+        return "T:" + t.getIdTransaccion();
+    }
+
+    private String serializar(Transaccion t, String tipoEvento) {
+        EventoTransaccionDTO evento = EventoTransaccionDTO.builder()
+                .tipoEvento(tipoEvento)
+                .idTransaccion(t.getIdTransaccion())
+                .referencia(t.getReferencia())
+                .codigoReferencia(t.getCodigoReferencia())
+                .tipoOperacion(t.getTipoOperacion().name())
+                .idCuentaOrigen(t.getIdCuentaOrigen())
+                .idCuentaDestino(t.getIdCuentaDestino())
+                .cuentaExterna(t.getCuentaExterna())
+                .idBancoExterno(t.getIdBancoExterno())
+                .monto(t.getMonto())
+                .saldoResultante(t.getSaldoResultante())
+                .estado(t.getEstado().name())
+                .canal(t.getCanal())
+                .fechaTransaccion(t.getFechaCreacion())
+                .fechaEvento(LocalDateTime.now())
+                .build();
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + tipoEvento, e);
+        }
+    }
+}
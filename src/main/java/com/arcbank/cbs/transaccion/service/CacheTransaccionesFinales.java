@@ -0,0 +1,223 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Vistas de transacciones en estado final, indexadas por id, referencia y código de referencia.
+ * Acotada en tamaño (desalojo tipo CLOCK: se descarta la entrada más antigua no leída desde su
+ * última vuelta) y con TTL como respaldo ante un evento perdido.
+ * Las escrituras locales la actualizan al confirmar la transacción (TransaccionEscrituraListener) y las de
+ * otras réplicas la invalidan al llegar su evento (EstadoTransaccionListener). Una COMPLETADA todavía puede
+ * reversarse: sin eventos entre réplicas solo se guardan los estados terminales.
+ */
+@Component
+public class CacheTransaccionesFinales {
+
+    private static final class Entrada {
+        private final TransaccionResponseDTO vista;
+        private final long expira;
+        private volatile boolean leida;
+
+        private Entrada(TransaccionResponseDTO vista, long expira) {
+            this.vista = vista;
+            this.expira = expira;
+        }
+    }
+
+    private final Map<Integer, Entrada> porId = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idPorReferencia = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idPorCodigo = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Integer> reloj = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger enReloj = new AtomicInteger();
+    // Cambia en cada invalidación: una lectura que empezó antes no puede repoblar un valor viejo
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final int capacidad;
+    private final long ttlMs;
+    private final boolean invalidacionRemota;
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Counter desalojos;
+    private final Counter invalidaciones;
+
+    public CacheTransaccionesFinales(MeterRegistry registry,
+            @Value("${app.cache-transacciones.capacidad:50000}") int capacidad,
+            @Value("${app.cache-transacciones.ttl-segundos:300}") long ttlSegundos,
+            @Value("${app.eventos.habilitado:false}") boolean eventos,
+            @Value("${app.notificaciones.habilitado:true}") boolean notificaciones) {
+        this.capacidad = capacidad;
+        this.ttlMs = ttlSegundos * 1000;
+        // El outbox publica los cambios y la cola de cada réplica (EstadoTransaccionListener) los recibe
+        this.invalidacionRemota = eventos && notificaciones;
+        this.aciertos = Counter.builder("arcbank.cache.transacciones").tag("resultado", "acierto").register(registry);
+        this.fallos = Counter.builder("arcbank.cache.transacciones").tag("resultado", "fallo").register(registry);
+        this.desalojos = Counter.builder("arcbank.cache.transacciones.desalojos").register(registry);
+        this.invalidaciones = Counter.builder("arcbank.cache.transacciones.invalidaciones").register(registry);
+        Gauge.builder("arcbank.cache.transacciones.tamano", porId, Map::size).register(registry);
+    }
+
+    public static boolean esFinal(EstadoTransaccion estado) {
+        return estado != null && estado.esFinal();
+    }
+
+    public Optional<TransaccionResponseDTO> porId(Integer id, Supplier<Optional<TransaccionResponseDTO>> carga) {
+        return obtener(id, carga);
+    }
+
+    public Optional<TransaccionResponseDTO> porReferencia(String referencia,
+            Supplier<Optional<TransaccionResponseDTO>> carga) {
+        return obtener(referencia != null ? idPorReferencia.get(referencia) : null, carga);
+    }
+
+    public Optional<Integer> idPorCodigo(String codigoReferencia, Supplier<Optional<Integer>> carga) {
+        Integer id = codigoReferencia != null ? idPorCodigo.get(codigoReferencia) : null;
+        if (id != null && vigente(id) != null) {
+            aciertos.increment();
+            return Optional.of(id);
+        }
+        fallos.increment();
+        return carga.get();
+    }
+
+    private Optional<TransaccionResponseDTO> obtener(Integer id, Supplier<Optional<TransaccionResponseDTO>> carga) {
+        Entrada entrada = id != null ? vigente(id) : null;
+        if (entrada != null) {
+            entrada.leida = true;
+            aciertos.increment();
+            return Optional.of(entrada.vista);
+        }
+        fallos.increment();
+        long antes = generacion.get();
+        Optional<TransaccionResponseDTO> cargada = carga.get();
+        cargada.ifPresent(vista -> {
+            if (generacion.get() == antes) {
+                guardar(vista);
+            }
+        });
+        return cargada;
+    }
+
+    // Escritura directa tras el commit de un cambio de estado
+    public void actualizar(Transaccion t) {
+        if (cacheable(t.getEstado())) {
+            guardar(vista(t));
+        } else {
+            invalidar(t.getIdTransaccion());
+        }
+    }
+
+    // Cambio confirmado en otra réplica: la copia sobra si su estado ya no coincide
+    public void invalidarSiDistinto(Integer id, EstadoTransaccion estado) {
+        Entrada entrada = id != null ? porId.get(id) : null;
+        if (entrada != null && entrada.vista.getEstado() != estado) {
+            invalidar(id);
+        }
+    }
+
+    public void invalidar(Integer id) {
+        if (id == null) {
+            return;
+        }
+        generacion.incrementAndGet();
+        Entrada entrada = porId.remove(id);
+        if (entrada != null) {
+            invalidaciones.increment();
+            quitarIndices(id, entrada.vista);
+        }
+    }
+
+    private void guardar(TransaccionResponseDTO vista) {
+        if (vista.getIdTransaccion() == null || !cacheable(vista.getEstado())) {
+            return;
+        }
+        Integer id = vista.getIdTransaccion();
+        if (porId.put(id, new Entrada(vista, System.currentTimeMillis() + ttlMs)) == null) {
+            reloj.offer(id);
+            enReloj.incrementAndGet();
+        }
+        if (vista.getReferencia() != null) {
+            idPorReferencia.put(vista.getReferencia(), id);
+        }
+        if (vista.getCodigoReferencia() != null) {
+            idPorCodigo.put(vista.getCodigoReferencia(), id);
+        }
+        desalojar();
+    }
+
+    private boolean cacheable(EstadoTransaccion estado) {
+        return esFinal(estado) && (invalidacionRemota || estado.esTerminal());
+    }
+
+    private Entrada vigente(Integer id) {
+        Entrada entrada = porId.get(id);
+        if (entrada != null && entrada.expira < System.currentTimeMillis()) {
+            if (porId.remove(id, entrada)) {
+                quitarIndices(id, entrada.vista);
+            }
+            return null;
+        }
+        return entrada;
+    }
+
+    // Segunda oportunidad: una entrada leída desde la última vuelta se vuelve a encolar.
+    // También purga los ids que quedaron en el reloj tras invalidarse, para que no crezca sin límite.
+    private void desalojar() {
+        int vueltas = 0;
+        while ((porId.size() > capacidad || enReloj.get() > 2 * capacidad) && vueltas++ < 4 * capacidad) {
+            Integer candidato = reloj.poll();
+            if (candidato == null) {
+                return;
+            }
+            enReloj.decrementAndGet();
+            Entrada entrada = porId.get(candidato);
+            if (entrada == null) {
+                continue;
+            }
+            if (porId.size() <= capacidad
+                    || (entrada.leida && entrada.expira >= System.currentTimeMillis())) {
+                entrada.leida = false;
+                reloj.offer(candidato);
+                enReloj.incrementAndGet();
+                continue;
+            }
+            if (porId.remove(candidato, entrada)) {
+                quitarIndices(candidato, entrada.vista);
+                desalojos.increment();
+            }
+        }
+    }
+
+    private void quitarIndices(Integer id, TransaccionResponseDTO vista) {
+        if (vista.getReferencia() != null) {
+            idPorReferencia.remove(vista.getReferencia(), id);
+        }
+        if (vista.getCodigoReferencia() != null) {
+            idPorCodigo.remove(vista.getCodigoReferencia(), id);
+        }
+    }
+
+    // Misma forma que la proyección RESUMEN_GENERAL del repositorio (el constructor pasa el saldo nulo a 0)
+    static TransaccionResponseDTO vista(Transaccion t) {
+        return new TransaccionResponseDTO(t.getIdTransaccion(), t.getReferencia(), t.getTipoOperacion(),
+                t.getIdCuentaOrigen(), t.getIdCuentaDestino(), t.getCuentaExterna(), t.getIdBancoExterno(),
+                t.getMonto(), t.getSaldoResultante(),
+                t.getFechaCreacion(), t.getDescripcion(), t.getCanal(), t.getEstado(), t.getCodigoReferencia());
+    }
+}
@@ -0,0 +1,115 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.dto.SwitchDevolucionRequest;
+import com.arcbank.cbs.transaccion.dto.SwitchTransferRequest;
+import com.arcbank.cbs.transaccion.dto.rabbitmq.StatusReportDTO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Clasifica el webhook unificado del Switch (acmt.023 / pacs.004 / pacs.002 / pacs.008) en una sola pasada
+ * de tokens: mientras se leen los bytes se miran header.messageNamespace y los campos del body
+ * que distinguen cada mensaje, y los tokens quedan en un TokenBuffer desde el que se enlaza el DTO
+ * tipado sin volver a parsear ni construir un Map intermedio.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClasificadorWebhook {
+
+    public static final String NAMESPACE_ACMT_023 = "acmt.023.001.02";
+    public static final String NAMESPACE_PACS_002 = "pacs.002";
+
+    public enum TipoMensaje {
+        CONSULTA_CUENTA, DEVOLUCION, REPORTE_ESTADO, TRANSFERENCIA
+    }
+
+    public record MensajeClasificado(TipoMensaje tipo, String cuentaConsultada,
+            SwitchDevolucionRequest devolucion, SwitchTransferRequest transferencia, StatusReportDTO reporteEstado) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    public MensajeClasificado clasificar(byte[] payload) throws IOException {
+        String namespace = null;
+        String targetAccountNumber = null;
+        String creditorAccountId = null;
+        boolean esDevolucion = false;
+        boolean tieneOriginal = false;
+        boolean tieneStatus = false;
+        boolean datosDevolucion = false;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload);
+                TokenBuffer tokens = new TokenBuffer(parser)) {
+
+            int profundidad = 0;
+            String campoRaiz = null;
+            String campoBody = null;
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                tokens.copyCurrentEvent(parser);
+                switch (token) {
+                    case START_OBJECT, START_ARRAY -> profundidad++;
+                    case END_OBJECT, END_ARRAY -> profundidad--;
+                    case FIELD_NAME -> {
+                        String nombre = parser.currentName();
+                        if (profundidad == 1) {
+                            campoRaiz = nombre;
+                        } else if (profundidad == 2 && "body".equals(campoRaiz)) {
+                            campoBody = nombre;
+                            if ("originalInstructionId".equals(nombre) || "returnReason".equals(nombre)) {
+                                esDevolucion = true;
+                            }
+                            tieneOriginal |= "originalInstructionId".equals(nombre);
+                            tieneStatus |= "status".equals(nombre);
+                            datosDevolucion |= "returnInstructionId".equals(nombre) || "returnReason".equals(nombre)
+                                    || "returnAmount".equals(nombre);
+                        }
+                    }
+                    case VALUE_STRING -> {
+                        String nombre = parser.currentName();
+                        if (profundidad == 2 && "header".equals(campoRaiz) && "messageNamespace".equals(nombre)) {
+                            namespace = parser.getText();
+                        } else if (profundidad == 2 && "body".equals(campoRaiz)
+                                && "targetAccountNumber".equals(nombre)) {
+                            targetAccountNumber = parser.getText();
+                        } else if (profundidad == 3 && "body".equals(campoRaiz) && "creditor".equals(campoBody)
+                                && "accountId".equals(nombre)) {
+                            creditorAccountId = parser.getText();
+                        }
+                    }
+                    default -> {
+                        // Números, booleanos y null solo se copian al buffer
+                    }
+                }
+            }
+
+            // Mismo orden de detección que el controlador original
+            if (NAMESPACE_ACMT_023.equals(namespace)) {
+                String cuenta = targetAccountNumber != null ? targetAccountNumber : creditorAccountId;
+                return new MensajeClasificado(TipoMensaje.CONSULTA_CUENTA, cuenta, null, null, null);
+            }
+            // pacs.002: también trae originalInstructionId, pero con status y sin datos de devolución
+            if ((namespace != null && namespace.startsWith(NAMESPACE_PACS_002))
+                    || (tieneOriginal && tieneStatus && !datosDevolucion)) {
+                return new MensajeClasificado(TipoMensaje.REPORTE_ESTADO, null, null, null,
+                        objectMapper.readValue(tokens.asParser(objectMapper), StatusReportDTO.class));
+            }
+            if (esDevolucion) {
+                return new MensajeClasificado(TipoMensaje.DEVOLUCION, null,
+                        objectMapper.readValue(tokens.asParser(objectMapper), SwitchDevolucionRequest.class), null,
+                        null);
+            }
+            return new MensajeClasificado(TipoMensaje.TRANSFERENCIA, null, null,
+                    objectMapper.readValue(tokens.asParser(objectMapper), SwitchTransferRequest.class), null);
+        }
+    }
+}
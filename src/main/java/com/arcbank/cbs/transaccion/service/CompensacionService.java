@@ -0,0 +1,12 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.time.LocalDate;
+
+import com.arcbank.cbs.transaccion.dto.CompensacionCorteDTO;
+
+public interface CompensacionService {
+
+        CompensacionCorteDTO ejecutarCorte(LocalDate fecha);
+
+        CompensacionCorteDTO obtenerCorte(Integer idCorte);
+}
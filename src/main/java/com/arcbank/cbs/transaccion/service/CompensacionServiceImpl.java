@@ -0,0 +1,280 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arcbank.cbs.transaccion.client.SwitchClient;
+import com.arcbank.cbs.transaccion.dto.CompensacionCorteDTO;
+import com.arcbank.cbs.transaccion.dto.MovimientoCompensacionDTO;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.model.CompensacionArrastre;
+import com.arcbank.cbs.transaccion.model.CompensacionCorte;
+import com.arcbank.cbs.transaccion.model.CompensacionPosicion;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+import com.arcbank.cbs.transaccion.repository.CompensacionAjusteRepository;
+import com.arcbank.cbs.transaccion.repository.CompensacionArrastreRepository;
+import com.arcbank.cbs.transaccion.repository.CompensacionCorteRepository;
+import com.arcbank.cbs.transaccion.repository.CompensacionPosicionRepository;
+import com.arcbank.cbs.transaccion.repository.TransaccionRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CompensacionServiceImpl implements CompensacionService {
+
+    private static final String TRABAJO_CORTE = "compensacion-corte";
+    private static final Set<TipoOperacion> TIPOS_INTERBANCARIOS = EnumSet.of(TipoOperacion.TRANSFERENCIA_SALIDA,
+            TipoOperacion.TRANSFERENCIA_INTERBANCARIA, TipoOperacion.TRANSFERENCIA_ENTRADA, TipoOperacion.REVERSO);
+
+    private final TransaccionRepository transaccionRepository;
+    private final CompensacionCorteRepository corteRepository;
+    private final CompensacionPosicionRepository posicionRepository;
+    private final CompensacionArrastreRepository arrastreRepository;
+    private final CompensacionAjusteRepository ajusteRepository;
+    private final SwitchClient switchClient;
+    private final TransactionTemplate transactionTemplate;
+    private final CoordinadorTrabajos coordinador;
+
+    @Value("${app.banco.codigo:ARCBANK}")
+    private String codigoBanco;
+
+    @Value("${app.compensacion.hora-corte:0}")
+    private int horaCorte;
+
+    @Value("${app.compensacion.tamano-bloque:500}")
+    private int tamanoBloque;
+
+    @Value("${app.compensacion.habilitada:false}")
+    private boolean habilitada;
+
+    @PostConstruct
+    void registrarTrabajo() {
+        coordinador.registrar(TRABAJO_CORTE, 1);
+    }
+
+    // Solo en el nodo con el lease del trabajo: el corte no se genera ni se envía dos veces
+    @Scheduled(cron = "${app.compensacion.cron:0 15 0 * * *}", zone = "America/Guayaquil")
+    public void ejecutarCorteDiario() {
+        if (!habilitada) {
+            return;
+        }
+        coordinador.ejecutar(TRABAJO_CORTE, lease -> {
+            // Primero se terminan cortes anteriores que quedaron a medio enviar
+            for (CompensacionCorte pendiente : corteRepository.findByEstadoOrderByFechaInicio("GENERADO")) {
+                enviarBloques(pendiente, lease);
+            }
+            ejecutarCorte(LocalDate.now().minusDays(1), lease);
+        });
+    }
+
+    @Override
+    public CompensacionCorteDTO ejecutarCorte(LocalDate fecha) {
+        return ejecutarCorte(fecha, null);
+    }
+
+    // lease nulo: corte manual (API), fuera del trabajo programado
+    private CompensacionCorteDTO ejecutarCorte(LocalDate fecha, CoordinadorTrabajos.Lease lease) {
+        LocalDateTime inicio = fecha.atTime(horaCorte, 0);
+        LocalDateTime fin = inicio.plusDays(1);
+        if (fin.isAfter(LocalDateTime.now())) {
+            throw new BusinessException("La ventana de compensación " + inicio + " - " + fin + " aún no ha cerrado.");
+        }
+
+        CompensacionCorte corte = corteRepository.findByFechaInicioAndFechaFin(inicio, fin)
+                .orElseGet(() -> generarCorte(inicio, fin, lease));
+
+        if ("GENERADO".equals(corte.getEstado())) {
+            enviarBloques(corte, lease);
+        }
+        return obtenerCorte(corte.getIdCorte());
+    }
+
+    /**
+     * Recorre los movimientos de la ventana con un cursor y persiste corte + posiciones
+     * en la misma transacción: o queda el corte completo, o no queda nada y se recalcula.
+     */
+    private CompensacionCorte generarCorte(LocalDateTime inicio, LocalDateTime fin, CoordinadorTrabajos.Lease lease) {
+        log.info("📊 Generando corte de compensación {} - {}", inicio, fin);
+        try {
+            return transactionTemplate.execute(status -> {
+                AcumuladorCompensacion acumulador = new AcumuladorCompensacion();
+                // Las PENDIENTE (salidas sin respuesta del Switch) no se pierden: se arrastran al corte siguiente
+                List<MovimientoCompensacionDTO> pendientes = new ArrayList<>();
+                try (Stream<MovimientoCompensacionDTO> movimientos = transaccionRepository
+                        .streamMovimientosInterbancarios(inicio, fin, TIPOS_INTERBANCARIOS)) {
+                    movimientos.forEach(m -> {
+                        if (m.getEstado() == EstadoTransaccion.PENDIENTE) {
+                            pendientes.add(m);
+                        } else {
+                            acumulador.acumular(m);
+                        }
+                    });
+                }
+                // Pendientes de cortes anteriores que ya se liquidaron entran en este
+                List<MovimientoCompensacionDTO> liquidadas = transaccionRepository.findArrastreLiquidado(inicio);
+                liquidadas.forEach(acumulador::acumular);
+                // Reversos/devoluciones propios completados desde el corte anterior, sea cual sea su ventana
+                List<MovimientoCompensacionDTO> ajustes = transaccionRepository.findAjustesSinCorte();
+                ajustes.forEach(acumulador::acumularAjuste);
+
+                CompensacionCorte corte = corteRepository.save(CompensacionCorte.builder()
+                        .fechaInicio(inicio)
+                        .fechaFin(fin)
+                        .totalMovimientos(acumulador.getMovimientos())
+                        .posicionNetaTotal(acumulador.getPosicionNetaTotal())
+                        .build());
+
+                if (!liquidadas.isEmpty()) {
+                    arrastreRepository.borrar(liquidadas.stream().map(MovimientoCompensacionDTO::getIdTransaccion)
+                            .toList());
+                }
+                arrastreRepository.saveAll(pendientes.stream().map(m -> CompensacionArrastre.builder()
+                        .idTransaccion(m.getIdTransaccion())
+                        .fechaCreacion(m.getFechaCreacion())
+                        .idCorteOrigen(corte.getIdCorte())
+                        .build()).toList());
+                if (!ajustes.isEmpty()) {
+                    ajusteRepository.asignarCorte(ajustes.stream().map(MovimientoCompensacionDTO::getIdTransaccion)
+                            .toList(), corte.getIdCorte());
+                }
+                if (!pendientes.isEmpty() || !liquidadas.isEmpty() || !ajustes.isEmpty()) {
+                    log.info("📊 Corte {}: {} movimientos pendientes arrastrados al siguiente, {} de cortes "
+                            + "anteriores incluidos, {} reversos posteriores", corte.getIdCorte(), pendientes.size(),
+                            liquidadas.size(), ajustes.size());
+                }
+
+                List<CompensacionPosicion> posiciones = acumulador.aPosiciones(corte.getIdCorte());
+                posicionRepository.saveAll(posiciones);
+
+                int bloques = (posiciones.size() + tamanoBloque - 1) / tamanoBloque;
+                corte.setTotalBloques(bloques);
+                if (bloques == 0) {
+                    corte.setEstado("ENVIADO");
+                }
+
+                // Fencing antes del commit (ver CoordinadorTrabajos.verificar)
+                verificarLease(lease);
+                log.info("✅ Corte {} generado: {} movimientos, {} bancos, neto {}", corte.getIdCorte(),
+                        acumulador.getMovimientos(), posiciones.size(), corte.getPosicionNetaTotal());
+                return corte;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Otro nodo generó el mismo corte en paralelo: se reutiliza el suyo
+            log.warn("Corte {} - {} ya generado por otro proceso", inicio, fin);
+            return corteRepository.findByFechaInicioAndFechaFin(inicio, fin)
+                    .orElseThrow(() -> new BusinessException("No se pudo registrar el corte de compensación."));
+        }
+    }
+
+    // Reanuda desde el primer bloque no confirmado; el messageId es determinista para que el Switch deduplique
+    private void enviarBloques(CompensacionCorte corte, CoordinadorTrabajos.Lease lease) {
+        for (int bloque = corte.getBloquesEnviados(); bloque < corte.getTotalBloques(); bloque++) {
+            List<CompensacionPosicion> posiciones = posicionRepository.findByIdCorteOrderByBancoContraparte(
+                    corte.getIdCorte(), PageRequest.of(bloque, tamanoBloque));
+            // Antes de cada envío, sin transacción abierta durante la llamada: un nodo que perdió el lease deja
+            // de enviar y un bloque repetido lo descarta el Switch por messageId
+            verificarLease(lease);
+
+            try {
+                Map<String, Object> respuesta = switchClient.subirCompensacion(construirPayload(corte, bloque,
+                        posiciones));
+                log.info("📤 Corte {} bloque {}/{} enviado: {}", corte.getIdCorte(), bloque + 1,
+                        corte.getTotalBloques(), respuesta);
+            } catch (Exception e) {
+                log.error("❌ Falló envío del bloque {} del corte {}: {}", bloque + 1, corte.getIdCorte(),
+                        e.getMessage());
+                corte.setUltimoError(e.getMessage() != null && e.getMessage().length() > 500
+                        ? e.getMessage().substring(0, 500)
+                        : e.getMessage());
+                corte.setFechaActualizacion(LocalDateTime.now());
+                corteRepository.save(corte);
+                throw new BusinessException("Envío de compensación interrumpido en el bloque " + (bloque + 1)
+                        + ": " + e.getMessage());
+            }
+
+            corteRepository.registrarBloqueEnviado(corte.getIdCorte(), bloque + 1, LocalDateTime.now());
+            corte.setBloquesEnviados(bloque + 1);
+        }
+
+        corte.setEstado("ENVIADO");
+        corte.setUltimoError(null);
+        corte.setFechaActualizacion(LocalDateTime.now());
+        corteRepository.save(corte);
+    }
+
+    private void verificarLease(CoordinadorTrabajos.Lease lease) {
+        if (lease != null) {
+            coordinador.verificar(lease);
+        }
+    }
+
+    private Map<String, Object> construirPayload(CompensacionCorte corte, int bloque,
+            List<CompensacionPosicion> posiciones) {
+        Map<String, Object> header = new HashMap<>();
+        header.put("messageId", "COMP-" + codigoBanco + "-" + corte.getIdCorte() + "-" + (bloque + 1));
+        header.put("creationDateTime", Instant.now().truncatedTo(ChronoUnit.SECONDS).toString());
+        header.put("originatingBankId", codigoBanco);
+        header.put("cutoffStart", corte.getFechaInicio().toString());
+        header.put("cutoffEnd", corte.getFechaFin().toString());
+        header.put("chunk", bloque + 1);
+        header.put("totalChunks", corte.getTotalBloques());
+
+        List<Map<String, Object>> lineas = posiciones.stream().map(p -> {
+            Map<String, Object> linea = new HashMap<>();
+            linea.put("counterpartyBankId", p.getBancoContraparte());
+            linea.put("sentCount", p.getCantidadEnviada());
+            linea.put("sentAmount", p.getTotalEnviado());
+            linea.put("receivedCount", p.getCantidadRecibida());
+            linea.put("receivedAmount", p.getTotalRecibido());
+            linea.put("netPosition", p.getPosicionNeta());
+            return linea;
+        }).toList();
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("positions", lineas);
+        body.put("totalMovements", corte.getTotalMovimientos());
+        body.put("totalNetPosition", corte.getPosicionNetaTotal());
+
+        return Map.of("header", header, "body", body);
+    }
+
+    @Override
+    public CompensacionCorteDTO obtenerCorte(Integer idCorte) {
+        CompensacionCorte corte = corteRepository.findById(idCorte)
+                .orElseThrow(() -> new BusinessException("Corte de compensación no encontrado: " + idCorte));
+
+        return CompensacionCorteDTO.builder()
+                .idCorte(corte.getIdCorte())
+                .fechaInicio(corte.getFechaInicio())
+                .fechaFin(corte.getFechaFin())
+                .estado(corte.getEstado())
+                .totalMovimientos(corte.getTotalMovimientos())
+                .totalBloques(corte.getTotalBloques())
+                .bloquesEnviados(corte.getBloquesEnviados())
+                .posicionNetaTotal(corte.getPosicionNetaTotal())
+                .ultimoError(corte.getUltimoError())
+                .posiciones(posicionRepository.findByIdCorteOrderByBancoContraparte(idCorte))
+                .build();
+    }
+}
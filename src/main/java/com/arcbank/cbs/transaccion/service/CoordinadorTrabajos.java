@@ -0,0 +1,263 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.config.MembresiaCluster;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Trabajos programados con varias réplicas. Cada trabajo se registra con N shards; el shard lo ejecuta el
+ * nodo al que se lo asigna {@link MembresiaCluster} y solo mientras tenga su lease en "TrabajoLease". Los
+ * leases se renuevan aquí en segundo plano, no en cada ejecución, así que un trabajo frecuente no paga una
+ * escritura por tick. Con más réplicas cada nodo tiene menos shards y el trabajo total se reparte.
+ * <p>
+ * El disparo sigue siendo el {@code @Scheduled} de cada trabajo en todos los nodos: {@link #ejecutar}
+ * corre el cuerpo solo para los shards propios. Cada adquisición trae un token nuevo (fencing); el
+ * trabajo que escribe en la BD llama a {@link #verificar} en su transacción y un nodo que perdió el
+ * lease (pausa larga, partición de red) falla en vez de pisar al nuevo dueño.
+ */
+@Slf4j
+@Component
+public class CoordinadorTrabajos {
+
+    /** Lease vigente de un shard de un trabajo. */
+    public record Lease(String trabajo, int shard, int shards, long token) {
+    }
+
+    public record EstadoTrabajo(String trabajo, int shards, Map<Integer, Long> propios, long ejecuciones,
+            long fallos, LocalDateTime ultimaEjecucion, Long ultimaDuracionMs, String ultimoError) {
+    }
+
+    private record Tenencia(long token, long venceNanos) {
+    }
+
+    private static final class Trabajo {
+        private final String nombre;
+        private final int shards;
+        private final Map<Integer, Tenencia> tenencias = new ConcurrentHashMap<>();
+        private final Set<Integer> enEjecucion = ConcurrentHashMap.newKeySet();
+        private final AtomicLong ejecuciones = new AtomicLong();
+        private final AtomicLong fallos = new AtomicLong();
+        private volatile LocalDateTime ultimaEjecucion;
+        private volatile Long ultimaDuracionMs;
+        private volatile String ultimoError;
+
+        private Trabajo(String nombre, int shards) {
+            this.nombre = nombre;
+            this.shards = shards;
+        }
+    }
+
+    private static final String SQL_ADQUIRIR = "INSERT INTO public.\"TrabajoLease\" "
+            + "(\"Trabajo\", \"Shard\", \"Nodo\", \"Token\", \"Vence\") "
+            + "VALUES (?, ?, ?, nextval('public.\"SEQ_TrabajoLease_Token\"'), "
+            + "CURRENT_TIMESTAMP + make_interval(secs => ?)) "
+            + "ON CONFLICT (\"Trabajo\", \"Shard\") DO UPDATE SET \"Nodo\" = EXCLUDED.\"Nodo\", "
+            + "\"Token\" = EXCLUDED.\"Token\", \"Vence\" = EXCLUDED.\"Vence\", "
+            + "\"FechaAdquisicion\" = CURRENT_TIMESTAMP "
+            + "WHERE \"TrabajoLease\".\"Vence\" < CURRENT_TIMESTAMP OR \"TrabajoLease\".\"Nodo\" = EXCLUDED.\"Nodo\" "
+            + "RETURNING \"Token\"";
+
+    private final MembresiaCluster membresia;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry registry;
+    private final Map<String, Trabajo> trabajos = new ConcurrentHashMap<>();
+
+    @Value("${app.trabajos.ttl-lease-ms:20000}")
+    private long ttlLeaseMs;
+
+    public CoordinadorTrabajos(MembresiaCluster membresia, JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.membresia = membresia;
+        this.jdbcTemplate = jdbcTemplate;
+        this.registry = registry;
+    }
+
+    /** Se llama al arrancar (no en el primer disparo): el lease tiene que estar tomado cuando llegue el cron. */
+    public void registrar(String nombre, int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("El trabajo " + nombre + " necesita al menos un shard");
+        }
+        Trabajo trabajo = new Trabajo(nombre, shards);
+        if (trabajos.putIfAbsent(nombre, trabajo) != null) {
+            throw new IllegalStateException("Trabajo ya registrado: " + nombre);
+        }
+        registry.gauge("arcbank.trabajos.shards.propios", Tags.of("trabajo", nombre), trabajo.tenencias, Map::size);
+    }
+
+    @Scheduled(fixedDelayString = "${app.trabajos.intervalo-renovacion-ms:5000}")
+    public synchronized void renovar() {
+        for (Trabajo trabajo : trabajos.values()) {
+            for (int shard = 0; shard < trabajo.shards; shard++) {
+                try {
+                    renovar(trabajo, shard);
+                } catch (Exception e) {
+                    // Sin renovar, la tenencia local vence antes que la de la BD y el shard deja de ejecutarse
+                    log.warn("Trabajo {} (shard {}): lease no renovado: {}", trabajo.nombre, shard, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void renovar(Trabajo trabajo, int shard) {
+        boolean toca = membresia.esDuenio(trabajo.nombre, shard);
+        Tenencia actual = trabajo.tenencias.get(shard);
+        if (actual == null) {
+            if (toca) {
+                adquirir(trabajo, shard);
+            }
+            return;
+        }
+        if (!toca && trabajo.tenencias.remove(shard, actual)) {
+            if (!trabajo.enEjecucion.contains(shard)) {
+                // Vence ya: el nuevo dueño lo toma en su próxima renovación sin esperar el TTL
+                jdbcTemplate.update("UPDATE public.\"TrabajoLease\" SET \"Vence\" = CURRENT_TIMESTAMP "
+                        + "WHERE \"Trabajo\" = ? AND \"Shard\" = ? AND \"Token\" = ?", trabajo.nombre, shard,
+                        actual.token());
+                log.info("📋 Trabajo {} (shard {}) liberado por {}", trabajo.nombre, shard, membresia.nodo());
+                return;
+            }
+            // Hay una ejecución en curso: se suelta cuando termine, en la próxima renovación
+            trabajo.tenencias.put(shard, actual);
+        }
+        long inicio = System.nanoTime();
+        int filas = jdbcTemplate.update("UPDATE public.\"TrabajoLease\" "
+                + "SET \"Vence\" = CURRENT_TIMESTAMP + make_interval(secs => ?) "
+                + "WHERE \"Trabajo\" = ? AND \"Shard\" = ? AND \"Nodo\" = ? AND \"Token\" = ?",
+                ttlLeaseMs / 1000.0, trabajo.nombre, shard, membresia.nodo(), actual.token());
+        if (filas == 0) {
+            trabajo.tenencias.remove(shard, actual);
+            log.warn("📋 Trabajo {} (shard {}): lease perdido (token {})", trabajo.nombre, shard, actual.token());
+        } else {
+            trabajo.tenencias.replace(shard, actual, new Tenencia(actual.token(), vencimientoLocal(inicio)));
+        }
+    }
+
+    private void adquirir(Trabajo trabajo, int shard) {
+        long inicio = System.nanoTime();
+        List<Long> token = jdbcTemplate.queryForList(SQL_ADQUIRIR, Long.class, trabajo.nombre, shard,
+                membresia.nodo(), ttlLeaseMs / 1000.0);
+        if (!token.isEmpty()) {
+            trabajo.tenencias.put(shard, new Tenencia(token.get(0), vencimientoLocal(inicio)));
+            log.info("📋 Trabajo {} (shard {}) asignado a {} (token {})", trabajo.nombre, shard, membresia.nodo(),
+                    token.get(0));
+        }
+    }
+
+    // Medido desde antes de la sentencia y con margen: vence localmente antes que en la BD
+    private long vencimientoLocal(long inicioNanos) {
+        long ttl = TimeUnit.MILLISECONDS.toNanos(ttlLeaseMs);
+        return inicioNanos + ttl - ttl / 10;
+    }
+
+    /** Ejecuta el cuerpo para cada shard del trabajo con lease vigente en este nodo; los errores se registran. */
+    public void ejecutar(String nombre, Consumer<Lease> cuerpo) {
+        Trabajo trabajo = trabajos.get(nombre);
+        if (trabajo == null) {
+            throw new IllegalStateException("Trabajo no registrado: " + nombre);
+        }
+        for (Map.Entry<Integer, Tenencia> entrada : trabajo.tenencias.entrySet()) {
+            int shard = entrada.getKey();
+            Tenencia tenencia = entrada.getValue();
+            if (System.nanoTime() - tenencia.venceNanos() >= 0) {
+                continue;
+            }
+            trabajo.enEjecucion.add(shard);
+            try {
+                // La renovación pudo soltarlo entre tanto: solo se ejecuta si sigue siendo el mismo lease
+                Tenencia vigente = trabajo.tenencias.get(shard);
+                if (vigente != null && vigente.token() == tenencia.token()) {
+                    ejecutar(trabajo, new Lease(nombre, shard, trabajo.shards, tenencia.token()), cuerpo);
+                }
+            } finally {
+                trabajo.enEjecucion.remove(shard);
+            }
+        }
+    }
+
+    private void ejecutar(Trabajo trabajo, Lease lease, Consumer<Lease> cuerpo) {
+        long inicio = System.nanoTime();
+        String resultado = "ok";
+        try {
+            cuerpo.accept(lease);
+        } catch (Exception e) {
+            resultado = "error";
+            trabajo.fallos.incrementAndGet();
+            trabajo.ultimoError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error("❌ Trabajo {} (shard {}) no completado: {}", trabajo.nombre, lease.shard(), e.getMessage());
+        } finally {
+            long duracion = System.nanoTime() - inicio;
+            trabajo.ejecuciones.incrementAndGet();
+            trabajo.ultimaEjecucion = LocalDateTime.now();
+            trabajo.ultimaDuracionMs = TimeUnit.NANOSECONDS.toMillis(duracion);
+            Timer.builder("arcbank.trabajos.ejecucion")
+                    .tags("trabajo", trabajo.nombre, "resultado", resultado)
+                    .register(registry)
+                    .record(duracion, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Fencing: llamar dentro de la transacción que escribe. El FOR SHARE impide que otro nodo adquiera el lease
+     * hasta el commit, y si ya lo adquirió el token no coincide y la transacción se aborta. También detiene la
+     * renovación de este nodo hasta el commit: en una transacción larga se llama al final, justo antes de
+     * confirmar.
+     */
+    public void verificar(Lease lease) {
+        List<Long> vigente = jdbcTemplate.queryForList("SELECT \"Token\" FROM public.\"TrabajoLease\" "
+                + "WHERE \"Trabajo\" = ? AND \"Shard\" = ? AND \"Nodo\" = ? AND \"Token\" = ? "
+                + "AND \"Vence\" > CURRENT_TIMESTAMP FOR SHARE", Long.class,
+                lease.trabajo(), lease.shard(), membresia.nodo(), lease.token());
+        if (vigente.isEmpty()) {
+            throw new IllegalStateException("Lease perdido: " + lease.trabajo() + " shard " + lease.shard()
+                    + " token " + lease.token());
+        }
+    }
+
+    public List<EstadoTrabajo> estado() {
+        return trabajos.values().stream()
+                .sorted((a, b) -> a.nombre.compareTo(b.nombre))
+                .map(t -> {
+                    Map<Integer, Long> propios = new TreeMap<>();
+                    t.tenencias.forEach((shard, tenencia) -> propios.put(shard, tenencia.token()));
+                    return new EstadoTrabajo(t.nombre, t.shards, propios, t.ejecuciones.get(), t.fallos.get(),
+                            t.ultimaEjecucion, t.ultimaDuracionMs, t.ultimoError);
+                })
+                .toList();
+    }
+
+    /** Vista del clúster: quién tiene cada lease según la BD. */
+    public List<Map<String, Object>> leases() {
+        return jdbcTemplate.queryForList("SELECT \"Trabajo\", \"Shard\", \"Nodo\", \"Token\", \"Vence\", "
+                + "\"FechaAdquisicion\", \"Vence\" > CURRENT_TIMESTAMP AS \"Vigente\" "
+                + "FROM public.\"TrabajoLease\" ORDER BY \"Trabajo\", \"Shard\"");
+    }
+
+    @PreDestroy
+    public void liberar() {
+        try {
+            // Al apagar se sueltan los leases propios: los demás nodos no esperan a que venza el TTL
+            jdbcTemplate.update("UPDATE public.\"TrabajoLease\" SET \"Vence\" = CURRENT_TIMESTAMP WHERE \"Nodo\" = ?",
+                    membresia.nodo());
+        } catch (Exception e) {
+            log.warn("Trabajos: no se pudieron liberar los leases de {}: {}", membresia.nodo(), e.getMessage());
+        }
+    }
+}
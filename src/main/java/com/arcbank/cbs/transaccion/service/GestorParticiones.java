@@ -0,0 +1,281 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mantiene las particiones mensuales de "Transaccion": crea las de los próximos meses y, si hay
+ * retención configurada, exporta las antiguas a CSV comprimido, las separa y las elimina.
+ * El archivo va a un volumen persistente compartido (EFS o un PVC); sin directorio configurado no se archiva.
+ * Un advisory lock evita que dos réplicas del servicio hagan DDL a la vez.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GestorParticiones {
+
+    private static final long LOCK_PARTICIONES = 0x5452414E50415254L; // "TRANPART"
+    private static final String TRABAJO = "particiones-mantenimiento";
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String PREFIJO = "Transaccion_p";
+    private static final List<String> TABLAS_GLOBALES = List.of("TransaccionReferencia", "TransaccionCodigo",
+            "TransaccionUbicacion", "CompensacionArrastre", "CompensacionAjuste");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CoordinadorTrabajos coordinador;
+
+    @Value("${app.particiones.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.particiones.meses-adelante:3}")
+    private int mesesAdelante;
+
+    // 0 = nunca se archiva
+    @Value("${app.particiones.retencion-meses:0}")
+    private int retencionMeses;
+
+    @Value("${app.particiones.directorio-archivo:}")
+    private String directorioArchivo;
+
+    @Value("${app.particiones.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    @PostConstruct
+    void registrarTrabajo() {
+        coordinador.registrar(TRABAJO, 1);
+    }
+
+    @Scheduled(cron = "${app.particiones.cron:0 30 1 * * *}", zone = "America/Guayaquil")
+    public void mantener() {
+        if (!habilitado) {
+            return;
+        }
+        coordinador.ejecutar(TRABAJO, lease -> {
+            crearParticionesFuturas(lease);
+            if (retencionMeses > 0) {
+                archivarParticionesAntiguas(lease);
+            }
+        });
+    }
+
+    private void crearParticionesFuturas(CoordinadorTrabajos.Lease lease) {
+        YearMonth actual = YearMonth.now();
+        for (int i = 0; i <= mesesAdelante; i++) {
+            YearMonth mes = actual.plusMonths(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!bloquear()) {
+                        return;
+                    }
+                    coordinador.verificar(lease);
+                    jdbcTemplate.execute(String.format(
+                            "CREATE TABLE IF NOT EXISTS public.\"%s\" PARTITION OF public.\"Transaccion\" "
+                                    + "FOR VALUES FROM ('%s') TO ('%s')",
+                            nombre(mes), mes.atDay(1), mes.plusMonths(1).atDay(1)));
+                });
+            } catch (Exception e) {
+                // Si la DEFAULT ya tiene filas de ese mes, PostgreSQL rechaza la creación: se informa y se sigue
+                log.error("❌ No se pudo crear la partición {}: {}", nombre(mes), e.getMessage());
+            }
+        }
+        log.debug("Particiones de Transaccion aseguradas hasta {}", actual.plusMonths(mesesAdelante));
+    }
+
+    private void archivarParticionesAntiguas(CoordinadorTrabajos.Lease lease) {
+        if (directorioArchivo == null || directorioArchivo.isBlank()) {
+            log.error("❌ Retención de {} meses sin app.particiones.directorio-archivo: no se archiva nada",
+                    retencionMeses);
+            return;
+        }
+        YearMonth limite = YearMonth.now().minusMonths(retencionMeses);
+        for (String particion : listarParticiones()) {
+            YearMonth mes = YearMonth.parse(particion.substring(PREFIJO.length()), SUFIJO);
+            if (mes.isBefore(limite)) {
+                archivar(particion, mes, lease);
+            }
+        }
+    }
+
+    private void archivar(String particion, YearMonth mes, CoordinadorTrabajos.Lease lease) {
+        Path destino = Paths.get(directorioArchivo, particion + ".csv.gz");
+        Path temporal = Paths.get(directorioArchivo, particion + ".csv.gz.tmp");
+        // Antes de escribir el archivo (fuera de la transacción: no retiene el lease durante la exportación)
+        coordinador.verificar(lease);
+        boolean archivada = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!bloquear()) {
+                return false;
+            }
+            // SHARE bloquea solo las escrituras de esta partición (nadie escribe en un mes fuera de la retención);
+            // el resto de "Transaccion" se sigue leyendo y escribiendo durante la exportación
+            jdbcTemplate.execute("LOCK TABLE public.\"" + particion + "\" IN SHARE MODE");
+            long filas = exportar(particion, temporal);
+            publicar(temporal, destino, filas);
+            // Antes de borrar: si otro nodo tomó el trabajo durante la exportación, no se toca nada
+            coordinador.verificar(lease);
+
+            // Las tablas globales no ven el DROP (no dispara triggers): se limpian por rango
+            LocalDate desde = mes.atDay(1);
+            LocalDate hasta = mes.plusMonths(1).atDay(1);
+            jdbcTemplate.update("DELETE FROM public.\"TransaccionReversoUnico\" u USING public.\"" + particion
+                    + "\" t WHERE t.\"IdTransaccion\" = u.\"IdTransaccion\"");
+            for (String tabla : TABLAS_GLOBALES) {
+                jdbcTemplate.update("DELETE FROM public.\"" + tabla + "\" WHERE \"FechaCreacion\" >= ? "
+                        + "AND \"FechaCreacion\" < ?", desde.atStartOfDay(), hasta.atStartOfDay());
+            }
+
+            // Solo aquí se toma ACCESS EXCLUSIVE sobre "Transaccion", y DETACH + DROP son instantáneos.
+            // CONCURRENTLY no se puede usar porque existe la partición DEFAULT. Con lock_timeout, si una
+            // consulta larga retiene la tabla, se aborta (el archivo queda y se reescribe en la próxima
+            // ejecución) en vez de encolar detrás todo el tráfico.
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeoutMs + "ms'");
+            jdbcTemplate.execute("ALTER TABLE public.\"Transaccion\" DETACH PARTITION public.\"" + particion + "\"");
+            jdbcTemplate.execute("DROP TABLE public.\"" + particion + "\"");
+            return true;
+        }));
+        if (archivada) {
+            log.info("📦 Partición {} archivada en {}", particion, destino);
+        }
+    }
+
+    // Cursor con fetch size: la partición completa nunca se carga en memoria
+    private long exportar(String particion, Path destino) {
+        long[] filas = { 0 };
+        try {
+            Files.createDirectories(destino.getParent());
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(destino)), StandardCharsets.UTF_8))) {
+                JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+                cursor.setFetchSize(1000);
+                cursor.query("SELECT * FROM public.\"" + particion + "\" ORDER BY \"FechaCreacion\"", rs -> {
+                    try {
+                        ResultSetMetaData meta = rs.getMetaData();
+                        int columnas = meta.getColumnCount();
+                        if (filas[0] == 0) {
+                            for (int c = 1; c <= columnas; c++) {
+                                out.write((c > 1 ? "," : "") + meta.getColumnName(c));
+                            }
+                            out.write('\n');
+                        }
+                        for (int c = 1; c <= columnas; c++) {
+                            out.write((c > 1 ? "," : "") + csv(rs.getString(c)));
+                        }
+                        out.write('\n');
+                        filas[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo exportar " + particion, e);
+        }
+        return filas[0];
+    }
+
+    // Antes de borrar datos el archivo tiene que estar completo y en disco: se relee (el gzip valida su CRC),
+    // se cuentan los registros, se hace fsync y recién entonces se renombra de forma atómica
+    private static void publicar(Path temporal, Path destino, long filas) {
+        try {
+            long leidas = contarRegistros(temporal);
+            if (leidas != filas) {
+                throw new IllegalStateException("El archivo " + temporal + " tiene " + leidas
+                        + " registros y la partición " + filas);
+            }
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel directorio = FileChannel.open(destino.getParent(), StandardOpenOption.READ)) {
+                directorio.force(true);
+            } catch (IOException e) {
+                // No todos los sistemas de archivos permiten fsync de un directorio (NFS ya es síncrono)
+                log.debug("fsync del directorio {} no soportado: {}", destino.getParent(), e.getMessage());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo publicar " + destino, e);
+        }
+    }
+
+    // Registros CSV sin la cabecera; un salto de línea entre comillas es parte del valor
+    private static long contarRegistros(Path archivo) throws IOException {
+        long lineas = 0;
+        boolean comillas = false;
+        try (Reader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archivo)), StandardCharsets.UTF_8))) {
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '"') {
+                    comillas = !comillas;
+                } else if (c == '\n' && !comillas) {
+                    lineas++;
+                }
+            }
+        }
+        return Math.max(lineas - 1, 0);
+    }
+
+    private List<String> listarParticiones() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = 'Transaccion' AND c.relname ~ '^Transaccion_p[0-9]{6}$' "
+                        + "ORDER BY c.relname",
+                String.class);
+    }
+
+    private boolean bloquear() {
+        Boolean obtenido = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                LOCK_PARTICIONES);
+        if (!Boolean.TRUE.equals(obtenido)) {
+            log.debug("Otro nodo está manteniendo las particiones");
+            return false;
+        }
+        return true;
+    }
+
+    private static String nombre(YearMonth mes) {
+        return PREFIJO + mes.format(SUFIJO);
+    }
+
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0) {
+            return '"' + valor.replace("\"", "\"\"") + '"';
+        }
+        return valor;
+    }
+}
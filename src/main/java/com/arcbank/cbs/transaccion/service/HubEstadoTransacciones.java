@@ -0,0 +1,123 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.exception.SobrecargaException;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reparte en proceso los cambios de estado de una transacción a quienes están suscritos a ella
+ * (SSE o long-poll). Los cambios llegan tras el commit local (TransaccionEscrituraListener) y desde
+ * el exchange de eventos para lo que cambió en otra réplica. La entrega va por un ejecutor pequeño
+ * con cola acotada; si se desborda, el aviso se descarta y el cliente lo verá al reconectar.
+ */
+@Slf4j
+@Component
+public class HubEstadoTransacciones {
+
+    /** Devuelve false cuando ya no quiere más avisos (estado final entregado o conexión cerrada). */
+    @FunctionalInterface
+    public interface Oyente {
+        boolean recibir(TransaccionResponseDTO vista);
+    }
+
+    private final Map<Integer, Set<Oyente>> porTransaccion = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final ThreadPoolTaskExecutor notificacionExecutor;
+    private final Counter descartes;
+
+    @Value("${app.notificaciones.max-suscripciones:10000}")
+    private int maxSuscripciones;
+
+    @Value("${app.notificaciones.max-por-transaccion:20}")
+    private int maxPorTransaccion;
+
+    public HubEstadoTransacciones(ThreadPoolTaskExecutor notificacionExecutor, MeterRegistry registry) {
+        this.notificacionExecutor = notificacionExecutor;
+        this.descartes = Counter.builder("arcbank.notificaciones.descartes").register(registry);
+        Gauge.builder("arcbank.notificaciones.suscripciones", total, AtomicInteger::get).register(registry);
+    }
+
+    /** Registra al oyente; el Runnable devuelto lo da de baja (idempotente). */
+    public Runnable suscribir(Integer idTransaccion, Oyente oyente) {
+        if (total.incrementAndGet() > maxSuscripciones) {
+            total.decrementAndGet();
+            throw new SobrecargaException(503, 5, "Demasiadas suscripciones de estado activas");
+        }
+        boolean[] aceptado = { false };
+        porTransaccion.compute(idTransaccion, (id, oyentes) -> {
+            Set<Oyente> conjunto = oyentes != null ? oyentes : ConcurrentHashMap.newKeySet();
+            if (conjunto.size() < maxPorTransaccion) {
+                aceptado[0] = conjunto.add(oyente);
+            }
+            return conjunto.isEmpty() ? null : conjunto;
+        });
+        if (!aceptado[0]) {
+            total.decrementAndGet();
+            throw new SobrecargaException(429, 5, "Demasiadas suscripciones para la transacción " + idTransaccion);
+        }
+        return () -> cancelar(idTransaccion, oyente);
+    }
+
+    private void cancelar(Integer idTransaccion, Oyente oyente) {
+        boolean[] quitado = { false };
+        porTransaccion.computeIfPresent(idTransaccion, (id, oyentes) -> {
+            quitado[0] = oyentes.remove(oyente);
+            return oyentes.isEmpty() ? null : oyentes;
+        });
+        if (quitado[0]) {
+            total.decrementAndGet();
+        }
+    }
+
+    public void publicar(Transaccion t) {
+        if (t.getIdTransaccion() != null && porTransaccion.containsKey(t.getIdTransaccion())) {
+            publicar(CacheTransaccionesFinales.vista(t));
+        }
+    }
+
+    public void publicar(TransaccionResponseDTO vista) {
+        Integer id = vista.getIdTransaccion();
+        if (id == null || !porTransaccion.containsKey(id)) {
+            return;
+        }
+        try {
+            notificacionExecutor.execute(() -> entregar(id, vista));
+        } catch (RejectedExecutionException e) {
+            descartes.increment();
+            log.debug("Aviso de estado descartado para la transacción {}", id);
+        }
+    }
+
+    private void entregar(Integer id, TransaccionResponseDTO vista) {
+        Set<Oyente> oyentes = porTransaccion.get(id);
+        if (oyentes == null) {
+            return;
+        }
+        for (Oyente oyente : oyentes) {
+            boolean sigue;
+            try {
+                sigue = oyente.recibir(vista);
+            } catch (Exception e) {
+                sigue = false;
+            }
+            if (!sigue) {
+                cancelar(id, oyente);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.arcbank.cbs.transaccion.dto.LoteRequestDTO;
+import com.arcbank.cbs.transaccion.dto.LoteResponseDTO;
+
+public interface LoteTransaccionService {
+
+        LoteResponseDTO crearLote(LoteRequestDTO request);
+
+        LoteResponseDTO obtenerLote(Integer idLote);
+
+        void transmitirResultados(Integer idLote, Integer desde, OutputStream salida) throws IOException;
+
+        LoteResponseDTO reanudarLote(Integer idLote);
+}
@@ -0,0 +1,564 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arcbank.cbs.transaccion.config.CarrilEjecucion;
+import com.arcbank.cbs.transaccion.config.ControlAdmision;
+import com.arcbank.cbs.transaccion.dto.LoteItemResultadoDTO;
+import com.arcbank.cbs.transaccion.dto.LoteRequestDTO;
+import com.arcbank.cbs.transaccion.dto.LoteResponseDTO;
+import com.arcbank.cbs.transaccion.dto.TransaccionRequestDTO;
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.LoteTransaccion;
+import com.arcbank.cbs.transaccion.model.LoteTransaccionItem;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+import com.arcbank.cbs.transaccion.repository.LoteTransaccionItemRepository;
+import com.arcbank.cbs.transaccion.repository.LoteTransaccionRepository;
+import com.arcbank.cbs.transaccion.repository.TransaccionRepository;
+import com.arcbank.cbs.transaccion.util.ReferenciaIdempotencia;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoteTransaccionServiceImpl implements LoteTransaccionService {
+
+    private static final Set<String> ESTADOS_FINALES = Set.of("COMPLETADA", "FALLIDA", "RECHAZADA");
+    // Ítems sin resultado: PENDIENTE/PROCESANDO los retoma el despacho, REVISION espera a un operador
+    private static final Set<String> ESTADOS_ABIERTOS = Set.of("PENDIENTE", "PROCESANDO", "REVISION");
+    private static final String TRABAJO_BARRIDO = "lotes-barrido";
+    private static final Set<String> TIPOS_SOPORTADOS = Set.of("DEPOSITO", "RETIRO", "TRANSFERENCIA_INTERNA",
+            "TRANSFERENCIA_SALIDA", "TRANSFERENCIA_INTERBANCARIA", "TRANSFERENCIA_ENTRADA");
+
+    private final LoteTransaccionRepository loteRepository;
+    private final LoteTransaccionItemRepository itemRepository;
+    private final TransaccionRepository transaccionRepository;
+    private final TransaccionService transaccionService;
+    private final ThreadPoolTaskExecutor loteExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CoordinadorTrabajos coordinador;
+
+    // Último latido escrito por lote (evita un UPDATE por ítem)
+    private final Map<Integer, AtomicLong> ultimaActividad = new ConcurrentHashMap<>();
+
+    @Value("${app.lotes.max-items:20000}")
+    private int maxItems;
+
+    @Value("${app.lotes.inactividad-segundos:300}")
+    private long inactividadSegundos;
+
+    @Value("${app.lotes.latido-segundos:30}")
+    private long latidoSegundos;
+
+    @Value("${app.lotes.stream-max-ms:25000}")
+    private long streamMaxMs;
+
+    @Override
+    public LoteResponseDTO crearLote(LoteRequestDTO request) {
+        List<TransaccionRequestDTO> items = request.getItems();
+        if (items == null || items.isEmpty()) {
+            throw new BusinessException("El lote debe contener al menos una transacción.");
+        }
+        if (items.size() > maxItems) {
+            throw new BusinessException("El lote excede el máximo permitido de " + maxItems + " transacciones.");
+        }
+
+        // Una clave mal formada no se reemplaza: el reintento del cliente no encontraría el ítem ya ejecutado
+        for (int i = 0; i < items.size(); i++) {
+            String referencia = items.get(i) != null ? items.get(i).getReferencia() : null;
+            if (referencia != null && !ReferenciaIdempotencia.esValida(referencia)) {
+                throw new BusinessException("La referencia del ítem " + (i + 1)
+                        + " debe ser un UUID de 36 caracteres: " + referencia);
+            }
+        }
+
+        if (request.getReferenciaLote() != null) {
+            Optional<LoteTransaccion> existente = loteRepository.findByReferenciaLote(request.getReferenciaLote());
+            if (existente.isPresent()) {
+                log.warn("Lote duplicado ignorado, se devuelve el existente: {}", request.getReferenciaLote());
+                return obtenerLote(existente.get().getIdLote());
+            }
+        }
+
+        // 1. Persistir lote + ítems en una sola transacción corta (sin llamadas remotas)
+        LoteTransaccion lote = transactionTemplate.execute(status -> persistirLote(request));
+        log.info("📦 Lote {} registrado con {} ítems", lote.getIdLote(), lote.getTotalItems());
+
+        // 2. Ejecutar fuera del hilo HTTP: el cliente consulta/stream de resultados por ID
+        Integer idLote = lote.getIdLote();
+        Thread.ofVirtual().name("lote-despacho-" + idLote).start(() -> despachar(idLote));
+
+        return obtenerLote(idLote);
+    }
+
+    private LoteTransaccion persistirLote(LoteRequestDTO request) {
+        List<TransaccionRequestDTO> items = request.getItems();
+
+        LoteTransaccion lote = loteRepository.save(LoteTransaccion.builder()
+                .referenciaLote(request.getReferenciaLote())
+                .canal(request.getCanal())
+                .totalItems(items.size())
+                .build());
+
+        Set<String> clavesVistas = new HashSet<>();
+        List<LoteTransaccionItem> entidades = new ArrayList<>(items.size());
+        int rechazados = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            int secuencia = i + 1;
+            TransaccionRequestDTO dto = items.get(i) != null ? items.get(i) : new TransaccionRequestDTO();
+
+            // Sin referencia del cliente la clave se deriva del lote y la secuencia: estable ante reanudaciones
+            String clave = dto.getReferencia() != null
+                    ? dto.getReferencia()
+                    : UUID.nameUUIDFromBytes(("LOTE-" + lote.getIdLote() + "-" + secuencia)
+                            .getBytes(StandardCharsets.UTF_8)).toString();
+            dto.setReferencia(clave);
+            if (dto.getCanal() == null) {
+                dto.setCanal(request.getCanal());
+            }
+
+            String error = validarItem(dto);
+            if (error == null && !clavesVistas.add(clave)) {
+                error = "Referencia duplicada dentro del lote: " + clave;
+            }
+            if (error != null) {
+                rechazados++;
+            }
+
+            entidades.add(LoteTransaccionItem.builder()
+                    .idLote(lote.getIdLote())
+                    .secuencia(secuencia)
+                    .claveIdempotencia(clave)
+                    .payload(serializar(dto))
+                    .estado(error == null ? "PENDIENTE" : "RECHAZADA")
+                    .error(truncar(error))
+                    .fechaProceso(error == null ? null : LocalDateTime.now())
+                    .build());
+        }
+
+        itemRepository.saveAll(entidades);
+        lote.setRechazados(rechazados);
+        return lote;
+    }
+
+    private String validarItem(TransaccionRequestDTO dto) {
+        Set<ConstraintViolation<TransaccionRequestDTO>> violaciones = validator.validate(dto);
+        if (!violaciones.isEmpty()) {
+            return violaciones.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        String tipo = dto.getTipoOperacion().toUpperCase();
+        if (!TIPOS_SOPORTADOS.contains(tipo)) {
+            return "Tipo no soportado: " + tipo;
+        }
+
+        return switch (tipo) {
+            case "DEPOSITO", "TRANSFERENCIA_ENTRADA" ->
+                dto.getIdCuentaDestino() == null ? "Falta cuenta destino." : null;
+            case "RETIRO" -> dto.getIdCuentaOrigen() == null ? "Falta cuenta origen." : null;
+            case "TRANSFERENCIA_INTERNA" -> {
+                if (dto.getIdCuentaOrigen() == null || dto.getIdCuentaDestino() == null)
+                    yield "La TRANSFERENCIA INTERNA requiere cuenta origen y cuenta destino.";
+                yield dto.getIdCuentaOrigen().equals(dto.getIdCuentaDestino())
+                        ? "No se puede transferir a la misma cuenta."
+                        : null;
+            }
+            default -> {
+                if (dto.getIdCuentaOrigen() == null)
+                    yield "Falta cuenta origen.";
+                yield dto.getCuentaExterna() == null ? "Falta cuenta destino externa." : null;
+            }
+        };
+    }
+
+    private void despachar(Integer idLote) {
+        try {
+            List<LoteTransaccionItem> pendientes = itemRepository.findPendientes(idLote);
+            if (pendientes.isEmpty()) {
+                finalizarLote(idLote);
+                return;
+            }
+
+            Collection<List<ItemEjecutable>> grupos = agruparPorCuenta(pendientes);
+            log.info("🚀 Lote {}: {} ítems pendientes en {} grupos por cuenta", idLote, pendientes.size(),
+                    grupos.size());
+
+            ultimaActividad.put(idLote, new AtomicLong(System.currentTimeMillis()));
+
+            CompletableFuture<?>[] futuros = grupos.stream()
+                    .map(grupo -> CompletableFuture.runAsync(() -> procesarGrupo(idLote, grupo), loteExecutor))
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture.allOf(futuros).whenComplete((r, ex) -> {
+                if (ex != null) {
+                    log.error("Lote {} terminó con errores de ejecución: {}", idLote, ex.getMessage());
+                }
+                finalizarLote(idLote);
+            });
+        } catch (Exception e) {
+            log.error("❌ No se pudo despachar el lote {}: {}", idLote, e.getMessage());
+        }
+    }
+
+    /**
+     * Agrupa los ítems de modo que dos ítems que tocan la misma cuenta local (origen o destino)
+     * caigan en el mismo grupo. Cada grupo se ejecuta en serie, los grupos en paralelo.
+     */
+    private Collection<List<ItemEjecutable>> agruparPorCuenta(List<LoteTransaccionItem> pendientes) {
+        Map<Integer, Integer> padre = new HashMap<>();
+        List<ItemEjecutable> ejecutables = new ArrayList<>(pendientes.size());
+
+        for (LoteTransaccionItem item : pendientes) {
+            TransaccionRequestDTO dto = deserializar(item.getPayload());
+            ejecutables.add(new ItemEjecutable(item, dto));
+            if (dto.getIdCuentaOrigen() != null && dto.getIdCuentaDestino() != null) {
+                unir(padre, dto.getIdCuentaOrigen(), dto.getIdCuentaDestino());
+            }
+        }
+
+        Map<Object, List<ItemEjecutable>> grupos = new LinkedHashMap<>();
+        for (ItemEjecutable e : ejecutables) {
+            Integer cuenta = e.dto().getIdCuentaOrigen() != null ? e.dto().getIdCuentaOrigen()
+                    : e.dto().getIdCuentaDestino();
+            Object clave = cuenta != null ? buscar(padre, cuenta) : "ITEM-" + e.item().getSecuencia();
+            grupos.computeIfAbsent(clave, k -> new ArrayList<>()).add(e);
+        }
+        return grupos.values();
+    }
+
+    private static Integer buscar(Map<Integer, Integer> padre, Integer cuenta) {
+        Integer raiz = cuenta;
+        while (padre.containsKey(raiz) && !padre.get(raiz).equals(raiz)) {
+            raiz = padre.get(raiz);
+        }
+        padre.put(cuenta, raiz);
+        return raiz;
+    }
+
+    private static void unir(Map<Integer, Integer> padre, Integer a, Integer b) {
+        Integer ra = buscar(padre, a);
+        Integer rb = buscar(padre, b);
+        if (!ra.equals(rb)) {
+            padre.put(rb, ra);
+        }
+    }
+
+    private void procesarGrupo(Integer idLote, List<ItemEjecutable> grupo) {
+        CarrilEjecucion.establecer(ControlAdmision.Clase.POSTEO_LOCAL);
+        try {
+            procesarItems(idLote, grupo);
+        } finally {
+            CarrilEjecucion.limpiar();
+        }
+    }
+
+    private void procesarItems(Integer idLote, List<ItemEjecutable> grupo) {
+        for (ItemEjecutable e : grupo) {
+            try {
+                procesarItem(e.item(), e.dto());
+            } catch (Exception ex) {
+                // Aislamiento por ítem: un fallo inesperado no detiene al resto del grupo
+                log.error("Error inesperado en ítem {} del lote {}: {}", e.item().getSecuencia(), idLote,
+                        ex.getMessage());
+            }
+            registrarLatido(idLote);
+        }
+    }
+
+    private void procesarItem(LoteTransaccionItem item, TransaccionRequestDTO dto) {
+        // Ya en PROCESANDO: una ejecución anterior se cortó (caída) o su transacción no tenía estado final
+        boolean retomado = "PROCESANDO".equals(item.getEstado());
+        if (!retomado) {
+            item.setEstado("PROCESANDO");
+            itemRepository.save(item);
+        }
+
+        // Idempotencia: si la transacción ya existe (reintento tras caída), no se vuelve a ejecutar
+        Optional<Transaccion> existente = transaccionRepository.findByReferencia(item.getClaveIdempotencia());
+        if (existente.isPresent()) {
+            log.warn("Ítem {} del lote {} ya procesado previamente (Ref: {})", item.getSecuencia(),
+                    item.getIdLote(), item.getClaveIdempotencia());
+            reflejarEstado(item, existente.get().getIdTransaccion(), existente.get().getEstado());
+            return;
+        }
+
+        if (retomado) {
+            // Sin transacción registrada no se sabe si Cuentas llegó a mover el saldo: re-ejecutar podría
+            // postear dos veces
+            log.error("🚨 Ítem {} del lote {} interrumpido sin transacción registrada (Ref: {}): queda en revisión",
+                    item.getSecuencia(), item.getIdLote(), item.getClaveIdempotencia());
+            terminarItem(item, "REVISION", null, "Ejecución interrumpida sin transacción registrada");
+            return;
+        }
+
+        try {
+            TransaccionResponseDTO resultado = transaccionService.crearTransaccionDeLote(dto);
+            reflejarEstado(item, resultado.getIdTransaccion(), resultado.getEstado());
+        } catch (BusinessException be) {
+            terminarItem(item, "FALLIDA", null, be.getMessage());
+        } catch (Exception e) {
+            log.error("Error técnico en ítem {} del lote {}: {}", item.getSecuencia(), item.getIdLote(),
+                    e.getMessage());
+            terminarItem(item, "FALLIDA", null, "Error técnico: " + e.getMessage());
+        }
+    }
+
+    /**
+     * El ítem toma el estado real de su transacción. Una salida interbancaria puede seguir PENDIENTE (esperando
+     * al Switch) o tener un reverso en curso: el ítem queda en PROCESANDO y el barrido lo revisa más tarde.
+     */
+    private void reflejarEstado(LoteTransaccionItem item, Integer idTransaccion, EstadoTransaccion estado) {
+        if (estado == EstadoTransaccion.COMPLETADA) {
+            terminarItem(item, "COMPLETADA", idTransaccion, null);
+        } else if (estado != null && estado.esFinal()) {
+            terminarItem(item, "FALLIDA", idTransaccion, "Transacción registrada como " + estado);
+        } else {
+            item.setIdTransaccion(idTransaccion);
+            item.setError("Transacción en " + estado + ", sin resultado final");
+            itemRepository.save(item);
+        }
+    }
+
+    private void terminarItem(LoteTransaccionItem item, String estado, Integer idTransaccion, String error) {
+        item.setEstado(estado);
+        item.setIdTransaccion(idTransaccion);
+        item.setError(truncar(error));
+        item.setFechaProceso(LocalDateTime.now());
+        itemRepository.save(item);
+    }
+
+    private void registrarLatido(Integer idLote) {
+        AtomicLong ultimo = ultimaActividad.get(idLote);
+        long ahora = System.currentTimeMillis();
+        if (ultimo != null) {
+            long previo = ultimo.get();
+            if (ahora - previo >= latidoSegundos * 1000 && ultimo.compareAndSet(previo, ahora)) {
+                loteRepository.marcarActividad(idLote, LocalDateTime.now());
+            }
+        }
+    }
+
+    private void finalizarLote(Integer idLote) {
+        try {
+            ultimaActividad.remove(idLote);
+            LoteTransaccion lote = loteRepository.findById(idLote).orElse(null);
+            if (lote == null) {
+                return;
+            }
+
+            Map<String, Long> conteo = contarPorEstado(idLote);
+            long abiertos = abiertos(conteo);
+
+            lote.setExitosos(conteo.getOrDefault("COMPLETADA", 0L).intValue());
+            lote.setFallidos(conteo.getOrDefault("FALLIDA", 0L).intValue());
+            lote.setRechazados(conteo.getOrDefault("RECHAZADA", 0L).intValue());
+            lote.setFechaActualizacion(LocalDateTime.now());
+            if (abiertos == 0) {
+                lote.setEstado("COMPLETADO");
+                lote.setFechaFinalizacion(LocalDateTime.now());
+            }
+            loteRepository.save(lote);
+
+            log.info("✅ Lote {} {}: exitosos={}, fallidos={}, rechazados={}, abiertos={}", idLote,
+                    lote.getEstado(), lote.getExitosos(), lote.getFallidos(), lote.getRechazados(), abiertos);
+        } catch (Exception e) {
+            log.error("No se pudo cerrar el lote {}: {}", idLote, e.getMessage());
+        }
+    }
+
+    @Override
+    public LoteResponseDTO obtenerLote(Integer idLote) {
+        LoteTransaccion lote = loteRepository.findById(idLote)
+                .orElseThrow(() -> new BusinessException("Lote no encontrado con ID: " + idLote));
+
+        LoteResponseDTO.LoteResponseDTOBuilder dto = LoteResponseDTO.builder()
+                .idLote(lote.getIdLote())
+                .referenciaLote(lote.getReferenciaLote())
+                .estado(lote.getEstado())
+                .totalItems(lote.getTotalItems())
+                .fechaCreacion(lote.getFechaCreacion())
+                .fechaFinalizacion(lote.getFechaFinalizacion());
+
+        if ("COMPLETADO".equals(lote.getEstado())) {
+            return dto.exitosos(lote.getExitosos())
+                    .fallidos(lote.getFallidos())
+                    .rechazados(lote.getRechazados())
+                    .pendientes(0)
+                    .build();
+        }
+
+        // En proceso: el progreso se calcula en vivo
+        Map<String, Long> conteo = contarPorEstado(idLote);
+        return dto.exitosos(conteo.getOrDefault("COMPLETADA", 0L).intValue())
+                .fallidos(conteo.getOrDefault("FALLIDA", 0L).intValue())
+                .rechazados(conteo.getOrDefault("RECHAZADA", 0L).intValue())
+                .pendientes((int) abiertos(conteo))
+                .build();
+    }
+
+    @Override
+    public void transmitirResultados(Integer idLote, Integer desde, OutputStream salida) throws IOException {
+        LoteTransaccion lote = loteRepository.findById(idLote)
+                .orElseThrow(() -> new BusinessException("Lote no encontrado con ID: " + idLote));
+
+        // Se emite en orden de secuencia; el cliente reanuda con ?desde=<última secuencia + 1>
+        int siguiente = desde != null && desde > 0 ? desde : 1;
+        long limite = System.currentTimeMillis() + streamMaxMs;
+
+        while (siguiente <= lote.getTotalItems() && System.currentTimeMillis() < limite) {
+            List<LoteTransaccionItem> pagina = itemRepository.findDesdeSecuencia(idLote, siguiente,
+                    PageRequest.of(0, 500));
+
+            boolean avanzo = false;
+            for (LoteTransaccionItem item : pagina) {
+                if (item.getSecuencia() != siguiente || !ESTADOS_FINALES.contains(item.getEstado())) {
+                    break;
+                }
+                salida.write(objectMapper.writeValueAsBytes(LoteItemResultadoDTO.builder()
+                        .secuencia(item.getSecuencia())
+                        .referencia(item.getClaveIdempotencia())
+                        .estado(item.getEstado())
+                        .idTransaccion(item.getIdTransaccion())
+                        .error(item.getError())
+                        .build()));
+                salida.write('\n');
+                siguiente++;
+                avanzo = true;
+            }
+            salida.flush();
+
+            if (!avanzo) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public LoteResponseDTO reanudarLote(Integer idLote) {
+        LoteTransaccion lote = loteRepository.findById(idLote)
+                .orElseThrow(() -> new BusinessException("Lote no encontrado con ID: " + idLote));
+
+        if (!"EN_PROCESO".equals(lote.getEstado())) {
+            throw new BusinessException("El lote " + idLote + " ya fue completado.");
+        }
+        if (ultimaActividad.containsKey(idLote) || !reclamar(idLote)) {
+            throw new BusinessException("El lote " + idLote + " se está procesando actualmente.");
+        }
+
+        log.info("🔁 Reanudación manual del lote {}", idLote);
+        Thread.ofVirtual().name("lote-despacho-" + idLote).start(() -> despachar(idLote));
+        return obtenerLote(idLote);
+    }
+
+    @PostConstruct
+    void registrarTrabajo() {
+        coordinador.registrar(TRABAJO_BARRIDO, 1);
+    }
+
+    // Lotes sin latido: su nodo cayó o quedaron ítems esperando el resultado final de su transacción
+    @Scheduled(fixedDelayString = "${app.lotes.intervalo-barrido-ms:60000}")
+    public void reanudarLotesAbandonados() {
+        coordinador.ejecutar(TRABAJO_BARRIDO, lease -> {
+            LocalDateTime limite = LocalDateTime.now().minusSeconds(inactividadSegundos);
+            for (Integer idLote : loteRepository.findIdsEnProcesoSinActividad(limite)) {
+                if (ultimaActividad.containsKey(idLote)) {
+                    continue;
+                }
+                // El reclamo se confirma con el lease vigente: un nodo que lo perdió no reanuda nada
+                Boolean reclamado = transactionTemplate.execute(status -> {
+                    coordinador.verificar(lease);
+                    return reclamar(idLote);
+                });
+                if (Boolean.TRUE.equals(reclamado)) {
+                    log.warn("🔁 Reanudando lote {} sin actividad", idLote);
+                    despachar(idLote);
+                }
+            }
+        });
+    }
+
+    // Solo un nodo gana el reclamo de un lote sin latido reciente
+    private boolean reclamar(Integer idLote) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return loteRepository.reclamar(idLote, ahora, ahora.minusSeconds(inactividadSegundos)) == 1;
+    }
+
+    private static long abiertos(Map<String, Long> conteo) {
+        return ESTADOS_ABIERTOS.stream().mapToLong(e -> conteo.getOrDefault(e, 0L)).sum();
+    }
+
+    private Map<String, Long> contarPorEstado(Integer idLote) {
+        Map<String, Long> conteo = new HashMap<>();
+        for (Object[] fila : itemRepository.contarPorEstado(idLote)) {
+            conteo.put((String) fila[0], (Long) fila[1]);
+        }
+        return conteo;
+    }
+
+    private String serializar(TransaccionRequestDTO dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (Exception e) {
+            throw new BusinessException("No se pudo serializar el ítem del lote: " + e.getMessage());
+        }
+    }
+
+    private TransaccionRequestDTO deserializar(String payload) {
+        try {
+            return objectMapper.readValue(payload, TransaccionRequestDTO.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Payload de ítem corrupto: " + e.getMessage(), e);
+        }
+    }
+
+    private static String truncar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        return texto.length() > 500 ? texto.substring(0, 500) : texto;
+    }
+
+    private record ItemEjecutable(LoteTransaccionItem item, TransaccionRequestDTO dto) {
+    }
+}
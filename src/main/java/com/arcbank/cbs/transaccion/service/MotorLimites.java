@@ -0,0 +1,478 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.model.Dinero;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Límites de monto y cantidad por hora y por día (ventanas deslizantes) para cada cuenta, cada
+ * cuenta+canal y cada banco externo. La verificación es solo en memoria: contadores por buckets
+ * (60 de un minuto, 24 de una hora) protegidos por locks repartidos en franjas según la clave.
+ *
+ * Cada intervalo de checkpoint los incrementos locales se suman en "LimiteVentana" y se relee el
+ * total de esas claves, de modo que el acumulado incluye lo posteado por otras réplicas con un
+ * retraso máximo de un intervalo, y sobrevive a reinicios (se precarga al arrancar).
+ *
+ * Apagado por defecto y sin umbrales propios: los define negocio (ver app.limites en application.yaml).
+ * Los débitos de un lote no cuentan contra los límites de la cuenta y el canal sino contra los de "lote".
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MotorLimites {
+
+    private static final int FRANJAS = 256;
+    private static final long MINUTO_MS = 60_000L;
+    private static final long HORA_MS = 3_600_000L;
+
+    @Data
+    public static class Umbrales {
+        private Dinero montoHora;
+        private Dinero montoDia;
+        private Integer cantidadHora;
+        private Integer cantidadDia;
+
+        boolean definido() {
+            return montoHora != null || montoDia != null || cantidadHora != null || cantidadDia != null;
+        }
+    }
+
+    @Data
+    public static class Propiedades {
+        private boolean habilitado = false;
+        private Umbrales cuenta = new Umbrales();
+        // Excepciones por id de cuenta (p. ej. la cuenta pagadora de nómina de una empresa)
+        private Map<String, Umbrales> cuentas = new HashMap<>();
+        // Por cuenta y canal (WEB, MOVIL, VENTANILLA, ATM...)
+        private Map<String, Umbrales> canal = new HashMap<>();
+        // Exposición total hacia cada banco externo; "bancos" permite excepciones por código
+        private Umbrales bancoExterno = new Umbrales();
+        private Map<String, Umbrales> bancos = new HashMap<>();
+        // Débitos de lotes (nómina, proveedores) por cuenta; sin umbrales, los lotes no tienen límite
+        private Umbrales lote = new Umbrales();
+    }
+
+    public record Reserva(List<String> claves, long centavos, long instanteMs) {
+    }
+
+    /** Ventana deslizante por buckets: base = total conocido en BD, local = aún no checkpointeado. */
+    private static final class Ventana {
+        private final long anchoMs;
+        private final long[] bucket;
+        private final long[] baseCentavos;
+        private final int[] baseCantidad;
+        private final long[] localCentavos;
+        private final int[] localCantidad;
+
+        private Ventana(long anchoMs, int buckets) {
+            this.anchoMs = anchoMs;
+            this.bucket = new long[buckets];
+            this.baseCentavos = new long[buckets];
+            this.baseCantidad = new int[buckets];
+            this.localCentavos = new long[buckets];
+            this.localCantidad = new int[buckets];
+            Arrays.fill(bucket, Long.MIN_VALUE);
+        }
+
+        // -1 si el slot ya pertenece a un bucket más nuevo
+        private int posicion(long indice) {
+            int i = (int) Math.floorMod(indice, (long) bucket.length);
+            if (bucket[i] > indice) {
+                return -1;
+            }
+            if (bucket[i] != indice) {
+                bucket[i] = indice;
+                baseCentavos[i] = 0;
+                baseCantidad[i] = 0;
+                localCentavos[i] = 0;
+                localCantidad[i] = 0;
+            }
+            return i;
+        }
+
+        private boolean vigente(int i, long actual) {
+            return bucket[i] > actual - bucket.length && bucket[i] <= actual;
+        }
+
+        long centavos(long ahoraMs) {
+            long actual = ahoraMs / anchoMs;
+            long total = 0;
+            for (int i = 0; i < bucket.length; i++) {
+                if (vigente(i, actual)) {
+                    total += baseCentavos[i] + localCentavos[i];
+                }
+            }
+            return total;
+        }
+
+        int cantidad(long ahoraMs) {
+            long actual = ahoraMs / anchoMs;
+            int total = 0;
+            for (int i = 0; i < bucket.length; i++) {
+                if (vigente(i, actual)) {
+                    total += baseCantidad[i] + localCantidad[i];
+                }
+            }
+            return total;
+        }
+
+        void sumar(long instanteMs, long centavos, int cantidad) {
+            long indice = instanteMs / anchoMs;
+            if (indice <= System.currentTimeMillis() / anchoMs - bucket.length) {
+                return;
+            }
+            int i = posicion(indice);
+            if (i >= 0) {
+                localCentavos[i] += centavos;
+                localCantidad[i] += cantidad;
+            }
+        }
+
+        void fijarBase(long indice, long centavos, int cantidad, long ahoraMs) {
+            long actual = ahoraMs / anchoMs;
+            if (indice <= actual - bucket.length || indice > actual) {
+                return;
+            }
+            int i = posicion(indice);
+            if (i >= 0) {
+                baseCentavos[i] = centavos;
+                baseCantidad[i] = cantidad;
+            }
+        }
+
+        boolean vacia(long ahoraMs) {
+            return cantidad(ahoraMs) == 0 && centavos(ahoraMs) == 0;
+        }
+    }
+
+    private static final class Contador {
+        private final Ventana hora = new Ventana(MINUTO_MS, 60);
+        private final Ventana dia = new Ventana(HORA_MS, 24);
+        private boolean sucio;
+    }
+
+    private record Fila(String clave, String ventana, long indice, long centavos, int cantidad) {
+    }
+
+    private final Propiedades propiedades;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, Contador> contadores = new ConcurrentHashMap<>();
+    private final ReentrantLock[] franjas = crearFranjas();
+
+    @Value("${app.limites.precarga-horas:24}")
+    private int precargaHoras;
+
+    private static ReentrantLock[] crearFranjas() {
+        ReentrantLock[] locks = new ReentrantLock[FRANJAS];
+        for (int i = 0; i < FRANJAS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    /**
+     * Verifica todos los límites aplicables y, si ninguno se excede, reserva el monto en las ventanas.
+     * La reserva se devuelve con {@link #liberar(Reserva)} si el posteo no llega a completarse.
+     */
+    public Reserva verificarYReservar(Integer idCuentaDebito, String canal, String idBancoExterno, Dinero monto) {
+        return verificarYReservar(idCuentaDebito, canal, idBancoExterno, monto, false);
+    }
+
+    public Reserva verificarYReservar(Integer idCuentaDebito, String canal, String idBancoExterno, Dinero monto,
+            boolean lote) {
+        if (!propiedades.isHabilitado() || monto == null) {
+            return null;
+        }
+        Map<String, Umbrales> aplicables = new HashMap<>(4);
+        if (idCuentaDebito != null && lote) {
+            agregar(aplicables, "L:" + idCuentaDebito, propiedades.getLote());
+        } else if (idCuentaDebito != null) {
+            agregar(aplicables, "C:" + idCuentaDebito,
+                    propiedades.getCuentas().getOrDefault(idCuentaDebito.toString(), propiedades.getCuenta()));
+            if (canal != null) {
+                agregar(aplicables, "CC:" + idCuentaDebito + ":" + canal, propiedades.getCanal().get(canal));
+            }
+        }
+        if (idBancoExterno != null) {
+            agregar(aplicables, "B:" + idBancoExterno,
+                    propiedades.getBancos().getOrDefault(idBancoExterno, propiedades.getBancoExterno()));
+        }
+        if (aplicables.isEmpty()) {
+            return null;
+        }
+
+        long centavos = monto.centavos();
+        long ahora = System.currentTimeMillis();
+        List<String> claves = new ArrayList<>(aplicables.keySet());
+        int[] orden = franjasOrdenadas(claves);
+        for (int f : orden) {
+            franjas[f].lock();
+        }
+        try {
+            for (String clave : claves) {
+                Contador c = contadores.computeIfAbsent(clave, k -> new Contador());
+                verificar(clave, aplicables.get(clave), c, ahora, centavos);
+            }
+            for (String clave : claves) {
+                Contador c = contadores.get(clave);
+                c.hora.sumar(ahora, centavos, 1);
+                c.dia.sumar(ahora, centavos, 1);
+                c.sucio = true;
+            }
+        } finally {
+            for (int i = orden.length - 1; i >= 0; i--) {
+                franjas[orden[i]].unlock();
+            }
+        }
+        return new Reserva(claves, centavos, ahora);
+    }
+
+    // Sin umbrales no hay nada que verificar ni contadores que mantener
+    private static void agregar(Map<String, Umbrales> aplicables, String clave, Umbrales umbrales) {
+        if (umbrales != null && umbrales.definido()) {
+            aplicables.put(clave, umbrales);
+        }
+    }
+
+    public void liberar(Reserva reserva) {
+        if (reserva == null) {
+            return;
+        }
+        for (String clave : reserva.claves()) {
+            ReentrantLock lock = franjas[franja(clave)];
+            lock.lock();
+            try {
+                Contador c = contadores.get(clave);
+                if (c != null) {
+                    c.hora.sumar(reserva.instanteMs(), -reserva.centavos(), -1);
+                    c.dia.sumar(reserva.instanteMs(), -reserva.centavos(), -1);
+                    c.sucio = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void verificar(String clave, Umbrales u, Contador c, long ahora, long centavos) {
+        if (u.getCantidadHora() != null && c.hora.cantidad(ahora) + 1 > u.getCantidadHora()) {
+            throw new BusinessException("Límite excedido: máximo " + u.getCantidadHora()
+                    + " operaciones por hora (" + descripcion(clave) + ")");
+        }
+        if (u.getCantidadDia() != null && c.dia.cantidad(ahora) + 1 > u.getCantidadDia()) {
+            throw new BusinessException("Límite excedido: máximo " + u.getCantidadDia()
+                    + " operaciones en 24 horas (" + descripcion(clave) + ")");
+        }
+        if (u.getMontoHora() != null
+                && c.hora.centavos(ahora) + centavos > u.getMontoHora().centavos()) {
+            throw new BusinessException("Límite excedido: monto máximo por hora " + u.getMontoHora()
+                    + " (" + descripcion(clave) + ")");
+        }
+        if (u.getMontoDia() != null
+                && c.dia.centavos(ahora) + centavos > u.getMontoDia().centavos()) {
+            throw new BusinessException("Límite excedido: monto máximo en 24 horas " + u.getMontoDia()
+                    + " (" + descripcion(clave) + ")");
+        }
+    }
+
+    private static String descripcion(String clave) {
+        if (clave.startsWith("CC:")) {
+            return "cuenta y canal";
+        }
+        if (clave.startsWith("L:")) {
+            return "lotes de la cuenta";
+        }
+        return clave.startsWith("B:") ? "banco destino" : "cuenta";
+    }
+
+    private static int franja(String clave) {
+        int h = clave.hashCode();
+        return (h ^ (h >>> 16)) & (FRANJAS - 1);
+    }
+
+    // Orden fijo de adquisición (sin repetidos) para que dos posteos no se bloqueen mutuamente
+    private static int[] franjasOrdenadas(List<String> claves) {
+        return claves.stream().mapToInt(MotorLimites::franja).distinct().sorted().toArray();
+    }
+
+    @Scheduled(fixedDelayString = "${app.limites.intervalo-checkpoint-ms:15000}")
+    public void checkpoint() {
+        if (!propiedades.isHabilitado() || contadores.isEmpty()) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        List<Fila> deltas = new ArrayList<>();
+        List<String> claves = new ArrayList<>();
+
+        // 1. Los incrementos locales pasan a la base (la verificación los sigue viendo) y se anotan para BD
+        for (Map.Entry<String, Contador> e : contadores.entrySet()) {
+            ReentrantLock lock = franjas[franja(e.getKey())];
+            lock.lock();
+            try {
+                Contador c = e.getValue();
+                if (!c.sucio) {
+                    if (c.dia.vacia(ahora)) {
+                        contadores.remove(e.getKey(), c);
+                    }
+                    continue;
+                }
+                mover(e.getKey(), "H", c.hora, deltas);
+                mover(e.getKey(), "D", c.dia, deltas);
+                c.sucio = false;
+                claves.add(e.getKey());
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (claves.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!deltas.isEmpty()) {
+                    jdbcTemplate.batchUpdate("INSERT INTO public.\"LimiteVentana\" (\"Clave\", \"Ventana\", "
+                            + "\"Bucket\", \"FechaBucket\", \"MontoCentavos\", \"Cantidad\") "
+                            + "VALUES (?, ?, ?, ?, ?, ?) "
+                            + "ON CONFLICT (\"Clave\", \"Ventana\", \"Bucket\") DO UPDATE SET "
+                            + "\"MontoCentavos\" = \"LimiteVentana\".\"MontoCentavos\" + EXCLUDED.\"MontoCentavos\", "
+                            + "\"Cantidad\" = \"LimiteVentana\".\"Cantidad\" + EXCLUDED.\"Cantidad\"",
+                            deltas.stream().map(f -> new Object[] { f.clave(), f.ventana(), f.indice(),
+                                    new Timestamp(f.indice() * ("H".equals(f.ventana()) ? MINUTO_MS : HORA_MS)),
+                                    f.centavos(), f.cantidad() }).toList());
+                }
+            });
+        } catch (Exception ex) {
+            // Se devuelven a "local" para reintentarlo en el próximo ciclo
+            deltas.forEach(this::devolverALocal);
+            log.warn("Checkpoint de límites no completado ({} claves): {}", claves.size(), ex.getMessage());
+            return;
+        }
+
+        // 2. Total de la BD (incluye otras réplicas) como nueva base de esas claves
+        try {
+            refrescar(claves, ahora);
+        } catch (Exception ex) {
+            log.warn("No se pudo refrescar la base de límites: {}", ex.getMessage());
+        }
+    }
+
+    private static void mover(String clave, String ventana, Ventana v, List<Fila> deltas) {
+        for (int i = 0; i < v.bucket.length; i++) {
+            if (v.localCentavos[i] != 0 || v.localCantidad[i] != 0) {
+                deltas.add(new Fila(clave, ventana, v.bucket[i], v.localCentavos[i], v.localCantidad[i]));
+                v.baseCentavos[i] += v.localCentavos[i];
+                v.baseCantidad[i] += v.localCantidad[i];
+                v.localCentavos[i] = 0;
+                v.localCantidad[i] = 0;
+            }
+        }
+    }
+
+    private void devolverALocal(Fila f) {
+        ReentrantLock lock = franjas[franja(f.clave())];
+        lock.lock();
+        try {
+            Contador c = contadores.get(f.clave());
+            if (c == null) {
+                return;
+            }
+            Ventana v = "H".equals(f.ventana()) ? c.hora : c.dia;
+            int i = (int) Math.floorMod(f.indice(), (long) v.bucket.length);
+            if (v.bucket[i] == f.indice()) {
+                v.baseCentavos[i] -= f.centavos();
+                v.baseCantidad[i] -= f.cantidad();
+                v.localCentavos[i] += f.centavos();
+                v.localCantidad[i] += f.cantidad();
+                c.sucio = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fijarBase(Fila f, long ahora) {
+        ReentrantLock lock = franjas[franja(f.clave())];
+        lock.lock();
+        try {
+            Contador c = contadores.computeIfAbsent(f.clave(), k -> new Contador());
+            ("H".equals(f.ventana()) ? c.hora : c.dia).fijarBase(f.indice(), f.centavos(), f.cantidad(), ahora);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refrescar(List<String> claves, long ahora) {
+        long desdeHora = ahora / MINUTO_MS - 60;
+        long desdeDia = ahora / HORA_MS - 24;
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT \"Clave\", \"Ventana\", \"Bucket\", \"MontoCentavos\", \"Cantidad\" "
+                    + "FROM public.\"LimiteVentana\" WHERE \"Clave\" = ANY(?) "
+                    + "AND ((\"Ventana\" = 'H' AND \"Bucket\" > ?) OR (\"Ventana\" = 'D' AND \"Bucket\" > ?))");
+            ps.setArray(1, con.createArrayOf("varchar", claves.toArray()));
+            ps.setLong(2, desdeHora);
+            ps.setLong(3, desdeDia);
+            return ps;
+        }, rs -> {
+            fijarBase(new Fila(rs.getString(1), rs.getString(2), rs.getLong(3), rs.getLong(4), rs.getInt(5)), ahora);
+        });
+    }
+
+    // Tras un reinicio los límites siguen contando lo posteado en las últimas horas
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        if (!propiedades.isHabilitado()) {
+            return;
+        }
+        try {
+            long ahora = System.currentTimeMillis();
+            int[] filas = { 0 };
+            jdbcTemplate.query("SELECT \"Clave\", \"Ventana\", \"Bucket\", \"MontoCentavos\", \"Cantidad\" "
+                    + "FROM public.\"LimiteVentana\" WHERE \"FechaBucket\" >= ?",
+                    rs -> {
+                        fijarBase(new Fila(rs.getString(1), rs.getString(2), rs.getLong(3), rs.getLong(4),
+                                rs.getInt(5)), ahora);
+                        filas[0]++;
+                    }, new Timestamp(ahora - precargaHoras * HORA_MS));
+            log.info("Límites precargados: {} buckets de {} claves", filas[0], contadores.size());
+        } catch (Exception e) {
+            log.warn("No se pudieron precargar los contadores de límites: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.limites.cron-purga:0 10 * * * *}")
+    public void purgar() {
+        if (!propiedades.isHabilitado()) {
+            return;
+        }
+        try {
+            int borradas = jdbcTemplate.update("DELETE FROM public.\"LimiteVentana\" WHERE \"FechaBucket\" < ?",
+                    new Timestamp(System.currentTimeMillis() - 25 * HORA_MS));
+            log.debug("Buckets de límites purgados: {}", borradas);
+        } catch (Exception e) {
+            log.warn("No se pudieron purgar los buckets de límites: {}", e.getMessage());
+        }
+    }
+}
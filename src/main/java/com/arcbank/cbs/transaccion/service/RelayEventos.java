@@ -0,0 +1,193 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publica en RabbitMQ los eventos pendientes de "EventoSalida". Cada partición es un shard del trabajo
+ * {@value #TRABAJO}: la atiende solo el nodo con su lease (verificado en la transacción del lote, ver
+ * {@link CoordinadorTrabajos}), así que las particiones se reparten entre las réplicas. Se publica en
+ * orden de IdEvento por un único canal, así que los eventos de una cuenta llegan en orden. Solo se marcan
+ * como publicados los que el broker confirmó, hasta el primer nack o timeout: la entrega es al menos una
+ * vez y el consumidor deduplica por messageId (= IdEvento).
+ */
+@Slf4j
+@Component
+public class RelayEventos {
+
+    private static final String TRABAJO = "eventos-relay";
+    private static final String TRABAJO_PURGA = "eventos-purga";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CoordinadorTrabajos coordinador;
+    private final Counter publicados;
+    private final Counter sinConfirmar;
+
+    @Value("${app.eventos.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${app.eventos.exchange:arcbank.transacciones.eventos}")
+    private String exchange;
+
+    @Value("${app.eventos.particiones:4}")
+    private int particiones;
+
+    @Value("${app.eventos.tamano-lote:200}")
+    private int tamanoLote;
+
+    @Value("${app.eventos.timeout-confirmacion-ms:5000}")
+    private long timeoutConfirmacionMs;
+
+    @Value("${app.eventos.retencion-dias:7}")
+    private int retencionDias;
+
+    private record Evento(long idEvento, String tipoEvento, String claveOrden, String payload) {
+    }
+
+    public RelayEventos(RabbitTemplate rabbitTemplate, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, CoordinadorTrabajos coordinador, MeterRegistry registry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.coordinador = coordinador;
+        this.publicados = Counter.builder("arcbank.eventos.publicados").register(registry);
+        this.sinConfirmar = Counter.builder("arcbank.eventos.sin_confirmar").register(registry);
+    }
+
+    @PostConstruct
+    void registrarTrabajos() {
+        if (habilitado) {
+            coordinador.registrar(TRABAJO, particiones);
+            coordinador.registrar(TRABAJO_PURGA, 1);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.eventos.intervalo-ms:200}")
+    public void publicar() {
+        if (!habilitado) {
+            return;
+        }
+        coordinador.ejecutar(TRABAJO, lease -> {
+            // Mientras haya lotes llenos se sigue con la misma partición
+            Integer enviados;
+            do {
+                enviados = transactionTemplate.execute(status -> publicarLote(lease));
+            } while (enviados != null && enviados == tamanoLote);
+        });
+    }
+
+    private int publicarLote(CoordinadorTrabajos.Lease lease) {
+        // Fencing: si otro nodo tomó la partición, el lote se aborta antes de publicar nada
+        coordinador.verificar(lease);
+        int particion = lease.shard();
+        List<Evento> eventos = jdbcTemplate.query("SELECT \"IdEvento\", \"TipoEvento\", \"ClaveOrden\", \"Payload\" "
+                + "FROM public.\"EventoSalida\" WHERE \"Particion\" = ? AND \"FechaPublicacion\" IS NULL "
+                + "ORDER BY \"IdEvento\" LIMIT ?",
+                (rs, i) -> new Evento(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)),
+                particion, tamanoLote);
+        if (eventos.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> confirmados = rabbitTemplate.invoke(operaciones -> {
+            // invoke fija un canal para todo el lote: el broker recibe los mensajes en este orden
+            List<CorrelationData> correlaciones = new ArrayList<>(eventos.size());
+            for (Evento evento : eventos) {
+                CorrelationData correlacion = new CorrelationData(String.valueOf(evento.idEvento()));
+                operaciones.send(exchange, routingKey(evento.tipoEvento()), mensaje(evento, particion), correlacion);
+                correlaciones.add(correlacion);
+            }
+            List<Long> ids = new ArrayList<>(eventos.size());
+            for (int i = 0; i < eventos.size(); i++) {
+                if (!confirmado(correlaciones.get(i))) {
+                    break;
+                }
+                ids.add(eventos.get(i).idEvento());
+            }
+            return ids;
+        });
+
+        if (confirmados != null && !confirmados.isEmpty()) {
+            jdbcTemplate.update(con -> {
+                var ps = con.prepareStatement("UPDATE public.\"EventoSalida\" SET \"FechaPublicacion\" = "
+                        + "CURRENT_TIMESTAMP WHERE \"IdEvento\" = ANY(?)");
+                ps.setArray(1, con.createArrayOf("bigint", confirmados.toArray()));
+                return ps;
+            });
+            publicados.increment(confirmados.size());
+        }
+        int pendientes = eventos.size() - (confirmados != null ? confirmados.size() : 0);
+        if (pendientes > 0) {
+            sinConfirmar.increment(pendientes);
+            log.warn("Relay de eventos: {} eventos de la partición {} sin confirmar, se reintentan", pendientes,
+                    particion);
+            return 0;
+        }
+        return eventos.size();
+    }
+
+    private boolean confirmado(CorrelationData correlacion) {
+        try {
+            CorrelationData.Confirm confirmacion = correlacion.getFuture()
+                    .get(timeoutConfirmacionMs, TimeUnit.MILLISECONDS);
+            return confirmacion.isAck();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // TRANSACCION_COMPLETADA -> transaccion.completada
+    private static String routingKey(String tipoEvento) {
+        return tipoEvento.toLowerCase().replace('_', '.');
+    }
+
+    private static Message mensaje(Evento evento, int particion) {
+        return MessageBuilder.withBody(evento.payload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setMessageId(String.valueOf(evento.idEvento()))
+                .setType(evento.tipoEvento())
+                .setHeader("x-clave-orden", evento.claveOrden())
+                .setHeader("x-particion", particion)
+                .build();
+    }
+
+    @Scheduled(cron = "${app.eventos.cron-purga:0 30 3 * * *}", zone = "America/Guayaquil")
+    public void purgar() {
+        if (!habilitado) {
+            return;
+        }
+        coordinador.ejecutar(TRABAJO_PURGA, lease -> {
+            int borrados = jdbcTemplate.update("DELETE FROM public.\"EventoSalida\" WHERE \"FechaPublicacion\" < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minusDays(retencionDias)));
+            log.info("🧹 Eventos publicados purgados: {}", borrados);
+        });
+    }
+}
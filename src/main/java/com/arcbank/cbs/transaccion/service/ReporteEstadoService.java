@@ -0,0 +1,8 @@
+package com.arcbank.cbs.transaccion.service;
+
+import com.arcbank.cbs.transaccion.dto.rabbitmq.StatusReportDTO;
+
+public interface ReporteEstadoService {
+
+        SagaTransferenciaSaliente.ResultadoReporte procesar(StatusReportDTO reporte);
+}
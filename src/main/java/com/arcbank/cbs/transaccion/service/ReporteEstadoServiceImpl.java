@@ -0,0 +1,48 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import com.arcbank.cbs.transaccion.dto.rabbitmq.StatusReportDTO;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Reportes de estado (pacs.002) del Switch sobre transferencias que originamos; llegan por webhook o AMQP
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReporteEstadoServiceImpl implements ReporteEstadoService {
+
+    private static final Set<String> EXITOSOS = Set.of("COMPLETED", "ACSC", "ACCC");
+    private static final Set<String> RECHAZADOS = Set.of("REJECTED", "FAILED", "RJCT");
+
+    private final SagaTransferenciaSaliente sagaTransferencia;
+
+    @Override
+    public SagaTransferenciaSaliente.ResultadoReporte procesar(StatusReportDTO reporte) {
+        if (reporte == null || reporte.getBody() == null || reporte.getBody().getOriginalInstructionId() == null
+                || reporte.getBody().getStatus() == null) {
+            throw new BusinessException("Reporte de estado inválido: faltan originalInstructionId o status");
+        }
+        String referencia = reporte.getBody().getOriginalInstructionId().toString();
+        String status = reporte.getBody().getStatus().toUpperCase();
+        log.info("📨 Reporte de estado del Switch - Ref: {} Status: {} Motivo: {}", referencia, status,
+                reporte.getBody().getReasonCode());
+
+        if (EXITOSOS.contains(status)) {
+            return sagaTransferencia.aplicarReporteEstado(referencia, true, null);
+        }
+        if (RECHAZADOS.contains(status)) {
+            String motivo = reporte.getBody().getReasonCode() != null ? reporte.getBody().getReasonCode() : status;
+            if (reporte.getBody().getReasonDescription() != null) {
+                motivo = motivo + " - " + reporte.getBody().getReasonDescription();
+            }
+            return sagaTransferencia.aplicarReporteEstado(referencia, false, motivo);
+        }
+        // PENDING / RECEIVED: no cambia nada, la saga sigue esperando
+        return SagaTransferenciaSaliente.ResultadoReporte.SIN_CAMBIO;
+    }
+}
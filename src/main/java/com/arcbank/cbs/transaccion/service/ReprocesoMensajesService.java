@@ -0,0 +1,22 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.util.List;
+
+import com.arcbank.cbs.transaccion.dto.ColaMensajeriaDTO;
+import com.arcbank.cbs.transaccion.dto.ReprocesoMensajesDTO;
+
+public interface ReprocesoMensajesService {
+
+    enum Origen {
+        ESTACIONADOS,
+        RECHAZADOS
+    }
+
+    ReprocesoMensajesDTO iniciar(Origen origen, Integer maximo, Integer porSegundo);
+
+    ReprocesoMensajesDTO progreso();
+
+    ReprocesoMensajesDTO detener();
+
+    List<ColaMensajeriaDTO> colas();
+}
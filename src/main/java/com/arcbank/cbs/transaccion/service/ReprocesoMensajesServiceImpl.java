@@ -0,0 +1,223 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.arcbank.cbs.transaccion.dto.ColaMensajeriaDTO;
+import com.arcbank.cbs.transaccion.dto.ReprocesoMensajesDTO;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.listener.RecuperadorMensajesSwitch;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reinyecta en la cola de entrada del Switch los mensajes estacionados (o rechazados) a ritmo controlado.
+ * Cada mensaje se toma sin ACK, se publica con el contador de intentos a cero y solo se confirma en
+ * origen cuando el broker confirmó la publicación: una caída a mitad de camino duplica, nunca pierde
+ * (el crédito entrante es idempotente por instructionId).
+ */
+@Slf4j
+@Service
+public class ReprocesoMensajesServiceImpl implements ReprocesoMensajesService {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final RecuperadorMensajesSwitch recuperador;
+    private final ThreadPoolTaskExecutor reprocesoExecutor;
+    private final MeterRegistry registry;
+
+    @Value("${app.switch-mq.reproceso.maximo-por-segundo:200}")
+    private int maximoPorSegundo;
+
+    @Value("${app.switch-mq.timeout-confirmacion-ms:5000}")
+    private long timeoutConfirmacionMs;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+    private volatile Ejecucion ultima;
+
+    public ReprocesoMensajesServiceImpl(RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin,
+            RecuperadorMensajesSwitch recuperador,
+            @Qualifier("reprocesoExecutor") ThreadPoolTaskExecutor reprocesoExecutor, MeterRegistry registry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.recuperador = recuperador;
+        this.reprocesoExecutor = reprocesoExecutor;
+        this.registry = registry;
+    }
+
+    @Override
+    public ReprocesoMensajesDTO iniciar(Origen origen, Integer maximo, Integer porSegundo) {
+        int ritmo = porSegundo == null ? maximoPorSegundo : porSegundo;
+        if (ritmo <= 0 || ritmo > maximoPorSegundo) {
+            throw new BusinessException("porSegundo debe estar entre 1 y " + maximoPorSegundo);
+        }
+        if (maximo != null && maximo <= 0) {
+            throw new BusinessException("maximo debe ser mayor que cero");
+        }
+        if (!enCurso.compareAndSet(false, true)) {
+            throw new BusinessException("Ya hay un reproceso en curso");
+        }
+        String cola = origen == Origen.RECHAZADOS ? recuperador.colaRechazados() : recuperador.colaEstacionados();
+        Ejecucion ejecucion = new Ejecucion(origen, cola, maximo, ritmo);
+        ultima = ejecucion;
+        try {
+            reprocesoExecutor.execute(() -> ejecutar(ejecucion));
+        } catch (RuntimeException e) {
+            enCurso.set(false);
+            throw e;
+        }
+        log.info("🔁 Reproceso iniciado desde {} (máx {}, {}/s)", cola, maximo, ritmo);
+        return ejecucion.aDto();
+    }
+
+    @Override
+    public ReprocesoMensajesDTO progreso() {
+        Ejecucion ejecucion = ultima;
+        return ejecucion != null ? ejecucion.aDto() : ReprocesoMensajesDTO.builder().estado("INACTIVO").build();
+    }
+
+    @Override
+    public ReprocesoMensajesDTO detener() {
+        Ejecucion ejecucion = ultima;
+        if (ejecucion == null || !enCurso.get()) {
+            throw new BusinessException("No hay un reproceso en curso");
+        }
+        ejecucion.detener = true;
+        return ejecucion.aDto();
+    }
+
+    @Override
+    public List<ColaMensajeriaDTO> colas() {
+        List<String> nombres = new ArrayList<>();
+        nombres.add(recuperador.colaEntrada());
+        for (long espera : recuperador.esperasMs()) {
+            nombres.add(recuperador.colaReintento(espera));
+        }
+        nombres.add(recuperador.colaRechazados());
+        nombres.add(recuperador.colaEstacionados());
+        return nombres.stream().map(this::cola).toList();
+    }
+
+    private ColaMensajeriaDTO cola(String nombre) {
+        QueueInformation info = amqpAdmin.getQueueInfo(nombre);
+        return ColaMensajeriaDTO.builder()
+                .nombre(nombre)
+                .mensajes(info != null ? Long.valueOf(info.getMessageCount()) : null)
+                .consumidores(info != null ? info.getConsumerCount() : null)
+                .build();
+    }
+
+    private void ejecutar(Ejecucion ejecucion) {
+        long intervalo = 1_000_000_000L / ejecucion.porSegundo;
+        long siguiente = System.nanoTime();
+        try {
+            while (!ejecucion.detener && !ejecucion.alcanzoMaximo()) {
+                long espera = siguiente - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                if (!reinyectar(ejecucion.cola)) {
+                    break; // Cola de origen vacía
+                }
+                ejecucion.reprocesados.incrementAndGet();
+                registry.counter("arcbank.switch.mensajes.reprocesados", "origen", ejecucion.origen.name())
+                        .increment();
+                siguiente = Math.max(siguiente + intervalo, System.nanoTime() - intervalo);
+            }
+            ejecucion.estado = ejecucion.detener ? "DETENIDO" : "COMPLETADO";
+            log.info("🔁 Reproceso {}: {} mensaje(s) reinyectados desde {}", ejecucion.estado,
+                    ejecucion.reprocesados.get(), ejecucion.cola);
+        } catch (RuntimeException e) {
+            ejecucion.estado = "FALLIDO";
+            ejecucion.ultimoError = e.getMessage();
+            log.error("❌ Reproceso interrumpido tras {} mensaje(s): {}", ejecucion.reprocesados.get(),
+                    e.getMessage());
+        } finally {
+            ejecucion.fin = LocalDateTime.now();
+            enCurso.set(false);
+        }
+    }
+
+    // Un mensaje por canal: si algo falla antes del ACK, al cerrarse el canal el broker lo devuelve al origen
+    private boolean reinyectar(String origen) {
+        Boolean movido = rabbitTemplate.execute(canal -> {
+            GetResponse respuesta = canal.basicGet(origen, false);
+            if (respuesta == null) {
+                return false;
+            }
+            AMQP.BasicProperties props = respuesta.getProps();
+            Map<String, Object> headers = props.getHeaders() != null ? new HashMap<>(props.getHeaders())
+                    : new HashMap<>();
+            headers.put(RecuperadorMensajesSwitch.HEADER_INTENTOS, 0);
+            headers.put(RecuperadorMensajesSwitch.HEADER_REPROCESOS,
+                    RecuperadorMensajesSwitch.entero(headers.get(RecuperadorMensajesSwitch.HEADER_REPROCESOS)) + 1);
+            // Ya no viene de una cola con TTL: sin expiration, no vuelve a caducar en la entrada
+            AMQP.BasicProperties nuevas = props.builder().headers(headers).expiration(null).build();
+            try {
+                canal.basicPublish("", recuperador.colaEntrada(), nuevas, respuesta.getBody());
+                canal.waitForConfirmsOrDie(timeoutConfirmacionMs);
+            } catch (Exception e) {
+                canal.basicNack(respuesta.getEnvelope().getDeliveryTag(), false, true);
+                throw e;
+            }
+            canal.basicAck(respuesta.getEnvelope().getDeliveryTag(), false);
+            return true;
+        });
+        return Boolean.TRUE.equals(movido);
+    }
+
+    private static final class Ejecucion {
+        private final Origen origen;
+        private final String cola;
+        private final Integer maximo;
+        private final int porSegundo;
+        private final LocalDateTime inicio = LocalDateTime.now();
+        private final AtomicLong reprocesados = new AtomicLong();
+        private volatile boolean detener;
+        private volatile String estado = "EN_CURSO";
+        private volatile LocalDateTime fin;
+        private volatile String ultimoError;
+
+        private Ejecucion(Origen origen, String cola, Integer maximo, int porSegundo) {
+            this.origen = origen;
+            this.cola = cola;
+            this.maximo = maximo;
+            this.porSegundo = porSegundo;
+        }
+
+        private boolean alcanzoMaximo() {
+            return maximo != null && reprocesados.get() >= maximo;
+        }
+
+        private ReprocesoMensajesDTO aDto() {
+            return ReprocesoMensajesDTO.builder()
+                    .estado(estado)
+                    .origen(origen.name())
+                    .cola(cola)
+                    .maximo(maximo)
+                    .porSegundo(porSegundo)
+                    .reprocesados(reprocesados.get())
+                    .inicio(inicio)
+                    .fin(fin)
+                    .ultimoError(ultimoError)
+                    .build();
+        }
+    }
+}
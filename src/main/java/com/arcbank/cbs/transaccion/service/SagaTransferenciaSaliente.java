@@ -0,0 +1,651 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arcbank.cbs.transaccion.client.CuentaCliente;
+import com.arcbank.cbs.transaccion.dto.SaldoDTO;
+import com.arcbank.cbs.transaccion.dto.TransaccionRequestDTO;
+import com.arcbank.cbs.transaccion.dto.TxRequest;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.SagaPaso;
+import com.arcbank.cbs.transaccion.model.SagaTransferencia;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+import com.arcbank.cbs.transaccion.repository.SagaPasoRepository;
+import com.arcbank.cbs.transaccion.repository.SagaTransferenciaRepository;
+import com.arcbank.cbs.transaccion.repository.TransaccionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Orquesta las transferencias salientes como una saga persistida:
+ * INICIADA -> DEBITANDO -> DEBITADA -> ENVIANDO -> ENVIADA -> CONFIRMADA,
+ * o COMPENSANDO -> COMPENSADA si el Switch rechaza.
+ * Cada cambio de paso es una transacción corta (REQUIRES_NEW); las llamadas a Cuentas y al Switch
+ * ocurren entre pasos, sin conexión de BD retenida. El worker de recuperación retoma las sagas
+ * interrumpidas desde el último paso registrado, repartidas en shards de {@link CoordinadorTrabajos}.
+ * El resultado del Switch puede llegar también por push (pacs.002): cada paso verifica bajo bloqueo que la
+ * saga sigue en el paso que este hilo conoce, así que el reporte, el polling y la recuperación no pueden
+ * aplicar dos veces la confirmación o la compensación.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SagaTransferenciaSaliente {
+
+    static final Set<String> PASOS_ACTIVOS = Set.of("INICIADA", "DEBITANDO", "DEBITADA", "ENVIANDO", "ENVIADA",
+            "COMPENSANDO");
+
+    // Pasos en los que la saga espera el resultado del Switch
+    private static final String TRABAJO_RECUPERACION = "saga-recuperacion";
+    private static final Set<String> PASOS_ESPERANDO_SWITCH = Set.of("ENVIANDO", "ENVIADA");
+    // Estados a los que solo se llega desde COMPLETADA: la confirmación ya se aplicó
+    private static final Set<EstadoTransaccion> POSTERIORES_A_COMPLETADA = EnumSet.of(EstadoTransaccion.REVERSANDO,
+            EstadoTransaccion.REVERSADA, EstadoTransaccion.DEVUELTA);
+
+    private enum Verificacion {
+        APLICADO, NO_APLICADO, DESCONOCIDO, INCONSISTENTE
+    }
+
+    public enum ResultadoReporte {
+        APLICADO, YA_RESUELTA, SIN_CAMBIO, DESCONOCIDA
+    }
+
+    // Otro hilo o nodo avanzó la saga desde que este la leyó
+    private static class PasoConcurrenteException extends RuntimeException {
+        PasoConcurrenteException(String pasoActual) {
+            super("La saga ya está en el paso " + pasoActual);
+        }
+    }
+
+    private final SagaTransferenciaRepository sagaRepository;
+    private final SagaPasoRepository pasoRepository;
+    private final TransaccionRepository transaccionRepository;
+    private final CuentaCliente cuentaCliente;
+    private final SwitchClientService switchClientService;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final CoordinadorTrabajos coordinador;
+
+    private TransactionTemplate pasoTx;
+
+    @Value("${app.saga.intentos-confirmacion:10}")
+    private int intentosConfirmacion;
+
+    @Value("${app.saga.intervalo-confirmacion-ms:1500}")
+    private long intervaloConfirmacionMs;
+
+    @Value("${app.saga.inactividad-segundos:60}")
+    private long inactividadSegundos;
+
+    @Value("${app.saga.max-horas-pendiente:24}")
+    private long maxHorasPendiente;
+
+    @Value("${app.saga.recuperacion-habilitada:true}")
+    private boolean recuperacionHabilitada;
+
+    @Value("${app.saga.shards-recuperacion:4}")
+    private int shardsRecuperacion;
+
+    // Con reportes push del Switch la petición no sondea; la recuperación queda como red de seguridad
+    @Value("${app.saga.confirmacion-push:false}")
+    private boolean confirmacionPush;
+
+    @PostConstruct
+    void init() {
+        // Cada paso se confirma aunque el llamador tenga una transacción abierta
+        pasoTx = new TransactionTemplate(transactionManager);
+        pasoTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        coordinador.registrar(TRABAJO_RECUPERACION, shardsRecuperacion);
+    }
+
+    public Transaccion ejecutar(TransaccionRequestDTO request, String referencia, TipoOperacion tipoOperacion) {
+        if (request.getIdCuentaOrigen() == null)
+            throw new BusinessException("Falta cuenta origen.");
+        if (request.getCuentaExterna() == null)
+            throw new BusinessException("Falta cuenta destino externa.");
+
+        Optional<SagaTransferencia> existente = sagaRepository.findByReferencia(referencia);
+        SagaTransferencia saga;
+        if (existente.isPresent()) {
+            // Idempotencia: un reintento con la misma referencia no vuelve a debitar
+            saga = existente.get();
+            log.warn("Saga {} ya registrada para Ref {} (paso {}), no se re-ejecuta", saga.getIdSaga(), referencia,
+                    saga.getPaso());
+        } else {
+            saga = iniciar(request, referencia, tipoOperacion);
+            avanzar(saga, false);
+        }
+
+        if ("FALLIDA".equals(saga.getPaso())) {
+            throw new BusinessException(saga.getUltimoError());
+        }
+        if ("COMPENSADA".equals(saga.getPaso())) {
+            throw new BusinessException("Transferencia fallida: " + saga.getUltimoError());
+        }
+        return transaccionRepository.findById(saga.getIdTransaccion())
+                .orElseThrow(() -> new BusinessException("Transacción de la saga no encontrada: " + referencia));
+    }
+
+    private SagaTransferencia iniciar(TransaccionRequestDTO request, String referencia,
+            TipoOperacion tipoOperacion) {
+        try {
+            return pasoTx.execute(status -> {
+                // El registro existe desde el inicio: una caída a mitad de camino ya no deja dinero sin rastro
+                Transaccion trx = transaccionRepository.save(Transaccion.builder()
+                        .referencia(referencia)
+                        .tipoOperacion(tipoOperacion)
+                        .monto(request.getMonto())
+                        .descripcion(request.getDescripcion())
+                        .canal(request.getCanal() != null ? request.getCanal() : "WEB")
+                        .idSucursal(request.getIdSucursal())
+                        .idCuentaOrigen(request.getIdCuentaOrigen())
+                        .cuentaExterna(request.getCuentaExterna())
+                        .idBancoExterno(request.getIdBancoExterno())
+                        .idTransaccionReversa(request.getIdTransaccionReversa())
+                        .estado(EstadoTransaccion.PENDIENTE)
+                        .build());
+
+                SagaTransferencia saga = sagaRepository.save(SagaTransferencia.builder()
+                        .idTransaccion(trx.getIdTransaccion())
+                        .referencia(referencia)
+                        .idCuentaOrigen(request.getIdCuentaOrigen())
+                        .monto(request.getMonto())
+                        .payload(serializar(request))
+                        .build());
+                pasoRepository.save(SagaPaso.builder().idSaga(saga.getIdSaga()).paso("INICIADA").build());
+                return saga;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException("Transferencia duplicada: la referencia " + referencia + " ya fue registrada.");
+        }
+    }
+
+    private void avanzar(SagaTransferencia saga, boolean recuperacion) {
+        boolean continuar = true;
+        try {
+            while (continuar) {
+                continuar = switch (saga.getPaso()) {
+                    case "INICIADA" -> debitar(saga);
+                    case "DEBITANDO" -> resolverDebito(saga);
+                    case "DEBITADA" -> enviar(saga, false);
+                    case "ENVIANDO" -> resolverEnvio(saga, null, true);
+                    case "ENVIADA" -> confirmar(saga, recuperacion);
+                    case "COMPENSANDO" -> compensar(saga);
+                    default -> false;
+                };
+            }
+        } catch (PasoConcurrenteException e) {
+            // Quien hizo la transición sigue con la saga; aquí solo se refleja el paso actual
+            log.info("Saga {} (Ref {}) avanzada por otro proceso: {}", saga.getIdSaga(), saga.getReferencia(),
+                    e.getMessage());
+            sagaRepository.findById(saga.getIdSaga()).ifPresent(actual -> {
+                saga.setPaso(actual.getPaso());
+                saga.setUltimoError(actual.getUltimoError());
+            });
+        }
+    }
+
+    /**
+     * Resultado final de una transferencia saliente informado por el Switch (webhook o AMQP).
+     * Idempotente: un reporte repetido, o uno que llega después de que el polling resolvió, no hace nada.
+     */
+    public ResultadoReporte aplicarReporteEstado(String referencia, boolean completada, String motivo) {
+        Optional<SagaTransferencia> encontrada = sagaRepository.findByReferencia(referencia);
+        if (encontrada.isEmpty()) {
+            return ResultadoReporte.DESCONOCIDA;
+        }
+        SagaTransferencia saga = encontrada.get();
+        if (!PASOS_ESPERANDO_SWITCH.contains(saga.getPaso())) {
+            log.info("Reporte de estado para Ref {} ignorado: la saga ya está en {}", referencia, saga.getPaso());
+            return ResultadoReporte.YA_RESUELTA;
+        }
+        try {
+            boolean continuar = completada
+                    ? confirmarExito(saga)
+                    : iniciarCompensacion(saga, motivo != null ? motivo : "Rechazo del Switch");
+            if (continuar) {
+                avanzar(saga, true);
+            }
+            return ResultadoReporte.APLICADO;
+        } catch (PasoConcurrenteException e) {
+            log.info("Reporte de estado para Ref {} ya resuelto por otro proceso: {}", referencia, e.getMessage());
+            return ResultadoReporte.YA_RESUELTA;
+        }
+    }
+
+    // ---------------------------------------------------------------- Débito
+
+    private boolean debitar(SagaTransferencia saga) {
+        Integer idCuenta = saga.getIdCuentaOrigen();
+        Dinero saldoActual;
+        try {
+            saldoActual = cuentaCliente.obtenerSaldo(idCuenta);
+            if (saldoActual == null) {
+                throw new BusinessException("La cuenta ID " + idCuenta + " existe pero retornó saldo nulo.");
+            }
+        } catch (Exception e) {
+            log.error("Error conectando con MS Cuentas: {}", e.getMessage());
+            return fallar(saga, "No se pudo validar la cuenta ID: " + idCuenta + ". Verifique que exista.");
+        }
+
+        Dinero nuevoSaldo = saldoActual.restar(saga.getMonto());
+        if (nuevoSaldo.esNegativo()) {
+            return fallar(saga, "Fondos insuficientes en la cuenta ID: " + idCuenta + ". Saldo actual: " + saldoActual);
+        }
+
+        // Se registra la intención con el saldo previo antes del PUT para poder verificarlo tras una caída
+        registrar(saga, "DEBITANDO", s -> s.setSaldoAntesMovimiento(saldoActual), "Saldo previo " + saldoActual,
+                null);
+        try {
+            cuentaCliente.actualizarSaldo(idCuenta, new SaldoDTO(nuevoSaldo));
+        } catch (Exception e) {
+            log.error("PUT de saldo falló para la saga {}: {}", saga.getIdSaga(), e.getMessage());
+            return resolverDebito(saga);
+        }
+
+        registrarDebitada(saga, nuevoSaldo);
+        return true;
+    }
+
+    private boolean resolverDebito(SagaTransferencia saga) {
+        return switch (verificarMovimiento(saga, saga.getMonto().negar())) {
+            case APLICADO -> {
+                registrarDebitada(saga, saga.getSaldoAntesMovimiento().restar(saga.getMonto()));
+                yield true;
+            }
+            case NO_APLICADO -> fallar(saga, "Error al actualizar el saldo de la cuenta ID: " + saga.getIdCuentaOrigen());
+            case DESCONOCIDO -> false;
+            case INCONSISTENTE -> revision(saga, "No se puede determinar si el débito se aplicó");
+        };
+    }
+
+    private void registrarDebitada(SagaTransferencia saga, Dinero saldo) {
+        registrar(saga, "DEBITADA", s -> {
+            s.setSaldoResultante(saldo);
+            s.setSaldoAntesMovimiento(null);
+        }, "Saldo resultante " + saldo, t -> t.setSaldoResultante(saldo));
+    }
+
+    // ---------------------------------------------------------------- Envío
+
+    private boolean enviar(SagaTransferencia saga, boolean reenvio) {
+        TransaccionRequestDTO request = deserializar(saga.getPayload());
+
+        Map<String, Object> cuentaOrigenDetalles = obtenerDetallesCuenta(saga.getIdCuentaOrigen());
+        String numeroCuentaOrigen = cuentaOrigenDetalles != null && cuentaOrigenDetalles.get("numeroCuenta") != null
+                ? cuentaOrigenDetalles.get("numeroCuenta").toString()
+                : String.valueOf(saga.getIdCuentaOrigen());
+        String nombreOrigen = cuentaOrigenDetalles != null && cuentaOrigenDetalles.get("nombreTitular") != null
+                ? cuentaOrigenDetalles.get("nombreTitular").toString()
+                : "Cliente Arcbank";
+
+        TxRequest txRequest = TxRequest.builder()
+                .debtorAccount(numeroCuentaOrigen)
+                .debtorName(nombreOrigen)
+                .creditorAccount(request.getCuentaExterna())
+                .creditorName(request.getNombreDestinatario() != null ? request.getNombreDestinatario()
+                        : "Beneficiario")
+                .targetBankId(request.getIdBancoExterno() != null ? request.getIdBancoExterno() : "UNKNOWN")
+                .amount(saga.getMonto())
+                .description(request.getDescripcion())
+                .referenceId(saga.getReferencia())
+                .build();
+
+        registrar(saga, "ENVIANDO", null, reenvio ? "Reenvío al Switch" : "Envío al Switch", null);
+
+        Map<String, Object> respSwitch;
+        try {
+            log.info("Enviando transferencia al switch: {}", request.getCuentaExterna());
+            respSwitch = switchClientService.enviarTransferencia(txRequest);
+        } catch (Exception e) {
+            log.error("Error/Rechazo Switch: {}. Verificando estado antes de compensar.", e.getMessage());
+            return resolverEnvio(saga, e.getMessage(), false);
+        }
+
+        if (respSwitch != null) {
+            String refCode = (String) respSwitch.get("codigoReferencia");
+            if (refCode == null && respSwitch.get("data") instanceof Map<?, ?> data) {
+                refCode = (String) data.get("codigoReferencia");
+            }
+            if (refCode != null) {
+                saga.setCodigoReferencia(refCode);
+            }
+
+            String estadoInicial = (String) respSwitch.get("estado");
+            if ("COMPLETED".equalsIgnoreCase(estadoInicial)) {
+                log.info("Switch retornó COMPLETED en respuesta inicial. Omitiendo polling.");
+                return confirmarExito(saga);
+            }
+            if ("FAILED".equalsIgnoreCase(estadoInicial)) {
+                return iniciarCompensacion(saga, respSwitch.getOrDefault("error", "Rechazo del Switch").toString());
+            }
+        }
+
+        String codigo = saga.getCodigoReferencia();
+        registrar(saga, "ENVIADA", null, "Aceptada por el Switch", t -> t.setCodigoReferencia(codigo));
+        return true;
+    }
+
+    // El resultado de un envío interrumpido se decide con el estado que reporta el Switch. Solo un FAILED o
+    // un 404 del Switch permiten compensar: si la consulta falla el envío sigue siendo ambiguo (el Switch
+    // pudo liquidarlo) y la saga queda en ENVIANDO para que la recuperación vuelva a consultar
+    private boolean resolverEnvio(SagaTransferencia saga, String error, boolean permitirReenvio) {
+        SwitchClientService.EstadoInstruccion consulta = switchClientService.consultarEstadoInstruccion(
+                saga.getReferencia());
+        String status = consulta.estado();
+
+        if ("COMPLETED".equalsIgnoreCase(status)) {
+            return confirmarExito(saga);
+        }
+        if ("FAILED".equalsIgnoreCase(status)) {
+            return iniciarCompensacion(saga,
+                    String.valueOf(consulta.datos().getOrDefault("error", "Rechazo del Switch")));
+        }
+        if (status != null) {
+            String codigo = saga.getCodigoReferencia();
+            registrar(saga, "ENVIADA", null, "Switch reporta " + status, t -> t.setCodigoReferencia(codigo));
+            return true;
+        }
+        if (consulta.resultado() == SwitchClientService.ResultadoConsulta.NO_ENCONTRADA) {
+            if (permitirReenvio) {
+                // El Switch no conoce la instrucción: se reenvía con el mismo instructionId
+                return enviar(saga, true);
+            }
+            return iniciarCompensacion(saga, error != null ? error : "El Switch no registró la instrucción");
+        }
+        if (saga.getFechaCreacion().isBefore(LocalDateTime.now().minusHours(maxHorasPendiente))) {
+            return revision(saga, "Estado del envío no verificable tras " + maxHorasPendiente + " horas");
+        }
+        registrarError(saga, "Estado en el Switch no verificable" + (error != null ? " tras: " + error : ""));
+        return false;
+    }
+
+    // ---------------------------------------------------------------- Confirmación
+
+    private boolean confirmar(SagaTransferencia saga, boolean recuperacion) {
+        if (!recuperacion && confirmacionPush) {
+            log.info("Transferencia {} enviada; se espera el reporte de estado del Switch", saga.getReferencia());
+            return false;
+        }
+        int intentos = recuperacion ? 1 : intentosConfirmacion;
+        for (int i = 0; i < intentos; i++) {
+            if (!recuperacion) {
+                try {
+                    Thread.sleep(intervaloConfirmacionMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            Map<String, Object> estadoTx = switchClientService.consultarEstado(saga.getReferencia());
+            if (estadoTx != null) {
+                String status = (String) estadoTx.get("estado");
+                if ("COMPLETED".equalsIgnoreCase(status)) {
+                    return confirmarExito(saga);
+                }
+                if ("FAILED".equalsIgnoreCase(status)) {
+                    return iniciarCompensacion(saga,
+                            String.valueOf(estadoTx.getOrDefault("error", "Rechazo del Switch")));
+                }
+                // PENDING o RECEIVED: seguimos esperando
+            }
+        }
+
+        if (recuperacion && saga.getFechaCreacion().isBefore(LocalDateTime.now().minusHours(maxHorasPendiente))) {
+            return revision(saga, "Sin confirmación del Switch tras " + maxHorasPendiente + " horas");
+        }
+        if (!recuperacion) {
+            log.warn("Transferencia {} en TIMEOUT tras polling. Queda PENDIENTE para el worker de recuperación.",
+                    saga.getReferencia());
+        }
+        return false;
+    }
+
+    private boolean confirmarExito(SagaTransferencia saga) {
+        Dinero saldo = saga.getSaldoResultante();
+        String codigo = saga.getCodigoReferencia();
+        registrar(saga, "CONFIRMADA", s -> s.setUltimoError(null), "Switch confirmó COMPLETED", t -> {
+            transicionar(t, EstadoTransaccion.COMPLETADA);
+            t.setSaldoResultante(saldo);
+            if (codigo != null) {
+                t.setCodigoReferencia(codigo);
+            }
+        });
+        log.info("✅ Transferencia saliente {} confirmada", saga.getReferencia());
+        return false;
+    }
+
+    // ---------------------------------------------------------------- Compensación
+
+    private boolean iniciarCompensacion(SagaTransferencia saga, String motivo) {
+        log.error("Error/Rechazo Switch: {}. Revertiendo.", motivo);
+        registrar(saga, "COMPENSANDO", s -> {
+            s.setSaldoAntesMovimiento(null);
+            s.setUltimoError(truncar(motivo));
+        }, "Inicio compensación: " + motivo, null);
+        return true;
+    }
+
+    private boolean compensar(SagaTransferencia saga) {
+        if (saga.getSaldoAntesMovimiento() != null) {
+            // Un intento previo quedó a medias: primero se averigua si el crédito se aplicó
+            switch (verificarMovimiento(saga, saga.getMonto())) {
+                case APLICADO -> {
+                    return registrarCompensada(saga, saga.getSaldoAntesMovimiento().sumar(saga.getMonto()));
+                }
+                case DESCONOCIDO -> {
+                    return false;
+                }
+                case INCONSISTENTE -> {
+                    return revision(saga, "No se puede determinar si la compensación se aplicó");
+                }
+                case NO_APLICADO -> {
+                    // Se reintenta abajo
+                }
+            }
+        }
+
+        Integer idCuenta = saga.getIdCuentaOrigen();
+        Dinero saldoActual;
+        try {
+            saldoActual = cuentaCliente.obtenerSaldo(idCuenta);
+            if (saldoActual == null) {
+                throw new IllegalStateException("saldo nulo");
+            }
+        } catch (Exception e) {
+            registrarError(saga, "Compensación pendiente, Cuentas no responde: " + e.getMessage());
+            return false;
+        }
+
+        registrar(saga, "COMPENSANDO", s -> s.setSaldoAntesMovimiento(saldoActual),
+                "Saldo previo " + saldoActual, null);
+        Dinero nuevoSaldo = saldoActual.sumar(saga.getMonto());
+        try {
+            cuentaCliente.actualizarSaldo(idCuenta, new SaldoDTO(nuevoSaldo));
+        } catch (Exception e) {
+            registrarError(saga, "Crédito de compensación no confirmado: " + e.getMessage());
+            return false;
+        }
+        return registrarCompensada(saga, nuevoSaldo);
+    }
+
+    private boolean registrarCompensada(SagaTransferencia saga, Dinero saldo) {
+        registrar(saga, "COMPENSADA", s -> {
+            s.setSaldoResultante(saldo);
+            s.setSaldoAntesMovimiento(null);
+        }, "Débito revertido, saldo " + saldo, t -> {
+            transicionar(t, EstadoTransaccion.FALLIDA);
+            t.setSaldoResultante(saldo);
+        });
+        log.warn("↩️ Transferencia saliente {} compensada", saga.getReferencia());
+        return false;
+    }
+
+    // ---------------------------------------------------------------- Soporte
+
+    // Compara el saldo actual con el previo al PUT: ante movimientos concurrentes se deriva a revisión manual
+    private Verificacion verificarMovimiento(SagaTransferencia saga, Dinero delta) {
+        Dinero actual;
+        try {
+            actual = cuentaCliente.obtenerSaldo(saga.getIdCuentaOrigen());
+        } catch (Exception e) {
+            registrarError(saga, "Saldo no verificable: " + e.getMessage());
+            return Verificacion.DESCONOCIDO;
+        }
+        if (actual == null || saga.getSaldoAntesMovimiento() == null) {
+            return Verificacion.INCONSISTENTE;
+        }
+        if (actual.equals(saga.getSaldoAntesMovimiento().sumar(delta))) {
+            return Verificacion.APLICADO;
+        }
+        if (actual.equals(saga.getSaldoAntesMovimiento())) {
+            return Verificacion.NO_APLICADO;
+        }
+        return Verificacion.INCONSISTENTE;
+    }
+
+    private boolean fallar(SagaTransferencia saga, String motivo) {
+        registrar(saga, "FALLIDA", s -> s.setUltimoError(truncar(motivo)), motivo,
+                t -> transicionar(t, EstadoTransaccion.FALLIDA));
+        return false;
+    }
+
+    private boolean revision(SagaTransferencia saga, String motivo) {
+        log.error("🚨 Saga {} (Ref {}) requiere revisión manual: {}", saga.getIdSaga(), saga.getReferencia(), motivo);
+        registrar(saga, "REVISION", s -> s.setUltimoError(truncar(motivo)), motivo, null);
+        return false;
+    }
+
+    private void registrar(SagaTransferencia saga, String paso, Consumer<SagaTransferencia> cambios, String detalle,
+            Consumer<Transaccion> cambiosTransaccion) {
+        String pasoEsperado = saga.getPaso();
+        pasoTx.executeWithoutResult(status -> {
+            String pasoActual = sagaRepository.findPasoParaActualizar(saga.getIdSaga());
+            if (!pasoEsperado.equals(pasoActual)) {
+                throw new PasoConcurrenteException(pasoActual);
+            }
+            saga.setPaso(paso);
+            if (cambios != null) {
+                cambios.accept(saga);
+            }
+            saga.setFechaActualizacion(LocalDateTime.now());
+            sagaRepository.save(saga);
+            pasoRepository.save(SagaPaso.builder().idSaga(saga.getIdSaga()).paso(paso).detalle(truncar(detalle))
+                    .build());
+            if (cambiosTransaccion != null) {
+                transaccionRepository.findById(saga.getIdTransaccion()).ifPresent(cambiosTransaccion);
+            }
+        });
+    }
+
+    // El UPDATE sale al confirmar el paso, condicionado al estado leído dentro de él. Si otro escritor ya la
+    // dejó en un estado del que no se puede pasar al destino, el paso se registra igual y se avisa
+    private static void transicionar(Transaccion t, EstadoTransaccion destino) {
+        if (destino == EstadoTransaccion.COMPLETADA && POSTERIORES_A_COMPLETADA.contains(t.getEstado())) {
+            // Ya confirmada y con un reverso/devolución en curso o aplicado: el reclamo no es de la saga
+            log.info("Transacción {} ya confirmada y en {}: se conserva su estado", t.getIdTransaccion(),
+                    t.getEstado());
+            return;
+        }
+        if (t.getEstado() != destino && !t.getEstado().permite(destino)) {
+            log.error("🚨 Transacción {} en {}: la saga no puede pasarla a {}, requiere revisión",
+                    t.getIdTransaccion(), t.getEstado(), destino);
+            return;
+        }
+        t.transicionarA(destino);
+    }
+
+    private void registrarError(SagaTransferencia saga, String error) {
+        log.warn("Saga {} (paso {}): {}", saga.getIdSaga(), saga.getPaso(), error);
+        registrar(saga, saga.getPaso(), s -> s.setUltimoError(truncar(error)), "Error: " + error, null);
+    }
+
+    @Scheduled(fixedDelayString = "${app.saga.intervalo-recuperacion-ms:30000}",
+            initialDelayString = "${app.saga.retraso-inicial-ms:15000}")
+    public void recuperar() {
+        if (!recuperacionHabilitada) {
+            return;
+        }
+        coordinador.ejecutar(TRABAJO_RECUPERACION, this::recuperar);
+    }
+
+    /**
+     * Retoma las sagas del shard (IdSaga módulo shards). El lease reparte el trabajo entre réplicas; la
+     * exclusión por saga la siguen dando el reclamo condicional y el bloqueo de fila de cada paso, porque los
+     * pasos son transacciones propias (REQUIRES_NEW) y no pueden incluir el {@code verificar} del lease. Se
+     * verifica antes de reclamar cada saga: un nodo que perdió el lease deja de tomar sagas nuevas, y la que
+     * ya tenía reclamada la termina sin riesgo (envío idempotente por InstructionId, pasos bajo bloqueo).
+     */
+    private void recuperar(CoordinadorTrabajos.Lease lease) {
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(inactividadSegundos);
+        List<Integer> ids = sagaRepository.findIdsInterrumpidas(PASOS_ACTIVOS, limite, lease.shards(),
+                lease.shard());
+        for (Integer idSaga : ids) {
+            coordinador.verificar(lease);
+            try {
+                if (sagaRepository.reclamar(idSaga, PASOS_ACTIVOS, LocalDateTime.now(), limite) == 0) {
+                    continue; // Otro nodo la tomó
+                }
+                SagaTransferencia saga = sagaRepository.findById(idSaga).orElseThrow();
+                log.info("🔄 Retomando saga {} (Ref {}) desde el paso {}", idSaga, saga.getReferencia(),
+                        saga.getPaso());
+                avanzar(saga, true);
+            } catch (Exception e) {
+                log.error("❌ Error retomando saga {}: {}", idSaga, e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, Object> obtenerDetallesCuenta(Integer idCuenta) {
+        try {
+            return cuentaCliente.obtenerCuenta(idCuenta);
+        } catch (Exception e) {
+            log.warn("No se pudo obtener detalles de cuenta para ID {}: {}", idCuenta, e.getMessage());
+            return null;
+        }
+    }
+
+    private String serializar(TransaccionRequestDTO dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (Exception e) {
+            throw new BusinessException("No se pudo registrar la transferencia: " + e.getMessage());
+        }
+    }
+
+    private TransaccionRequestDTO deserializar(String payload) {
+        try {
+            return objectMapper.readValue(payload, TransaccionRequestDTO.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Payload de saga corrupto: " + e.getMessage(), e);
+        }
+    }
+
+    private static String truncar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        return texto.length() > 500 ? texto.substring(0, 500) : texto;
+    }
+}
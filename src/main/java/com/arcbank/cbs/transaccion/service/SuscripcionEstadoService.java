@@ -0,0 +1,15 @@
+package com.arcbank.cbs.transaccion.service;
+
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+
+public interface SuscripcionEstadoService {
+
+        SseEmitter suscribir(Integer idTransaccion);
+
+        SseEmitter suscribirPorReferencia(String referencia);
+
+        DeferredResult<TransaccionResponseDTO> esperarCambio(Integer idTransaccion, String estadoConocido);
+}
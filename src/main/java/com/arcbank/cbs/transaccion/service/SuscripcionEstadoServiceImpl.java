@@ -0,0 +1,117 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Suscripciones al estado de una transacción sin sondeo: la conexión queda en espera (async de
+ * Servlet, sin hilo retenido) y el hub empuja el cambio cuando el servicio lo conoce. El estado
+ * inicial se lee una vez (caché de finales o BD); el Switch no se consulta.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SuscripcionEstadoServiceImpl implements SuscripcionEstadoService {
+
+    private final TransaccionService transaccionService;
+    private final HubEstadoTransacciones hubEstado;
+
+    @Value("${app.notificaciones.timeout-sse-ms:120000}")
+    private long timeoutSseMs;
+
+    @Value("${app.notificaciones.timeout-espera-ms:30000}")
+    private long timeoutEsperaMs;
+
+    @Override
+    public SseEmitter suscribir(Integer idTransaccion) {
+        SseEmitter emitter = new SseEmitter(timeoutSseMs);
+        AtomicReference<EstadoTransaccion> ultimoEstado = new AtomicReference<>();
+        // Primero la suscripción y luego la lectura: un cambio entre ambas no se pierde
+        Runnable baja = hubEstado.suscribir(idTransaccion, vista -> enviar(emitter, vista, ultimoEstado));
+        emitter.onCompletion(baja);
+        emitter.onTimeout(baja);
+        emitter.onError(e -> baja.run());
+
+        TransaccionResponseDTO actual;
+        try {
+            actual = transaccionService.obtenerPorId(idTransaccion);
+        } catch (RuntimeException e) {
+            baja.run();
+            throw e;
+        }
+        if (!enviar(emitter, actual, ultimoEstado)) {
+            baja.run();
+        }
+        return emitter;
+    }
+
+    @Override
+    public SseEmitter suscribirPorReferencia(String referencia) {
+        return suscribir(transaccionService.buscarPorReferencia(referencia).getIdTransaccion());
+    }
+
+    // false = no seguir suscrito
+    private static boolean enviar(SseEmitter emitter, TransaccionResponseDTO vista,
+            AtomicReference<EstadoTransaccion> ultimoEstado) {
+        if (vista.getEstado() != null && vista.getEstado() == ultimoEstado.getAndSet(vista.getEstado())) {
+            return true;
+        }
+        try {
+            emitter.send(SseEmitter.event().name("estado").id(String.valueOf(vista.getEstado())).data(vista));
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado o emisor ya completado por otro aviso
+            return false;
+        }
+        if (CacheTransaccionesFinales.esFinal(vista.getEstado())) {
+            emitter.complete();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public DeferredResult<TransaccionResponseDTO> esperarCambio(Integer idTransaccion, String estadoConocido) {
+        DeferredResult<TransaccionResponseDTO> resultado = new DeferredResult<>(timeoutEsperaMs);
+        AtomicReference<TransaccionResponseDTO> ultima = new AtomicReference<>();
+        Runnable baja = hubEstado.suscribir(idTransaccion, vista -> {
+            if (distinto(vista, estadoConocido)) {
+                resultado.setResult(vista);
+                return false;
+            }
+            ultima.set(vista);
+            return true;
+        });
+        resultado.onCompletion(baja);
+        // Al vencer se responde con lo último conocido (sin volver a leer): el cliente reintenta
+        resultado.onTimeout(() -> resultado.setResult(ultima.get()));
+
+        TransaccionResponseDTO actual;
+        try {
+            actual = transaccionService.obtenerPorId(idTransaccion);
+        } catch (RuntimeException e) {
+            baja.run();
+            throw e;
+        }
+        ultima.compareAndSet(null, actual);
+        if (distinto(actual, estadoConocido) || CacheTransaccionesFinales.esFinal(actual.getEstado())) {
+            resultado.setResult(actual);
+        }
+        return resultado;
+    }
+
+    private static boolean distinto(TransaccionResponseDTO vista, String estadoConocido) {
+        return estadoConocido == null || vista.getEstado() == null
+                || !estadoConocido.equalsIgnoreCase(vista.getEstado().name());
+    }
+}
@@ -4,12 +4,12 @@ import com.arcbank.cbs.transaccion.client.SwitchClient;
 import com.arcbank.cbs.transaccion.dto.SwitchDevolucionRequest;
 import com.arcbank.cbs.transaccion.dto.SwitchTransferRequest;
 import com.arcbank.cbs.transaccion.dto.TxRequest;
+import com.arcbank.cbs.transaccion.model.Dinero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.Map;
 import java.util.UUID;
 
@@ -117,7 +117,7 @@ public class SwitchClientService {
                 }
         }
 
-        public String enviarReverso(String originalInstructionId, String returnReason, BigDecimal amount,
+        public String enviarReverso(String originalInstructionId, String returnReason, Dinero amount,
                         String debtorName, String debtorAccount,
                         String creditorName, String creditorAccount, String targetBankId) {
                 log.info("Iniciando solicitud de reverso para Tx: {}", originalInstructionId);
@@ -149,7 +149,7 @@ public class SwitchClientService {
                         return response;
                 } catch (Exception e) {
                         log.error("Error al solicitar reverso (Switch rechazó): {}", e.getMessage());
-                        throw new RuntimeException("Switch rechazó el reverso: " + e.getMessage());
+                        throw new RuntimeException("Switch rechazó el reverso: " + e.getMessage(), e);
                 }
         }
 
@@ -192,12 +192,31 @@ public class SwitchClientService {
                 };
         }
 
+        // Distingue "el Switch no conoce la instrucción" (404) de "no se pudo consultar" (timeout, 5xx, plazo)
+        public enum ResultadoConsulta {
+                ENCONTRADA, NO_ENCONTRADA, FALLIDA
+        }
+
+        public record EstadoInstruccion(ResultadoConsulta resultado, Map<String, Object> datos) {
+                public String estado() {
+                        return datos != null && datos.get("estado") != null ? datos.get("estado").toString() : null;
+                }
+        }
+
         public java.util.Map<String, Object> consultarEstado(String instructionId) {
+                return consultarEstadoInstruccion(instructionId).datos();
+        }
+
+        public EstadoInstruccion consultarEstadoInstruccion(String instructionId) {
                 try {
-                        return switchClient.consultarEstado(instructionId);
+                        return new EstadoInstruccion(ResultadoConsulta.ENCONTRADA,
+                                        switchClient.consultarEstado(instructionId));
+                } catch (feign.FeignException.NotFound e) {
+                        log.info("El Switch no registra la instrucción {}", instructionId);
+                        return new EstadoInstruccion(ResultadoConsulta.NO_ENCONTRADA, null);
                 } catch (Exception e) {
                         log.warn("Error consultando estado de Tx {}: {}", instructionId, e.getMessage());
-                        return null;
+                        return new EstadoInstruccion(ResultadoConsulta.FALLIDA, null);
                 }
         }
 
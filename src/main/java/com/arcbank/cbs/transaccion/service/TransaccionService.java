@@ -1,21 +1,25 @@
 package com.arcbank.cbs.transaccion.service;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import com.arcbank.cbs.transaccion.dto.TransaccionRequestDTO;
 import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.model.Dinero;
 
 public interface TransaccionService {
 
         TransaccionResponseDTO crearTransaccion(TransaccionRequestDTO request);
 
-        List<TransaccionResponseDTO> obtenerPorCuenta(Integer idCuenta);
+        // Ítem de un lote: cuenta contra los límites de lote, no los de la cuenta y el canal
+        TransaccionResponseDTO crearTransaccionDeLote(TransaccionRequestDTO request);
+
+        List<TransaccionResponseDTO> obtenerPorCuenta(Integer idCuenta, LocalDateTime desde, LocalDateTime hasta);
 
         TransaccionResponseDTO obtenerPorId(Integer id);
 
         void procesarTransferenciaEntrante(String instructionId, String cuentaDestino,
-                        BigDecimal monto, String bancoOrigen);
+                        Dinero monto, String bancoOrigen);
 
         TransaccionResponseDTO solicitarDevolucion(Integer idTransaccion, String motivo);
 
@@ -1,23 +1,33 @@
 package com.arcbank.cbs.transaccion.service;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.arcbank.cbs.transaccion.client.CuentaCliente;
 import com.arcbank.cbs.transaccion.client.ClienteCliente;
 import com.arcbank.cbs.transaccion.client.SwitchClient;
+import com.arcbank.cbs.transaccion.config.ConsistenciaLectura;
 import com.arcbank.cbs.transaccion.dto.SaldoDTO;
 import com.arcbank.cbs.transaccion.dto.TransaccionRequestDTO;
 import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
 import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.model.CompensacionAjuste;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
 import com.arcbank.cbs.transaccion.model.Transaccion;
+import com.arcbank.cbs.transaccion.repository.CompensacionAjusteRepository;
 import com.arcbank.cbs.transaccion.repository.TransaccionRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -29,20 +39,39 @@ import lombok.extern.slf4j.Slf4j;
 public class TransaccionServiceImpl implements TransaccionService {
 
     private final TransaccionRepository transaccionRepository;
+    private final CompensacionAjusteRepository ajusteRepository;
     private final CuentaCliente cuentaCliente;
     private final ClienteCliente clienteCliente;
     private final SwitchClient switchClient;
     private final SwitchClientService switchClientService;
+    private final ConsistenciaLectura consistenciaLectura;
+    private final SagaTransferenciaSaliente sagaTransferencia;
+    private final CacheTransaccionesFinales cacheTransacciones;
+    private final MotorLimites motorLimites;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.banco.codigo:ARCBANK}")
     private String codigoBanco;
 
+    @Value("${app.historial.dias-por-defecto:0}")
+    private int diasHistorial;
+
+    // Sin @Transactional: el único acceso a BD es el save final y las llamadas remotas no retienen conexión
     @Override
-    @Transactional
     public TransaccionResponseDTO crearTransaccion(TransaccionRequestDTO request) {
+        return crear(request, false);
+    }
+
+    @Override
+    public TransaccionResponseDTO crearTransaccionDeLote(TransaccionRequestDTO request) {
+        return crear(request, true);
+    }
+
+    private TransaccionResponseDTO crear(TransaccionRequestDTO request, boolean lote) {
         log.info("Iniciando transacción Tipo: {} | Ref: {}", request.getTipoOperacion(), request.getReferencia());
 
-        String tipoOp = request.getTipoOperacion().toUpperCase();
+        TipoOperacion tipoOp = TipoOperacion.desde(request.getTipoOperacion())
+                .orElseThrow(() -> new BusinessException("Tipo no soportado: " + request.getTipoOperacion()));
 
         String referenciaUtil = request.getReferencia();
         // Garantizar UUID válido (36 chars) para cumplir con estándar del Switch
@@ -50,6 +79,36 @@ public class TransaccionServiceImpl implements TransaccionService {
             referenciaUtil = UUID.randomUUID().toString();
         }
 
+        // Reintento de una transacción local ya posteada: se devuelve la existente sin volver a mover saldo
+        // (las salidas interbancarias tienen su propia idempotencia en la saga)
+        boolean interbancaria = tipoOp.esSalidaInterbancaria();
+        if (!interbancaria) {
+            Optional<Transaccion> existente = transaccionRepository.findByReferencia(referenciaUtil);
+            if (existente.isPresent()) {
+                log.warn("Transacción duplicada ignorada, se devuelve la existente: {}", referenciaUtil);
+                return mapearADTO(existente.get(), null);
+            }
+        }
+
+        // Límites de velocidad y monto en memoria; la reserva se devuelve si el posteo no se completa
+        MotorLimites.Reserva reserva = motorLimites.verificarYReservar(
+                tipoOp.debitaOrigen() ? request.getIdCuentaOrigen() : null,
+                request.getCanal() != null ? request.getCanal() : "WEB",
+                interbancaria ? request.getIdBancoExterno() : null, request.getMonto(), lote);
+        try {
+            return ejecutarTransaccion(request, tipoOp, referenciaUtil, interbancaria);
+        } catch (RuntimeException e) {
+            motorLimites.liberar(reserva);
+            throw e;
+        }
+    }
+
+    private TransaccionResponseDTO ejecutarTransaccion(TransaccionRequestDTO request, TipoOperacion tipoOp,
+            String referenciaUtil, boolean interbancaria) {
+        if (interbancaria) {
+            return mapearADTO(sagaTransferencia.ejecutar(request, referenciaUtil, tipoOp), null);
+        }
+
         Transaccion trx = Transaccion.builder()
                 .referencia(referenciaUtil)
                 .tipoOperacion(tipoOp)
@@ -60,14 +119,13 @@ public class TransaccionServiceImpl implements TransaccionService {
                 .cuentaExterna(request.getCuentaExterna())
                 .idBancoExterno(request.getIdBancoExterno())
                 .idTransaccionReversa(request.getIdTransaccionReversa())
-                .estado("PENDIENTE")
+                .estado(EstadoTransaccion.PENDIENTE)
                 .build();
 
         try {
-            String nuevoEstado = "COMPLETADA"; // Default para operaciones locales
 
-            BigDecimal saldoImpactado = switch (tipoOp) {
-                case "DEPOSITO" -> {
+            Dinero saldoImpactado = switch (tipoOp) {
+                case DEPOSITO -> {
                     if (request.getIdCuentaDestino() == null)
                         throw new BusinessException("El DEPOSITO requiere una cuenta destino obligatoria.");
 
@@ -76,16 +134,16 @@ public class TransaccionServiceImpl implements TransaccionService {
                     yield procesarSaldo(trx.getIdCuentaDestino(), request.getMonto());
                 }
 
-                case "RETIRO" -> {
+                case RETIRO -> {
                     if (request.getIdCuentaOrigen() == null)
                         throw new BusinessException("El RETIRO requiere una cuenta origen obligatoria.");
 
                     trx.setIdCuentaOrigen(request.getIdCuentaOrigen());
                     trx.setIdCuentaDestino(null);
-                    yield procesarSaldo(trx.getIdCuentaOrigen(), request.getMonto().negate());
+                    yield procesarSaldo(trx.getIdCuentaOrigen(), request.getMonto().negar());
                 }
 
-                case "TRANSFERENCIA_INTERNA" -> {
+                case TRANSFERENCIA_INTERNA -> {
                     if (request.getIdCuentaOrigen() == null || request.getIdCuentaDestino() == null) {
                         throw new BusinessException(
                                 "La TRANSFERENCIA INTERNA requiere cuenta origen y cuenta destino.");
@@ -97,125 +155,13 @@ public class TransaccionServiceImpl implements TransaccionService {
                     trx.setIdCuentaOrigen(request.getIdCuentaOrigen());
                     trx.setIdCuentaDestino(request.getIdCuentaDestino());
 
-                    BigDecimal saldoOrigen = procesarSaldo(trx.getIdCuentaOrigen(), request.getMonto().negate());
-                    BigDecimal saldoDestino = procesarSaldo(trx.getIdCuentaDestino(), request.getMonto());
+                    Dinero saldoOrigen = procesarSaldo(trx.getIdCuentaOrigen(), request.getMonto().negar());
+                    Dinero saldoDestino = procesarSaldo(trx.getIdCuentaDestino(), request.getMonto());
                     trx.setSaldoResultanteDestino(saldoDestino);
                     yield saldoOrigen;
                 }
 
-                case "TRANSFERENCIA_SALIDA", "TRANSFERENCIA_INTERBANCARIA" -> {
-                    if (request.getIdCuentaOrigen() == null)
-                        throw new BusinessException("Falta cuenta origen.");
-                    if (request.getCuentaExterna() == null)
-                        throw new BusinessException("Falta cuenta destino externa.");
-
-                    trx.setIdCuentaOrigen(request.getIdCuentaOrigen());
-                    trx.setIdCuentaDestino(null);
-                    trx.setCuentaExterna(request.getCuentaExterna());
-                    trx.setIdBancoExterno(request.getIdBancoExterno());
-
-                    BigDecimal saldoOrigen = procesarSaldo(trx.getIdCuentaOrigen(), request.getMonto().negate());
-
-                    Map<String, Object> cuentaOrigenDetalles = obtenerDetallesCuenta(request.getIdCuentaOrigen());
-                    String numeroCuentaOrigen = cuentaOrigenDetalles != null
-                            && cuentaOrigenDetalles.get("numeroCuenta") != null
-                                    ? cuentaOrigenDetalles.get("numeroCuenta").toString()
-                                    : String.valueOf(request.getIdCuentaOrigen());
-
-                    String nombreOrigen = "Cliente Arcbank";
-                    if (cuentaOrigenDetalles != null && cuentaOrigenDetalles.get("nombreTitular") != null) {
-                        nombreOrigen = cuentaOrigenDetalles.get("nombreTitular").toString();
-                    }
-
-                    try {
-                        log.info("Enviando transferencia al switch: {}", request.getCuentaExterna());
-
-                        com.arcbank.cbs.transaccion.dto.TxRequest txRequest = com.arcbank.cbs.transaccion.dto.TxRequest
-                                .builder()
-                                .debtorAccount(numeroCuentaOrigen)
-                                .debtorName(nombreOrigen)
-                                .creditorAccount(request.getCuentaExterna())
-                                .creditorName(request.getNombreDestinatario() != null ? request.getNombreDestinatario()
-                                        : "Beneficiario")
-                                .targetBankId(
-                                        request.getIdBancoExterno() != null ? request.getIdBancoExterno() : "UNKNOWN")
-                                .amount(request.getMonto())
-                                .description(request.getDescripcion())
-                                .referenceId(trx.getReferencia())
-                                .build();
-
-                        Map<String, Object> respSwitch = switchClientService.enviarTransferencia(txRequest);
-
-                        if (respSwitch != null) {
-                            String refCode = (String) respSwitch.get("codigoReferencia");
-                            // Fallback check inside data
-                            if (refCode == null && respSwitch.get("data") instanceof Map) {
-                                refCode = (String) ((Map<?, ?>) respSwitch.get("data")).get("codigoReferencia");
-                            }
-                            if (refCode != null) {
-                                trx.setCodigoReferencia(refCode);
-                            }
-                        }
-
-                        // --- FIX: Verificar si el POST ya retornó estado final ---
-                        boolean confirmado = false;
-                        if (respSwitch != null) {
-                            String estadoInicial = (String) respSwitch.get("estado");
-                            if ("COMPLETED".equalsIgnoreCase(estadoInicial)) {
-                                log.info("Switch retornó COMPLETED en respuesta inicial. Omitiendo polling.");
-                                nuevoEstado = "COMPLETADA";
-                                confirmado = true;
-                            } else if ("FAILED".equalsIgnoreCase(estadoInicial)) {
-                                String errorMsg = respSwitch.getOrDefault("error", "Rechazo del Switch").toString();
-                                throw new RuntimeException(errorMsg);
-                            }
-                        }
-
-                        // --- Polling Síncrono solo si el estado inicial no es final ---
-                        if (!confirmado) {
-                            nuevoEstado = "PENDIENTE";
-
-                            // Máx 10 intentos de 1.5s = 15s timeout
-                            for (int i = 0; i < 10; i++) {
-                                try {
-                                    Thread.sleep(1500);
-                                } catch (InterruptedException ie) {
-                                    Thread.currentThread().interrupt();
-                                }
-
-                                Map<String, Object> estadoTx = switchClientService.consultarEstado(trx.getReferencia());
-                                if (estadoTx != null) {
-                                    // FIX: El Switch usa campo "estado", no "status"
-                                    String status = (String) estadoTx.get("estado");
-                                    if ("COMPLETED".equalsIgnoreCase(status)) {
-                                        nuevoEstado = "COMPLETADA";
-                                        confirmado = true;
-                                        break;
-                                    }
-                                    if ("FAILED".equalsIgnoreCase(status)) {
-                                        String errorMsg = (String) estadoTx.getOrDefault("error", "Rechazo del Switch");
-                                        throw new RuntimeException(errorMsg);
-                                    }
-                                    // Si es PENDING o RECEIVED, seguimos esperando
-                                }
-                            }
-
-                            if (!confirmado) {
-                                log.warn("Transferencia {} en TIMEOUT tras polling.", trx.getReferencia());
-                                // Se queda en PENDIENTE
-                            }
-                        }
-
-                    } catch (Exception e) {
-                        log.error("Error/Rechazo Switch: {}. Revertiendo.", e.getMessage());
-                        procesarSaldo(trx.getIdCuentaOrigen(), request.getMonto()); // Rollback
-                        throw new BusinessException("Transferencia fallida: " + e.getMessage());
-                    }
-
-                    yield saldoOrigen;
-                }
-
-                case "TRANSFERENCIA_ENTRADA" -> {
+                case TRANSFERENCIA_ENTRADA -> {
                     if (request.getIdCuentaDestino() == null)
                         throw new BusinessException("Falta cuenta destino.");
                     trx.setIdCuentaDestino(request.getIdCuentaDestino());
@@ -227,7 +173,7 @@ public class TransaccionServiceImpl implements TransaccionService {
             };
 
             trx.setSaldoResultante(saldoImpactado);
-            trx.setEstado(nuevoEstado);
+            trx.setEstado(EstadoTransaccion.COMPLETADA);
 
             Transaccion guardada = transaccionRepository.save(trx);
             log.info("Transacción guardada ID: {}", guardada.getIdTransaccion());
@@ -243,24 +189,34 @@ public class TransaccionServiceImpl implements TransaccionService {
     }
 
     @Override
-    public List<TransaccionResponseDTO> obtenerPorCuenta(Integer idCuenta) {
-        return transaccionRepository.findPorCuenta(idCuenta).stream()
-                .map(t -> mapearADTO(t, idCuenta))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<TransaccionResponseDTO> obtenerPorCuenta(Integer idCuenta, LocalDateTime desde, LocalDateTime hasta) {
+        // Sin 'desde' ni ventana por defecto (0) se devuelve el historial completo, como siempre
+        if (desde == null && diasHistorial <= 0) {
+            return hasta != null ? transaccionRepository.findResumenPorCuentaHasta(idCuenta, hasta)
+                    : transaccionRepository.findResumenPorCuentaCompleto(idCuenta);
+        }
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now().plusDays(1);
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(diasHistorial);
+        if (!inicio.isBefore(fin)) {
+            throw new BusinessException("El rango de fechas es inválido: 'desde' debe ser anterior a 'hasta'.");
+        }
+        return transaccionRepository.findResumenPorCuenta(idCuenta, inicio, fin);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public TransaccionResponseDTO obtenerPorId(Integer id) {
         if (id == null) {
             throw new BusinessException("El ID de la transacción no puede ser nulo.");
         }
-        Transaccion t = transaccionRepository.findById(id)
+        return cacheTransacciones.porId(id,
+                () -> consistenciaLectura.leer("id:" + id, () -> transaccionRepository.findResumenPorId(id)))
                 .orElseThrow(() -> new BusinessException("Transacción no encontrada con ID: " + id));
-        return mapearADTO(t, null);
     }
 
-    private BigDecimal procesarSaldo(Integer idCuenta, BigDecimal montoCambio) {
-        BigDecimal saldoActual;
+    private Dinero procesarSaldo(Integer idCuenta, Dinero montoCambio) {
+        Dinero saldoActual;
 
         try {
             saldoActual = cuentaCliente.obtenerSaldo(idCuenta);
@@ -272,9 +228,9 @@ public class TransaccionServiceImpl implements TransaccionService {
             throw new BusinessException("No se pudo validar la cuenta ID: " + idCuenta + ". Verifique que exista.");
         }
 
-        BigDecimal nuevoSaldo = saldoActual.add(montoCambio);
+        Dinero nuevoSaldo = saldoActual.sumar(montoCambio);
 
-        if (nuevoSaldo.compareTo(BigDecimal.ZERO) < 0) {
+        if (nuevoSaldo.esNegativo()) {
             throw new BusinessException(
                     "Fondos insuficientes en la cuenta ID: " + idCuenta + ". Saldo actual: " + saldoActual);
         }
@@ -289,7 +245,7 @@ public class TransaccionServiceImpl implements TransaccionService {
     }
 
     private TransaccionResponseDTO mapearADTO(Transaccion t, Integer idCuentaVisor) {
-        BigDecimal saldoAMostrar = t.getSaldoResultante() != null ? t.getSaldoResultante() : BigDecimal.ZERO;
+        Dinero saldoAMostrar = t.getSaldoResultante() != null ? t.getSaldoResultante() : Dinero.CERO;
 
         log.info("Mapeando Tx: {}, Visor: {}, Dest: {}, SaldoDest: {}",
                 t.getIdTransaccion(), idCuentaVisor, t.getIdCuentaDestino(), t.getSaldoResultanteDestino());
@@ -320,6 +276,39 @@ public class TransaccionServiceImpl implements TransaccionService {
                 .build();
     }
 
+    // Reclama la transacción para un reverso/devolución antes de mover dinero: el flush emite
+    // UPDATE ... WHERE "Estado" = <leído>, y un escritor concurrente espera a esta transacción y luego no
+    // encuentra la fila (ObjectOptimisticLockingFailureException, 409). Si algo falla después, el rollback
+    // devuelve el estado anterior.
+    private void reclamar(Transaccion trx, EstadoTransaccion destino) {
+        if (!trx.getEstado().permite(destino)) {
+            throw new BusinessException("La transacción está " + trx.getEstado() + " y no admite pasar a "
+                    + destino + ".");
+        }
+        trx.transicionarA(destino);
+        transaccionRepository.saveAndFlush(trx);
+    }
+
+    // Transición fuera de una transacción abierta: lectura y UPDATE condicionado en una transacción corta.
+    // false si el estado ya no era el esperado o si otro escritor se adelantó entre la lectura y el UPDATE.
+    private boolean aplicarTransicion(Integer id, EstadoTransaccion esperado, EstadoTransaccion destino) {
+        return aplicarCambio(id, esperado, destino, t -> t.transicionarA(destino));
+    }
+
+    private boolean aplicarCambio(Integer id, EstadoTransaccion esperado, EstadoTransaccion destino,
+            Predicate<Transaccion> cambio) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> transaccionRepository.findById(id)
+                    .filter(t -> t.getEstado() == esperado)
+                    .map(cambio::test)
+                    .orElse(false)));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.info("Tx {} cambió de estado antes de aplicar {} -> {}; se conserva el otro cambio", id, esperado,
+                    destino);
+            return false;
+        }
+    }
+
     private Map<String, Object> obtenerDetallesCuenta(Integer idCuenta) {
         try {
             return cuentaCliente.obtenerCuenta(idCuenta);
@@ -356,7 +345,7 @@ public class TransaccionServiceImpl implements TransaccionService {
     @Override
     @Transactional
     public void procesarTransferenciaEntrante(String instructionId, String cuentaDestino,
-            BigDecimal monto, String bancoOrigen) {
+            Dinero monto, String bancoOrigen) {
         log.info("📥 Procesando transferencia entrante desde {} a cuenta {}, monto: {}",
                 bancoOrigen, cuentaDestino, monto);
 
@@ -370,11 +359,11 @@ public class TransaccionServiceImpl implements TransaccionService {
             return;
         }
 
-        BigDecimal nuevoSaldo = procesarSaldo(idCuentaDestino, monto);
+        Dinero nuevoSaldo = procesarSaldo(idCuentaDestino, monto);
 
         Transaccion trx = Transaccion.builder()
                 .referencia(instructionId)
-                .tipoOperacion("TRANSFERENCIA_ENTRADA")
+                .tipoOperacion(TipoOperacion.TRANSFERENCIA_ENTRADA)
                 .idCuentaDestino(idCuentaDestino)
                 .idCuentaOrigen(null)
                 .cuentaExterna(cuentaDestino)
@@ -384,7 +373,7 @@ public class TransaccionServiceImpl implements TransaccionService {
                 .idBancoExterno(bancoOrigen)
                 .descripcion("Transferencia recibida desde " + bancoOrigen)
                 .canal("SWITCH")
-                .estado("COMPLETADA")
+                .estado(EstadoTransaccion.COMPLETADA)
                 .build();
 
         Transaccion guardada = transaccionRepository.save(trx);
@@ -397,46 +386,55 @@ public class TransaccionServiceImpl implements TransaccionService {
     }
 
     @Override
-    @Transactional
     public TransaccionResponseDTO solicitarDevolucion(Integer idTransaccion, String motivo) {
         log.info("Solicitando devolución para Tx ID: {} | Motivo: {}", idTransaccion, motivo);
 
-        Transaccion trx = transaccionRepository.findById(idTransaccion)
-                .orElseThrow(() -> new BusinessException("Transacción no encontrada con ID: " + idTransaccion));
-
-        return ejecutarSolicitudDevolucion(trx, motivo);
+        return ejecutarSolicitudDevolucion(() -> transaccionRepository.findById(idTransaccion)
+                .orElseThrow(() -> new BusinessException("Transacción no encontrada con ID: " + idTransaccion)),
+                motivo);
     }
 
     @Override
-    @Transactional
     public TransaccionResponseDTO solicitarDevolucionPorReferencia(String referencia, String motivo) {
         log.info("Solicitando devolución para Tx Ref: {} | Motivo: {}", referencia, motivo);
 
-        Transaccion trx = transaccionRepository.findByReferencia(referencia)
-                .orElseThrow(() -> new BusinessException("Transacción no encontrada con Referencia: " + referencia));
+        return ejecutarSolicitudDevolucion(() -> transaccionRepository.findByReferencia(referencia)
+                .orElseThrow(() -> new BusinessException("Transacción no encontrada con Referencia: " + referencia)),
+                motivo);
+    }
 
-        return ejecutarSolicitudDevolucion(trx, motivo);
+    // Sin @Transactional: el reclamo (-> REVERSANDO) se confirma en una transacción corta antes de llamar al
+    // Switch y a Cuentas, y el resultado se aplica después con un UPDATE condicionado a REVERSANDO. Un
+    // reverso concurrente ve REVERSANDO y se rechaza; si algo falla cuando el dinero ya se movió, la fila
+    // queda en REVERSANDO para revisión en vez de volver a COMPLETADA.
+    private TransaccionResponseDTO ejecutarSolicitudDevolucion(Supplier<Transaccion> buscar, String motivo) {
+        Transaccion trx = transactionTemplate.execute(status -> {
+            Transaccion t = buscar.get();
+            validarSolicitudDevolucion(t);
+            reclamar(t, EstadoTransaccion.REVERSANDO);
+            return t;
+        });
+
+        if (trx.getTipoOperacion().esSalidaInterbancaria()) {
+            return procesarReversoSalida(trx, motivo);
+        }
+        return procesarDevolucionIniciada(trx, motivo);
     }
 
-    private TransaccionResponseDTO ejecutarSolicitudDevolucion(Transaccion trx, String motivo) {
+    private static void validarSolicitudDevolucion(Transaccion trx) {
         if (trx.getFechaCreacion().isBefore(java.time.LocalDateTime.now().minusHours(24))) {
             throw new BusinessException("El tiempo límite de 24h para devoluciones ha expirado.");
         }
 
-        if ("REVERSADA".equals(trx.getEstado()) || "DEVUELTA".equals(trx.getEstado())) {
+        if (trx.getEstado() == EstadoTransaccion.REVERSADA || trx.getEstado() == EstadoTransaccion.DEVUELTA) {
             throw new BusinessException("Esta transacción ya fue reversada o devuelta.");
         }
+        if (trx.getEstado() == EstadoTransaccion.REVERSANDO) {
+            throw new BusinessException("Esta transacción ya tiene un reverso o devolución en curso.");
+        }
 
-        if ("TRANSFERENCIA_SALIDA".equals(trx.getTipoOperacion())
-                || "TRANSFERENCIA_INTERBANCARIA".equals(trx.getTipoOperacion())) {
-
-            return procesarReversoSalida(trx, motivo);
-
-        } else if ("TRANSFERENCIA_ENTRADA".equals(trx.getTipoOperacion())) {
-
-            return procesarDevolucionIniciada(trx, motivo);
-
-        } else {
+        if (!trx.getTipoOperacion().esSalidaInterbancaria()
+                && trx.getTipoOperacion() != TipoOperacion.TRANSFERENCIA_ENTRADA) {
             throw new BusinessException(
                     "Solo se pueden devolver transferencias interbancarias (Entrada o Salida). Tipo actual: "
                             + trx.getTipoOperacion());
@@ -462,21 +460,32 @@ public class TransaccionServiceImpl implements TransaccionService {
                     trx.getCuentaExterna(),
                     trx.getIdBancoExterno());
         } catch (Exception e) {
-            throw new BusinessException("El Switch rechazó la solicitud de reverso: " + e.getMessage());
+            if (rechazoDefinitivo(e)) {
+                liberarReclamo(trx);
+                throw new BusinessException("El Switch rechazó la solicitud de reverso: " + e.getMessage());
+            }
+            log.error("🚨 Reverso de Tx {} sin respuesta clara del Switch, queda REVERSANDO para revisión: {}",
+                    trx.getIdTransaccion(), e.getMessage());
+            throw new BusinessException("No se pudo confirmar el reverso con el Switch; queda en revisión.");
         }
 
-        procesarSaldo(trx.getIdCuentaOrigen(), trx.getMonto());
+        try {
+            procesarSaldo(trx.getIdCuentaOrigen(), trx.getMonto());
+        } catch (BusinessException e) {
+            // El Switch ya aceptó el reverso: la transacción no puede volver a COMPLETADA
+            log.error("🚨 Reverso de Tx {} aceptado por el Switch pero el crédito en Cuentas falló, queda "
+                    + "REVERSANDO para revisión: {}", trx.getIdTransaccion(), e.getMessage());
+            throw new BusinessException("Reverso aceptado por el Switch; el crédito a la cuenta quedó en revisión.");
+        }
 
-        trx.setEstado("REVERSADA");
-        Transaccion guardada = transaccionRepository.save(trx);
-        return mapearADTO(guardada, null);
+        return completarReclamo(trx, EstadoTransaccion.REVERSADA);
     }
 
     private TransaccionResponseDTO procesarDevolucionIniciada(Transaccion trx, String motivo) {
-
         try {
-            procesarSaldo(trx.getIdCuentaDestino(), trx.getMonto().negate());
+            procesarSaldo(trx.getIdCuentaDestino(), trx.getMonto().negar());
         } catch (Exception e) {
+            liberarReclamo(trx);
             throw new BusinessException("No hay saldo suficiente para devolver la transacción.");
         }
 
@@ -492,19 +501,61 @@ public class TransaccionServiceImpl implements TransaccionService {
                     "Banco Origen Original",
                     "UNKNOWN",
                     trx.getIdBancoExterno());
-
-            trx.setEstado("DEVUELTA");
-            Transaccion guardada = transaccionRepository.save(trx);
-            log.info("Devolución aceptada por Switch y procesada localmente. TxID: {}", trx.getIdTransaccion());
-            return mapearADTO(guardada, null);
-
         } catch (Exception e) {
+            if (!rechazoDefinitivo(e)) {
+                log.error("🚨 Devolución de Tx {} sin respuesta clara del Switch, queda REVERSANDO para "
+                        + "revisión: {}", trx.getIdTransaccion(), e.getMessage());
+                throw new BusinessException("No se pudo confirmar la devolución con el Switch; queda en revisión.");
+            }
             log.error("Fallo al enviar devolución al Switch: {}. Haciendo Rollback.", e.getMessage());
+            try {
+                procesarSaldo(trx.getIdCuentaDestino(), trx.getMonto());
+            } catch (BusinessException be) {
+                log.error("🚨 Devolución de Tx {} rechazada por el Switch y sin re-acreditar, queda REVERSANDO "
+                        + "para revisión: {}", trx.getIdTransaccion(), be.getMessage());
+                throw new BusinessException("El Switch rechazó la devolución y el reintegro quedó en revisión.");
+            }
+            liberarReclamo(trx);
+            throw new BusinessException("El Switch rechazó la devolución: " + e.getMessage());
+        }
 
-            procesarSaldo(trx.getIdCuentaDestino(), trx.getMonto());
+        log.info("Devolución aceptada por Switch y procesada localmente. TxID: {}", trx.getIdTransaccion());
+        return completarReclamo(trx, EstadoTransaccion.DEVUELTA);
+    }
 
-            throw new BusinessException("El Switch rechazó la devolución: " + e.getMessage());
+    // Solo una respuesta 4xx del Switch prueba que no aplicó el reverso; un timeout o un 5xx es ambiguo
+    private static boolean rechazoDefinitivo(Exception e) {
+        return e.getCause() instanceof feign.FeignException fe && fe.status() >= 400 && fe.status() < 500;
+    }
+
+    // El reverso no se aplicó en ningún lado: la transacción vuelve a COMPLETADA
+    private void liberarReclamo(Transaccion trx) {
+        if (aplicarCambio(trx.getIdTransaccion(), EstadoTransaccion.REVERSANDO, EstadoTransaccion.COMPLETADA,
+                Transaccion::liberarReclamo)) {
+            trx.setEstado(EstadoTransaccion.COMPLETADA);
+        }
+    }
+
+    // La contrapartida se anota en la misma transacción: el corte de compensación siguiente la incluye
+    // aunque el original ya se haya compensado como COMPLETADA (ver V21)
+    private TransaccionResponseDTO completarReclamo(Transaccion trx, EstadoTransaccion destino) {
+        if (aplicarCambio(trx.getIdTransaccion(), EstadoTransaccion.REVERSANDO, destino, t -> {
+            if (!t.transicionarA(destino)) {
+                return false;
+            }
+            ajusteRepository.save(CompensacionAjuste.builder()
+                    .idTransaccion(t.getIdTransaccion())
+                    .fechaCreacion(t.getFechaCreacion())
+                    .fechaAjuste(LocalDateTime.now())
+                    .build());
+            return true;
+        })) {
+            trx.setEstado(destino);
+        } else {
+            log.error("🚨 Tx {} dejó de estar REVERSANDO antes de pasar a {}, requiere revisión",
+                    trx.getIdTransaccion(), destino);
         }
+        return mapearADTO(trx, null);
     }
 
     @Override
@@ -519,7 +570,7 @@ public class TransaccionServiceImpl implements TransaccionService {
             returnInstructionId = java.util.UUID.randomUUID().toString();
         }
 
-        BigDecimal amount = request.getBody().getReturnAmount().getValue();
+        Dinero amount = request.getBody().getReturnAmount().getValue();
         String motivo = request.getBody().getReturnReason();
         // Mapeo: header.originatingBankId -> IdBancoExterno
         String originatingBank = request.getHeader().getOriginatingBankId();
@@ -542,29 +593,45 @@ public class TransaccionServiceImpl implements TransaccionService {
         log.info("🔄 Procesando devolución entrante (pacs.004). Original: {}, ReturnID: {}",
                 originalInstructionId, returnInstructionId);
 
+        // La devolución de una salida que la saga aún espera prueba que el Switch la liquidó: la saga la confirma
+        // (transacción COMPLETADA, débito ya aplicado) y la devolución se aplica sobre ese estado. Si la saga
+        // está compensando, al terminar queda FALLIDA y la devolución se ignora: el ordenante se reintegra una vez
+        transaccionRepository.findResumenPorReferencia(originalInstructionId)
+                .filter(t -> t.getEstado() == EstadoTransaccion.PENDIENTE
+                        && t.getTipoOperacion().esSalidaInterbancaria())
+                .ifPresent(t -> log.info("Devolución de la salida pendiente {}: confirmación por la saga ({})",
+                        originalInstructionId,
+                        sagaTransferencia.aplicarReporteEstado(originalInstructionId, true, null)));
+
         Transaccion trxOriginal = transaccionRepository.findByReferencia(originalInstructionId)
                 .orElseThrow(
                         () -> new BusinessException("Transacción original no encontrada: " + originalInstructionId));
 
-        if ("REVERSADA".equals(trxOriginal.getEstado()) || "DEVUELTA".equals(trxOriginal.getEstado())) {
-            log.warn("Transacción ya procesada como reversada: {}", trxOriginal.getIdTransaccion());
+        EstadoTransaccion estadoOriginal = trxOriginal.getEstado();
+        if (estadoOriginal == EstadoTransaccion.PENDIENTE || estadoOriginal == EstadoTransaccion.REVERSANDO) {
+            // Saga a mitad de un paso o reverso propio en curso: la bandeja de entrada reintenta más tarde
+            throw new BusinessException("La transacción original " + originalInstructionId + " sigue "
+                    + estadoOriginal + ".");
+        }
+        if (!estadoOriginal.permite(EstadoTransaccion.REVERSADA)) {
+            log.warn("Transacción {} en estado {}: la devolución no se aplica", trxOriginal.getIdTransaccion(),
+                    estadoOriginal);
             return;
         }
 
         Integer idCuentaAfectada;
-        BigDecimal montoImpacto;
+        Dinero montoImpacto;
         boolean esReversoDeEntrada = false;
 
-        if ("TRANSFERENCIA_SALIDA".equals(trxOriginal.getTipoOperacion()) ||
-                "TRANSFERENCIA_INTERBANCARIA".equals(trxOriginal.getTipoOperacion())) {
+        if (trxOriginal.getTipoOperacion().esSalidaInterbancaria()) {
 
             idCuentaAfectada = trxOriginal.getIdCuentaOrigen();
             montoImpacto = amount;
 
-        } else if ("TRANSFERENCIA_ENTRADA".equals(trxOriginal.getTipoOperacion())) {
+        } else if (trxOriginal.getTipoOperacion() == TipoOperacion.TRANSFERENCIA_ENTRADA) {
 
             idCuentaAfectada = trxOriginal.getIdCuentaDestino();
-            montoImpacto = amount.negate();
+            montoImpacto = amount.negar();
             esReversoDeEntrada = true;
 
         } else {
@@ -573,13 +640,17 @@ public class TransaccionServiceImpl implements TransaccionService {
             return;
         }
 
-        BigDecimal nuevoSaldo = procesarSaldo(idCuentaAfectada, montoImpacto);
+        // Primero el UPDATE condicionado: una devolución duplicada concurrente pierde aquí, antes de mover saldo
+        trxOriginal.setDescripcion(trxOriginal.getDescripcion() + " [R]");
+        reclamar(trxOriginal, EstadoTransaccion.REVERSADA);
+
+        Dinero nuevoSaldo = procesarSaldo(idCuentaAfectada, montoImpacto);
 
         Transaccion.TransaccionBuilder reversoBuilder = Transaccion.builder()
                 .referencia(returnInstructionId) // ✅ SOLUCION ERROR DUPLICATE KEY
                 .idTransaccionReversa(trxOriginal.getIdTransaccion()) // ✅ Link a original
-                .tipoOperacion("REVERSO") // ✅ Constante
-                .estado("COMPLETADA")
+                .tipoOperacion(TipoOperacion.REVERSO) // ✅ Constante
+                .estado(EstadoTransaccion.COMPLETADA)
                 .monto(amount)
                 .saldoResultante(nuevoSaldo)
                 .idBancoExterno(originatingBank)
@@ -600,10 +671,6 @@ public class TransaccionServiceImpl implements TransaccionService {
         Transaccion trxReverso = reversoBuilder.build();
         transaccionRepository.save(trxReverso);
 
-        trxOriginal.setEstado("REVERSADA");
-        trxOriginal.setDescripcion(trxOriginal.getDescripcion() + " [R]");
-        transaccionRepository.save(trxOriginal);
-
         log.info("✅ Devolución procesada exitosamente. Nueva TxID: {}", trxReverso.getIdTransaccion());
     }
 
@@ -613,17 +680,19 @@ public class TransaccionServiceImpl implements TransaccionService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public String consultarEstadoPorInstructionId(String instructionId) {
-        return transaccionRepository.findByReferencia(instructionId)
-                .map(t -> {
-                    String estado = t.getEstado();
-                    if ("COMPLETADA".equalsIgnoreCase(estado))
-                        return "COMPLETED";
-                    if ("PENDIENTE".equalsIgnoreCase(estado))
-                        return "PENDING";
-                    if ("REVERSADA".equalsIgnoreCase(estado))
-                        return "REVERSED";
-                    return estado;
+        // El Switch sondea este estado repetidamente: una vez final se responde desde memoria
+        return cacheTransacciones.porReferencia(instructionId,
+                () -> consistenciaLectura.leer("ref:" + instructionId,
+                        () -> transaccionRepository.findResumenPorReferencia(instructionId)))
+                .map(t -> switch (t.getEstado()) {
+                    case COMPLETADA -> "COMPLETED";
+                    case PENDIENTE -> "PENDING";
+                    case REVERSADA -> "REVERSED";
+                    // El reverso aún no se liquidó
+                    case REVERSANDO -> "COMPLETED";
+                    default -> t.getEstado().name();
                 })
                 .orElse("NOT_FOUND");
     }
@@ -672,21 +741,24 @@ public class TransaccionServiceImpl implements TransaccionService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public TransaccionResponseDTO buscarPorReferencia(String referencia) {
-        Transaccion tx = transaccionRepository.findByReferencia(referencia)
+        return cacheTransacciones.porReferencia(referencia,
+                () -> consistenciaLectura.leer("ref:" + referencia,
+                        () -> transaccionRepository.findResumenPorReferencia(referencia)))
                 .orElseThrow(() -> new BusinessException("Transacción no encontrada con referencia: " + referencia));
-        return mapearADTO(tx, null);
     }
 
     @Override
     public Map<String, Object> buscarPorCodigoReferencia(String codigoReferencia) {
         log.info("Buscando transacción por código de referencia: {}", codigoReferencia);
-        Transaccion tx = transaccionRepository.findByCodigoReferencia(codigoReferencia)
+        Integer idTransaccion = cacheTransacciones.idPorCodigo(codigoReferencia,
+                () -> transaccionRepository.findIdPorCodigoReferencia(codigoReferencia))
                 .orElseThrow(() -> new BusinessException(
                         "Transacción no encontrada con código de referencia: " + codigoReferencia));
 
         // Reutilizamos la lógica completa de detalle (validaciones, switch, cliente)
-        return obtenerDetallePorId(tx.getIdTransaccion());
+        return obtenerDetallePorId(idTransaccion);
     }
 
     @Override
@@ -696,8 +768,7 @@ public class TransaccionServiceImpl implements TransaccionService {
                 .orElseThrow(() -> new BusinessException("Transacción no encontrada con referencia: " + referencia));
 
         // 2. Validar que sea una transacción saliente interbancaria (reversible)
-        boolean esReversible = tx.getTipoOperacion() != null &&
-                (tx.getTipoOperacion().contains("SALIDA") || tx.getTipoOperacion().contains("INTERBANCARIA"));
+        boolean esReversible = tx.getTipoOperacion() != null && tx.getTipoOperacion().esSalidaInterbancaria();
 
         // 3. Validar que esté dentro del rango de 24 horas
         java.time.LocalDateTime ahora = java.time.LocalDateTime.now();
@@ -705,11 +776,8 @@ public class TransaccionServiceImpl implements TransaccionService {
         long horasTranscurridas = java.time.Duration.between(fechaTx, ahora).toHours();
         boolean dentroDe24H = horasTranscurridas <= 24;
 
-        // 4. Validar estado (no reversada, no devuelta, no fallida)
-        boolean estadoValido = tx.getEstado() != null &&
-                !tx.getEstado().equals("REVERSADA") &&
-                !tx.getEstado().equals("DEVUELTA") &&
-                !tx.getEstado().equals("FALLIDA");
+        // 4. Validar estado (la tabla de transiciones admite el reverso)
+        boolean estadoValido = tx.getEstado() != null && tx.getEstado().permite(EstadoTransaccion.REVERSANDO);
 
         // 5. Construir respuesta con todos los datos
         java.util.Map<String, Object> detalle = new java.util.HashMap<>();
@@ -764,21 +832,20 @@ public class TransaccionServiceImpl implements TransaccionService {
                     estadoSwitch = resultadoSwitch.get("status").toString();
                     log.info("Estado en Switch para Tx {}: {}", tx.getIdTransaccion(), estadoSwitch);
 
-                    // Si el Switch dice COMPLETED pero la BD dice PENDIENTE, actualizar
-                    if ("COMPLETED".equalsIgnoreCase(estadoSwitch) && "PENDIENTE".equals(tx.getEstado())) {
-                        tx.setEstado("COMPLETADA");
-                        transaccionRepository.save(tx);
-                        estadoActualizado = true;
-                        log.info("Estado actualizado a COMPLETADA para Tx {} basado en respuesta del Switch",
-                                tx.getIdTransaccion());
-                    }
-                    // Si el Switch dice FAILED pero la BD no lo refleja
-                    else if ("FAILED".equalsIgnoreCase(estadoSwitch) && !"FALLIDA".equals(tx.getEstado())) {
-                        tx.setEstado("FALLIDA");
-                        transaccionRepository.save(tx);
-                        estadoActualizado = true;
-                        log.info("Estado actualizado a FALLIDA para Tx {} basado en respuesta del Switch",
-                                tx.getIdTransaccion());
+                    // Un resultado final del Switch se entrega a la saga (débito, compensación y pasos
+                    // registrados); las transacciones sin saga solo informan el estado remoto
+                    boolean completada = "COMPLETED".equalsIgnoreCase(estadoSwitch);
+                    if ((completada || "FAILED".equalsIgnoreCase(estadoSwitch))
+                            && tx.getTipoOperacion() != null && tx.getTipoOperacion().esSalidaInterbancaria()
+                            && tx.getEstado() == EstadoTransaccion.PENDIENTE) {
+                        SagaTransferenciaSaliente.ResultadoReporte resultado = sagaTransferencia.aplicarReporteEstado(
+                                tx.getReferencia(), completada, completada ? null : "Rechazo del Switch (consulta)");
+                        estadoActualizado = resultado == SagaTransferenciaSaliente.ResultadoReporte.APLICADO;
+                        if (estadoActualizado) {
+                            log.info("Reporte {} del Switch aplicado a la saga de Tx {}", estadoSwitch,
+                                    tx.getIdTransaccion());
+                            tx = transaccionRepository.findById(id).orElse(tx);
+                        }
                     }
                 }
             } catch (Exception e) {
@@ -788,8 +855,7 @@ public class TransaccionServiceImpl implements TransaccionService {
         }
 
         // 3. Validar que sea una transacción saliente interbancaria (reversible)
-        boolean esReversible = tx.getTipoOperacion() != null &&
-                (tx.getTipoOperacion().contains("SALIDA") || tx.getTipoOperacion().contains("INTERBANCARIA"));
+        boolean esReversible = tx.getTipoOperacion() != null && tx.getTipoOperacion().esSalidaInterbancaria();
 
         // 4. Validar que esté dentro del rango de 24 horas
         java.time.LocalDateTime ahora = java.time.LocalDateTime.now();
@@ -797,11 +863,8 @@ public class TransaccionServiceImpl implements TransaccionService {
         long horasTranscurridas = java.time.Duration.between(fechaTx, ahora).toHours();
         boolean dentroDe24H = horasTranscurridas <= 24;
 
-        // 5. Validar estado (no reversada, no devuelta, no fallida)
-        boolean estadoValido = tx.getEstado() != null &&
-                !tx.getEstado().equals("REVERSADA") &&
-                !tx.getEstado().equals("DEVUELTA") &&
-                !tx.getEstado().equals("FALLIDA");
+        // 5. Validar estado (la tabla de transiciones admite el reverso)
+        boolean estadoValido = tx.getEstado() != null && tx.getEstado().permite(EstadoTransaccion.REVERSANDO);
 
         // 5. Obtener nombre del ordenante (cuenta origen -> cliente)
         String nombreOrdenante = "No disponible";
@@ -0,0 +1,21 @@
+package com.arcbank.cbs.transaccion.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Formato de la clave de idempotencia de los ítems de un lote: un UUID canónico de 36 caracteres, que es lo
+ * que exige el Switch como instructionId. En un lote una clave con otro formato se rechaza; sustituirla en
+ * silencio haría que la reanudación o el reintento del cliente ejecute el ítem otra vez.
+ */
+public final class ReferenciaIdempotencia {
+
+    private static final Pattern UUID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private ReferenciaIdempotencia() {
+    }
+
+    public static boolean esValida(String referencia) {
+        return referencia != null && UUID.matcher(referencia).matches();
+    }
+}
@@ -0,0 +1,69 @@
+-- V10: Índices secundarios para búsquedas puntuales y trabajo pendiente
+--
+-- En la tabla particionada un índice local sobre codigo_referencia obliga a sondear todas las
+-- particiones (una búsqueda por partición). Igual que "TransaccionReferencia" (V6), el código se
+-- mantiene en una tabla global cuyo PK resuelve (IdTransaccion, FechaCreacion) en O(log n) y
+-- lleva directo a la partición correcta. El código lo asigna el Switch y puede repetirse.
+
+CREATE TABLE public."TransaccionCodigo" (
+    "CodigoReferencia" VARCHAR(6) NOT NULL,
+    "IdTransaccion"    INTEGER NOT NULL,
+    "FechaCreacion"    TIMESTAMP NOT NULL,
+    CONSTRAINT "PK_TransaccionCodigo" PRIMARY KEY ("CodigoReferencia", "IdTransaccion")
+);
+
+INSERT INTO public."TransaccionCodigo" ("CodigoReferencia", "IdTransaccion", "FechaCreacion")
+SELECT codigo_referencia, "IdTransaccion", "FechaCreacion" FROM public."Transaccion"
+WHERE codigo_referencia IS NOT NULL;
+
+-- El archivado de particiones limpia las tablas globales por rango de fecha
+CREATE INDEX "IX_TransaccionCodigo_FechaCreacion" ON public."TransaccionCodigo" ("FechaCreacion");
+CREATE INDEX "IX_TransaccionReferencia_FechaCreacion" ON public."TransaccionReferencia" ("FechaCreacion");
+
+CREATE OR REPLACE FUNCTION public.fn_transaccion_unicidad() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        IF OLD."Referencia" IS NOT NULL AND (TG_OP = 'DELETE' OR NEW."Referencia" IS DISTINCT FROM OLD."Referencia") THEN
+            DELETE FROM public."TransaccionReferencia" WHERE "Referencia" = OLD."Referencia";
+        END IF;
+        IF OLD."IdTransaccionReversa" IS NOT NULL
+           AND (TG_OP = 'DELETE' OR NEW."IdTransaccionReversa" IS DISTINCT FROM OLD."IdTransaccionReversa") THEN
+            DELETE FROM public."TransaccionReversoUnico" WHERE "IdTransaccionReversa" = OLD."IdTransaccionReversa";
+        END IF;
+        IF OLD.codigo_referencia IS NOT NULL
+           AND (TG_OP = 'DELETE' OR NEW.codigo_referencia IS DISTINCT FROM OLD.codigo_referencia) THEN
+            DELETE FROM public."TransaccionCodigo"
+            WHERE "CodigoReferencia" = OLD.codigo_referencia AND "IdTransaccion" = OLD."IdTransaccion";
+        END IF;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        RETURN OLD;
+    END IF;
+
+    -- Una violación de PK aquí aborta el INSERT/UPDATE igual que el UNIQUE original
+    IF NEW."Referencia" IS NOT NULL AND (TG_OP = 'INSERT' OR NEW."Referencia" IS DISTINCT FROM OLD."Referencia") THEN
+        INSERT INTO public."TransaccionReferencia" ("Referencia", "IdTransaccion", "FechaCreacion")
+        VALUES (NEW."Referencia", NEW."IdTransaccion", NEW."FechaCreacion");
+    END IF;
+    IF NEW."IdTransaccionReversa" IS NOT NULL
+       AND (TG_OP = 'INSERT' OR NEW."IdTransaccionReversa" IS DISTINCT FROM OLD."IdTransaccionReversa") THEN
+        INSERT INTO public."TransaccionReversoUnico" ("IdTransaccionReversa", "IdTransaccion")
+        VALUES (NEW."IdTransaccionReversa", NEW."IdTransaccion");
+    END IF;
+    IF NEW.codigo_referencia IS NOT NULL
+       AND (TG_OP = 'INSERT' OR NEW.codigo_referencia IS DISTINCT FROM OLD.codigo_referencia) THEN
+        INSERT INTO public."TransaccionCodigo" ("CodigoReferencia", "IdTransaccion", "FechaCreacion")
+        VALUES (NEW.codigo_referencia, NEW."IdTransaccion", NEW."FechaCreacion");
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Trabajo pendiente (conciliación con el Switch): solo las filas PENDIENTE, que son pocas
+CREATE INDEX "IX_Transaccion_Pendiente" ON public."Transaccion" ("FechaCreacion")
+    WHERE "Estado" = 'PENDIENTE';
+
+-- Movimientos por banco externo en un rango (compensación, conciliación por contraparte)
+CREATE INDEX "IX_Transaccion_BancoExterno_Fecha" ON public."Transaccion" ("IdBancoExterno", "FechaCreacion")
+    WHERE "IdBancoExterno" IS NOT NULL;
@@ -0,0 +1,20 @@
+-- V11: Agregados diarios por cuenta, tipo de operación y sentido (débito/crédito)
+-- Se mantienen de forma incremental en la misma transacción de cada posteo (upsert); las cuentas
+-- muy activas acumulan en memoria y se vuelcan cada segundo. El job nocturno reconstruye el día
+-- anterior desde "Transaccion" y corrige cualquier desvío (por ejemplo, un buffer perdido en una caída).
+-- Cuentan los estados en los que el dinero se movió: PENDIENTE, COMPLETADA, REVERSADA, DEVUELTA.
+
+CREATE TABLE public."AgregadoDiarioCuenta" (
+    "IdCuenta"           INTEGER NOT NULL,
+    "Fecha"              DATE NOT NULL,
+    "TipoOperacion"      VARCHAR(30) NOT NULL,
+    "Sentido"            VARCHAR(7) NOT NULL CHECK ("Sentido" IN ('DEBITO', 'CREDITO')),
+    "Cantidad"           INTEGER NOT NULL DEFAULT 0,
+    "Total"              NUMERIC(18,2) NOT NULL DEFAULT 0,
+    "FechaActualizacion" TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT "PK_AgregadoDiarioCuenta" PRIMARY KEY ("IdCuenta", "Fecha", "TipoOperacion", "Sentido")
+);
+
+-- Reconstrucción y purga por día
+CREATE INDEX "IX_AgregadoDiarioCuenta_Fecha" ON public."AgregadoDiarioCuenta" ("Fecha");
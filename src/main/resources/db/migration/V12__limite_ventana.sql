@@ -0,0 +1,19 @@
+-- V12: Checkpoint de los contadores de límites (MotorLimites)
+--
+-- Un bucket por clave (cuenta, cuenta+canal o banco externo), ventana y tramo de tiempo:
+-- Ventana 'H' = buckets de un minuto (límite por hora), 'D' = buckets de una hora (límite diario).
+-- "Bucket" es el número de tramo desde epoch; "FechaBucket" su inicio, para precarga y purga.
+-- Cada réplica suma aquí sus incrementos y relee el total, que incluye lo de las demás.
+
+CREATE TABLE public."LimiteVentana" (
+    "Clave"         VARCHAR(80) NOT NULL,
+    "Ventana"       CHAR(1) NOT NULL,
+    "Bucket"        BIGINT NOT NULL,
+    "FechaBucket"   TIMESTAMP NOT NULL,
+    "MontoCentavos" BIGINT NOT NULL DEFAULT 0,
+    "Cantidad"      INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT "PK_LimiteVentana" PRIMARY KEY ("Clave", "Ventana", "Bucket"),
+    CONSTRAINT "CHK_LimiteVentana_Ventana" CHECK ("Ventana" IN ('H', 'D'))
+);
+
+CREATE INDEX "IX_LimiteVentana_FechaBucket" ON public."LimiteVentana" ("FechaBucket");
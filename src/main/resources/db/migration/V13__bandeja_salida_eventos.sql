@@ -0,0 +1,28 @@
+-- V13: Bandeja de salida (outbox) de eventos de transacción
+-- El evento se inserta en la misma transacción que el cambio de "Transaccion"; un relay lo publica
+-- en RabbitMQ con confirmación del broker y marca "FechaPublicacion". Lo no publicado sobrevive a reinicios.
+-- Orden por cuenta: cada cuenta cae siempre en la misma "Particion" y cada partición la publica un solo
+-- relay del clúster (advisory lock), en orden de "IdEvento".
+
+CREATE TABLE public."EventoSalida" (
+    "IdEvento"         BIGSERIAL PRIMARY KEY,
+    "TipoEvento"       VARCHAR(30) NOT NULL
+                       CHECK ("TipoEvento" IN ('TRANSACCION_CREADA', 'TRANSACCION_COMPLETADA',
+                                               'TRANSACCION_FALLIDA', 'TRANSACCION_REVERSADA')),
+    "IdTransaccion"    INTEGER NOT NULL,
+    "ClaveOrden"       VARCHAR(40) NOT NULL,          -- Cuenta (origen, o destino si no hay origen)
+    "Particion"        SMALLINT NOT NULL,
+    "Payload"          TEXT NOT NULL,
+    "FechaCreacion"    TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "FechaPublicacion" TIMESTAMP NULL
+);
+
+-- Cola del relay: solo lo pendiente de publicar
+CREATE INDEX "IX_EventoSalida_Pendientes"
+ON public."EventoSalida"("Particion", "IdEvento")
+WHERE "FechaPublicacion" IS NULL;
+
+-- Purga de lo ya publicado
+CREATE INDEX "IX_EventoSalida_FechaPublicacion"
+ON public."EventoSalida"("FechaPublicacion")
+WHERE "FechaPublicacion" IS NOT NULL;
@@ -0,0 +1,9 @@
+-- V14: Membresía de réplicas para el reparto de shards de créditos entrantes (ver AsignadorShardsCredito)
+-- Cada nodo renueva su "UltimoLatido" periódicamente; los que no lo renuevan dentro del TTL dejan de contar
+-- y sus shards pasan a los demás. Se usa el reloj de la BD en escritura y lectura: sin desfase entre pods.
+
+CREATE TABLE public."NodoActivo" (
+    "Nodo"          VARCHAR(100) PRIMARY KEY,     -- app.nodo.id (por defecto HOSTNAME del pod)
+    "FechaAlta"     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "UltimoLatido"  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,17 @@
+-- V15: Leases de trabajos programados (ver CoordinadorTrabajos)
+-- Una fila por (trabajo, shard): la ejecuta solo el nodo que tiene el lease vigente. Cada adquisición toma
+-- un "Token" nuevo de la secuencia (fencing): quien perdió el lease ya no coincide al verificarlo y no
+-- puede escribir aunque siga corriendo. Los tiempos usan el reloj de la BD.
+
+CREATE SEQUENCE public."SEQ_TrabajoLease_Token";
+
+CREATE TABLE public."TrabajoLease" (
+    "Trabajo"           VARCHAR(60) NOT NULL,
+    "Shard"             INTEGER NOT NULL,
+    "Nodo"              VARCHAR(100) NOT NULL,
+    "Token"             BIGINT NOT NULL,
+    "Vence"             TIMESTAMP NOT NULL,
+    "FechaAdquisicion"  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT "PK_TrabajoLease" PRIMARY KEY ("Trabajo", "Shard")
+);
@@ -0,0 +1,9 @@
+-- V16: Estado REVERSANDO (ver EstadoTransaccion)
+-- Un reverso o devolución pedido por nosotros se reclama y confirma antes de llamar al Switch y a Cuentas;
+-- el resultado se aplica después con un UPDATE condicionado a REVERSANDO.
+
+ALTER TABLE public."Transaccion" DROP CONSTRAINT IF EXISTS "Transaccion_Estado_check";
+
+ALTER TABLE public."Transaccion"
+    ADD CONSTRAINT "Transaccion_Estado_check"
+    CHECK ("Estado" IN ('COMPLETADA', 'FALLIDA', 'REVERTIDA', 'REVERSADA', 'DEVUELTA', 'PENDIENTE', 'REVERSANDO'));
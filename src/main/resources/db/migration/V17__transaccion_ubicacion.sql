@@ -0,0 +1,66 @@
+-- V17: Ubicación global de cada transacción por su Id
+--
+-- El PK de "Transaccion" es (IdTransaccion, FechaCreacion): una búsqueda solo por IdTransaccion (findById,
+-- detalle, UPDATE de estado) sondea el índice de todas las particiones. Igual que "TransaccionReferencia"
+-- (V6) y "TransaccionCodigo" (V10), esta tabla resuelve la FechaCreacion y lleva a una sola partición.
+
+CREATE TABLE public."TransaccionUbicacion" (
+    "IdTransaccion" INTEGER NOT NULL,
+    "FechaCreacion" TIMESTAMP NOT NULL,
+    CONSTRAINT "PK_TransaccionUbicacion" PRIMARY KEY ("IdTransaccion")
+);
+
+INSERT INTO public."TransaccionUbicacion" ("IdTransaccion", "FechaCreacion")
+SELECT "IdTransaccion", "FechaCreacion" FROM public."Transaccion";
+
+-- El archivado de particiones la limpia por rango de fecha, como las demás tablas globales
+CREATE INDEX "IX_TransaccionUbicacion_FechaCreacion" ON public."TransaccionUbicacion" ("FechaCreacion");
+
+CREATE OR REPLACE FUNCTION public.fn_transaccion_unicidad() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        IF OLD."Referencia" IS NOT NULL AND (TG_OP = 'DELETE' OR NEW."Referencia" IS DISTINCT FROM OLD."Referencia") THEN
+            DELETE FROM public."TransaccionReferencia" WHERE "Referencia" = OLD."Referencia";
+        END IF;
+        IF OLD."IdTransaccionReversa" IS NOT NULL
+           AND (TG_OP = 'DELETE' OR NEW."IdTransaccionReversa" IS DISTINCT FROM OLD."IdTransaccionReversa") THEN
+            DELETE FROM public."TransaccionReversoUnico" WHERE "IdTransaccionReversa" = OLD."IdTransaccionReversa";
+        END IF;
+        IF OLD.codigo_referencia IS NOT NULL
+           AND (TG_OP = 'DELETE' OR NEW.codigo_referencia IS DISTINCT FROM OLD.codigo_referencia) THEN
+            DELETE FROM public."TransaccionCodigo"
+            WHERE "CodigoReferencia" = OLD.codigo_referencia AND "IdTransaccion" = OLD."IdTransaccion";
+        END IF;
+        IF TG_OP = 'DELETE' THEN
+            DELETE FROM public."TransaccionUbicacion" WHERE "IdTransaccion" = OLD."IdTransaccion";
+        END IF;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        RETURN OLD;
+    END IF;
+
+    -- IdTransaccion y FechaCreacion no cambian después del INSERT
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO public."TransaccionUbicacion" ("IdTransaccion", "FechaCreacion")
+        VALUES (NEW."IdTransaccion", NEW."FechaCreacion");
+    END IF;
+
+    -- Una violación de PK aquí aborta el INSERT/UPDATE igual que el UNIQUE original
+    IF NEW."Referencia" IS NOT NULL AND (TG_OP = 'INSERT' OR NEW."Referencia" IS DISTINCT FROM OLD."Referencia") THEN
+        INSERT INTO public."TransaccionReferencia" ("Referencia", "IdTransaccion", "FechaCreacion")
+        VALUES (NEW."Referencia", NEW."IdTransaccion", NEW."FechaCreacion");
+    END IF;
+    IF NEW."IdTransaccionReversa" IS NOT NULL
+       AND (TG_OP = 'INSERT' OR NEW."IdTransaccionReversa" IS DISTINCT FROM OLD."IdTransaccionReversa") THEN
+        INSERT INTO public."TransaccionReversoUnico" ("IdTransaccionReversa", "IdTransaccion")
+        VALUES (NEW."IdTransaccionReversa", NEW."IdTransaccion");
+    END IF;
+    IF NEW.codigo_referencia IS NOT NULL
+       AND (TG_OP = 'INSERT' OR NEW.codigo_referencia IS DISTINCT FROM OLD.codigo_referencia) THEN
+        INSERT INTO public."TransaccionCodigo" ("CodigoReferencia", "IdTransaccion", "FechaCreacion")
+        VALUES (NEW.codigo_referencia, NEW."IdTransaccion", NEW."FechaCreacion");
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
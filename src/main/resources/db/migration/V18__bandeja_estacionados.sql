@@ -0,0 +1,13 @@
+-- V18: Mensajes estacionados en la bandeja de entrada
+-- Una devolución (pacs.004) que agota sus reintentos no tiene a quién rechazarse: queda ESTACIONADO para
+-- revisión y se reactiva a mano (POST /api/mensajeria/bandeja/reproceso) en vez de perderse como FALLIDO.
+
+ALTER TABLE public."BandejaEntrada" DROP CONSTRAINT IF EXISTS "BandejaEntrada_Estado_check";
+
+ALTER TABLE public."BandejaEntrada"
+    ADD CONSTRAINT "BandejaEntrada_Estado_check"
+    CHECK ("Estado" IN ('PENDIENTE', 'PROCESANDO', 'PROCESADO', 'FALLIDO', 'ESTACIONADO'));
+
+CREATE INDEX "IX_BandejaEntrada_Estacionados"
+ON public."BandejaEntrada"("IdMensaje")
+WHERE "Estado" = 'ESTACIONADO';
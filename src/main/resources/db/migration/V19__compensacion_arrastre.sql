@@ -0,0 +1,13 @@
+-- V19: Movimientos interbancarios que seguían PENDIENTE al generar su corte
+-- Cada ventana se corta una sola vez; una salida que el Switch confirma después no aparecía en ningún corte.
+-- El corte anota aquí sus pendientes y el siguiente incluye las que ya se liquidaron (y las quita).
+
+CREATE TABLE public."CompensacionArrastre" (
+    "IdTransaccion"  INTEGER NOT NULL,
+    "FechaCreacion"  TIMESTAMP NOT NULL,             -- Lleva a la partición de "Transaccion"
+    "IdCorteOrigen"  INTEGER NOT NULL REFERENCES public."CompensacionCorte"("IdCorte"),
+
+    CONSTRAINT "PK_CompensacionArrastre" PRIMARY KEY ("IdTransaccion")
+);
+
+CREATE INDEX "IX_CompensacionArrastre_FechaCreacion" ON public."CompensacionArrastre" ("FechaCreacion");
@@ -0,0 +1,13 @@
+-- V20: Ítems de lote en revisión
+-- Un ítem que quedó en PROCESANDO sin transacción registrada (caída a mitad del posteo) no se re-ejecuta al
+-- reanudar el lote: pasa a REVISION y el lote sigue abierto hasta que un operador lo resuelva.
+
+ALTER TABLE public."LoteTransaccionItem" DROP CONSTRAINT IF EXISTS "LoteTransaccionItem_Estado_check";
+
+ALTER TABLE public."LoteTransaccionItem"
+    ADD CONSTRAINT "LoteTransaccionItem_Estado_check"
+    CHECK ("Estado" IN ('PENDIENTE', 'PROCESANDO', 'COMPLETADA', 'FALLIDA', 'RECHAZADA', 'REVISION'));
+
+CREATE INDEX "IX_LoteItem_Revision"
+ON public."LoteTransaccionItem"("IdLote", "Secuencia")
+WHERE "Estado" = 'REVISION';
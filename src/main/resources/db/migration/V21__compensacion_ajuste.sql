@@ -0,0 +1,18 @@
+-- V21: Reversos y devoluciones propios posteriores al corte del movimiento original
+-- Una salida COMPLETADA en el corte N que pasa a REVERSADA después (o una entrada que devolvemos) no volvía
+-- a aparecer en ningún corte. Al completar el reverso se anota aquí, en la misma transacción; el siguiente
+-- corte incluye la contrapartida y la marca con su IdCorte. El original ya no la cuenta por su estado.
+
+CREATE TABLE public."CompensacionAjuste" (
+    "IdTransaccion"  INTEGER NOT NULL,
+    "FechaCreacion"  TIMESTAMP NOT NULL,             -- Lleva a la partición de "Transaccion"
+    "FechaAjuste"    TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "IdCorte"        INTEGER NULL REFERENCES public."CompensacionCorte"("IdCorte"),
+
+    CONSTRAINT "PK_CompensacionAjuste" PRIMARY KEY ("IdTransaccion")
+);
+
+CREATE INDEX "IX_CompensacionAjuste_SinCorte" ON public."CompensacionAjuste" ("IdTransaccion")
+WHERE "IdCorte" IS NULL;
+
+CREATE INDEX "IX_CompensacionAjuste_FechaCreacion" ON public."CompensacionAjuste" ("FechaCreacion");
@@ -0,0 +1,44 @@
+-- V4: Lotes de transferencias masivas (nómina / pago a proveedores)
+-- Cada lote persiste sus ítems antes de ejecutarse para poder reanudarlo tras una caída.
+
+CREATE TABLE public."LoteTransaccion" (
+    "IdLote"              SERIAL PRIMARY KEY,
+    "ReferenciaLote"      VARCHAR(64) UNIQUE,       -- Idempotencia del lote completo (la envía el cliente)
+    "Estado"              VARCHAR(20) NOT NULL
+                          CHECK ("Estado" IN ('EN_PROCESO', 'COMPLETADO')),
+    "TotalItems"          INTEGER NOT NULL,
+    "Exitosos"            INTEGER NOT NULL DEFAULT 0,
+    "Fallidos"            INTEGER NOT NULL DEFAULT 0,
+    "Rechazados"          INTEGER NOT NULL DEFAULT 0,
+    "Canal"               VARCHAR(20),
+    "FechaCreacion"       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "FechaActualizacion"  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "FechaFinalizacion"   TIMESTAMP NULL
+);
+
+CREATE TABLE public."LoteTransaccionItem" (
+    "IdItem"              BIGSERIAL PRIMARY KEY,
+    "IdLote"              INTEGER NOT NULL REFERENCES public."LoteTransaccion"("IdLote"),
+    "Secuencia"           INTEGER NOT NULL,
+    "ClaveIdempotencia"   VARCHAR(50) NOT NULL,         -- Se usa como Referencia de la Transaccion
+    "Payload"             TEXT NOT NULL,                -- TransaccionRequestDTO serializado
+    "Estado"              VARCHAR(20) NOT NULL
+                          CHECK ("Estado" IN ('PENDIENTE', 'PROCESANDO', 'COMPLETADA', 'FALLIDA', 'RECHAZADA')),
+    "IdTransaccion"       INTEGER NULL,
+    "Error"               VARCHAR(500) NULL,
+    "FechaProceso"        TIMESTAMP NULL,
+
+    CONSTRAINT "UX_LoteItem_Secuencia" UNIQUE ("IdLote", "Secuencia")
+);
+
+-- Reanudación: ítems no terminados de un lote
+CREATE INDEX "IX_LoteItem_Pendientes"
+ON public."LoteTransaccionItem"("IdLote", "Secuencia")
+WHERE "Estado" IN ('PENDIENTE', 'PROCESANDO');
+
+CREATE INDEX "IX_LoteItem_Clave"
+ON public."LoteTransaccionItem"("ClaveIdempotencia");
+
+CREATE INDEX "IX_Lote_EnProceso"
+ON public."LoteTransaccion"("FechaActualizacion")
+WHERE "Estado" = 'EN_PROCESO';
@@ -0,0 +1,37 @@
+-- V5: Cortes de compensación interbancaria (fin de día)
+-- Un corte por ventana; las posiciones netas se guardan junto al corte para
+-- poder reanudar el envío por bloques sin recalcular.
+
+CREATE TABLE public."CompensacionCorte" (
+    "IdCorte"             SERIAL PRIMARY KEY,
+    "FechaInicio"         TIMESTAMP NOT NULL,
+    "FechaFin"            TIMESTAMP NOT NULL,
+    "Estado"              VARCHAR(20) NOT NULL
+                          CHECK ("Estado" IN ('GENERADO', 'ENVIADO')),
+    "TotalMovimientos"    BIGINT NOT NULL DEFAULT 0,
+    "TotalBloques"        INTEGER NOT NULL DEFAULT 0,
+    "BloquesEnviados"     INTEGER NOT NULL DEFAULT 0,
+    "PosicionNetaTotal"   NUMERIC(18,2) NOT NULL DEFAULT 0,
+    "UltimoError"         VARCHAR(500) NULL,
+    "FechaCreacion"       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "FechaActualizacion"  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT "UX_CompensacionCorte_Ventana" UNIQUE ("FechaInicio", "FechaFin")
+);
+
+CREATE TABLE public."CompensacionPosicion" (
+    "IdPosicion"          SERIAL PRIMARY KEY,
+    "IdCorte"             INTEGER NOT NULL REFERENCES public."CompensacionCorte"("IdCorte"),
+    "BancoContraparte"    VARCHAR(20) NOT NULL,
+    "CantidadEnviada"     BIGINT NOT NULL DEFAULT 0,
+    "TotalEnviado"        NUMERIC(18,2) NOT NULL DEFAULT 0,
+    "CantidadRecibida"    BIGINT NOT NULL DEFAULT 0,
+    "TotalRecibido"       NUMERIC(18,2) NOT NULL DEFAULT 0,
+    "PosicionNeta"        NUMERIC(18,2) NOT NULL DEFAULT 0, -- Recibido - Enviado (positivo: la contraparte nos debe)
+
+    CONSTRAINT "UX_CompensacionPosicion_Banco" UNIQUE ("IdCorte", "BancoContraparte")
+);
+
+-- Lectura por ventana de los movimientos interbancarios
+CREATE INDEX IF NOT EXISTS "IX_Transaccion_FechaCreacion"
+ON public."Transaccion"("FechaCreacion");
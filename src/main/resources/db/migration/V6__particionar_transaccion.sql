@@ -0,0 +1,151 @@
+-- V6: Particionamiento nativo por rango mensual de "FechaCreacion"
+--
+-- PostgreSQL solo admite UNIQUE en tablas particionadas si incluye la clave de partición, así que:
+--   * La PK pasa a ("IdTransaccion", "FechaCreacion").
+--   * La unicidad global de "Referencia" se mantiene en "TransaccionReferencia" (también sirve de
+--     índice global para resolver la partición de una referencia sin recorrerlas todas).
+--   * "UX_Transaccion_UnReversoPorOriginal" pasa a ser la PK de "TransaccionReversoUnico".
+--   Ambas tablas se mantienen con un trigger AFTER sobre "Transaccion".
+--   * La FK "FK_Transaccion_Reversa" no puede apuntar a "IdTransaccion" (ya no es único por sí solo) y se elimina.
+-- Las particiones futuras las crea GestorParticiones; "Transaccion_default" recoge cualquier fecha sin partición.
+
+-- 1. Apartar la tabla actual conservando su secuencia
+ALTER TABLE public."Transaccion" RENAME TO "Transaccion_legacy";
+ALTER SEQUENCE public."Transaccion_IdTransaccion_seq" OWNED BY NONE;
+
+-- 2. Tabla particionada con las mismas columnas y reglas
+CREATE TABLE public."Transaccion" (
+    "IdTransaccion"          INTEGER NOT NULL DEFAULT nextval('public."Transaccion_IdTransaccion_seq"'),
+    "Referencia"             VARCHAR(50),
+    "IdTransaccionReversa"   INTEGER NULL,
+    "TipoOperacion"          VARCHAR(30) NOT NULL,
+    "IdCuentaOrigen"         INTEGER NULL,
+    "IdCuentaDestino"        INTEGER NULL,
+    "SaldoResultanteDestino" NUMERIC(15,2) NULL,
+    "CuentaExterna"          VARCHAR(50) NULL,
+    "IdBancoExterno"         VARCHAR(20) NULL,
+    "Monto"                  NUMERIC(15,2) NOT NULL CHECK ("Monto" > 0),
+    "SaldoResultante"        NUMERIC(15,2) NULL,
+    "FechaCreacion"          TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    "Descripcion"            VARCHAR(255),
+    "Canal"                  VARCHAR(20) DEFAULT 'WEB'
+                             CHECK ("Canal" IN ('WEB', 'MOVIL', 'VENTANILLA', 'SWITCH', 'ATM')),
+    "IdSucursal"             INTEGER,
+    "Estado"                 VARCHAR(20) DEFAULT 'COMPLETADA' NOT NULL,
+    codigo_referencia        VARCHAR(6),
+
+    CONSTRAINT "PK_Transaccion" PRIMARY KEY ("IdTransaccion", "FechaCreacion"),
+
+    CONSTRAINT "Transaccion_Estado_check"
+        CHECK ("Estado" IN ('COMPLETADA', 'FALLIDA', 'REVERTIDA', 'REVERSADA', 'DEVUELTA', 'PENDIENTE')),
+
+    CONSTRAINT "Transaccion_TipoOperacion_check"
+        CHECK ("TipoOperacion" IN (
+            'DEPOSITO', 'RETIRO', 'TRANSFERENCIA_INTERNA',
+            'TRANSFERENCIA_SALIDA', 'TRANSFERENCIA_ENTRADA',
+            'PAGO_SERVICIOS', 'REVERSO',
+            'DEVOLUCION_RECIBIDA', 'REVERSO_DEBITO'
+        )),
+
+    CONSTRAINT "CK_Transaccion_LogicaFlujo" CHECK (
+        ("TipoOperacion" IN ('RETIRO', 'TRANSFERENCIA_SALIDA') AND "IdCuentaOrigen" IS NOT NULL)
+        OR ("TipoOperacion" IN ('DEPOSITO', 'TRANSFERENCIA_ENTRADA') AND "IdCuentaDestino" IS NOT NULL)
+        OR ("TipoOperacion" = 'TRANSFERENCIA_INTERNA' AND "IdCuentaOrigen" IS NOT NULL AND "IdCuentaDestino" IS NOT NULL)
+        OR ("TipoOperacion" = 'REVERSO' AND "IdTransaccionReversa" IS NOT NULL)
+        OR ("TipoOperacion" IN ('DEVOLUCION_RECIBIDA', 'REVERSO_DEBITO'))
+    )
+) PARTITION BY RANGE ("FechaCreacion");
+
+CREATE TABLE public."Transaccion_default" PARTITION OF public."Transaccion" DEFAULT;
+
+-- 3. Particiones mensuales desde el dato más antiguo hasta 3 meses adelante
+DO $$
+DECLARE
+    mes   DATE := date_trunc('month', COALESCE((SELECT MIN("FechaCreacion") FROM public."Transaccion_legacy"), now()))::date;
+    hasta DATE := (date_trunc('month', now()) + INTERVAL '4 months')::date;
+BEGIN
+    WHILE mes < hasta LOOP
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public."Transaccion" FOR VALUES FROM (%L) TO (%L)',
+                       'Transaccion_p' || to_char(mes, 'YYYYMM'), mes, (mes + INTERVAL '1 month')::date);
+        mes := (mes + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+-- 4. Copiar datos
+INSERT INTO public."Transaccion" (
+    "IdTransaccion", "Referencia", "IdTransaccionReversa", "TipoOperacion", "IdCuentaOrigen", "IdCuentaDestino",
+    "SaldoResultanteDestino", "CuentaExterna", "IdBancoExterno", "Monto", "SaldoResultante", "FechaCreacion",
+    "Descripcion", "Canal", "IdSucursal", "Estado", codigo_referencia)
+SELECT
+    "IdTransaccion", "Referencia", "IdTransaccionReversa", "TipoOperacion", "IdCuentaOrigen", "IdCuentaDestino",
+    "SaldoResultanteDestino", "CuentaExterna", "IdBancoExterno", "Monto", "SaldoResultante", "FechaCreacion",
+    "Descripcion", "Canal", "IdSucursal", "Estado", codigo_referencia
+FROM public."Transaccion_legacy";
+
+-- 5. Unicidad global fuera de la tabla particionada
+CREATE TABLE public."TransaccionReferencia" (
+    "Referencia"     VARCHAR(50) NOT NULL,
+    "IdTransaccion"  INTEGER NOT NULL,
+    "FechaCreacion"  TIMESTAMP NOT NULL,
+    CONSTRAINT "UX_Transaccion_Referencia" PRIMARY KEY ("Referencia")
+);
+
+INSERT INTO public."TransaccionReferencia" ("Referencia", "IdTransaccion", "FechaCreacion")
+SELECT "Referencia", "IdTransaccion", "FechaCreacion" FROM public."Transaccion_legacy" WHERE "Referencia" IS NOT NULL;
+
+DROP TABLE public."Transaccion_legacy";
+
+CREATE TABLE public."TransaccionReversoUnico" (
+    "IdTransaccionReversa" INTEGER NOT NULL,
+    "IdTransaccion"        INTEGER NOT NULL,
+    CONSTRAINT "UX_Transaccion_UnReversoPorOriginal" PRIMARY KEY ("IdTransaccionReversa")
+);
+
+INSERT INTO public."TransaccionReversoUnico" ("IdTransaccionReversa", "IdTransaccion")
+SELECT "IdTransaccionReversa", "IdTransaccion" FROM public."Transaccion" WHERE "IdTransaccionReversa" IS NOT NULL;
+
+SELECT setval('public."Transaccion_IdTransaccion_seq"',
+              COALESCE((SELECT MAX("IdTransaccion") FROM public."Transaccion"), 0) + 1, false);
+
+CREATE OR REPLACE FUNCTION public.fn_transaccion_unicidad() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        IF OLD."Referencia" IS NOT NULL AND (TG_OP = 'DELETE' OR NEW."Referencia" IS DISTINCT FROM OLD."Referencia") THEN
+            DELETE FROM public."TransaccionReferencia" WHERE "Referencia" = OLD."Referencia";
+        END IF;
+        IF OLD."IdTransaccionReversa" IS NOT NULL
+           AND (TG_OP = 'DELETE' OR NEW."IdTransaccionReversa" IS DISTINCT FROM OLD."IdTransaccionReversa") THEN
+            DELETE FROM public."TransaccionReversoUnico" WHERE "IdTransaccionReversa" = OLD."IdTransaccionReversa";
+        END IF;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        RETURN OLD;
+    END IF;
+
+    -- Una violación de PK aquí aborta el INSERT/UPDATE igual que el UNIQUE original
+    IF NEW."Referencia" IS NOT NULL AND (TG_OP = 'INSERT' OR NEW."Referencia" IS DISTINCT FROM OLD."Referencia") THEN
+        INSERT INTO public."TransaccionReferencia" ("Referencia", "IdTransaccion", "FechaCreacion")
+        VALUES (NEW."Referencia", NEW."IdTransaccion", NEW."FechaCreacion");
+    END IF;
+    IF NEW."IdTransaccionReversa" IS NOT NULL
+       AND (TG_OP = 'INSERT' OR NEW."IdTransaccionReversa" IS DISTINCT FROM OLD."IdTransaccionReversa") THEN
+        INSERT INTO public."TransaccionReversoUnico" ("IdTransaccionReversa", "IdTransaccion")
+        VALUES (NEW."IdTransaccionReversa", NEW."IdTransaccion");
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER "TRG_Transaccion_Unicidad"
+AFTER INSERT OR UPDATE OR DELETE ON public."Transaccion"
+FOR EACH ROW EXECUTE FUNCTION public.fn_transaccion_unicidad();
+
+-- 6. Índices locales (se propagan a cada partición)
+CREATE INDEX "IX_Transaccion_Referencia" ON public."Transaccion" ("Referencia");
+CREATE INDEX "IX_Transaccion_CuentaOrigen" ON public."Transaccion" ("IdCuentaOrigen", "FechaCreacion");
+CREATE INDEX "IX_Transaccion_CuentaDestino" ON public."Transaccion" ("IdCuentaDestino", "FechaCreacion");
+CREATE INDEX "IX_Transaccion_Reversa" ON public."Transaccion" ("IdTransaccionReversa")
+    WHERE "IdTransaccionReversa" IS NOT NULL;
+-- Datos de solo-inserción ordenados por fecha: BRIN es diminuto y suficiente para rangos dentro de una partición
+CREATE INDEX "IX_Transaccion_FechaCreacion" ON public."Transaccion" USING BRIN ("FechaCreacion");
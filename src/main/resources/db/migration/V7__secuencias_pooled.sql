@@ -0,0 +1,19 @@
+-- V7: IDs por secuencia con asignación en bloques (Hibernate "pooled", allocationSize = 50)
+--
+-- Con IDENTITY Hibernate necesita el INSERT inmediato para conocer la clave y no puede agrupar en batch.
+-- Con incremento 50 cada nextval reserva el rango (valor - 49 .. valor] para un nodo.
+-- Los INSERT manuales que usan el DEFAULT nextval siguen siendo válidos: solo consumen el valor tope
+-- de un bloque que Hibernate nunca recibirá.
+-- El setval deja el próximo valor en MAX + 50 para que el primer bloque no pise IDs existentes.
+
+ALTER SEQUENCE public."Transaccion_IdTransaccion_seq" INCREMENT BY 50;
+SELECT setval('public."Transaccion_IdTransaccion_seq"',
+              COALESCE((SELECT MAX("IdTransaccion") FROM public."Transaccion"), 0) + 50, false);
+
+ALTER SEQUENCE public."LoteTransaccionItem_IdItem_seq" INCREMENT BY 50;
+SELECT setval('public."LoteTransaccionItem_IdItem_seq"',
+              COALESCE((SELECT MAX("IdItem") FROM public."LoteTransaccionItem"), 0) + 50, false);
+
+ALTER SEQUENCE public."CompensacionPosicion_IdPosicion_seq" INCREMENT BY 50;
+SELECT setval('public."CompensacionPosicion_IdPosicion_seq"',
+              COALESCE((SELECT MAX("IdPosicion") FROM public."CompensacionPosicion"), 0) + 50, false);
@@ -0,0 +1,40 @@
+-- V8: Saga de transferencias salientes (débito -> envío al Switch -> confirmación | compensación)
+-- Cada paso se confirma en su propia transacción corta; las llamadas remotas ocurren entre pasos.
+-- Tras una caída, el worker de recuperación retoma desde el último paso registrado.
+
+CREATE TABLE public."SagaTransferencia" (
+    "IdSaga"               SERIAL PRIMARY KEY,
+    "IdTransaccion"        INTEGER NOT NULL,
+    "Referencia"           VARCHAR(50) NOT NULL,
+    "IdCuentaOrigen"       INTEGER NOT NULL,
+    "Monto"                NUMERIC(15,2) NOT NULL,
+    "Payload"              TEXT NOT NULL,                 -- TransaccionRequestDTO serializado
+    "Paso"                 VARCHAR(20) NOT NULL
+                           CHECK ("Paso" IN ('INICIADA', 'DEBITANDO', 'DEBITADA', 'ENVIANDO', 'ENVIADA',
+                                             'CONFIRMADA', 'COMPENSANDO', 'COMPENSADA', 'FALLIDA', 'REVISION')),
+    "SaldoAntesMovimiento" NUMERIC(15,2) NULL,            -- Saldo leído antes del PUT en curso (débito o compensación)
+    "SaldoResultante"      NUMERIC(15,2) NULL,
+    "CodigoReferencia"     VARCHAR(6) NULL,
+    "Intentos"             INTEGER NOT NULL DEFAULT 0,
+    "UltimoError"          VARCHAR(500) NULL,
+    "FechaCreacion"        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "FechaActualizacion"   TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT "UX_SagaTransferencia_Referencia" UNIQUE ("Referencia")
+);
+
+-- Recuperación: solo sagas no terminadas
+CREATE INDEX "IX_SagaTransferencia_Activas"
+ON public."SagaTransferencia"("FechaActualizacion")
+WHERE "Paso" NOT IN ('CONFIRMADA', 'COMPENSADA', 'FALLIDA', 'REVISION');
+
+-- Bitácora durable de pasos (solo inserción)
+CREATE TABLE public."SagaPaso" (
+    "IdPaso"    BIGSERIAL PRIMARY KEY,
+    "IdSaga"    INTEGER NOT NULL REFERENCES public."SagaTransferencia"("IdSaga"),
+    "Paso"      VARCHAR(20) NOT NULL,
+    "Detalle"   VARCHAR(500) NULL,
+    "Fecha"     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX "IX_SagaPaso_Saga" ON public."SagaPaso"("IdSaga", "IdPaso");
@@ -0,0 +1,29 @@
+-- V9: Bandeja de entrada (inbox) para webhooks del Switch (pacs.008 / pacs.004)
+-- El webhook solo valida e inserta (una sentencia) y responde ACK; un worker acredita después.
+-- Orden por cuenta: un mensaje solo se procesa cuando no quedan anteriores pendientes con la misma ClaveOrden.
+
+CREATE TABLE public."BandejaEntrada" (
+    "IdMensaje"          BIGSERIAL PRIMARY KEY,
+    "InstructionId"      VARCHAR(50) NOT NULL,         -- Idempotencia ante reintentos del Switch
+    "Tipo"               VARCHAR(10) NOT NULL CHECK ("Tipo" IN ('PACS008', 'PACS004')),
+    "ClaveOrden"         VARCHAR(60) NOT NULL,         -- Cuenta destino (pacs.008) u original (pacs.004)
+    "Payload"            TEXT NOT NULL,
+    "Estado"             VARCHAR(20) NOT NULL DEFAULT 'PENDIENTE'
+                         CHECK ("Estado" IN ('PENDIENTE', 'PROCESANDO', 'PROCESADO', 'FALLIDO')),
+    "Intentos"           INTEGER NOT NULL DEFAULT 0,
+    "ProximoIntento"     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "UltimoError"        VARCHAR(500) NULL,
+    "FechaRecepcion"     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "FechaProceso"       TIMESTAMP NULL,
+
+    CONSTRAINT "UX_BandejaEntrada_InstructionId" UNIQUE ("InstructionId")
+);
+
+-- Cola: solo mensajes no terminados
+CREATE INDEX "IX_BandejaEntrada_Pendientes"
+ON public."BandejaEntrada"("IdMensaje")
+WHERE "Estado" IN ('PENDIENTE', 'PROCESANDO');
+
+CREATE INDEX "IX_BandejaEntrada_Orden"
+ON public."BandejaEntrada"("ClaveOrden", "IdMensaje")
+WHERE "Estado" IN ('PENDIENTE', 'PROCESANDO');
@@ -0,0 +1,59 @@
+package com.arcbank.cbs.transaccion;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Medición para los benchmarks que necesitan BD o contexto de Spring y no caben en un fork de JMH (ver
+ * MicrobenchmarksTests): calentamiento, varias rondas, mejor ronda en tiempo y en bytes asignados por operación
+ * en el hilo actual. El resultado de cada operación se consume para que el JIT no la descarte.
+ */
+@Slf4j
+public final class Medicion {
+
+	@FunctionalInterface
+	public interface Operacion {
+		Object ejecutar() throws Exception;
+	}
+
+	public record Resultado(String nombre, double nanosPorOperacion, long bytesPorOperacion) {
+	}
+
+	private static volatile int sumidero;
+
+	private Medicion() {
+	}
+
+	public static Resultado medir(String nombre, int calentamiento, int rondas, int operaciones, Operacion operacion)
+			throws Exception {
+		ThreadMXBean hilos = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long hilo = Thread.currentThread().threadId();
+		for (int i = 0; i < calentamiento; i++) {
+			consumir(operacion.ejecutar());
+		}
+
+		double mejorNanos = Double.MAX_VALUE;
+		long mejorBytes = Long.MAX_VALUE;
+		for (int r = 0; r < rondas; r++) {
+			long bytes = hilos.getThreadAllocatedBytes(hilo);
+			long inicio = System.nanoTime();
+			for (int i = 0; i < operaciones; i++) {
+				consumir(operacion.ejecutar());
+			}
+			mejorNanos = Math.min(mejorNanos, (System.nanoTime() - inicio) / (double) operaciones);
+			mejorBytes = Math.min(mejorBytes, (hilos.getThreadAllocatedBytes(hilo) - bytes) / operaciones);
+		}
+
+		Resultado resultado = new Resultado(nombre, mejorNanos, mejorBytes);
+		log.info("⏱️ {}: {} us/op, {} B/op (mejor de {} rondas de {} ops)", nombre,
+				String.format("%.1f", mejorNanos / 1000), mejorBytes, rondas, operaciones);
+		return resultado;
+	}
+
+	private static void consumir(Object resultado) {
+		sumidero += System.identityHashCode(resultado);
+	}
+}
@@ -0,0 +1,61 @@
+package com.arcbank.cbs.transaccion;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Collection;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lanza los microbenchmarks JMH (clases *Benchmark de src/test/java): cada uno en su propia JVM, con el
+ * calentamiento y las iteraciones que declara y el perfilador de GC para los bytes por operación. El resumen
+ * queda en el log. Los que necesitan BD o contexto de Spring usan {@link Medicion}.
+ * Se ejecuta con: mvn test -Dtest=MicrobenchmarksTests -Dbenchmark=true [-Dbenchmark.incluir=DineroBenchmark]
+ */
+@Slf4j
+class MicrobenchmarksTests {
+
+	private static final String TODOS = "com\\.arcbank\\.cbs\\.transaccion\\..*Benchmark\\.";
+
+	@Test
+	void ejecutar() throws RunnerException {
+		assumeTrue(Boolean.getBoolean("benchmark"), "benchmark=true no definido: se omite la medición");
+
+		String incluir = System.getProperty("benchmark.incluir", TODOS);
+		Options opciones = new OptionsBuilder()
+				.include(incluir)
+				.addProfiler(GCProfiler.class)
+				.shouldFailOnError(true)
+				.build();
+		Collection<RunResult> resultados = new Runner(opciones).run();
+		assertFalse(resultados.isEmpty(), "Ningún benchmark coincide con " + incluir);
+
+		for (RunResult resultado : resultados) {
+			Result<?> principal = resultado.getPrimaryResult();
+			Result<?> asignado = resultado.getSecondaryResults().get("gc.alloc.rate.norm");
+			String bytes = asignado != null ? String.format("%.0f B/op", asignado.getScore()) : "sin datos de GC";
+			if (resultado.getParams().getMode() == Mode.SampleTime) {
+				log.info("⏱️ {}: media {} {}, p99 {} {}, p99.9 {} {}, {}", resultado.getParams().getBenchmark(),
+						String.format("%.2f", principal.getScore()), principal.getScoreUnit(),
+						String.format("%.2f", principal.getStatistics().getPercentile(99)), principal.getScoreUnit(),
+						String.format("%.2f", principal.getStatistics().getPercentile(99.9)), principal.getScoreUnit(),
+						bytes);
+			} else {
+				log.info("⏱️ {}: {} ± {} {}, {}", resultado.getParams().getBenchmark(),
+						String.format("%.2f", principal.getScore()), String.format("%.2f", principal.getScoreError()),
+						principal.getScoreUnit(), bytes);
+			}
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.arcbank.cbs.transaccion.model;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ciclo de un posteo (saldo + monto, verificación de fondos, saldo - monto) con BigDecimal y con Dinero.
+ * Los bytes por operación salen del perfilador de GC (gc.alloc.rate.norm). Ver MicrobenchmarksTests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DineroBenchmark {
+
+	private BigDecimal saldoBigDecimal = new BigDecimal("1500.00");
+	private Dinero saldoDinero = Dinero.de("1500.00");
+	private int i;
+
+	@Benchmark
+	public BigDecimal posteoBigDecimal() {
+		BigDecimal monto = BigDecimal.valueOf(1000 + (i++ & 1023), 2);
+		BigDecimal credito = saldoBigDecimal.add(monto);
+		BigDecimal debito = credito.add(monto.negate());
+		if (debito.compareTo(BigDecimal.ZERO) < 0) {
+			throw new IllegalStateException();
+		}
+		saldoBigDecimal = debito;
+		return credito;
+	}
+
+	@Benchmark
+	public Dinero posteoDinero() {
+		Dinero monto = Dinero.deCentavos(1000 + (i++ & 1023));
+		Dinero credito = saldoDinero.sumar(monto);
+		Dinero debito = credito.sumar(monto.negar());
+		if (debito.esNegativo()) {
+			throw new IllegalStateException();
+		}
+		saldoDinero = debito;
+		return credito;
+	}
+}
@@ -0,0 +1,134 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.arcbank.cbs.transaccion.Medicion;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Alta de movimientos por el camino real de Hibernate: entidades Transaccion persistidas con el EntityManager,
+ * clave de la secuencia pooled de V7 (@SequenceGenerator allocationSize = 50) y hibernate.jdbc.batch_size con
+ * reWriteBatchedInserts de application.yaml. Se compara con la misma sesión sin batch y con lo que hacía
+ * IDENTITY (un INSERT ... RETURNING por fila), y se comprueba que hubo un nextval cada 50 filas.
+ * El outbox de eventos queda apagado: su INSERT por fila ocultaría la diferencia que se quiere medir.
+ * Las filas se descartan con el rollback de la prueba; los valores consumidos de la secuencia no.
+ * Requiere PostgreSQL con las migraciones: DB_URL=host:5432/db DB_USER=... DB_PASS=...
+ * Se ejecuta con: mvn test -Dtest=SecuenciasPooledBenchmarkTests -Dbenchmark=true
+ */
+@SpringBootTest(properties = "app.eventos.habilitado=false")
+@Transactional
+class SecuenciasPooledBenchmarkTests {
+
+	private static final int CUENTA = 2_000_000_000;
+	private static final int FILAS = 10_000;
+	// hibernate.jdbc.batch_size y allocationSize de Transaccion
+	private static final int BLOQUE = 50;
+	private static final int RONDAS = 3;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Antes de levantar el contexto: sin base no hay nada que medir
+	@BeforeAll
+	static void verificarEntorno() {
+		assumeTrue(Boolean.getBoolean("benchmark"), "benchmark=true no definido: se omite la medición");
+		String url = System.getenv("DB_URL");
+		assumeTrue(url != null && !url.isBlank(), "DB_URL no definida: se omite la medición");
+	}
+
+	@Test
+	void pooledConBatchSuperaAInsertPorFila() throws Exception {
+		// Una operación = FILAS altas; la primera ronda de cada variante es el calentamiento
+		long antes = ultimoValorSecuencia();
+		Medicion.Resultado batch = Medicion.medir("Hibernate pooled + batch de " + BLOQUE + ", " + FILAS + " filas",
+				1, RONDAS, 1, () -> persistir(BLOQUE));
+		long nextvals = (ultimoValorSecuencia() - antes) / BLOQUE;
+
+		Medicion.Resultado sinBatch = Medicion.medir("Hibernate pooled sin batch, " + FILAS + " filas", 1, RONDAS,
+				1, () -> persistir(1));
+		Medicion.Resultado porFila = Medicion.medir("INSERT ... RETURNING por fila (IDENTITY), " + FILAS + " filas",
+				1, RONDAS, 1, this::insertarPorFila);
+
+		// El optimizador pooled pudo traer un bloque a medio usar de antes de la medición
+		long esperados = (1 + RONDAS) * FILAS / BLOQUE;
+		assertTrue(nextvals <= esperados + 1,
+				"Hibernate pidió " + nextvals + " valores a la secuencia para " + esperados + " bloques de " + BLOQUE);
+		assertTrue(batch.nanosPorOperacion() < sinBatch.nanosPorOperacion(),
+				"El batch no mejora las altas sin batch: " + batch.nanosPorOperacion() / 1e6 + " ms vs "
+						+ sinBatch.nanosPorOperacion() / 1e6 + " ms");
+		assertTrue(batch.nanosPorOperacion() < porFila.nanosPorOperacion(),
+				"La secuencia pooled con batch no mejora a IDENTITY: " + batch.nanosPorOperacion() / 1e6 + " ms vs "
+						+ porFila.nanosPorOperacion() / 1e6 + " ms");
+	}
+
+	// Flush y clear cada BLOQUE altas, como una carga masiva: el contexto de persistencia no crece
+	private Object persistir(int batchJdbc) {
+		Session sesion = entityManager.unwrap(Session.class);
+		sesion.setJdbcBatchSize(batchJdbc);
+		try {
+			for (int i = 0; i < FILAS; i++) {
+				entityManager.persist(movimiento(i));
+				if ((i + 1) % BLOQUE == 0) {
+					entityManager.flush();
+					entityManager.clear();
+				}
+			}
+			entityManager.flush();
+			entityManager.clear();
+		} finally {
+			sesion.setJdbcBatchSize(null);
+		}
+		return sesion;
+	}
+
+	// Lo que hace Hibernate con IDENTITY: necesita la clave de cada fila, así que cada INSERT viaja solo
+	private Object insertarPorFila() {
+		long suma = 0;
+		for (int i = 0; i < FILAS; i++) {
+			Transaccion t = movimiento(i);
+			suma += jdbcTemplate.queryForObject("INSERT INTO public.\"Transaccion\" (\"TipoOperacion\", "
+					+ "\"IdCuentaOrigen\", \"Monto\", \"FechaCreacion\", \"Descripcion\", \"Canal\", \"Estado\") "
+					+ "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING \"IdTransaccion\"", Long.class,
+					t.getTipoOperacion().name(), t.getIdCuentaOrigen(), t.getMonto().aBigDecimal(),
+					t.getFechaCreacion(), t.getDescripcion(), t.getCanal(), t.getEstado().name());
+		}
+		return suma;
+	}
+
+	private static Transaccion movimiento(int i) {
+		return Transaccion.builder()
+				.tipoOperacion(TipoOperacion.DEPOSITO)
+				.idCuentaOrigen(CUENTA)
+				.monto(Dinero.deCentavos(100 + i % 100_000))
+				.fechaCreacion(LocalDateTime.now())
+				.descripcion("benchmark")
+				.canal("WEB")
+				.estado(EstadoTransaccion.PENDIENTE)
+				.build();
+	}
+
+	private long ultimoValorSecuencia() {
+		return jdbcTemplate.queryForObject(
+				"SELECT last_value FROM public.\"Transaccion_IdTransaccion_seq\"", Long.class);
+	}
+}
@@ -0,0 +1,104 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.arcbank.cbs.transaccion.model.CompensacionPosicion;
+import com.arcbank.cbs.transaccion.model.LoteTransaccionItem;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+
+import jakarta.persistence.SequenceGenerator;
+
+/**
+ * Verifica en una base ya migrada que cada secuencia pooled de V7 está alineada con su entidad: el INCREMENT
+ * coincide con el allocationSize y el próximo bloque [valor - allocationSize + 1 .. valor] queda por encima
+ * del mayor ID existente, también donde V7 corrió con filas que ya habían consumido IDs.
+ * Requiere PostgreSQL con las migraciones: DB_URL=host:5432/db DB_USER=... DB_PASS=... mvn test
+ * Sin DB_URL las pruebas se omiten.
+ */
+class SecuenciasPooledTests {
+
+	private static Connection conexion;
+
+	@BeforeAll
+	static void conectar() throws SQLException {
+		String url = System.getenv("DB_URL");
+		assumeTrue(url != null && !url.isBlank(), "DB_URL no definida: se omiten las pruebas de secuencias");
+		conexion = DriverManager.getConnection("jdbc:postgresql://" + url,
+				System.getenv().getOrDefault("DB_USER", "postgres"),
+				System.getenv().getOrDefault("DB_PASS", "admin"));
+	}
+
+	@AfterAll
+	static void desconectar() throws SQLException {
+		if (conexion != null) {
+			conexion.close();
+		}
+	}
+
+	static Stream<Arguments> secuencias() {
+		return Stream.of(
+				Arguments.of(Transaccion.class, "idTransaccion", "Transaccion", "IdTransaccion"),
+				Arguments.of(LoteTransaccionItem.class, "idItem", "LoteTransaccionItem", "IdItem"),
+				Arguments.of(CompensacionPosicion.class, "idPosicion", "CompensacionPosicion", "IdPosicion"));
+	}
+
+	@ParameterizedTest
+	@MethodSource("secuencias")
+	void secuenciaAlineadaConLaEntidad(Class<?> entidad, String campo, String tabla, String columna)
+			throws Exception {
+		SequenceGenerator generador = entidad.getDeclaredField(campo).getAnnotation(SequenceGenerator.class);
+		assertNotNull(generador, entidad.getSimpleName() + "." + campo + " no declara @SequenceGenerator");
+		String secuencia = generador.sequenceName().replace("\"", "");
+
+		long incremento;
+		long proximo;
+		try (PreparedStatement ps = conexion.prepareStatement("SELECT increment_by, last_value "
+				+ "FROM pg_sequences WHERE schemaname = 'public' AND sequencename = ?")) {
+			ps.setString(1, secuencia);
+			try (ResultSet rs = ps.executeQuery()) {
+				assertTrue(rs.next(), "No existe la secuencia " + secuencia);
+				incremento = rs.getLong(1);
+				// last_value es NULL en pg_sequences mientras el setval(..., false) de V7 no se haya consumido
+				long ultimo = rs.getLong(2);
+				proximo = rs.wasNull() ? valorSinConsumir(secuencia) : ultimo + incremento;
+			}
+		}
+		assertEquals(generador.allocationSize(), incremento,
+				"INCREMENT de " + secuencia + " distinto del allocationSize de " + entidad.getSimpleName());
+
+		long maximo;
+		try (Statement st = conexion.createStatement();
+				ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(\"" + columna + "\"), 0) FROM public.\""
+						+ tabla + "\"")) {
+			rs.next();
+			maximo = rs.getLong(1);
+		}
+		assertTrue(proximo - incremento + 1 > maximo, "El próximo bloque de " + secuencia + " ["
+				+ (proximo - incremento + 1) + ".." + proximo + "] pisa IDs existentes (máximo " + maximo + ")");
+	}
+
+	private static long valorSinConsumir(String secuencia) throws SQLException {
+		try (Statement st = conexion.createStatement();
+				ResultSet rs = st.executeQuery("SELECT last_value FROM public.\"" + secuencia + "\"")) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica con EXPLAIN que las búsquedas puntuales y de pendientes usan sus índices (V6/V10/V17).
+ * Requiere una base PostgreSQL con las migraciones aplicadas:
+ * PLANES_DB_URL=jdbc:postgresql://host:5432/db PLANES_DB_USER=... PLANES_DB_PASS=... mvn test
+ * Sin PLANES_DB_URL las pruebas se omiten.
+ */
+class TransaccionPlanesConsultaTests {
+
+	private static Connection conexion;
+
+	@BeforeAll
+	static void conectar() throws SQLException {
+		String url = System.getenv("PLANES_DB_URL");
+		assumeTrue(url != null && !url.isBlank(), "PLANES_DB_URL no definida: se omiten las pruebas de planes");
+		conexion = DriverManager.getConnection(url, System.getenv("PLANES_DB_USER"), System.getenv("PLANES_DB_PASS"));
+		try (Statement st = conexion.createStatement()) {
+			// Con tablas pequeñas el planificador prefiere Seq Scan; así el plan refleja los índices disponibles
+			st.execute("SET enable_seqscan = off");
+		}
+	}
+
+	@AfterAll
+	static void desconectar() throws SQLException {
+		if (conexion != null) {
+			conexion.close();
+		}
+	}
+
+	@Test
+	void codigoReferenciaUsaIndiceGlobal() throws SQLException {
+		String plan = explicar("SELECT c.\"IdTransaccion\" FROM public.\"TransaccionCodigo\" c "
+				+ "WHERE c.\"CodigoReferencia\" = '123456' ORDER BY c.\"FechaCreacion\" DESC LIMIT 1");
+		assertTrue(plan.contains("PK_TransaccionCodigo"), plan);
+		assertSinSeqScan(plan);
+	}
+
+	@Test
+	void estadoPorReferenciaLeeUnaSolaParticion() throws SQLException {
+		String plan = explicar("SELECT t.\"Estado\" FROM public.\"TransaccionReferencia\" r "
+				+ "JOIN public.\"Transaccion\" t ON t.\"IdTransaccion\" = r.\"IdTransaccion\" "
+				+ "AND t.\"FechaCreacion\" = r.\"FechaCreacion\" WHERE r.\"Referencia\" = 'REF-PLAN'");
+		assertTrue(plan.contains("UX_Transaccion_Referencia"), plan);
+		assertSinSeqScan(plan);
+	}
+
+	@Test
+	void porIdLeeUnaSolaParticion() throws SQLException {
+		String plan = explicar("SELECT t.\"Estado\" FROM public.\"TransaccionUbicacion\" u "
+				+ "JOIN public.\"Transaccion\" t ON t.\"IdTransaccion\" = u.\"IdTransaccion\" "
+				+ "AND t.\"FechaCreacion\" = u.\"FechaCreacion\" WHERE u.\"IdTransaccion\" = 1");
+		assertTrue(plan.contains("PK_TransaccionUbicacion"), plan);
+		assertSinSeqScan(plan);
+	}
+
+	@Test
+	void pendientesUsanIndiceParcial() throws SQLException {
+		String plan = explicar("SELECT t.\"IdTransaccion\" FROM public.\"Transaccion\" t "
+				+ "WHERE t.\"Estado\" = 'PENDIENTE' AND t.\"FechaCreacion\" < now() ORDER BY t.\"FechaCreacion\" LIMIT 100");
+		assertUsaIndice(plan, "IX_Transaccion_Pendiente");
+	}
+
+	@Test
+	void bancoExternoPorRangoUsaIndiceCompuesto() throws SQLException {
+		String plan = explicar("SELECT t.\"Monto\" FROM public.\"Transaccion\" t WHERE t.\"IdBancoExterno\" = 'BANTEC' "
+				+ "AND t.\"FechaCreacion\" >= now() - interval '1 day' AND t.\"FechaCreacion\" < now()");
+		assertUsaIndice(plan, "IX_Transaccion_BancoExterno_Fecha");
+	}
+
+	private static String explicar(String sql) throws SQLException {
+		StringBuilder plan = new StringBuilder();
+		try (Statement st = conexion.createStatement(); ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+			while (rs.next()) {
+				plan.append(rs.getString(1)).append('\n');
+			}
+		}
+		return plan.toString();
+	}
+
+	private static void assertSinSeqScan(String plan) {
+		assertFalse(plan.contains("Seq Scan"), plan);
+	}
+
+	// En tablas particionadas cada partición tiene su propia copia del índice, con nombre generado
+	private static void assertUsaIndice(String plan, String indicePadre) throws SQLException {
+		Set<String> nombres = new HashSet<>();
+		nombres.add(indicePadre);
+		try (PreparedStatement ps = conexion.prepareStatement("SELECT c.relname FROM pg_inherits i "
+				+ "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?")) {
+			ps.setString(1, indicePadre);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					nombres.add(rs.getString(1));
+				}
+			}
+		}
+		assertTrue(nombres.stream().anyMatch(plan::contains), "Ningún índice de " + indicePadre + " en:\n" + plan);
+		assertSinSeqScan(plan);
+	}
+}
@@ -0,0 +1,123 @@
+package com.arcbank.cbs.transaccion.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.arcbank.cbs.transaccion.Medicion;
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Compara una página de historial leída como entidades (solo lectura) y mapeada a DTO, como se hacía antes,
+ * contra la proyección findResumenPorCuenta. Mide tiempo y bytes asignados por página con {@link Medicion}.
+ * Los movimientos sembrados se descartan con el rollback de la prueba.
+ * Requiere PostgreSQL con las migraciones: DB_URL=host:5432/db DB_USER=... DB_PASS=...
+ * Se ejecuta con: mvn test -Dtest=TransaccionProyeccionBenchmarkTests -Dbenchmark=true
+ */
+@SpringBootTest
+@Transactional
+class TransaccionProyeccionBenchmarkTests {
+
+	private static final int CUENTA = 2_000_000_000;
+	private static final int FILAS = 500;
+	private static final int CALENTAMIENTO = 200;
+	private static final int MEDICIONES = 1_000;
+	private static final int RONDAS = 3;
+
+	@Autowired
+	private TransaccionRepository transaccionRepository;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	// Antes de levantar el contexto: sin base no hay nada que medir
+	@BeforeAll
+	static void verificarEntorno() {
+		assumeTrue(Boolean.getBoolean("benchmark"), "benchmark=true no definido: se omite la medición");
+		String url = System.getenv("DB_URL");
+		assumeTrue(url != null && !url.isBlank(), "DB_URL no definida: se omite la medición");
+	}
+
+	@Test
+	void proyeccionAsignaMenosQueEntidades() throws Exception {
+		LocalDateTime hasta = LocalDateTime.now().plusMinutes(1);
+		LocalDateTime desde = hasta.minusDays(1);
+		entityManager.createNativeQuery("INSERT INTO public.\"Transaccion\" (\"TipoOperacion\", \"IdCuentaOrigen\", "
+				+ "\"IdCuentaDestino\", \"Monto\", \"SaldoResultante\", \"FechaCreacion\", \"Descripcion\", "
+				+ "\"Canal\", \"Estado\") SELECT 'TRANSFERENCIA_INTERNA', :cuenta, 1, 10.50, 100.00, "
+				+ "now() - g * interval '1 second', 'benchmark', 'WEB', 'COMPLETADA' "
+				+ "FROM generate_series(1, :filas) g")
+				.setParameter("cuenta", CUENTA)
+				.setParameter("filas", FILAS)
+				.executeUpdate();
+		assertEquals(FILAS, porEntidades(desde, hasta).size());
+		assertEquals(FILAS, porProyeccion(desde, hasta).size());
+
+		Medicion.Resultado entidades = Medicion.medir("Historial de " + FILAS + " filas con entidades", CALENTAMIENTO,
+				RONDAS, MEDICIONES, () -> porEntidades(desde, hasta));
+		Medicion.Resultado proyeccion = Medicion.medir("Historial de " + FILAS + " filas con proyección",
+				CALENTAMIENTO, RONDAS, MEDICIONES, () -> porProyeccion(desde, hasta));
+
+		assertTrue(proyeccion.bytesPorOperacion() < entidades.bytesPorOperacion(),
+				"La proyección no asigna menos que las entidades: " + proyeccion.bytesPorOperacion() + " B vs "
+						+ entidades.bytesPorOperacion() + " B por página");
+	}
+
+	private List<TransaccionResponseDTO> porProyeccion(LocalDateTime desde, LocalDateTime hasta) {
+		return transaccionRepository.findResumenPorCuenta(CUENTA, desde, hasta);
+	}
+
+	// Lo que hacía el historial antes: entidades en modo solo lectura (transacción readOnly) y mapeo a DTO
+	private List<TransaccionResponseDTO> porEntidades(LocalDateTime desde, LocalDateTime hasta) {
+		List<TransaccionResponseDTO> pagina = entityManager.createQuery("SELECT t FROM Transaccion t "
+				+ "WHERE (t.idCuentaOrigen = :idCuenta OR t.idCuentaDestino = :idCuenta) "
+				+ "AND t.fechaCreacion >= :desde AND t.fechaCreacion < :hasta", Transaccion.class)
+				.setParameter("idCuenta", CUENTA)
+				.setParameter("desde", desde)
+				.setParameter("hasta", hasta)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultList().stream()
+				.map(TransaccionProyeccionBenchmarkTests::mapear)
+				.toList();
+		entityManager.clear();
+		return pagina;
+	}
+
+	private static TransaccionResponseDTO mapear(Transaccion t) {
+		Dinero saldo = t.getSaldoResultante() != null ? t.getSaldoResultante() : Dinero.CERO;
+		if (Integer.valueOf(CUENTA).equals(t.getIdCuentaDestino()) && t.getSaldoResultanteDestino() != null) {
+			saldo = t.getSaldoResultanteDestino();
+		}
+		return TransaccionResponseDTO.builder()
+				.idTransaccion(t.getIdTransaccion())
+				.referencia(t.getReferencia())
+				.tipoOperacion(t.getTipoOperacion())
+				.idCuentaOrigen(t.getIdCuentaOrigen())
+				.idCuentaDestino(t.getIdCuentaDestino())
+				.cuentaExterna(t.getCuentaExterna())
+				.idBancoExterno(t.getIdBancoExterno())
+				.monto(t.getMonto())
+				.saldoResultante(saldo)
+				.fechaCreacion(t.getFechaCreacion())
+				.descripcion(t.getDescripcion())
+				.canal(t.getCanal())
+				.estado(t.getEstado())
+				.codigoReferencia(t.getCodigoReferencia())
+				.build();
+	}
+}
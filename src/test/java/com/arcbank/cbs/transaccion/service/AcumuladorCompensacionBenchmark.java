@@ -0,0 +1,85 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arcbank.cbs.transaccion.dto.MovimientoCompensacionDTO;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.TipoOperacion;
+
+/**
+ * Pasada única del corte de compensación sobre un día sintético de movimientos interbancarios contra el cálculo
+ * ingenuo (sumas en BigDecimal por banco). Presupuesto: al menos 1 millón de movimientos por segundo, es decir
+ * menos de 2000 ms por día de 2 millones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AcumuladorCompensacionBenchmark {
+
+	private static final int MOVIMIENTOS = 2_000_000;
+	private static final int BANCOS = 12;
+
+	private List<MovimientoCompensacionDTO> dia;
+
+	@Setup
+	public void preparar() {
+		dia = generar();
+		if (ingenuo().compareTo(pasadaUnica()) != 0) {
+			throw new IllegalStateException("La pasada única no coincide con el cálculo ingenuo");
+		}
+	}
+
+	@Benchmark
+	public BigDecimal pasadaUnica() {
+		AcumuladorCompensacion acumulador = new AcumuladorCompensacion();
+		dia.forEach(acumulador::acumular);
+		return acumulador.getPosicionNetaTotal();
+	}
+
+	// Referencia: solo salidas y entradas completadas, que es todo lo que genera el día sintético
+	@Benchmark
+	public BigDecimal ingenuo() {
+		Map<String, BigDecimal> netos = new TreeMap<>();
+		for (MovimientoCompensacionDTO m : dia) {
+			if (m.getEstado() != EstadoTransaccion.COMPLETADA) {
+				continue;
+			}
+			BigDecimal monto = m.getMonto().aBigDecimal();
+			BigDecimal firmado = m.getTipoOperacion() == TipoOperacion.TRANSFERENCIA_ENTRADA ? monto : monto.negate();
+			netos.merge(m.getIdBancoExterno().trim().toUpperCase(), firmado, BigDecimal::add);
+		}
+		return netos.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add).setScale(2);
+	}
+
+	// Nueve de cada diez completadas; el resto PENDIENTE, que el corte arrastra y no acumula
+	private static List<MovimientoCompensacionDTO> generar() {
+		List<MovimientoCompensacionDTO> dia = new ArrayList<>(MOVIMIENTOS);
+		for (int i = 0; i < MOVIMIENTOS; i++) {
+			TipoOperacion tipo = i % 2 == 0 ? TipoOperacion.TRANSFERENCIA_SALIDA : TipoOperacion.TRANSFERENCIA_ENTRADA;
+			EstadoTransaccion estado = i % 10 == 9 ? EstadoTransaccion.PENDIENTE : EstadoTransaccion.COMPLETADA;
+			Dinero monto = Dinero.deCentavos(100 + (i * 7919L) % 500_000);
+			dia.add(new MovimientoCompensacionDTO(tipo, "BANCO" + (i % BANCOS), monto, estado, null, false, i, null));
+		}
+		return dia;
+	}
+}
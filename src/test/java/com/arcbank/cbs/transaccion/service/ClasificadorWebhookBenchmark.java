@@ -0,0 +1,82 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.arcbank.cbs.transaccion.dto.SwitchTransferRequest;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * Clasificación del webhook unificado en una pasada (ClasificadorWebhook) contra la anterior: leer el cuerpo
+ * completo como Map, mirar header/body y convertValue al DTO. Ambas variantes deben enlazar el mismo pacs.008;
+ * los bytes por mensaje salen del perfilador de GC (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClasificadorWebhookBenchmark {
+
+	private static final byte[] PACS_008 = ("{\"header\":{\"messageId\":\"MSG-20261019-000123\","
+			+ "\"creationDateTime\":\"2026-10-19T10:15:30Z\",\"originatingBankId\":\"BANTEC\","
+			+ "\"messageNamespace\":\"pacs.008.001.08\"},\"body\":{\"instructionId\":"
+			+ "\"5f0c6c1e-2b7a-4c55-9d1e-3f4b2a1c9e77\",\"endToEndId\":\"E2E-000123\","
+			+ "\"amount\":{\"currency\":\"USD\",\"value\":1250.75},"
+			+ "\"debtor\":{\"name\":\"Juan Perez\",\"accountId\":\"2200123456\",\"accountType\":\"SAVINGS\","
+			+ "\"bankId\":\"BANTEC\"},\"creditor\":{\"name\":\"Maria Lopez\",\"accountId\":\"1100987654\","
+			+ "\"accountType\":\"CHECKING\",\"bankId\":\"ARCBANK\"},\"remittanceInformation\":\"Pago factura 889\"}}")
+			.getBytes(StandardCharsets.UTF_8);
+
+	// Igual que el ObjectMapper de Spring Boot: ignora propiedades desconocidas (messageNamespace)
+	private final ObjectMapper objectMapper = JsonMapper.builder()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+	private final ClasificadorWebhook clasificador = new ClasificadorWebhook(objectMapper);
+
+	@Setup
+	public void verificar() throws IOException {
+		if (clasificador.clasificar(PACS_008).tipo() != ClasificadorWebhook.TipoMensaje.TRANSFERENCIA) {
+			throw new IllegalStateException("El pacs.008 de prueba no se clasificó como transferencia");
+		}
+		if (!conMap().equals(pasadaUnica())) {
+			throw new IllegalStateException("Ambas variantes deben enlazar el mismo pacs.008");
+		}
+	}
+
+	// Lo que hacía el controlador antes: @RequestBody Map y detección por claves del body
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public SwitchTransferRequest conMap() throws IOException {
+		Map<String, Object> payload = objectMapper.readValue(PACS_008, Map.class);
+		Map<String, Object> header = (Map<String, Object>) payload.get("header");
+		Map<String, Object> body = (Map<String, Object>) payload.get("body");
+		if (header != null && ClasificadorWebhook.NAMESPACE_ACMT_023.equals(header.get("messageNamespace"))) {
+			throw new IllegalStateException("Se esperaba un pacs.008, llegó un acmt.023");
+		}
+		if (body != null && (body.containsKey("originalInstructionId") || body.containsKey("returnReason"))) {
+			throw new IllegalStateException("Se esperaba un pacs.008, llegó un pacs.004");
+		}
+		return objectMapper.convertValue(payload, SwitchTransferRequest.class);
+	}
+
+	@Benchmark
+	public SwitchTransferRequest pasadaUnica() throws IOException {
+		return clasificador.clasificar(PACS_008).transferencia();
+	}
+}
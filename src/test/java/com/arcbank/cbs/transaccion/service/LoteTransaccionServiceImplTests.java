@@ -0,0 +1,307 @@
+package com.arcbank.cbs.transaccion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.arcbank.cbs.transaccion.dto.LoteRequestDTO;
+import com.arcbank.cbs.transaccion.dto.TransaccionRequestDTO;
+import com.arcbank.cbs.transaccion.dto.TransaccionResponseDTO;
+import com.arcbank.cbs.transaccion.exception.BusinessException;
+import com.arcbank.cbs.transaccion.model.Dinero;
+import com.arcbank.cbs.transaccion.model.EstadoTransaccion;
+import com.arcbank.cbs.transaccion.model.LoteTransaccion;
+import com.arcbank.cbs.transaccion.model.LoteTransaccionItem;
+import com.arcbank.cbs.transaccion.model.Transaccion;
+import com.arcbank.cbs.transaccion.repository.LoteTransaccionItemRepository;
+import com.arcbank.cbs.transaccion.repository.LoteTransaccionRepository;
+import com.arcbank.cbs.transaccion.repository.TransaccionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validator;
+
+/**
+ * Despacho de lotes sin base de datos: los ítems pendientes entran por el barrido de lotes sin actividad, que
+ * ejecuta el mismo despacho que un lote recién creado y cierra el lote al terminar todos los grupos.
+ */
+class LoteTransaccionServiceImplTests {
+
+	private static final int ID_LOTE = 7;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private LoteTransaccionRepository loteRepository;
+	private LoteTransaccionItemRepository itemRepository;
+	private TransaccionRepository transaccionRepository;
+	private TransaccionService transaccionService;
+	private TransactionTemplate transactionTemplate;
+	private ThreadPoolTaskExecutor executor;
+	private LoteTransaccion lote;
+	private LoteTransaccionServiceImpl servicio;
+
+	// Hilo que ejecutó cada ítem (por referencia), en orden de ejecución
+	private final Map<String, String> hiloPorItem = new ConcurrentHashMap<>();
+	private final List<String> orden = Collections.synchronizedList(new ArrayList<>());
+
+	@BeforeEach
+	void preparar() {
+		loteRepository = mock(LoteTransaccionRepository.class);
+		itemRepository = mock(LoteTransaccionItemRepository.class);
+		transaccionRepository = mock(TransaccionRepository.class);
+		transaccionService = mock(TransaccionService.class);
+		transactionTemplate = mock(TransactionTemplate.class);
+		CoordinadorTrabajos coordinador = mock(CoordinadorTrabajos.class);
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(4);
+		executor.setThreadNamePrefix("lote-test-");
+		executor.initialize();
+
+		lote = LoteTransaccion.builder().idLote(ID_LOTE).estado("EN_PROCESO").totalItems(0).build();
+		when(loteRepository.findIdsEnProcesoSinActividad(any())).thenReturn(List.of(ID_LOTE));
+		when(loteRepository.reclamar(any(), any(), any())).thenReturn(1);
+		when(loteRepository.findById(ID_LOTE)).thenReturn(Optional.of(lote));
+		when(transaccionRepository.findByReferencia(anyString())).thenReturn(Optional.empty());
+		when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0)
+				.doInTransaction(null));
+		// Este nodo tiene el lease del barrido
+		doAnswer(inv -> {
+			inv.<Consumer<CoordinadorTrabajos.Lease>>getArgument(1)
+					.accept(new CoordinadorTrabajos.Lease("lotes-barrido", 0, 1, 1L));
+			return null;
+		}).when(coordinador).ejecutar(eq("lotes-barrido"), any());
+
+		servicio = new LoteTransaccionServiceImpl(loteRepository, itemRepository, transaccionRepository,
+				transaccionService, executor, transactionTemplate, objectMapper, mock(Validator.class), coordinador);
+		ReflectionTestUtils.setField(servicio, "maxItems", 20_000);
+	}
+
+	@AfterEach
+	void cerrar() {
+		executor.shutdown();
+	}
+
+	@Test
+	void itemsQueCompartenCuentaVanEnSerieYLosDemasEnParalelo() throws Exception {
+		// {1,2,3} quedan unidas por A (1->2), B (2->3) y D (depósito a 3); C (4->5) es otro grupo
+		LoteTransaccionItem a = item(1, transferencia(1, 2));
+		LoteTransaccionItem b = item(2, transferencia(2, 3));
+		LoteTransaccionItem c = item(3, transferencia(4, 5));
+		LoteTransaccionItem d = item(4, deposito(3));
+		when(itemRepository.findPendientes(ID_LOTE)).thenReturn(List.of(a, b, c, d));
+
+		// A espera a C: si C estuviera en el grupo de A (detrás de él) el lote no avanzaría
+		CountDownLatch cEjecutado = new CountDownLatch(1);
+		when(transaccionService.crearTransaccionDeLote(any())).thenAnswer(inv -> {
+			TransaccionRequestDTO dto = inv.getArgument(0);
+			registrar(dto);
+			if (dto.getReferencia().equals(c.getClaveIdempotencia())) {
+				cEjecutado.countDown();
+			} else if (dto.getReferencia().equals(a.getClaveIdempotencia())
+					&& !cEjecutado.await(5, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("C no corrió en paralelo con A");
+			}
+			return respuesta(100 + orden.size());
+		});
+
+		despacharYEsperar();
+
+		assertEquals(List.of(a.getClaveIdempotencia(), b.getClaveIdempotencia(), d.getClaveIdempotencia()),
+				orden.stream().filter(r -> !r.equals(c.getClaveIdempotencia())).toList());
+		String hiloGrupo = hiloPorItem.get(a.getClaveIdempotencia());
+		assertEquals(hiloGrupo, hiloPorItem.get(b.getClaveIdempotencia()));
+		assertEquals(hiloGrupo, hiloPorItem.get(d.getClaveIdempotencia()));
+		List.of(a, b, c, d).forEach(i -> assertEquals("COMPLETADA", i.getEstado()));
+	}
+
+	@Test
+	void itemYaEjecutadoNoSeVuelveAEjecutar() throws Exception {
+		LoteTransaccionItem completada = item(1, transferencia(1, 2));
+		LoteTransaccionItem fallida = item(2, transferencia(3, 4));
+		LoteTransaccionItem nuevo = item(3, transferencia(5, 6));
+		when(itemRepository.findPendientes(ID_LOTE)).thenReturn(List.of(completada, fallida, nuevo));
+		when(transaccionRepository.findByReferencia(completada.getClaveIdempotencia()))
+				.thenReturn(Optional.of(transaccion(41, EstadoTransaccion.COMPLETADA)));
+		when(transaccionRepository.findByReferencia(fallida.getClaveIdempotencia()))
+				.thenReturn(Optional.of(transaccion(42, EstadoTransaccion.FALLIDA)));
+		when(transaccionService.crearTransaccionDeLote(any())).thenAnswer(inv -> {
+			registrar(inv.getArgument(0));
+			return respuesta(43);
+		});
+
+		despacharYEsperar();
+
+		// Solo el ítem sin transacción previa llega al servicio; los otros toman el estado registrado
+		assertEquals(List.of(nuevo.getClaveIdempotencia()), orden);
+		assertEquals("COMPLETADA", completada.getEstado());
+		assertEquals(41, completada.getIdTransaccion());
+		assertEquals("FALLIDA", fallida.getEstado());
+		assertEquals(42, fallida.getIdTransaccion());
+		assertEquals("COMPLETADA", nuevo.getEstado());
+		assertEquals(43, nuevo.getIdTransaccion());
+	}
+
+	@Test
+	void itemSinResultadoFinalQuedaAbierto() throws Exception {
+		// Salida interbancaria esperando al Switch y entrada con una devolución en curso
+		LoteTransaccionItem pendiente = item(1, transferencia(1, 2));
+		LoteTransaccionItem reversando = item(2, transferencia(3, 4));
+		LoteTransaccionItem reversada = item(3, transferencia(5, 6));
+		when(itemRepository.findPendientes(ID_LOTE)).thenReturn(List.of(pendiente, reversando, reversada));
+		when(transaccionRepository.findByReferencia(reversando.getClaveIdempotencia()))
+				.thenReturn(Optional.of(transaccion(61, EstadoTransaccion.REVERSANDO)));
+		when(transaccionRepository.findByReferencia(reversada.getClaveIdempotencia()))
+				.thenReturn(Optional.of(transaccion(62, EstadoTransaccion.REVERSADA)));
+		when(transaccionService.crearTransaccionDeLote(any())).thenReturn(respuesta(60, EstadoTransaccion.PENDIENTE));
+
+		despacharYEsperar();
+
+		assertEquals("PROCESANDO", pendiente.getEstado());
+		assertEquals(60, pendiente.getIdTransaccion());
+		assertEquals("PROCESANDO", reversando.getEstado());
+		assertEquals(61, reversando.getIdTransaccion());
+		assertEquals("FALLIDA", reversada.getEstado());
+		assertEquals(62, reversada.getIdTransaccion());
+	}
+
+	@Test
+	void itemInterrumpidoSinTransaccionQuedaEnRevision() throws Exception {
+		// PROCESANDO sin fila: el nodo cayó a mitad del posteo y no se sabe si el saldo se movió
+		LoteTransaccionItem interrumpido = item(1, transferencia(1, 2));
+		interrumpido.setEstado("PROCESANDO");
+		LoteTransaccionItem retomado = item(2, transferencia(3, 4));
+		retomado.setEstado("PROCESANDO");
+		when(itemRepository.findPendientes(ID_LOTE)).thenReturn(List.of(interrumpido, retomado));
+		when(transaccionRepository.findByReferencia(retomado.getClaveIdempotencia()))
+				.thenReturn(Optional.of(transaccion(71, EstadoTransaccion.COMPLETADA)));
+		when(itemRepository.contarPorEstado(ID_LOTE))
+				.thenReturn(List.of(new Object[] { "REVISION", 1L }, new Object[] { "COMPLETADA", 1L }));
+
+		despacharYEsperar();
+
+		verify(transaccionService, never()).crearTransaccionDeLote(any());
+		assertEquals("REVISION", interrumpido.getEstado());
+		assertNull(interrumpido.getIdTransaccion());
+		assertEquals("COMPLETADA", retomado.getEstado());
+		assertEquals(71, retomado.getIdTransaccion());
+		// El ítem en revisión mantiene el lote abierto
+		assertEquals("EN_PROCESO", lote.getEstado());
+	}
+
+	@Test
+	void unFalloNoDetieneAlRestoDelGrupo() throws Exception {
+		// Los tres tocan la cuenta 1: mismo grupo, en serie
+		LoteTransaccionItem rechazadoNegocio = item(1, transferencia(1, 2));
+		LoteTransaccionItem errorTecnico = item(2, transferencia(1, 3));
+		LoteTransaccionItem correcto = item(3, transferencia(1, 4));
+		when(itemRepository.findPendientes(ID_LOTE)).thenReturn(List.of(rechazadoNegocio, errorTecnico, correcto));
+		when(transaccionService.crearTransaccionDeLote(any())).thenAnswer(inv -> {
+			TransaccionRequestDTO dto = inv.getArgument(0);
+			registrar(dto);
+			if (dto.getReferencia().equals(rechazadoNegocio.getClaveIdempotencia())) {
+				throw new BusinessException("Saldo insuficiente");
+			}
+			if (dto.getReferencia().equals(errorTecnico.getClaveIdempotencia())) {
+				throw new IllegalStateException("conexión cerrada");
+			}
+			return respuesta(50);
+		});
+
+		despacharYEsperar();
+
+		assertEquals(3, orden.size());
+		assertEquals("FALLIDA", rechazadoNegocio.getEstado());
+		assertEquals("Saldo insuficiente", rechazadoNegocio.getError());
+		assertNull(rechazadoNegocio.getIdTransaccion());
+		assertEquals("FALLIDA", errorTecnico.getEstado());
+		assertTrue(errorTecnico.getError().startsWith("Error técnico"), errorTecnico.getError());
+		assertEquals("COMPLETADA", correcto.getEstado());
+		assertEquals(50, correcto.getIdTransaccion());
+	}
+
+	@Test
+	void referenciaQueNoEsUuidRechazaElLote() {
+		TransaccionRequestDTO valido = transferencia(1, 2);
+		valido.setReferencia("0b7c4a8e-3f51-4c2d-9a60-5e1f2d3c4b5a");
+		TransaccionRequestDTO invalido = transferencia(3, 4);
+		invalido.setReferencia("PAGO-NOMINA-0001");
+		LoteRequestDTO request = new LoteRequestDTO();
+		request.setItems(List.of(valido, invalido));
+
+		BusinessException error = assertThrows(BusinessException.class, () -> servicio.crearLote(request));
+
+		assertTrue(error.getMessage().contains("ítem 2"), error.getMessage());
+		verify(transactionTemplate, never()).execute(any());
+	}
+
+	private void despacharYEsperar() {
+		servicio.reanudarLotesAbandonados();
+		// finalizarLote guarda el lote cuando terminaron todos los grupos
+		verify(loteRepository, timeout(10_000)).save(lote);
+	}
+
+	private void registrar(TransaccionRequestDTO dto) {
+		hiloPorItem.put(dto.getReferencia(), Thread.currentThread().getName());
+		orden.add(dto.getReferencia());
+	}
+
+	private LoteTransaccionItem item(int secuencia, TransaccionRequestDTO dto) throws Exception {
+		String clave = String.format("00000000-0000-4000-8000-%012d", secuencia);
+		dto.setReferencia(clave);
+		return LoteTransaccionItem.builder()
+				.idLote(ID_LOTE)
+				.secuencia(secuencia)
+				.claveIdempotencia(clave)
+				.payload(objectMapper.writeValueAsString(dto))
+				.estado("PENDIENTE")
+				.build();
+	}
+
+	private static TransaccionRequestDTO transferencia(int origen, int destino) {
+		return TransaccionRequestDTO.builder().tipoOperacion("TRANSFERENCIA_INTERNA").idCuentaOrigen(origen)
+				.idCuentaDestino(destino).monto(Dinero.de("10.00")).build();
+	}
+
+	private static TransaccionRequestDTO deposito(int destino) {
+		return TransaccionRequestDTO.builder().tipoOperacion("DEPOSITO").idCuentaDestino(destino)
+				.monto(Dinero.de("10.00")).build();
+	}
+
+	private static TransaccionResponseDTO respuesta(int idTransaccion) {
+		return respuesta(idTransaccion, EstadoTransaccion.COMPLETADA);
+	}
+
+	private static TransaccionResponseDTO respuesta(int idTransaccion, EstadoTransaccion estado) {
+		return TransaccionResponseDTO.builder().idTransaccion(idTransaccion).estado(estado).build();
+	}
+
+	private static Transaccion transaccion(int id, EstadoTransaccion estado) {
+		return Transaccion.builder().idTransaccion(id).estado(estado).build();
+	}
+}
@@ -0,0 +1,75 @@
+package com.arcbank.cbs.transaccion.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import com.arcbank.cbs.transaccion.model.Dinero;
+
+/**
+ * Latencia de la verificación de límites (solo memoria, sin BD) con 8 hilos posteando sobre cuentas y bancos
+ * compartidos. SampleTime reporta los percentiles; presupuesto: p99 por debajo de 1 ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class MotorLimitesBenchmark {
+
+	private static final Dinero MONTO = Dinero.de("12.34");
+
+	private MotorLimites motor;
+
+	@Setup
+	public void preparar() {
+		MotorLimites.Propiedades propiedades = new MotorLimites.Propiedades();
+		propiedades.setHabilitado(true);
+		propiedades.getCuenta().setMontoDia(Dinero.de("1000000000"));
+		propiedades.getCuenta().setCantidadDia(Integer.MAX_VALUE);
+		MotorLimites.Umbrales web = new MotorLimites.Umbrales();
+		web.setMontoHora(Dinero.de("1000000000"));
+		propiedades.getCanal().put("WEB", web);
+		propiedades.getBancoExterno().setMontoDia(Dinero.de("1000000000000"));
+		motor = new MotorLimites(propiedades, null, null);
+	}
+
+	@State(Scope.Thread)
+	public static class Hilo {
+		int semilla;
+		int i;
+
+		@Setup
+		public void preparar(ThreadParams hilo) {
+			semilla = hilo.getThreadIndex();
+		}
+
+		// Mezcla de cuentas propias del hilo y una cuenta caliente compartida por todos
+		int siguienteCuenta() {
+			int n = i++;
+			return n % 10 == 0 ? 1 : 1000 * (semilla + 1) + n % 500;
+		}
+	}
+
+	@Benchmark
+	public MotorLimites.Reserva verificarYReservar(Hilo hilo) {
+		MotorLimites.Reserva reserva = motor.verificarYReservar(hilo.siguienteCuenta(), "WEB", "BANCO" + (hilo.i % 5),
+				MONTO);
+		// Se devuelve enseguida para que los acumulados no crezcan durante toda la medición
+		motor.liberar(reserva);
+		return reserva;
+	}
+}